@@ -58,6 +58,21 @@ public final class ExchangeApiConfigBuilder {
     if (networkConfig != null) {
       final NetworkConfigImpl exchangeApiNetworkConfig = new NetworkConfigImpl();
       exchangeApiNetworkConfig.setConnectionTimeout(networkConfig.getConnectionTimeout());
+      exchangeApiNetworkConfig.setConnectionPoolSize(networkConfig.getConnectionPoolSize());
+      exchangeApiNetworkConfig.setConnectionIdleTimeout(networkConfig.getConnectionIdleTimeout());
+      exchangeApiNetworkConfig.setPublicRequestsPerSecond(
+          networkConfig.getPublicRequestsPerSecond());
+      exchangeApiNetworkConfig.setPrivateRequestsPerSecond(
+          networkConfig.getPrivateRequestsPerSecond());
+      exchangeApiNetworkConfig.setTradingRequestsPerSecond(
+          networkConfig.getTradingRequestsPerSecond());
+      exchangeApiNetworkConfig.setMaxRetries(networkConfig.getMaxRetries());
+      exchangeApiNetworkConfig.setRetryBackoff(networkConfig.getRetryBackoff());
+      exchangeApiNetworkConfig.setMaxRetryBackoff(networkConfig.getMaxRetryBackoff());
+      exchangeApiNetworkConfig.setCircuitBreakerFailureThreshold(
+          networkConfig.getCircuitBreakerFailureThreshold());
+      exchangeApiNetworkConfig.setCircuitBreakerOpenTimeout(
+          networkConfig.getCircuitBreakerOpenTimeout());
 
       final List<Integer> nonFatalErrorCodes = networkConfig.getNonFatalErrorCodes();
       if (nonFatalErrorCodes != null && !nonFatalErrorCodes.isEmpty()) {
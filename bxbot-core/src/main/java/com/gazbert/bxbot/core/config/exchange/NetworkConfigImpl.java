@@ -39,6 +39,16 @@ public class NetworkConfigImpl implements NetworkConfig {
   private Integer connectionTimeout;
   private List<Integer> nonFatalErrorCodes;
   private List<String> nonFatalErrorMessages;
+  private Integer connectionPoolSize;
+  private Integer connectionIdleTimeout;
+  private Double publicRequestsPerSecond;
+  private Double privateRequestsPerSecond;
+  private Double tradingRequestsPerSecond;
+  private Integer maxRetries;
+  private Integer retryBackoff;
+  private Integer maxRetryBackoff;
+  private Integer circuitBreakerFailureThreshold;
+  private Integer circuitBreakerOpenTimeout;
 
   public NetworkConfigImpl() {
     nonFatalErrorCodes = new ArrayList<>();
@@ -72,12 +82,112 @@ public class NetworkConfigImpl implements NetworkConfig {
     this.nonFatalErrorMessages = nonFatalErrorMessages;
   }
 
+  @Override
+  public Integer getConnectionPoolSize() {
+    return connectionPoolSize;
+  }
+
+  public void setConnectionPoolSize(Integer connectionPoolSize) {
+    this.connectionPoolSize = connectionPoolSize;
+  }
+
+  @Override
+  public Integer getConnectionIdleTimeout() {
+    return connectionIdleTimeout;
+  }
+
+  public void setConnectionIdleTimeout(Integer connectionIdleTimeout) {
+    this.connectionIdleTimeout = connectionIdleTimeout;
+  }
+
+  @Override
+  public Double getPublicRequestsPerSecond() {
+    return publicRequestsPerSecond;
+  }
+
+  public void setPublicRequestsPerSecond(Double publicRequestsPerSecond) {
+    this.publicRequestsPerSecond = publicRequestsPerSecond;
+  }
+
+  @Override
+  public Double getPrivateRequestsPerSecond() {
+    return privateRequestsPerSecond;
+  }
+
+  public void setPrivateRequestsPerSecond(Double privateRequestsPerSecond) {
+    this.privateRequestsPerSecond = privateRequestsPerSecond;
+  }
+
+  @Override
+  public Double getTradingRequestsPerSecond() {
+    return tradingRequestsPerSecond;
+  }
+
+  public void setTradingRequestsPerSecond(Double tradingRequestsPerSecond) {
+    this.tradingRequestsPerSecond = tradingRequestsPerSecond;
+  }
+
+  @Override
+  public Integer getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(Integer maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  @Override
+  public Integer getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(Integer retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  @Override
+  public Integer getMaxRetryBackoff() {
+    return maxRetryBackoff;
+  }
+
+  public void setMaxRetryBackoff(Integer maxRetryBackoff) {
+    this.maxRetryBackoff = maxRetryBackoff;
+  }
+
+  @Override
+  public Integer getCircuitBreakerFailureThreshold() {
+    return circuitBreakerFailureThreshold;
+  }
+
+  public void setCircuitBreakerFailureThreshold(Integer circuitBreakerFailureThreshold) {
+    this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+  }
+
+  @Override
+  public Integer getCircuitBreakerOpenTimeout() {
+    return circuitBreakerOpenTimeout;
+  }
+
+  public void setCircuitBreakerOpenTimeout(Integer circuitBreakerOpenTimeout) {
+    this.circuitBreakerOpenTimeout = circuitBreakerOpenTimeout;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
                .add("connectionTimeout", connectionTimeout)
                .add("nonFatalErrorCodes", nonFatalErrorCodes)
                .add("nonFatalErrorMessages", nonFatalErrorMessages)
+               .add("connectionPoolSize", connectionPoolSize)
+               .add("connectionIdleTimeout", connectionIdleTimeout)
+               .add("publicRequestsPerSecond", publicRequestsPerSecond)
+               .add("privateRequestsPerSecond", privateRequestsPerSecond)
+               .add("tradingRequestsPerSecond", tradingRequestsPerSecond)
+               .add("maxRetries", maxRetries)
+               .add("retryBackoff", retryBackoff)
+               .add("maxRetryBackoff", maxRetryBackoff)
+               .add("circuitBreakerFailureThreshold", circuitBreakerFailureThreshold)
+               .add("circuitBreakerOpenTimeout", circuitBreakerOpenTimeout)
                .toString();
   }
 }
@@ -0,0 +1,379 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderResult;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the Exchange Adapter and caches the results of its read-only calls for the duration of a
+ * single trade cycle.
+ *
+ * <p>When several strategies trade the same market, or the Emergency Stop Check and a strategy
+ * both fetch the balance, the exchange is only called once per cycle. If a second caller asks for
+ * the same data while the first call is still in flight, it waits for that call's result instead
+ * of making its own.
+ *
+ * <p>The cache is emptied at the start of every trade cycle, and whenever orders are created or
+ * cancelled - those calls change the open orders and balances on the exchange. Failed calls are
+ * never cached.
+ *
+ * <p>This class is thread-safe; it is called concurrently when strategyParallelism is enabled.
+ *
+ * @author gazbert
+ */
+class CycleCachingExchangeAdapter implements ExchangeAdapter {
+
+  private static final String TICKER_KEY_PREFIX = "getTicker:";
+  private static final String BALANCE_INFO_KEY = "getBalanceInfo";
+
+  private final ExchangeAdapter delegate;
+  private volatile ConcurrentMap<String, CompletableFuture<Object>> cycleCache =
+      new ConcurrentHashMap<>();
+  private final AtomicLong cycleCacheHits = new AtomicLong();
+  private final AtomicLong cycleCacheMisses = new AtomicLong();
+
+  CycleCachingExchangeAdapter(ExchangeAdapter delegate) {
+    this.delegate = delegate;
+  }
+
+  /** Empties the cache and resets the hit and miss counts at the start of a trade cycle. */
+  void startCycle() {
+    cycleCache = new ConcurrentHashMap<>();
+    cycleCacheHits.set(0);
+    cycleCacheMisses.set(0);
+  }
+
+  /**
+   * Returns the number of calls served from the cache in the current trade cycle.
+   *
+   * @return the cache hit count.
+   */
+  long getCycleCacheHits() {
+    return cycleCacheHits.get();
+  }
+
+  /**
+   * Returns the number of calls passed through to the exchange in the current trade cycle.
+   *
+   * @return the cache miss count.
+   */
+  long getCycleCacheMisses() {
+    return cycleCacheMisses.get();
+  }
+
+  /**
+   * Returns the wrapped Exchange Adapter.
+   *
+   * @return the wrapped Exchange Adapter.
+   */
+  ExchangeAdapter getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void init(ExchangeConfig config) {
+    delegate.init(config);
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return fetch("getMarketOrders:" + marketId, () -> delegate.getMarketOrders(marketId));
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws ExchangeNetworkException, TradingApiException {
+    return fetch(
+        "getMarketOrders:" + marketId + ":" + depth,
+        () -> delegate.getMarketOrders(marketId, depth));
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return fetch("getYourOpenOrders:" + marketId, () -> delegate.getYourOpenOrders(marketId));
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrder(marketId, orderType, quantity, price);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.cancelOrder(orderId, marketId);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public List<OrderResult> createOrders(List<OrderRequest> orderRequests)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrders(orderRequests);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public List<OrderResult> cancelOrders(List<String> orderIds, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.cancelOrders(orderIds, marketId);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public List<OrderResult> cancelAllOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.cancelAllOrders(marketId);
+    } finally {
+      invalidate();
+    }
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return fetch(
+        "getLatestMarketPrice:" + marketId, () -> delegate.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    return fetch(BALANCE_INFO_KEY, delegate::getBalanceInfo);
+  }
+
+  /*
+   * A forced refresh always goes to the exchange. The fresh balances are then cached for the rest
+   * of the cycle, unless an order was created or cancelled while they were being fetched.
+   */
+  @Override
+  public BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws ExchangeNetworkException, TradingApiException {
+    if (!forceRefresh) {
+      return getBalanceInfo();
+    }
+    final ConcurrentMap<String, CompletableFuture<Object>> cache = cycleCache;
+    cycleCacheMisses.incrementAndGet();
+    final BalanceInfo balanceInfo = delegate.getBalanceInfo(true);
+    cache.put(BALANCE_INFO_KEY, CompletableFuture.completedFuture(balanceInfo));
+    return balanceInfo;
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return fetch(
+        "getPercentageOfBuyOrderTakenForExchangeFee:" + marketId,
+        () -> delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return fetch(
+        "getPercentageOfSellOrderTakenForExchangeFee:" + marketId,
+        () -> delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public BigDecimal getMinimumOrderVolume(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return fetch(
+        "getMinimumOrderVolume:" + marketId, () -> delegate.getMinimumOrderVolume(marketId));
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return fetch(TICKER_KEY_PREFIX + marketId, () -> delegate.getTicker(marketId));
+  }
+
+  /*
+   * Tickers are cached per market, so a strategy calling getTicker after getTickers (or the other
+   * way round) in the same cycle is served from the cache. The markets not cached yet are fetched
+   * from the exchange in one call.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    final ConcurrentMap<String, CompletableFuture<Object>> cache = cycleCache;
+    final Map<String, Ticker> tickers = new LinkedHashMap<>();
+    final Map<String, CompletableFuture<Object>> tickersToFetch = new LinkedHashMap<>();
+    for (final String marketId : marketIds) {
+      if (tickers.containsKey(marketId) || tickersToFetch.containsKey(marketId)) {
+        continue;
+      }
+      final CompletableFuture<Object> result = new CompletableFuture<>();
+      final CompletableFuture<Object> existingResult =
+          cache.putIfAbsent(TICKER_KEY_PREFIX + marketId, result);
+      if (existingResult == null) {
+        tickers.put(marketId, null); // placeholder to keep the market ids in order
+        tickersToFetch.put(marketId, result);
+      } else {
+        cycleCacheHits.incrementAndGet();
+        tickers.put(marketId, (Ticker) await(existingResult));
+      }
+    }
+    if (tickersToFetch.isEmpty()) {
+      return tickers;
+    }
+
+    cycleCacheMisses.addAndGet(tickersToFetch.size());
+    try {
+      final Map<String, Ticker> fetchedTickers =
+          delegate.getTickers(new ArrayList<>(tickersToFetch.keySet()));
+      for (final Map.Entry<String, CompletableFuture<Object>> entry : tickersToFetch.entrySet()) {
+        final Ticker ticker = fetchedTickers.get(entry.getKey());
+        entry.getValue().complete(ticker);
+        tickers.put(entry.getKey(), ticker);
+      }
+      return tickers;
+    } catch (ExchangeNetworkException | TradingApiException | RuntimeException | Error e) {
+      for (final Map.Entry<String, CompletableFuture<Object>> entry : tickersToFetch.entrySet()) {
+        cache.remove(TICKER_KEY_PREFIX + entry.getKey(), entry.getValue());
+        entry.getValue().completeExceptionally(e);
+      }
+      throw e;
+    }
+  }
+
+  /*
+   * An order has changed the state of the account, so throw away everything fetched so far.
+   * Calls still in flight complete into the old map, so their results are not seen again.
+   */
+  private void invalidate() {
+    cycleCache = new ConcurrentHashMap<>();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T fetch(String key, ExchangeCall<T> call)
+      throws ExchangeNetworkException, TradingApiException {
+    final ConcurrentMap<String, CompletableFuture<Object>> cache = cycleCache;
+    final CompletableFuture<Object> result = new CompletableFuture<>();
+    final CompletableFuture<Object> existingResult = cache.putIfAbsent(key, result);
+    if (existingResult != null) {
+      cycleCacheHits.incrementAndGet();
+      return (T) await(existingResult);
+    }
+
+    cycleCacheMisses.incrementAndGet();
+    try {
+      final T value = call.call();
+      result.complete(value);
+      return value;
+    } catch (ExchangeNetworkException | TradingApiException | RuntimeException | Error e) {
+      cache.remove(key, result);
+      result.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> result)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExchangeNetworkException("Interrupted waiting for in-flight exchange call", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ExchangeNetworkException) {
+        throw (ExchangeNetworkException) cause;
+      } else if (cause instanceof TradingApiException) {
+        throw (TradingApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new TradingApiException("Unexpected failure of in-flight exchange call", cause);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ExchangeCall<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+}
@@ -0,0 +1,434 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderListener;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderResult;
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TrackedOrder;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Wraps the Exchange Adapter and tracks the orders the Trading Strategies create through it.
+ *
+ * <p>Every order created is recorded as NEW. Once per trade cycle, the Trading Engine reconciles
+ * the live orders with the exchange's open orders - one call per market that has live orders,
+ * shared with the strategies through the cycle cache - so strategies can look up an order's state
+ * with {@link #getTrackedOrder(String)}, or register an {@link OrderListener} to be told when it
+ * changes, instead of polling the exchange themselves.
+ *
+ * <p>An order still open with less than its original quantity remaining is PARTIAL. An order missing
+ * from the open orders on 2 reconciles in a row is FILLED, unless it was cancelled through this
+ * adapter; a single miss is not enough, as an order that has only just been created may not be
+ * listed by the exchange yet. Finished orders are kept for lookups until {@value
+ * #MAX_FINISHED_ORDERS} newer ones have finished.
+ *
+ * <p>Orders created without a client order id are given a random one. If creating an order fails
+ * with a network error, the exchange may still have accepted it, so the next request for the same
+ * order - same market, type, quantity and price - reuses its client order id. Exchange Adapters
+ * that support client order ids then look the order up instead of placing it twice. The client
+ * order id is only kept for the market's next trade cycle, so an identical order placed after that
+ * is a new order.
+ *
+ * <p>This class is thread-safe; it is called concurrently when strategyParallelism is enabled.
+ *
+ * @author gazbert
+ */
+class OrderTrackingExchangeAdapter implements ExchangeAdapter {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final int MAX_FINISHED_ORDERS = 1000;
+  static final int MAX_RETRIED_ORDERS = 100;
+
+  private final ExchangeAdapter delegate;
+  private final Map<String, TrackedOrder> trackedOrders = new ConcurrentHashMap<>();
+  private final Queue<String> finishedOrderIds = new ConcurrentLinkedQueue<>();
+  private final Set<String> missingOrderIds = ConcurrentHashMap.newKeySet();
+  private final List<OrderListener> orderListeners = new CopyOnWriteArrayList<>();
+  private final Map<String, RetriedOrder> retriedOrders = new LinkedHashMap<>();
+
+  OrderTrackingExchangeAdapter(ExchangeAdapter delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Reconciles the live orders on the given markets with the exchange's open orders, and notifies
+   * the listeners of any state changes. Markets without live orders are not fetched.
+   *
+   * <p>If a market's open orders cannot be fetched because of a network error, its orders are
+   * left as they are until the next reconcile; the other markets are still reconciled, and the
+   * strategies still run.
+   *
+   * <p>This is called at the start of the markets' trade cycles, so it also expires the client
+   * order ids kept for retries from before the markets' previous trade cycles.
+   *
+   * @param marketIds the ids of the markets to reconcile.
+   * @throws TradingApiException if the exchange returned an error fetching the open orders.
+   */
+  void reconcile(Collection<String> marketIds) throws TradingApiException {
+    expireRetriedOrders(marketIds);
+    final Set<String> marketsWithLiveOrders = new LinkedHashSet<>();
+    for (final TrackedOrder order : trackedOrders.values()) {
+      if (!order.getState().isFinished() && marketIds.contains(order.getMarketId())) {
+        marketsWithLiveOrders.add(order.getMarketId());
+      }
+    }
+    for (final String marketId : marketsWithLiveOrders) {
+      try {
+        reconcileMarket(marketId, delegate.getYourOpenOrders(marketId));
+      } catch (ExchangeNetworkException e) {
+        LOG.warn(
+            () ->
+                "Failed to fetch open orders to reconcile market "
+                    + marketId
+                    + " - its orders will be reconciled next time. Details: "
+                    + e.getMessage());
+      }
+    }
+  }
+
+  private void reconcileMarket(String marketId, List<OpenOrder> openOrders) {
+    final Map<String, OpenOrder> openOrdersById = new HashMap<>();
+    for (final OpenOrder openOrder : openOrders) {
+      openOrdersById.put(openOrder.getId(), openOrder);
+    }
+    for (final TrackedOrder order : trackedOrders.values()) {
+      if (order.getState().isFinished() || !order.getMarketId().equals(marketId)) {
+        continue;
+      }
+      final OpenOrder openOrder = openOrdersById.get(order.getOrderId());
+      if (openOrder == null) {
+        if (missingOrderIds.add(order.getOrderId())) {
+          LOG.info(() -> "Order not in open orders, will check again next time: " + order);
+        } else {
+          update(order, OrderState.FILLED, BigDecimal.ZERO);
+        }
+        continue;
+      }
+      missingOrderIds.remove(order.getOrderId());
+      if (openOrder.getQuantity() != null
+          && openOrder.getQuantity().compareTo(order.getRemainingQuantity()) < 0) {
+        update(order, OrderState.PARTIAL, openOrder.getQuantity());
+      }
+    }
+  }
+
+  /*
+   * The update only wins if the order has not changed since it was read, so an order cancelled by
+   * a strategy while it was being reconciled stays CANCELLED.
+   */
+  private void update(TrackedOrder order, OrderState newState, BigDecimal newRemainingQuantity) {
+    final TrackedOrder updatedOrder = order.withState(newState, newRemainingQuantity);
+    if (!trackedOrders.replace(order.getOrderId(), order, updatedOrder)) {
+      return;
+    }
+    LOG.info(() -> "Order state changed: " + updatedOrder);
+    if (newState.isFinished()) {
+      missingOrderIds.remove(order.getOrderId());
+      finishedOrderIds.add(order.getOrderId());
+      evictFinishedOrders();
+    }
+    for (final OrderListener listener : orderListeners) {
+      listener.onOrderStateChanged(updatedOrder);
+    }
+  }
+
+  private void evictFinishedOrders() {
+    while (finishedOrderIds.size() > MAX_FINISHED_ORDERS) {
+      final String orderId = finishedOrderIds.poll();
+      if (orderId != null) {
+        trackedOrders.remove(orderId);
+      }
+    }
+  }
+
+  private void track(
+      String orderId, String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+    if (orderId == null) {
+      return;
+    }
+    final TrackedOrder order =
+        new TrackedOrder(orderId, marketId, orderType, price, quantity, quantity, OrderState.NEW);
+    trackedOrders.put(orderId, order);
+    LOG.info(() -> "Tracking order: " + order);
+  }
+
+  private void cancelled(String orderId) {
+    final TrackedOrder order = trackedOrders.get(orderId);
+    if (order != null && !order.getState().isFinished()) {
+      update(order, OrderState.CANCELLED, order.getRemainingQuantity());
+    }
+  }
+
+  @Override
+  public TrackedOrder getTrackedOrder(String orderId) {
+    return trackedOrders.get(orderId);
+  }
+
+  @Override
+  public boolean addOrderListener(OrderListener listener) {
+    return orderListeners.add(listener);
+  }
+
+  @Override
+  public void init(ExchangeConfig config) {
+    delegate.init(config);
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getMarketOrders(marketId);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getMarketOrders(marketId, depth);
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getYourOpenOrders(marketId);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    final String requestKey =
+        marketId
+            + ':'
+            + orderType
+            + ':'
+            + quantity.stripTrailingZeros().toPlainString()
+            + '@'
+            + price.stripTrailingZeros().toPlainString();
+    final String clientOrderId = takeRetryClientOrderId(requestKey);
+    try {
+      return createOrder(marketId, orderType, quantity, price, clientOrderId);
+    } catch (ExchangeNetworkException e) {
+      putRetryClientOrderId(requestKey, marketId, clientOrderId);
+      throw e;
+    }
+  }
+
+  private String takeRetryClientOrderId(String requestKey) {
+    synchronized (retriedOrders) {
+      final RetriedOrder retriedOrder = retriedOrders.remove(requestKey);
+      return retriedOrder != null ? retriedOrder.clientOrderId : UUID.randomUUID().toString();
+    }
+  }
+
+  private void putRetryClientOrderId(String requestKey, String marketId, String clientOrderId) {
+    synchronized (retriedOrders) {
+      retriedOrders.put(requestKey, new RetriedOrder(marketId, clientOrderId));
+      final Iterator<RetriedOrder> oldestFirst = retriedOrders.values().iterator();
+      while (retriedOrders.size() > MAX_RETRIED_ORDERS) {
+        oldestFirst.next();
+        oldestFirst.remove();
+      }
+    }
+  }
+
+  /*
+   * A failed order's client order id is kept for 1 more trade cycle of its market: the first
+   * reconcile after the failure marks it as expiring, and the next one drops it.
+   */
+  private void expireRetriedOrders(Collection<String> marketIds) {
+    synchronized (retriedOrders) {
+      final Iterator<RetriedOrder> retriedOrderIterator = retriedOrders.values().iterator();
+      while (retriedOrderIterator.hasNext()) {
+        final RetriedOrder retriedOrder = retriedOrderIterator.next();
+        if (!marketIds.contains(retriedOrder.marketId)) {
+          continue;
+        }
+        if (retriedOrder.isExpiring) {
+          retriedOrderIterator.remove();
+        } else {
+          retriedOrder.isExpiring = true;
+        }
+      }
+    }
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    final String orderId =
+        delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+    track(orderId, marketId, orderType, quantity, price);
+    return orderId;
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    final boolean isCancelled = delegate.cancelOrder(orderId, marketId);
+    if (isCancelled) {
+      cancelled(orderId);
+    }
+    return isCancelled;
+  }
+
+  @Override
+  public List<OrderResult> createOrders(List<OrderRequest> orderRequests)
+      throws ExchangeNetworkException, TradingApiException {
+    final List<OrderResult> results = delegate.createOrders(orderRequests);
+    for (int i = 0; i < results.size() && i < orderRequests.size(); i++) {
+      final OrderResult result = results.get(i);
+      if (result.isSuccessful()) {
+        final OrderRequest request = orderRequests.get(i);
+        track(
+            result.getOrderId(),
+            request.getMarketId(),
+            request.getOrderType(),
+            request.getQuantity(),
+            request.getPrice());
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public List<OrderResult> cancelOrders(List<String> orderIds, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return cancelledOrders(delegate.cancelOrders(orderIds, marketId));
+  }
+
+  @Override
+  public List<OrderResult> cancelAllOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return cancelledOrders(delegate.cancelAllOrders(marketId));
+  }
+
+  private List<OrderResult> cancelledOrders(List<OrderResult> results) {
+    for (final OrderResult result : results) {
+      if (result.isSuccessful()) {
+        cancelled(result.getOrderId());
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getLatestMarketPrice(marketId);
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    return delegate.getBalanceInfo();
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getBalanceInfo(forceRefresh);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+  }
+
+  @Override
+  public BigDecimal getMinimumOrderVolume(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getMinimumOrderVolume(marketId);
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return delegate.getTicker(marketId);
+  }
+
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getTickers(marketIds);
+  }
+
+  /* The client order id of an order that failed with a network error. Guarded by retriedOrders. */
+  private static final class RetriedOrder {
+    private final String marketId;
+    private final String clientOrderId;
+    private boolean isExpiring;
+
+    RetriedOrder(String marketId, String clientOrderId) {
+      this.marketId = marketId;
+      this.clientOrderId = clientOrderId;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Schedules the Trading Engine's trade cycles and records how late each one started.
+ *
+ * <p>Two scheduling modes are supported:
+ *
+ * <ul>
+ *   <li>FIXED_DELAY - the next cycle starts tradeCycleInterval after the previous one completed.
+ *       This is the default, and the period drifts with the time taken to execute the cycle.
+ *   <li>FIXED_RATE - the next cycle starts tradeCycleInterval after the previous one started. If a
+ *       cycle overruns, the next one starts immediately and any further slots it missed are
+ *       skipped, i.e. they are coalesced into a single cycle.
+ * </ul>
+ *
+ * <p>This class is not thread-safe; it is only called from the engine thread.
+ *
+ * @author gazbert
+ */
+class TradeCycleScheduler {
+
+  /** The trade cycle scheduling modes. */
+  enum Schedule {
+    FIXED_DELAY,
+    FIXED_RATE
+  }
+
+  /** Sleeps the calling thread; allows tests to run without waiting. */
+  interface Sleeper {
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final Schedule schedule;
+  private final long intervalInNanos;
+  private final LongSupplier nanoClock;
+  private final Sleeper sleeper;
+  private final TradeCycleMetricsService tradeCycleMetricsService;
+
+  private boolean isFirstCycle = true;
+  private long scheduledCycleStart;
+  private long actualCycleStart;
+
+  /**
+   * Creates the Trade Cycle Scheduler.
+   *
+   * @param schedule the schedule name: FIXED_DELAY or FIXED_RATE. Null defaults to FIXED_DELAY.
+   * @param tradeCycleIntervalInSecs the trade cycle interval in secs.
+   * @param tradeCycleMetricsService the service the cycle timings are recorded to.
+   */
+  TradeCycleScheduler(
+      String schedule,
+      int tradeCycleIntervalInSecs,
+      TradeCycleMetricsService tradeCycleMetricsService) {
+    this(
+        parseSchedule(schedule),
+        TimeUnit.SECONDS.toNanos(tradeCycleIntervalInSecs),
+        System::nanoTime,
+        Thread::sleep,
+        tradeCycleMetricsService);
+  }
+
+  TradeCycleScheduler(
+      Schedule schedule,
+      long intervalInNanos,
+      LongSupplier nanoClock,
+      Sleeper sleeper,
+      TradeCycleMetricsService tradeCycleMetricsService) {
+    this.schedule = schedule;
+    this.intervalInNanos = intervalInNanos;
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+    this.tradeCycleMetricsService = tradeCycleMetricsService;
+  }
+
+  Schedule getSchedule() {
+    return schedule;
+  }
+
+  /** Must be called at the start of every trade cycle. */
+  void cycleStarted() {
+    final long now = nanoClock.getAsLong();
+    if (isFirstCycle) {
+      scheduledCycleStart = now;
+      isFirstCycle = false;
+    }
+
+    long skippedCycles = 0;
+    long lag = Math.max(0, now - scheduledCycleStart);
+    if (schedule == Schedule.FIXED_RATE && lag >= intervalInNanos) {
+      // Coalesce the slots we've missed and re-align to the most recent one.
+      skippedCycles = lag / intervalInNanos;
+      scheduledCycleStart += skippedCycles * intervalInNanos;
+      lag = now - scheduledCycleStart;
+      final long skipped = skippedCycles;
+      LOG.warn(() -> "Previous trade cycle overran - skipped " + skipped + " trade cycle(s)");
+    }
+
+    actualCycleStart = now;
+    final long lagInMillis = TimeUnit.NANOSECONDS.toMillis(lag);
+    LOG.info(() -> "Trade cycle started " + lagInMillis + "ms late");
+    tradeCycleMetricsService.recordCycleStart(lagInMillis, skippedCycles);
+  }
+
+  /**
+   * Sleeps until the next trade cycle is due to start.
+   *
+   * @throws InterruptedException if the engine thread is interrupted while sleeping.
+   */
+  void awaitNextCycle() throws InterruptedException {
+    final long now = nanoClock.getAsLong();
+    tradeCycleMetricsService.recordCycleEnd(TimeUnit.NANOSECONDS.toMillis(now - actualCycleStart));
+
+    if (schedule == Schedule.FIXED_RATE) {
+      scheduledCycleStart += intervalInNanos;
+    } else {
+      scheduledCycleStart = now + intervalInNanos;
+    }
+
+    final long sleepInMillis = TimeUnit.NANOSECONDS.toMillis(scheduledCycleStart - now);
+    if (sleepInMillis > 0) {
+      LOG.info(() -> "*** Sleeping " + sleepInMillis + "ms til next trade cycle... ***");
+      sleeper.sleep(sleepInMillis);
+    } else {
+      LOG.warn(() -> "*** Trade cycle overran its interval - starting next trade cycle now ***");
+    }
+  }
+
+  private static Schedule parseSchedule(String schedule) {
+    if (schedule == null) {
+      return Schedule.FIXED_DELAY;
+    }
+    try {
+      return Schedule.valueOf(schedule);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Invalid Trade Cycle Schedule: " + schedule + " - must be FIXED_DELAY or FIXED_RATE", e);
+    }
+  }
+}
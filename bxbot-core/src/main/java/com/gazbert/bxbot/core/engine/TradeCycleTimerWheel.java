@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A hashed timer wheel that decides which tasks are due on each engine tick.
+ *
+ * <p>Each task is registered with an interval in ticks. The wheel has a fixed number of slots; a
+ * task lives in the slot for its next due tick and carries the number of full rotations left
+ * before it is due. Advancing the wheel only visits the current slot, so the cost of a tick does
+ * not depend on how many tasks are waiting in other slots.
+ *
+ * <p>Tasks are returned in the order they were registered. All tasks are due on the first tick.
+ *
+ * <p>This class is not thread-safe; it is only called from the engine thread.
+ *
+ * @param <T> the task type.
+ * @author gazbert
+ */
+class TradeCycleTimerWheel<T> {
+
+  private static final int DEFAULT_WHEEL_SIZE = 64;
+
+  private final List<List<Entry<T>>> slots;
+  private long currentTick;
+  private int registrationCount;
+
+  TradeCycleTimerWheel() {
+    this(DEFAULT_WHEEL_SIZE);
+  }
+
+  TradeCycleTimerWheel(int wheelSize) {
+    if (wheelSize < 1) {
+      throw new IllegalArgumentException("Timer wheel size must be 1 or more: " + wheelSize);
+    }
+    slots = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      slots.add(new LinkedList<>());
+    }
+  }
+
+  /**
+   * Registers a task to be returned every intervalInTicks ticks, starting at the current tick.
+   *
+   * @param task the task.
+   * @param intervalInTicks the number of ticks between each time the task is due.
+   */
+  void schedule(T task, long intervalInTicks) {
+    if (intervalInTicks < 1) {
+      throw new IllegalArgumentException("Task interval must be 1 tick or more: " + intervalInTicks);
+    }
+    place(new Entry<>(task, intervalInTicks, registrationCount++), currentTick);
+  }
+
+  /**
+   * Returns the tasks due on the current tick and then advances the wheel by 1 tick.
+   *
+   * @return the tasks due, in registration order.
+   */
+  List<T> advance() {
+    final List<Entry<T>> slot = slots.get(slotIndex(currentTick));
+    final List<Entry<T>> dueEntries = new ArrayList<>();
+
+    final Iterator<Entry<T>> iterator = slot.iterator();
+    while (iterator.hasNext()) {
+      final Entry<T> entry = iterator.next();
+      if (entry.remainingRounds == 0) {
+        iterator.remove();
+        dueEntries.add(entry);
+      } else {
+        entry.remainingRounds--;
+      }
+    }
+
+    dueEntries.sort(Comparator.comparingInt(entry -> entry.registrationOrder));
+    final List<T> dueTasks = new ArrayList<>(dueEntries.size());
+    for (final Entry<T> entry : dueEntries) {
+      dueTasks.add(entry.task);
+      place(entry, currentTick + entry.intervalInTicks);
+    }
+
+    currentTick++;
+    return dueTasks;
+  }
+
+  /*
+   * The slot for dueTick is visited once per rotation; the entry must let every visit before
+   * dueTick go by without firing.
+   */
+  private void place(Entry<T> entry, long dueTick) {
+    entry.remainingRounds = Math.max(0, (dueTick - currentTick - 1) / slots.size());
+    slots.get(slotIndex(dueTick)).add(entry);
+  }
+
+  private int slotIndex(long tick) {
+    return (int) (tick % slots.size());
+  }
+
+  /** A task and its scheduling state. */
+  private static final class Entry<T> {
+    private final T task;
+    private final long intervalInTicks;
+    private final int registrationOrder;
+    private long remainingRounds;
+
+    Entry(T task, long intervalInTicks, int registrationOrder) {
+      this.task = task;
+      this.intervalInTicks = intervalInTicks;
+      this.registrationOrder = registrationOrder;
+    }
+  }
+}
@@ -39,12 +39,26 @@ import com.gazbert.bxbot.services.config.EngineConfigService;
 import com.gazbert.bxbot.services.config.ExchangeConfigService;
 import com.gazbert.bxbot.services.config.MarketConfigService;
 import com.gazbert.bxbot.services.config.StrategyConfigService;
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
 import com.gazbert.bxbot.strategy.api.StrategyException;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,10 +75,19 @@ import org.springframework.stereotype.Component;
  * <p>The only time the bot does not fail hard and fast is for network issues connecting to the
  * exchange - it logs the error and retries at next trade cycle.
  *
+ * <p>Markets can optionally set their own tradeCycleInterval. The engine then ticks at the greatest
+ * common divisor of all the intervals and a timer wheel decides which Trading Strategies are due on
+ * each tick. The Emergency Stop check still runs at least once every Engine tradeCycleInterval.
+ *
  * <p>To keep things simple:
  *
  * <ul>
- *   <li>The engine is single threaded.
+ *   <li>The engine is single threaded by default. If the engine config strategyParallelism is set
+ *       to more than 1, the Trading Strategies are executed concurrently on a bounded thread pool
+ *       - the Exchange Adapter in use must be thread-safe if you enable this. Adapters that sign
+ *       requests with an increasing nonce (Kraken, Bitstamp, Bitfinex, Gemini, itBit) are not:
+ *       concurrent requests can reach the exchange out of nonce order and be rejected, so keep
+ *       strategyParallelism at 1 for them.
  *   <li>The engine only supports trading on 1 exchange per instance of the bot, i.e. 1 Exchange
  *       Adapter per process.
  *   <li>The engine only supports 1 Trading Strategy per Market.
@@ -90,12 +113,22 @@ public class TradingEngine {
   private final EmailAlerter emailAlerter;
   private List<TradingStrategy> tradingStrategies;
   private EngineConfig engineConfig;
-  private ExchangeAdapter exchangeAdapter;
+  private CycleCachingExchangeAdapter exchangeAdapter;
+  private OrderTrackingExchangeAdapter orderTrackingExchangeAdapter;
+  private final Map<TradingStrategy, String> strategyMarketIds = new IdentityHashMap<>();
+  private ExecutorService strategyExecutor;
+  private TradeCycleScheduler tradeCycleScheduler;
+  private TradeCycleTimerWheel<TradingStrategy> strategyTimerWheel;
+  private int tradeCycleTickInSecs;
+  private long emergencyStopCheckIntervalInTicks;
+  private long tradeCycleTick;
+  private boolean isEmergencyStopCheckDue;
 
   private final ExchangeConfigService exchangeConfigService;
   private final EngineConfigService engineConfigService;
   private final StrategyConfigService strategyConfigService;
   private final MarketConfigService marketConfigService;
+  private final TradeCycleMetricsService tradeCycleMetricsService;
 
   private final TradingStrategiesBuilder tradingStrategiesBuilder;
 
@@ -108,6 +141,7 @@ public class TradingEngine {
    * @param marketConfigService the Market config service.
    * @param emailAlerter the Email Alerter.
    * @param tradingStrategiesBuilder the Trading Strategies Builder.
+   * @param tradeCycleMetricsService the Trade Cycle metrics service.
    */
   @Autowired
   public TradingEngine(
@@ -116,7 +150,8 @@ public class TradingEngine {
       StrategyConfigService strategyConfigService,
       MarketConfigService marketConfigService,
       EmailAlerter emailAlerter,
-      TradingStrategiesBuilder tradingStrategiesBuilder) {
+      TradingStrategiesBuilder tradingStrategiesBuilder,
+      TradeCycleMetricsService tradeCycleMetricsService) {
 
     this.exchangeConfigService = exchangeConfigService;
     this.engineConfigService = engineConfigService;
@@ -124,6 +159,7 @@ public class TradingEngine {
     this.marketConfigService = marketConfigService;
     this.emailAlerter = emailAlerter;
     this.tradingStrategiesBuilder = tradingStrategiesBuilder;
+    this.tradeCycleMetricsService = tradeCycleMetricsService;
   }
 
   /** Starts the bot. */
@@ -148,8 +184,14 @@ public class TradingEngine {
     LOG.info(() -> "Initialising Trading Engine...");
     // the sequence order of these methods is significant - don't change it.
     exchangeAdapter = loadExchangeAdapter();
+    orderTrackingExchangeAdapter = new OrderTrackingExchangeAdapter(exchangeAdapter);
     engineConfig = loadEngineConfig();
     tradingStrategies = loadTradingStrategies();
+    strategyExecutor = createStrategyExecutor();
+    tradeCycleScheduler =
+        new TradeCycleScheduler(
+            engineConfig.getTradeCycleSchedule(), tradeCycleTickInSecs, tradeCycleMetricsService);
+    LOG.info(() -> "Trade cycles will use schedule: " + tradeCycleScheduler.getSchedule());
   }
 
   /*
@@ -162,17 +204,29 @@ public class TradingEngine {
     while (keepAlive) {
       try {
         LOG.info(() -> "*** Starting next trade cycle... ***");
+        tradeCycleScheduler.cycleStarted();
+        exchangeAdapter.startCycle();
 
-        // Emergency Stop Check MUST run at start of every trade cycle.
-        if (isEmergencyStopLimitBreached()) {
-          break;
+        // Emergency Stop Check MUST run at least once every Engine trade cycle interval, and
+        // before any strategies are executed. It stays due until it completes successfully.
+        if (tradeCycleTick % emergencyStopCheckIntervalInTicks == 0) {
+          isEmergencyStopCheckDue = true;
+        }
+        if (isEmergencyStopCheckDue) {
+          if (isEmergencyStopLimitBreached()) {
+            break;
+          }
+          isEmergencyStopCheckDue = false;
         }
 
-        for (final TradingStrategy tradingStrategy : tradingStrategies) {
-          LOG.info(
-              () ->
-                  "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
-          tradingStrategy.execute();
+        final List<TradingStrategy> dueTradingStrategies = strategyTimerWheel.advance();
+        tradeCycleTick++;
+        reconcileTrackedOrders(dueTradingStrategies);
+
+        if (strategyExecutor == null) {
+          executeTradingStrategiesSequentially(dueTradingStrategies);
+        } else {
+          executeTradingStrategiesConcurrently(dueTradingStrategies);
         }
 
         sleepUntilNextTradingCycle();
@@ -193,11 +247,111 @@ public class TradingEngine {
 
     // We've broken out of the control loop due to error or admin shutdown request
     LOG.fatal(() -> "BX-bot " + engineConfig.getBotId() + " is shutting down NOW!");
+    if (strategyExecutor != null) {
+      strategyExecutor.shutdownNow();
+    }
     synchronized (IS_RUNNING_MONITOR) {
       isRunning = false;
     }
   }
 
+  /*
+   * Brings the orders the due strategies have created up to date before they execute. The open
+   * orders go through the cycle cache, so a strategy fetching them again this cycle gets them free.
+   */
+  private void reconcileTrackedOrders(List<TradingStrategy> dueTradingStrategies)
+      throws TradingApiException {
+    final Set<String> marketIds = new LinkedHashSet<>();
+    for (final TradingStrategy tradingStrategy : dueTradingStrategies) {
+      marketIds.add(strategyMarketIds.get(tradingStrategy));
+    }
+    orderTrackingExchangeAdapter.reconcile(marketIds);
+  }
+
+  private void executeTradingStrategiesSequentially(List<TradingStrategy> dueTradingStrategies)
+      throws StrategyException {
+    for (final TradingStrategy tradingStrategy : dueTradingStrategies) {
+      LOG.info(
+          () -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
+      tradingStrategy.execute();
+    }
+  }
+
+  /*
+   * Executes all the strategies on the strategy executor and waits for them to complete.
+   * The engine still fails fast: the first strategy to fail cancels the rest of the cycle and its
+   * exception is re-thrown to the main control loop so the existing error policy applies.
+   */
+  private void executeTradingStrategiesConcurrently(List<TradingStrategy> dueTradingStrategies)
+      throws StrategyException, TradingApiException, ExchangeNetworkException {
+
+    final CompletionService<Void> completionService =
+        new ExecutorCompletionService<>(strategyExecutor);
+    final List<Future<Void>> futures = new ArrayList<>(dueTradingStrategies.size());
+
+    for (final TradingStrategy tradingStrategy : dueTradingStrategies) {
+      futures.add(
+          completionService.submit(
+              () -> {
+                LOG.info(
+                    () ->
+                        "Executing Trading Strategy ---> "
+                            + tradingStrategy.getClass().getSimpleName());
+                tradingStrategy.execute();
+                return null;
+              }));
+    }
+
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      LOG.warn(() -> "Control Loop thread interrupted when waiting for Trading Strategies");
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      rethrowStrategyExecutionFailure(e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  private static void rethrowStrategyExecutionFailure(Throwable cause)
+      throws StrategyException, TradingApiException, ExchangeNetworkException {
+    if (cause instanceof StrategyException) {
+      throw (StrategyException) cause;
+    } else if (cause instanceof ExchangeNetworkException) {
+      throw (ExchangeNetworkException) cause;
+    } else if (cause instanceof TradingApiException) {
+      throw (TradingApiException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new IllegalStateException(cause);
+  }
+
+  private ExecutorService createStrategyExecutor() {
+    final int parallelism =
+        Math.min(engineConfig.getStrategyParallelism(), tradingStrategies.size());
+    if (parallelism <= 1) {
+      LOG.info(() -> "Trading Strategies will be executed sequentially.");
+      return null;
+    }
+    LOG.info(
+        () -> "Trading Strategies will be executed concurrently on " + parallelism + " threads.");
+    final AtomicInteger threadCount = new AtomicInteger();
+    final ThreadFactory threadFactory =
+        runnable -> {
+          final Thread thread = new Thread(runnable);
+          thread.setName("bxbot-strategy-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    return Executors.newFixedThreadPool(parallelism, threadFactory);
+  }
+
   /*
    * Shutdown the Trading Engine.
    * Might be called from a different thread.
@@ -216,13 +370,12 @@ public class TradingEngine {
   }
 
   private void sleepUntilNextTradingCycle() {
-    LOG.info(
-        () ->
-            "*** Sleeping "
-                + engineConfig.getTradeCycleInterval()
-                + "s til next trade cycle... ***");
+    final long cacheHits = exchangeAdapter.getCycleCacheHits();
+    final long cacheMisses = exchangeAdapter.getCycleCacheMisses();
+    LOG.info(() -> "Exchange call cache hits: " + cacheHits + " misses: " + cacheMisses);
+    tradeCycleMetricsService.recordCycleCacheUsage(cacheHits, cacheMisses);
     try {
-      Thread.sleep(engineConfig.getTradeCycleInterval() * 1000L);
+      tradeCycleScheduler.awaitNextCycle();
     } catch (InterruptedException e) {
       LOG.warn(() -> "Control Loop thread interrupted when sleeping before next trade cycle");
       Thread.currentThread().interrupt();
@@ -231,22 +384,18 @@ public class TradingEngine {
 
   /*
    * We have a network connection issue reported by Exchange Adapter when called directly from
-   * Trading Engine. Current policy is to log it and sleep until next trade cycle.
+   * Trading Engine. Current policy is to log it and sleep until the next engine tick, which may be
+   * sooner than the tradeCycleInterval if markets set their own intervals. The strategies that were
+   * due run again when they are next due.
    */
   private void handleExchangeNetworkException(ExchangeNetworkException e) {
     final String errorMessage =
         "A network error has occurred in Exchange Adapter! "
-            + "BX-bot will try again in "
-            + engineConfig.getTradeCycleInterval()
+            + "BX-bot will try again at the next trade cycle tick in "
+            + tradeCycleTickInSecs
             + "s...";
     LOG.error(() -> errorMessage, e);
-
-    try {
-      Thread.sleep(engineConfig.getTradeCycleInterval() * 1000L);
-    } catch (InterruptedException e1) {
-      LOG.warn(() -> "Control Loop thread interrupted when sleeping before next trade cycle");
-      Thread.currentThread().interrupt();
-    }
+    sleepUntilNextTradingCycle();
   }
 
   /*
@@ -267,7 +416,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapter.getDelegate().getClass().getName()));
     keepAlive = false;
   }
 
@@ -289,7 +438,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapter.getDelegate().getClass().getName()));
     keepAlive = false;
   }
 
@@ -312,7 +461,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapter.getDelegate().getClass().getName()));
     keepAlive = false;
   }
 
@@ -325,7 +474,11 @@ public class TradingEngine {
         exchangeAdapter, engineConfig, emailAlerter);
   }
 
-  private ExchangeAdapter loadExchangeAdapter() {
+  /*
+   * The adapter is wrapped so that read-only calls are made once per trade cycle, however many
+   * strategies ask for the same data.
+   */
+  private CycleCachingExchangeAdapter loadExchangeAdapter() {
     final ExchangeConfig exchangeConfig = exchangeConfigService.getExchangeConfig();
     LOG.info(() -> "Fetched Exchange config from repository: " + exchangeConfig);
 
@@ -336,7 +489,7 @@ public class TradingEngine {
     final ExchangeConfigImpl exchangeApiConfig =
         ExchangeApiConfigBuilder.buildConfig(exchangeConfig);
     adapter.init(exchangeApiConfig);
-    return adapter;
+    return new CycleCachingExchangeAdapter(adapter);
   }
 
   private EngineConfig loadEngineConfig() {
@@ -350,6 +503,69 @@ public class TradingEngine {
     LOG.info(() -> "Fetched Strategy config from repository: " + strategies);
     final List<MarketConfig> markets = marketConfigService.getAllMarketConfig();
     LOG.info(() -> "Fetched Markets config from repository: " + markets);
-    return tradingStrategiesBuilder.buildStrategies(strategies, markets, exchangeAdapter);
+    final List<TradingStrategy> loadedStrategies =
+        tradingStrategiesBuilder.buildStrategies(
+            strategies, markets, orderTrackingExchangeAdapter);
+    scheduleTradingStrategies(loadedStrategies, markets);
+    return loadedStrategies;
+  }
+
+  /*
+   * The strategies are built in the same order as the enabled markets, so each one picks up its
+   * market's tradeCycleInterval, or the Engine's one if the market does not set it. The market id
+   * is kept so only the due strategies' markets are reconciled each tick.
+   */
+  private void scheduleTradingStrategies(
+      List<TradingStrategy> loadedStrategies, List<MarketConfig> markets) {
+
+    // the documented minimum is 1 second
+    final int engineInterval = Math.max(1, engineConfig.getTradeCycleInterval());
+    final List<Integer> strategyIntervals = new ArrayList<>(loadedStrategies.size());
+    final List<String> strategyMarketIdList = new ArrayList<>(loadedStrategies.size());
+    for (final MarketConfig market : markets) {
+      if (market.isEnabled()) {
+        strategyMarketIdList.add(market.getId());
+        strategyIntervals.add(
+            market.getTradeCycleInterval() != null
+                ? market.getTradeCycleInterval()
+                : engineInterval);
+      }
+    }
+    if (strategyIntervals.size() != loadedStrategies.size()) {
+      final String errorMsg =
+          "Expected a Trading Strategy for each of the "
+              + strategyIntervals.size()
+              + " enabled Markets but got "
+              + loadedStrategies.size();
+      LOG.error(() -> errorMsg);
+      throw new IllegalStateException(errorMsg);
+    }
+
+    int tickInSecs = engineInterval;
+    for (final int interval : strategyIntervals) {
+      tickInSecs = greatestCommonDivisor(tickInSecs, interval);
+    }
+    tradeCycleTickInSecs = tickInSecs;
+    emergencyStopCheckIntervalInTicks = engineInterval / tickInSecs;
+
+    strategyTimerWheel = new TradeCycleTimerWheel<>();
+    for (int i = 0; i < loadedStrategies.size(); i++) {
+      final TradingStrategy strategy = loadedStrategies.get(i);
+      final int interval = strategyIntervals.get(i);
+      strategyMarketIds.put(strategy, strategyMarketIdList.get(i));
+      strategyTimerWheel.schedule(strategy, interval / tickInSecs);
+      LOG.info(
+          () ->
+              "Trading Strategy "
+                  + strategy.getClass().getSimpleName()
+                  + " will be executed every "
+                  + interval
+                  + "s");
+    }
+    LOG.info(() -> "Trading Engine will tick every " + tradeCycleTickInSecs + "s");
+  }
+
+  private static int greatestCommonDivisor(int a, int b) {
+    return b == 0 ? a : greatestCommonDivisor(b, a % b);
   }
 }
@@ -84,7 +84,8 @@ public class EmergencyStopChecker {
 
     BalanceInfo balanceInfo;
     try {
-      balanceInfo = exchangeAdapter.getBalanceInfo();
+      // Never check the limit against a cached balance.
+      balanceInfo = exchangeAdapter.getBalanceInfo(true);
     } catch (TradingApiException e) {
       final String errorMsg =
           "Failed to get Balance info from exchange to perform Emergency Stop check - letting"
@@ -49,6 +49,16 @@ class TestExchangeApiConfigBuilder {
   private static final String SECRET_FEE_CONFIG_ITEM_VALUE = "secret-key";
 
   private static final Integer CONNECTION_TIMEOUT = 30;
+  private static final Integer CONNECTION_POOL_SIZE = 4;
+  private static final Integer CONNECTION_IDLE_TIMEOUT = 60;
+  private static final Double PUBLIC_REQUESTS_PER_SECOND = 1.0;
+  private static final Double PRIVATE_REQUESTS_PER_SECOND = 0.5;
+  private static final Double TRADING_REQUESTS_PER_SECOND = 0.25;
+  private static final Integer MAX_RETRIES = 2;
+  private static final Integer RETRY_BACKOFF = 100;
+  private static final Integer MAX_RETRY_BACKOFF = 2000;
+  private static final Integer CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+  private static final Integer CIRCUIT_BREAKER_OPEN_TIMEOUT = 60;
   private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503);
   private static final List<String> NON_FATAL_ERROR_MESSAGES =
       Arrays.asList("Connection refused", "Remote host closed connection during handshake");
@@ -77,6 +87,26 @@ class TestExchangeApiConfigBuilder {
         .isEqualTo(NON_FATAL_ERROR_CODES);
     assertThat(exchangeApiConfig.getNetworkConfig().getNonFatalErrorMessages())
         .isEqualTo(NON_FATAL_ERROR_MESSAGES);
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionPoolSize())
+        .isEqualTo(CONNECTION_POOL_SIZE);
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionIdleTimeout())
+        .isEqualTo(CONNECTION_IDLE_TIMEOUT);
+    assertThat(exchangeApiConfig.getNetworkConfig().getPublicRequestsPerSecond())
+        .isEqualTo(PUBLIC_REQUESTS_PER_SECOND);
+    assertThat(exchangeApiConfig.getNetworkConfig().getPrivateRequestsPerSecond())
+        .isEqualTo(PRIVATE_REQUESTS_PER_SECOND);
+    assertThat(exchangeApiConfig.getNetworkConfig().getTradingRequestsPerSecond())
+        .isEqualTo(TRADING_REQUESTS_PER_SECOND);
+    assertThat(exchangeApiConfig.getNetworkConfig().getMaxRetries())
+        .isEqualTo(MAX_RETRIES);
+    assertThat(exchangeApiConfig.getNetworkConfig().getRetryBackoff())
+        .isEqualTo(RETRY_BACKOFF);
+    assertThat(exchangeApiConfig.getNetworkConfig().getMaxRetryBackoff())
+        .isEqualTo(MAX_RETRY_BACKOFF);
+    assertThat(exchangeApiConfig.getNetworkConfig().getCircuitBreakerFailureThreshold())
+        .isEqualTo(CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+    assertThat(exchangeApiConfig.getNetworkConfig().getCircuitBreakerOpenTimeout())
+        .isEqualTo(CIRCUIT_BREAKER_OPEN_TIMEOUT);
 
     assertThat(exchangeApiConfig.getOtherConfig().getItem(BUY_FEE_CONFIG_ITEM_KEY))
         .isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
@@ -133,6 +163,16 @@ class TestExchangeApiConfigBuilder {
     networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
     networkConfig.setNonFatalErrorCodes(NON_FATAL_ERROR_CODES);
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    networkConfig.setPublicRequestsPerSecond(PUBLIC_REQUESTS_PER_SECOND);
+    networkConfig.setPrivateRequestsPerSecond(PRIVATE_REQUESTS_PER_SECOND);
+    networkConfig.setTradingRequestsPerSecond(TRADING_REQUESTS_PER_SECOND);
+    networkConfig.setMaxRetries(MAX_RETRIES);
+    networkConfig.setRetryBackoff(RETRY_BACKOFF);
+    networkConfig.setMaxRetryBackoff(MAX_RETRY_BACKOFF);
+    networkConfig.setCircuitBreakerFailureThreshold(CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+    networkConfig.setCircuitBreakerOpenTimeout(CIRCUIT_BREAKER_OPEN_TIMEOUT);
     return networkConfig;
   }
 
@@ -39,6 +39,16 @@ import org.junit.jupiter.api.Test;
 class TestNetworkConfigImpl {
 
   private static final Integer CONNECTION_TIMEOUT = 30;
+  private static final Integer CONNECTION_POOL_SIZE = 4;
+  private static final Integer CONNECTION_IDLE_TIMEOUT = 60;
+  private static final Double PUBLIC_REQUESTS_PER_SECOND = 1.0;
+  private static final Double PRIVATE_REQUESTS_PER_SECOND = 0.5;
+  private static final Double TRADING_REQUESTS_PER_SECOND = 0.25;
+  private static final Integer MAX_RETRIES = 2;
+  private static final Integer RETRY_BACKOFF = 100;
+  private static final Integer MAX_RETRY_BACKOFF = 2000;
+  private static final Integer CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+  private static final Integer CIRCUIT_BREAKER_OPEN_TIMEOUT = 60;
   private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
   private static final List<String> NON_FATAL_ERROR_MESSAGES =
       Arrays.asList(
@@ -53,6 +63,16 @@ class TestNetworkConfigImpl {
     assertNull(networkConfig.getConnectionTimeout());
     assertTrue(networkConfig.getNonFatalErrorCodes().isEmpty());
     assertTrue(networkConfig.getNonFatalErrorMessages().isEmpty());
+    assertNull(networkConfig.getConnectionPoolSize());
+    assertNull(networkConfig.getConnectionIdleTimeout());
+    assertNull(networkConfig.getPublicRequestsPerSecond());
+    assertNull(networkConfig.getPrivateRequestsPerSecond());
+    assertNull(networkConfig.getTradingRequestsPerSecond());
+    assertNull(networkConfig.getMaxRetries());
+    assertNull(networkConfig.getRetryBackoff());
+    assertNull(networkConfig.getMaxRetryBackoff());
+    assertNull(networkConfig.getCircuitBreakerFailureThreshold());
+    assertNull(networkConfig.getCircuitBreakerOpenTimeout());
   }
 
   @Test
@@ -68,6 +88,37 @@ class TestNetworkConfigImpl {
 
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
     assertEquals(NON_FATAL_ERROR_MESSAGES, networkConfig.getNonFatalErrorMessages());
+
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    assertEquals(CONNECTION_POOL_SIZE, networkConfig.getConnectionPoolSize());
+
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    assertEquals(CONNECTION_IDLE_TIMEOUT, networkConfig.getConnectionIdleTimeout());
+
+    networkConfig.setPublicRequestsPerSecond(PUBLIC_REQUESTS_PER_SECOND);
+    assertEquals(PUBLIC_REQUESTS_PER_SECOND, networkConfig.getPublicRequestsPerSecond());
+
+    networkConfig.setPrivateRequestsPerSecond(PRIVATE_REQUESTS_PER_SECOND);
+    assertEquals(PRIVATE_REQUESTS_PER_SECOND, networkConfig.getPrivateRequestsPerSecond());
+
+    networkConfig.setTradingRequestsPerSecond(TRADING_REQUESTS_PER_SECOND);
+    assertEquals(TRADING_REQUESTS_PER_SECOND, networkConfig.getTradingRequestsPerSecond());
+
+    networkConfig.setMaxRetries(MAX_RETRIES);
+    assertEquals(MAX_RETRIES, networkConfig.getMaxRetries());
+
+    networkConfig.setRetryBackoff(RETRY_BACKOFF);
+    assertEquals(RETRY_BACKOFF, networkConfig.getRetryBackoff());
+
+    networkConfig.setMaxRetryBackoff(MAX_RETRY_BACKOFF);
+    assertEquals(MAX_RETRY_BACKOFF, networkConfig.getMaxRetryBackoff());
+
+    networkConfig.setCircuitBreakerFailureThreshold(CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+    assertEquals(
+        CIRCUIT_BREAKER_FAILURE_THRESHOLD, networkConfig.getCircuitBreakerFailureThreshold());
+
+    networkConfig.setCircuitBreakerOpenTimeout(CIRCUIT_BREAKER_OPEN_TIMEOUT);
+    assertEquals(CIRCUIT_BREAKER_OPEN_TIMEOUT, networkConfig.getCircuitBreakerOpenTimeout());
   }
 
   @Test
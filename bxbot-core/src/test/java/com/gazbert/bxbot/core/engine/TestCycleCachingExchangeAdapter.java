@@ -0,0 +1,380 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderResult;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Cycle Caching Exchange Adapter behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestCycleCachingExchangeAdapter {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String OTHER_MARKET_ID = "ltcusd";
+  private static final BigDecimal PRICE = new BigDecimal("9000.12");
+  private static final BigDecimal QUANTITY = new BigDecimal("0.01");
+
+  private ExchangeAdapter delegate;
+  private BalanceInfo balanceInfo;
+  private MarketOrderBook marketOrderBook;
+  private CycleCachingExchangeAdapter cachingAdapter;
+
+  @BeforeEach
+  void setUp() {
+    delegate = createMock(ExchangeAdapter.class);
+    balanceInfo = createMock(BalanceInfo.class);
+    marketOrderBook = createMock(MarketOrderBook.class);
+    cachingAdapter = new CycleCachingExchangeAdapter(delegate);
+  }
+
+  @Test
+  void testForcedBalanceRefreshBypassesCacheAndIsCachedForCycle() throws Exception {
+    final BalanceInfo freshBalanceInfo = createMock(BalanceInfo.class);
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo).once();
+    expect(delegate.getBalanceInfo(true)).andReturn(freshBalanceInfo).once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThat(cachingAdapter.getBalanceInfo()).isSameAs(balanceInfo);
+    assertThat(cachingAdapter.getBalanceInfo(true)).isSameAs(freshBalanceInfo);
+    assertThat(cachingAdapter.getBalanceInfo()).isSameAs(freshBalanceInfo);
+    assertThat(cachingAdapter.getBalanceInfo(false)).isSameAs(freshBalanceInfo);
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(2);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(2);
+    verify(delegate);
+  }
+
+  @Test
+  void testRepeatedReadsInCycleAreServedFromCache() throws Exception {
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo).once();
+    expect(delegate.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook).once();
+    expect(delegate.getLatestMarketPrice(MARKET_ID)).andReturn(PRICE).once();
+    expect(delegate.getLatestMarketPrice(OTHER_MARKET_ID)).andReturn(PRICE).once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThat(cachingAdapter.getBalanceInfo()).isSameAs(balanceInfo);
+    assertThat(cachingAdapter.getBalanceInfo()).isSameAs(balanceInfo);
+    assertThat(cachingAdapter.getMarketOrders(MARKET_ID)).isSameAs(marketOrderBook);
+    assertThat(cachingAdapter.getMarketOrders(MARKET_ID)).isSameAs(marketOrderBook);
+    assertThat(cachingAdapter.getLatestMarketPrice(MARKET_ID)).isEqualTo(PRICE);
+    assertThat(cachingAdapter.getLatestMarketPrice(OTHER_MARKET_ID)).isEqualTo(PRICE);
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(2);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(4);
+    verify(delegate);
+  }
+
+  @Test
+  void testDepthLimitedOrderBooksAreCachedSeparately() throws Exception {
+    final MarketOrderBook topOfBook = createMock(MarketOrderBook.class);
+    expect(delegate.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook).once();
+    expect(delegate.getMarketOrders(MARKET_ID, 1)).andReturn(topOfBook).once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThat(cachingAdapter.getMarketOrders(MARKET_ID)).isSameAs(marketOrderBook);
+    assertThat(cachingAdapter.getMarketOrders(MARKET_ID, 1)).isSameAs(topOfBook);
+    assertThat(cachingAdapter.getMarketOrders(MARKET_ID, 1)).isSameAs(topOfBook);
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(1);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(2);
+    verify(delegate);
+  }
+
+  @Test
+  void testOtherReadsAreCachedAndAdminCallsArePassedThrough() throws Exception {
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    final Ticker ticker = createMock(Ticker.class);
+    delegate.init(exchangeConfig);
+    expect(delegate.getImplName()).andReturn("Test Exchange");
+    expect(delegate.getVersion()).andReturn("1.0");
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList()).once();
+    expect(delegate.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(QUANTITY)
+        .once();
+    expect(delegate.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(QUANTITY)
+        .once();
+    expect(delegate.getMinimumOrderVolume(MARKET_ID)).andReturn(QUANTITY).once();
+    expect(delegate.getTicker(MARKET_ID)).andReturn(ticker).once();
+    replay(delegate);
+
+    cachingAdapter.init(exchangeConfig);
+    assertThat(cachingAdapter.getImplName()).isEqualTo("Test Exchange");
+    assertThat(cachingAdapter.getVersion()).isEqualTo("1.0");
+    assertThat(cachingAdapter.getDelegate()).isSameAs(delegate);
+
+    cachingAdapter.startCycle();
+    for (int i = 0; i < 2; i++) {
+      assertThat(cachingAdapter.getYourOpenOrders(MARKET_ID)).isEmpty();
+      assertThat(cachingAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+          .isEqualTo(QUANTITY);
+      assertThat(cachingAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+          .isEqualTo(QUANTITY);
+      assertThat(cachingAdapter.getMinimumOrderVolume(MARKET_ID)).isEqualTo(QUANTITY);
+      assertThat(cachingAdapter.getTicker(MARKET_ID)).isSameAs(ticker);
+    }
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(5);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(5);
+    verify(delegate);
+  }
+
+  @Test
+  void testTickersAreCachedPerMarket() throws Exception {
+    final Ticker ticker = createMock(Ticker.class);
+    final Ticker otherTicker = createMock(Ticker.class);
+    expect(delegate.getTicker(MARKET_ID)).andReturn(ticker).once();
+    expect(delegate.getTickers(List.of(OTHER_MARKET_ID)))
+        .andReturn(Map.of(OTHER_MARKET_ID, otherTicker))
+        .once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThat(cachingAdapter.getTicker(MARKET_ID)).isSameAs(ticker);
+    final Map<String, Ticker> tickers =
+        cachingAdapter.getTickers(List.of(OTHER_MARKET_ID, MARKET_ID, OTHER_MARKET_ID));
+    assertThat(tickers)
+        .containsExactly(entry(OTHER_MARKET_ID, otherTicker), entry(MARKET_ID, ticker));
+    assertThat(cachingAdapter.getTicker(OTHER_MARKET_ID)).isSameAs(otherTicker);
+    assertThat(cachingAdapter.getTickers(List.of(MARKET_ID))).containsEntry(MARKET_ID, ticker);
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(3);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(2);
+    verify(delegate);
+  }
+
+  @Test
+  void testFailedTickersAreNotCached() throws Exception {
+    final Ticker ticker = createMock(Ticker.class);
+    expect(delegate.getTickers(List.of(MARKET_ID)))
+        .andThrow(new ExchangeNetworkException("Connection reset"))
+        .andReturn(Map.of(MARKET_ID, ticker));
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThrows(
+        ExchangeNetworkException.class, () -> cachingAdapter.getTickers(List.of(MARKET_ID)));
+    assertThat(cachingAdapter.getTickers(List.of(MARKET_ID))).containsEntry(MARKET_ID, ticker);
+
+    verify(delegate);
+  }
+
+  @Test
+  void testCacheAndCountsAreResetAtStartOfCycle() throws Exception {
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo).times(2);
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    cachingAdapter.getBalanceInfo();
+    cachingAdapter.getBalanceInfo();
+
+    cachingAdapter.startCycle();
+    assertThat(cachingAdapter.getCycleCacheHits()).isZero();
+    assertThat(cachingAdapter.getCycleCacheMisses()).isZero();
+    cachingAdapter.getBalanceInfo();
+
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(1);
+    verify(delegate);
+  }
+
+  @Test
+  void testCreateAndCancelOrderInvalidateCache() throws Exception {
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo).times(4);
+    expect(delegate.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE)).andReturn("42");
+    expect(delegate.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1"))
+        .andReturn("43");
+    expect(delegate.cancelOrder("42", MARKET_ID)).andReturn(true);
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE))
+        .isEqualTo("42");
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1"))
+        .isEqualTo("43");
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.cancelOrder("42", MARKET_ID)).isTrue();
+    cachingAdapter.getBalanceInfo();
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isZero();
+    verify(delegate);
+  }
+
+  @Test
+  void testBatchOrderCallsInvalidateCache() throws Exception {
+    final List<OrderRequest> orderRequests =
+        List.of(new OrderRequest(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    final List<OrderResult> results = List.of(OrderResult.success("42"));
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo).times(4);
+    expect(delegate.createOrders(orderRequests)).andReturn(results);
+    expect(delegate.cancelOrders(List.of("42"), MARKET_ID)).andReturn(results);
+    expect(delegate.cancelAllOrders(MARKET_ID)).andReturn(results);
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.createOrders(orderRequests)).isSameAs(results);
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.cancelOrders(List.of("42"), MARKET_ID)).isSameAs(results);
+    cachingAdapter.getBalanceInfo();
+    assertThat(cachingAdapter.cancelAllOrders(MARKET_ID)).isSameAs(results);
+    cachingAdapter.getBalanceInfo();
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isZero();
+    verify(delegate);
+  }
+
+  @Test
+  void testFailedCallsAreNotCached() throws Exception {
+    expect(delegate.getBalanceInfo())
+        .andThrow(new ExchangeNetworkException("Connection reset"))
+        .andReturn(balanceInfo);
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    assertThrows(ExchangeNetworkException.class, () -> cachingAdapter.getBalanceInfo());
+    assertThat(cachingAdapter.getBalanceInfo()).isSameAs(balanceInfo);
+
+    verify(delegate);
+  }
+
+  @Test
+  void testConcurrentReadsShareInFlightCall() throws Exception {
+    final CountDownLatch callStarted = new CountDownLatch(1);
+    final CountDownLatch releaseCall = new CountDownLatch(1);
+    expect(delegate.getMarketOrders(MARKET_ID))
+        .andAnswer(
+            () -> {
+              callStarted.countDown();
+              releaseCall.await(5, TimeUnit.SECONDS);
+              return marketOrderBook;
+            })
+        .once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<MarketOrderBook> first =
+          executor.submit(() -> cachingAdapter.getMarketOrders(MARKET_ID));
+      assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      final Future<MarketOrderBook> second =
+          executor.submit(() -> cachingAdapter.getMarketOrders(MARKET_ID));
+
+      releaseCall.countDown();
+      assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(marketOrderBook);
+      assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(marketOrderBook);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cachingAdapter.getCycleCacheHits()).isEqualTo(1);
+    assertThat(cachingAdapter.getCycleCacheMisses()).isEqualTo(1);
+    verify(delegate);
+  }
+
+  @Test
+  void testConcurrentReadsShareInFlightCallFailure() throws Exception {
+    assertInFlightFailureIsShared(new ExchangeNetworkException("Connection reset"));
+    assertInFlightFailureIsShared(new TradingApiException("Bad request"));
+    assertInFlightFailureIsShared(new IllegalStateException("Unexpected response"));
+  }
+
+  private void assertInFlightFailureIsShared(Exception failure) throws Exception {
+    delegate = createMock(ExchangeAdapter.class);
+    cachingAdapter = new CycleCachingExchangeAdapter(delegate);
+    final CountDownLatch callStarted = new CountDownLatch(1);
+    final CountDownLatch releaseCall = new CountDownLatch(1);
+    expect(delegate.getMarketOrders(MARKET_ID))
+        .andAnswer(
+            () -> {
+              callStarted.countDown();
+              releaseCall.await(5, TimeUnit.SECONDS);
+              throw failure;
+            })
+        .once();
+    replay(delegate);
+
+    cachingAdapter.startCycle();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<MarketOrderBook> first =
+          executor.submit(() -> cachingAdapter.getMarketOrders(MARKET_ID));
+      assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      final Future<MarketOrderBook> second =
+          executor.submit(() -> cachingAdapter.getMarketOrders(MARKET_ID));
+
+      // failed calls are evicted, so make sure the second caller is waiting before releasing
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (cachingAdapter.getCycleCacheHits() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      releaseCall.countDown();
+      final ExecutionException firstFailure =
+          assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+      final ExecutionException secondFailure =
+          assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+      assertThat(firstFailure.getCause()).isSameAs(failure);
+      assertThat(secondFailure.getCause()).isSameAs(failure);
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(delegate);
+  }
+}
@@ -0,0 +1,481 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderResult;
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TrackedOrder;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.easymock.Capture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Order Tracking Exchange Adapter behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestOrderTrackingExchangeAdapter {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String OTHER_MARKET_ID = "ltcusd";
+  private static final String ORDER_ID = "order-1";
+  private static final String OTHER_ORDER_ID = "order-2";
+  private static final BigDecimal PRICE = new BigDecimal("9000.12");
+  private static final BigDecimal QUANTITY = new BigDecimal("0.01");
+  private static final BigDecimal PART_FILLED_QUANTITY = new BigDecimal("0.004");
+
+  private ExchangeAdapter delegate;
+  private OrderTrackingExchangeAdapter trackingAdapter;
+  private List<TrackedOrder> stateChanges;
+
+  @BeforeEach
+  void setUp() {
+    delegate = createMock(ExchangeAdapter.class);
+    trackingAdapter = new OrderTrackingExchangeAdapter(delegate);
+    stateChanges = new ArrayList<>();
+    assertThat(trackingAdapter.addOrderListener(stateChanges::add)).isTrue();
+  }
+
+  @Test
+  void testCreatedOrderIsTrackedAsNew() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    replay(delegate);
+
+    assertThat(trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE))
+        .isEqualTo(ORDER_ID);
+
+    final TrackedOrder order = trackingAdapter.getTrackedOrder(ORDER_ID);
+    assertThat(order.getState()).isEqualTo(OrderState.NEW);
+    assertThat(order.getMarketId()).isEqualTo(MARKET_ID);
+    assertThat(order.getOrderType()).isEqualTo(OrderType.BUY);
+    assertThat(order.getPrice()).isEqualTo(PRICE);
+    assertThat(order.getOriginalQuantity()).isEqualTo(QUANTITY);
+    assertThat(order.getRemainingQuantity()).isEqualTo(QUANTITY);
+    assertThat(trackingAdapter.getTrackedOrder("unknown")).isNull();
+    assertThat(stateChanges).isEmpty();
+    verify(delegate);
+  }
+
+  @Test
+  void testRetriedOrderReusesClientOrderIdAfterNetworkError() throws Exception {
+    final Capture<String> firstClientOrderId = newCapture();
+    final Capture<String> retryClientOrderId = newCapture();
+    final Capture<String> nextClientOrderId = newCapture();
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.BUY),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(firstClientOrderId)))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.BUY),
+                eq(new BigDecimal("0.010")),
+                eq(PRICE),
+                capture(retryClientOrderId)))
+        .andReturn(ORDER_ID);
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.BUY),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(nextClientOrderId)))
+        .andReturn(OTHER_ORDER_ID);
+    replay(delegate);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    assertThat(
+            trackingAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, new BigDecimal("0.010"), PRICE))
+        .isEqualTo(ORDER_ID);
+    assertThat(trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE))
+        .isEqualTo(OTHER_ORDER_ID);
+
+    assertThat(retryClientOrderId.getValue()).isEqualTo(firstClientOrderId.getValue());
+    assertThat(nextClientOrderId.getValue()).isNotEqualTo(firstClientOrderId.getValue());
+    verify(delegate);
+  }
+
+  @Test
+  void testRetryClientOrderIdIsOnlyKeptForTheNextTradeCycle() throws Exception {
+    final Capture<String> firstClientOrderId = newCapture();
+    final Capture<String> retryClientOrderId = newCapture();
+    final Capture<String> secondClientOrderId = newCapture();
+    final Capture<String> identicalClientOrderId = newCapture();
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.BUY),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(firstClientOrderId)))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.BUY),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(retryClientOrderId)))
+        .andReturn(ORDER_ID);
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.SELL),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(secondClientOrderId)))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    expect(
+            delegate.createOrder(
+                eq(MARKET_ID),
+                eq(OrderType.SELL),
+                eq(QUANTITY),
+                eq(PRICE),
+                capture(identicalClientOrderId)))
+        .andReturn(OTHER_ORDER_ID);
+    expect(delegate.getYourOpenOrders(MARKET_ID))
+        .andReturn(List.of(openOrder(ORDER_ID, QUANTITY)))
+        .times(2);
+    replay(delegate);
+
+    // Retried in the market's next trade cycle: the same order.
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    trackingAdapter.reconcile(List.of(OTHER_MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    assertThat(retryClientOrderId.getValue()).isEqualTo(firstClientOrderId.getValue());
+
+    // Placed again 2 trade cycles later: a new order.
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE));
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE);
+    assertThat(identicalClientOrderId.getValue()).isNotEqualTo(secondClientOrderId.getValue());
+    verify(delegate);
+  }
+
+  @Test
+  void testGivenClientOrderIdIsPassedToExchange() throws Exception {
+    expect(delegate.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1"))
+        .andReturn(ORDER_ID);
+    replay(delegate);
+
+    assertThat(trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1"))
+        .isEqualTo(ORDER_ID);
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    verify(delegate);
+  }
+
+  @Test
+  void testOrdersAreReconciledWithOneOpenOrdersCallPerMarket() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    expect(createOrderWithAnyClientOrderId(OrderType.SELL)).andReturn(OTHER_ORDER_ID);
+    expect(delegate.getYourOpenOrders(MARKET_ID))
+        .andReturn(List.of(openOrder(ORDER_ID, PART_FILLED_QUANTITY)))
+        .times(2);
+    replay(delegate);
+
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE);
+    trackingAdapter.reconcile(List.of(MARKET_ID, OTHER_MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID, OTHER_MARKET_ID));
+
+    final TrackedOrder partFilledOrder = trackingAdapter.getTrackedOrder(ORDER_ID);
+    assertThat(partFilledOrder.getState()).isEqualTo(OrderState.PARTIAL);
+    assertThat(partFilledOrder.getRemainingQuantity()).isEqualTo(PART_FILLED_QUANTITY);
+    final TrackedOrder filledOrder = trackingAdapter.getTrackedOrder(OTHER_ORDER_ID);
+    assertThat(filledOrder.getState()).isEqualTo(OrderState.FILLED);
+    assertThat(filledOrder.getRemainingQuantity()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(stateChanges).containsExactlyInAnyOrder(partFilledOrder, filledOrder);
+    verify(delegate);
+  }
+
+  @Test
+  void testMarketWhoseOpenOrdersCannotBeFetchedIsLeftUnchanged() throws Exception {
+    final List<OrderRequest> orderRequests =
+        List.of(
+            new OrderRequest(MARKET_ID, OrderType.BUY, QUANTITY, PRICE),
+            new OrderRequest(OTHER_MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    expect(delegate.createOrders(orderRequests))
+        .andReturn(List.of(OrderResult.success(ORDER_ID), OrderResult.success(OTHER_ORDER_ID)));
+    expect(delegate.getYourOpenOrders(MARKET_ID))
+        .andThrow(new ExchangeNetworkException("Read timed out"))
+        .times(2);
+    expect(delegate.getYourOpenOrders(OTHER_MARKET_ID))
+        .andReturn(Collections.emptyList())
+        .times(2);
+    replay(delegate);
+
+    trackingAdapter.createOrders(orderRequests);
+    trackingAdapter.reconcile(List.of(MARKET_ID, OTHER_MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID, OTHER_MARKET_ID));
+
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(trackingAdapter.getTrackedOrder(OTHER_ORDER_ID).getState())
+        .isEqualTo(OrderState.FILLED);
+    verify(delegate);
+  }
+
+  @Test
+  void testUnchangedOrdersDoNotNotifyListeners() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    expect(delegate.getYourOpenOrders(MARKET_ID))
+        .andReturn(List.of(openOrder(ORDER_ID, QUANTITY), openOrder("not-tracked", QUANTITY)))
+        .once();
+    replay(delegate);
+
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(trackingAdapter.getTrackedOrder("not-tracked")).isNull();
+    assertThat(stateChanges).isEmpty();
+    verify(delegate);
+  }
+
+  @Test
+  void testJustCreatedOrderMissingFromOpenOrdersIsNotReportedAsFilled() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    expect(createOrderWithAnyClientOrderId(OrderType.SELL)).andReturn(OTHER_ORDER_ID);
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+    expect(delegate.getYourOpenOrders(MARKET_ID))
+        .andReturn(List.of(openOrder(ORDER_ID, QUANTITY)));
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+    replay(delegate);
+
+    // Neither order is listed by the exchange yet.
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE);
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(trackingAdapter.getTrackedOrder(OTHER_ORDER_ID).getState())
+        .isEqualTo(OrderState.NEW);
+    assertThat(stateChanges).isEmpty();
+
+    // The first order shows up; the second is still missing, so it was filled.
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(trackingAdapter.getTrackedOrder(OTHER_ORDER_ID).getState())
+        .isEqualTo(OrderState.FILLED);
+
+    // The first order was seen in between, so 1 more miss is not enough to fill it.
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(stateChanges).hasSize(1);
+    verify(delegate);
+  }
+
+  @Test
+  void testMarketsWithoutLiveOrdersAreNotFetched() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    expect(delegate.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+    replay(delegate);
+
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    trackingAdapter.reconcile(List.of(OTHER_MARKET_ID));
+    assertThat(trackingAdapter.cancelOrder(ORDER_ID, MARKET_ID)).isTrue();
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+
+    verify(delegate);
+  }
+
+  @Test
+  void testCancelledOrderIsNotReportedAsFilled() throws Exception {
+    expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn(ORDER_ID);
+    expect(createOrderWithAnyClientOrderId(OrderType.SELL)).andReturn(OTHER_ORDER_ID);
+    expect(delegate.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+    expect(delegate.cancelOrder(OTHER_ORDER_ID, MARKET_ID)).andReturn(false);
+    expect(delegate.cancelOrder("unknown", MARKET_ID)).andReturn(true);
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList()).times(2);
+    replay(delegate);
+
+    trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    trackingAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE);
+    assertThat(trackingAdapter.cancelOrder(ORDER_ID, MARKET_ID)).isTrue();
+    assertThat(trackingAdapter.cancelOrder(OTHER_ORDER_ID, MARKET_ID)).isFalse();
+    assertThat(trackingAdapter.cancelOrder("unknown", MARKET_ID)).isTrue();
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+
+    final TrackedOrder cancelledOrder = trackingAdapter.getTrackedOrder(ORDER_ID);
+    assertThat(cancelledOrder.getState()).isEqualTo(OrderState.CANCELLED);
+    assertThat(cancelledOrder.getRemainingQuantity()).isEqualTo(QUANTITY);
+    final TrackedOrder filledOrder = trackingAdapter.getTrackedOrder(OTHER_ORDER_ID);
+    assertThat(filledOrder.getState()).isEqualTo(OrderState.FILLED);
+    assertThat(stateChanges).containsExactly(cancelledOrder, filledOrder);
+    verify(delegate);
+  }
+
+  @Test
+  void testBatchOrderCallsAreTracked() throws Exception {
+    final List<OrderRequest> orderRequests =
+        List.of(
+            new OrderRequest(MARKET_ID, OrderType.BUY, QUANTITY, PRICE),
+            new OrderRequest(MARKET_ID, OrderType.SELL, QUANTITY, PRICE),
+            new OrderRequest(OTHER_MARKET_ID, OrderType.SELL, QUANTITY, PRICE));
+    expect(delegate.createOrders(orderRequests))
+        .andReturn(
+            List.of(
+                OrderResult.success(ORDER_ID),
+                OrderResult.failure(null, new TradingApiException("rejected")),
+                OrderResult.success(OTHER_ORDER_ID)));
+    expect(delegate.cancelOrders(List.of(ORDER_ID), MARKET_ID))
+        .andReturn(List.of(OrderResult.success(ORDER_ID)));
+    expect(delegate.cancelAllOrders(OTHER_MARKET_ID))
+        .andReturn(
+            List.of(
+                OrderResult.success(OTHER_ORDER_ID),
+                OrderResult.failure("other", new TradingApiException("rejected"))));
+    replay(delegate);
+
+    assertThat(trackingAdapter.createOrders(orderRequests)).hasSize(3);
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState()).isEqualTo(OrderState.NEW);
+    assertThat(trackingAdapter.getTrackedOrder(OTHER_ORDER_ID).getMarketId())
+        .isEqualTo(OTHER_MARKET_ID);
+
+    assertThat(trackingAdapter.cancelOrders(List.of(ORDER_ID), MARKET_ID)).hasSize(1);
+    assertThat(trackingAdapter.cancelAllOrders(OTHER_MARKET_ID)).hasSize(2);
+    assertThat(trackingAdapter.getTrackedOrder(ORDER_ID).getState())
+        .isEqualTo(OrderState.CANCELLED);
+    assertThat(trackingAdapter.getTrackedOrder(OTHER_ORDER_ID).getState())
+        .isEqualTo(OrderState.CANCELLED);
+    assertThat(stateChanges).hasSize(2);
+    verify(delegate);
+  }
+
+  @Test
+  void testOldestFinishedOrdersAreEvicted() throws Exception {
+    final int orderCount = OrderTrackingExchangeAdapter.MAX_FINISHED_ORDERS + 1;
+    for (int i = 0; i < orderCount; i++) {
+      expect(createOrderWithAnyClientOrderId(OrderType.BUY)).andReturn("order-" + i);
+    }
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList()).times(2);
+    replay(delegate);
+
+    for (int i = 0; i < orderCount; i++) {
+      trackingAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE);
+    }
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+    trackingAdapter.reconcile(List.of(MARKET_ID));
+
+    assertThat(stateChanges).hasSize(orderCount);
+    final long trackedCount =
+        stateChanges.stream()
+            .filter(order -> trackingAdapter.getTrackedOrder(order.getOrderId()) != null)
+            .count();
+    assertThat(trackedCount).isEqualTo(OrderTrackingExchangeAdapter.MAX_FINISHED_ORDERS);
+    verify(delegate);
+  }
+
+  @Test
+  void testOtherCallsArePassedThrough() throws Exception {
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    final BalanceInfo balanceInfo = createMock(BalanceInfo.class);
+    final MarketOrderBook marketOrderBook = createMock(MarketOrderBook.class);
+    final Ticker ticker = createMock(Ticker.class);
+    delegate.init(exchangeConfig);
+    expect(delegate.getImplName()).andReturn("Test Exchange");
+    expect(delegate.getVersion()).andReturn("1.0");
+    expect(delegate.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook);
+    expect(delegate.getMarketOrders(MARKET_ID, 5)).andReturn(marketOrderBook);
+    expect(delegate.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+    expect(delegate.getLatestMarketPrice(MARKET_ID)).andReturn(PRICE);
+    expect(delegate.getBalanceInfo()).andReturn(balanceInfo);
+    expect(delegate.getBalanceInfo(true)).andReturn(balanceInfo);
+    expect(delegate.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)).andReturn(QUANTITY);
+    expect(delegate.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID)).andReturn(QUANTITY);
+    expect(delegate.getMinimumOrderVolume(MARKET_ID)).andReturn(QUANTITY);
+    expect(delegate.getTicker(MARKET_ID)).andReturn(ticker);
+    expect(delegate.getTickers(List.of(MARKET_ID))).andReturn(Map.of(MARKET_ID, ticker));
+    replay(delegate);
+
+    trackingAdapter.init(exchangeConfig);
+    assertThat(trackingAdapter.getImplName()).isEqualTo("Test Exchange");
+    assertThat(trackingAdapter.getVersion()).isEqualTo("1.0");
+    assertThat(trackingAdapter.getMarketOrders(MARKET_ID)).isSameAs(marketOrderBook);
+    assertThat(trackingAdapter.getMarketOrders(MARKET_ID, 5)).isSameAs(marketOrderBook);
+    assertThat(trackingAdapter.getYourOpenOrders(MARKET_ID)).isEmpty();
+    assertThat(trackingAdapter.getLatestMarketPrice(MARKET_ID)).isEqualTo(PRICE);
+    assertThat(trackingAdapter.getBalanceInfo()).isSameAs(balanceInfo);
+    assertThat(trackingAdapter.getBalanceInfo(true)).isSameAs(balanceInfo);
+    assertThat(trackingAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+        .isEqualTo(QUANTITY);
+    assertThat(trackingAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+        .isEqualTo(QUANTITY);
+    assertThat(trackingAdapter.getMinimumOrderVolume(MARKET_ID)).isEqualTo(QUANTITY);
+    assertThat(trackingAdapter.getTicker(MARKET_ID)).isSameAs(ticker);
+    assertThat(trackingAdapter.getTickers(List.of(MARKET_ID))).containsEntry(MARKET_ID, ticker);
+    verify(delegate);
+  }
+
+  private String createOrderWithAnyClientOrderId(OrderType orderType) throws Exception {
+    return delegate.createOrder(eq(MARKET_ID), eq(orderType), eq(QUANTITY), eq(PRICE), anyString());
+  }
+
+  private static OpenOrder openOrder(String orderId, BigDecimal quantity) {
+    final OpenOrder openOrder = createMock(OpenOrder.class);
+    expect(openOrder.getId()).andReturn(orderId).anyTimes();
+    expect(openOrder.getQuantity()).andReturn(quantity).anyTimes();
+    replay(openOrder);
+    return openOrder;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.core.engine.TradeCycleScheduler.Schedule;
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+import com.gazbert.bxbot.services.runtime.impl.TradeCycleMetricsServiceImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Trade Cycle Scheduler behaves as expected.
+ *
+ * <p>A fake clock is used; the sleeper just advances it.
+ *
+ * @author gazbert
+ */
+class TestTradeCycleScheduler {
+
+  private static final long INTERVAL_IN_MILLIS = 20_000L;
+
+  private long nowInNanos;
+  private List<Long> sleeps;
+  private TradeCycleMetricsServiceImpl metricsService;
+
+  @BeforeEach
+  void setupBeforeEachTest() {
+    nowInNanos = 0;
+    sleeps = new ArrayList<>();
+    metricsService = new TradeCycleMetricsServiceImpl();
+  }
+
+  @Test
+  void testFixedDelaySleepsFullIntervalAfterCycleCompletes() throws Exception {
+    final TradeCycleScheduler scheduler = createScheduler(Schedule.FIXED_DELAY);
+
+    scheduler.cycleStarted();
+    advanceClock(5_000);
+    scheduler.awaitNextCycle();
+
+    assertThat(sleeps).containsExactly(INTERVAL_IN_MILLIS);
+    assertThat(metricsService.getTradeCycleMetrics().getLastCycleDuration()).isEqualTo(5_000);
+  }
+
+  @Test
+  void testFixedRateCompensatesForCycleExecutionTime() throws Exception {
+    final TradeCycleScheduler scheduler = createScheduler(Schedule.FIXED_RATE);
+
+    scheduler.cycleStarted();
+    advanceClock(5_000);
+    scheduler.awaitNextCycle();
+    scheduler.cycleStarted();
+    advanceClock(7_000);
+    scheduler.awaitNextCycle();
+
+    assertThat(sleeps).containsExactly(15_000L, 13_000L);
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+    assertThat(metrics.getCycleCount()).isEqualTo(2);
+    assertThat(metrics.getMaxCycleLag()).isZero();
+  }
+
+  @Test
+  void testFixedRateRecordsLagWhenCycleOverrunsSlightly() throws Exception {
+    final TradeCycleScheduler scheduler = createScheduler(Schedule.FIXED_RATE);
+
+    scheduler.cycleStarted();
+    advanceClock(INTERVAL_IN_MILLIS + 1_500);
+    scheduler.awaitNextCycle();
+    scheduler.cycleStarted();
+
+    assertThat(sleeps).isEmpty();
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+    assertThat(metrics.getLastCycleLag()).isEqualTo(1_500);
+    assertThat(metrics.getSkippedCycleCount()).isZero();
+
+    // next cycle is back on the original grid
+    advanceClock(1_000);
+    scheduler.awaitNextCycle();
+    assertThat(sleeps).containsExactly(INTERVAL_IN_MILLIS - 2_500);
+  }
+
+  @Test
+  void testFixedRateCoalescesMissedCycles() throws Exception {
+    final TradeCycleScheduler scheduler = createScheduler(Schedule.FIXED_RATE);
+
+    scheduler.cycleStarted();
+    advanceClock(INTERVAL_IN_MILLIS * 3 + 500);
+    scheduler.awaitNextCycle();
+    scheduler.cycleStarted();
+
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+    assertThat(metrics.getSkippedCycleCount()).isEqualTo(2);
+    assertThat(metrics.getLastCycleLag()).isEqualTo(500);
+  }
+
+  private TradeCycleScheduler createScheduler(Schedule schedule) {
+    return new TradeCycleScheduler(
+        schedule,
+        TimeUnit.MILLISECONDS.toNanos(INTERVAL_IN_MILLIS),
+        () -> nowInNanos,
+        millis -> {
+          sleeps.add(millis);
+          advanceClock(millis);
+        },
+        metricsService);
+  }
+
+  private void advanceClock(long millis) {
+    nowInNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Trade Cycle Timer Wheel behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestTradeCycleTimerWheel {
+
+  @Test
+  void testAllTasksAreDueOnFirstTickInRegistrationOrder() {
+    final TradeCycleTimerWheel<String> wheel = new TradeCycleTimerWheel<>(8);
+    wheel.schedule("btcusd", 1);
+    wheel.schedule("ltcusd", 30);
+    wheel.schedule("ethusd", 2);
+
+    assertThat(wheel.advance()).containsExactly("btcusd", "ltcusd", "ethusd");
+  }
+
+  @Test
+  void testTasksAreDueOnTheirOwnInterval() {
+    final TradeCycleTimerWheel<String> wheel = new TradeCycleTimerWheel<>(8);
+    wheel.schedule("fast", 1);
+    wheel.schedule("slow", 3);
+
+    final List<List<String>> ticks = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      ticks.add(wheel.advance());
+    }
+
+    assertThat(ticks)
+        .containsExactly(
+            List.of("fast", "slow"),
+            List.of("fast"),
+            List.of("fast"),
+            List.of("fast", "slow"),
+            List.of("fast"),
+            List.of("fast"),
+            List.of("fast", "slow"));
+  }
+
+  @Test
+  void testTasksWithIntervalsLongerThanTheWheelWaitForRemainingRounds() {
+    final TradeCycleTimerWheel<String> wheel = new TradeCycleTimerWheel<>(4);
+    wheel.schedule("every-4", 4);
+    wheel.schedule("every-10", 10);
+
+    final List<Integer> every4DueTicks = new ArrayList<>();
+    final List<Integer> every10DueTicks = new ArrayList<>();
+    for (int tick = 0; tick < 25; tick++) {
+      final List<String> due = wheel.advance();
+      if (due.contains("every-4")) {
+        every4DueTicks.add(tick);
+      }
+      if (due.contains("every-10")) {
+        every10DueTicks.add(tick);
+      }
+    }
+
+    assertThat(every4DueTicks).containsExactly(0, 4, 8, 12, 16, 20, 24);
+    assertThat(every10DueTicks).containsExactly(0, 10, 20);
+  }
+
+  @Test
+  void testInvalidIntervalIsRejected() {
+    final TradeCycleTimerWheel<String> wheel = new TradeCycleTimerWheel<>();
+    assertThrows(IllegalArgumentException.class, () -> wheel.schedule("broken", 0));
+  }
+}
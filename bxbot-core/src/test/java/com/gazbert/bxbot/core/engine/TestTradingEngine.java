@@ -26,10 +26,14 @@ package com.gazbert.bxbot.core.engine;
 import static junit.framework.TestCase.assertTrue;
 import static org.awaitility.Awaitility.await;
 import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.contains;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.newCapture;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import com.gazbert.bxbot.core.config.strategy.TradingStrategiesBuilder;
@@ -46,11 +50,16 @@ import com.gazbert.bxbot.services.config.EngineConfigService;
 import com.gazbert.bxbot.services.config.ExchangeConfigService;
 import com.gazbert.bxbot.services.config.MarketConfigService;
 import com.gazbert.bxbot.services.config.StrategyConfigService;
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
+import com.gazbert.bxbot.services.runtime.impl.TradeCycleMetricsServiceImpl;
 import com.gazbert.bxbot.strategy.api.StrategyException;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
@@ -62,6 +71,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -131,15 +141,22 @@ public class TestTradingEngine {
   private static final String STRATEGY_CONFIG_ITEM_NAME = "btc-sell-order-amount";
   private static final String STRATEGY_CONFIG_ITEM_VALUE = "0.2";
 
+  private static final int ENGINE_STRATEGY_PARALLELISM = 2;
+
   private static final String MARKET_NAME = "BTC/USD";
   private static final String MARKET_ID = "btc_usd";
   private static final String MARKET_BASE_CURRENCY = "BTC";
   private static final String MARKET_COUNTER_CURRENCY = "USD";
   private static final boolean MARKET_IS_ENABLED = true;
 
+  private static final String MARKET_2_NAME = "LTC/USD";
+  private static final String MARKET_2_ID = "ltc_usd";
+  private static final String MARKET_2_BASE_CURRENCY = "LTC";
+
   // Mocks used by all tests
   private ExchangeAdapter exchangeAdapter;
   private TradingStrategy tradingStrategy;
+  private TradingStrategy tradingStrategy2;
   private EmailAlerter emailAlerter;
   private ExchangeConfigService exchangeConfigService;
   private EngineConfigService engineConfigService;
@@ -147,6 +164,7 @@ public class TestTradingEngine {
   private MarketConfigService marketConfigService;
 
   private TradingStrategiesBuilder tradingStrategiesBuilder;
+  private TradeCycleMetricsService tradeCycleMetricsService;
 
   /**
    * Mock out Config subsystem; we're not testing it here - has its own unit tests.
@@ -158,6 +176,7 @@ public class TestTradingEngine {
   public void setupForEachTest() {
     exchangeAdapter = PowerMock.createMock(ExchangeAdapter.class);
     tradingStrategy = PowerMock.createMock(TradingStrategy.class);
+    tradingStrategy2 = PowerMock.createMock(TradingStrategy.class);
     emailAlerter = PowerMock.createMock(EmailAlerter.class);
 
     exchangeConfigService = PowerMock.createMock(ExchangeConfigService.class);
@@ -168,6 +187,7 @@ public class TestTradingEngine {
     final TradingStrategyFactory tradingStrategyFactory = new TradingStrategyFactory();
     tradingStrategiesBuilder = new TradingStrategiesBuilder();
     tradingStrategiesBuilder.setTradingStrategyFactory(tradingStrategyFactory);
+    tradeCycleMetricsService = new TradeCycleMetricsServiceImpl();
 
     PowerMock.mockStatic(ConfigurableComponentFactory.class);
   }
@@ -183,7 +203,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
     assertFalse(tradingEngine.isRunning());
 
     PowerMock.verifyAll();
@@ -200,7 +221,7 @@ public class TestTradingEngine {
 
     // expect BalanceInfo to be fetched using Trading API
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
 
     // expect Email Alert to be sent
@@ -222,7 +243,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
     tradingEngine.start();
 
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
@@ -249,7 +271,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -279,7 +302,7 @@ public class TestTradingEngine {
 
     // expect BalanceInfo to be fetched using Trading API
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).atLeastOnce();
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo).atLeastOnce();
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
 
     // expect Trading Strategy to be invoked
@@ -295,7 +318,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -327,12 +351,12 @@ public class TestTradingEngine {
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
 
     // expect 1st trade cycle to be successful
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
 
     // expect StrategyException in 2nd trade cycle
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
     expectLastCall().andThrow(new StrategyException(exceptionErrorMsg));
@@ -350,7 +374,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     tradingEngine.start();
 
@@ -376,12 +401,12 @@ public class TestTradingEngine {
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
 
     // expect 1st trade cycle to be successful
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
 
     // expect unexpected Exception in 2nd trade cycle
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
     expectLastCall().andThrow(new IllegalArgumentException(exceptionErrorMsg));
@@ -403,7 +428,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     tradingEngine.start();
 
@@ -432,12 +458,12 @@ public class TestTradingEngine {
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
 
     // expect 1st trade cycle to be successful
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
 
     // expect unexpected Exception in 2nd trade cycle
-    expect(exchangeAdapter.getBalanceInfo()).andThrow(new IllegalStateException(exceptionErrorMsg));
+    expect(exchangeAdapter.getBalanceInfo(true)).andThrow(new IllegalStateException(exceptionErrorMsg));
 
     // expect Email Alert to be sent
     emailAlerter.sendMessage(
@@ -456,7 +482,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     tradingEngine.start();
 
@@ -484,12 +511,12 @@ public class TestTradingEngine {
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
 
     // expect 1st trade cycle to be successful
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
 
     // expect TradingApiException in 2nd trade cycle
-    expect(exchangeAdapter.getBalanceInfo()).andThrow(new TradingApiException(exceptionErrorMsg));
+    expect(exchangeAdapter.getBalanceInfo(true)).andThrow(new TradingApiException(exceptionErrorMsg));
 
     // expect Email Alert to be sent
     emailAlerter.sendMessage(
@@ -506,7 +533,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     tradingEngine.start();
 
@@ -536,16 +564,16 @@ public class TestTradingEngine {
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
 
     // expect 1st trade cycle to be successful
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
     tradingStrategy.execute();
 
     // expect recoverable ExchangeNetworkException in 2nd trade cycle
-    expect(exchangeAdapter.getBalanceInfo())
+    expect(exchangeAdapter.getBalanceInfo(true))
         .andThrow(new ExchangeNetworkException(exceptionErrorMsg));
 
     // expect bot recover and continue 3rd cycle + any subsequent ones...
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).atLeastOnce();
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo).atLeastOnce();
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
     tradingStrategy.execute();
     expectLastCall().atLeastOnce();
@@ -559,7 +587,77 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    await().until(engineStateChanged(tradingEngine, EngineState.RUNNING));
+    assertTrue(tradingEngine.isRunning());
+
+    // wait for a few trade cycles, then shutdown the bot.
+    try {
+      Thread.sleep(3 * (ENGINE_TRADE_CYCLE_INTERVAL * 1000));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testEngineExecutesStrategiesWhenTrackedOrdersCannotBeReconciled() throws Exception {
+    setupExchangeAdapterConfigExpectations();
+    setupEngineConfigForNoEmergencyStopCheckExpectations();
+    final Capture<TradingApi> tradingApi = newCapture();
+    expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+    expect(marketConfigService.getAllMarketConfig()).andReturn(allTheMarketsConfig());
+    expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
+        .andReturn(tradingStrategy);
+    tradingStrategy.init(
+        capture(tradingApi),
+        anyObject(Market.class),
+        anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+
+    // 1st trade cycle places an order, so the next cycles reconcile it before the strategy runs
+    expect(
+            exchangeAdapter.createOrder(
+                eq(MARKET_ID), eq(OrderType.BUY), eq(BigDecimal.ONE), eq(BigDecimal.TEN),
+                anyString()))
+        .andReturn("order-1");
+    tradingStrategy.execute();
+    expectLastCall()
+        .andAnswer(
+            () -> {
+              tradingApi
+                  .getValue()
+                  .createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN);
+              return null;
+            });
+
+    // reconcile keeps failing, but the strategy is still executed every cycle
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID))
+        .andThrow(new ExchangeNetworkException("Read timed out"))
+        .atLeastOnce();
+    tradingStrategy.execute();
+    expectLastCall().atLeastOnce();
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -577,6 +675,8 @@ public class TestTradingEngine {
 
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
     assertFalse(tradingEngine.isRunning());
+    assertEquals(
+        OrderState.NEW, tradingApi.getValue().getTrackedOrder("order-1").getState());
 
     PowerMock.verifyAll();
   }
@@ -594,7 +694,7 @@ public class TestTradingEngine {
 
     // expect BalanceInfo to be fetched using Trading API
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).atLeastOnce();
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo).atLeastOnce();
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
 
     // expect Trading Strategy to be invoked 1 time
@@ -610,7 +710,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
 
@@ -632,7 +733,7 @@ public class TestTradingEngine {
 
     // expect BalanceInfo to be fetched using Trading API
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
 
     // expect Email Alert to be sent
@@ -653,7 +754,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
     tradingEngine.start();
 
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
@@ -674,7 +776,7 @@ public class TestTradingEngine {
 
     // expect BalanceInfo to be fetched using Trading API
     final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
-    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).atLeastOnce();
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo).atLeastOnce();
     expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
 
     // expect Trading Strategy to be invoked
@@ -690,7 +792,8 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -706,6 +809,190 @@ public class TestTradingEngine {
     PowerMock.verifyAll();
   }
 
+  /*
+   * Tests the engine executes trade cycles on a fixed rate schedule and records the cycle metrics.
+   */
+  @Test
+  public void testEngineExecutesTradeCyclesOnFixedRateScheduleAndRecordsCycleMetrics()
+      throws Exception {
+    setupExchangeAdapterConfigExpectations();
+    final EngineConfig engineConfig = someEngineConfigForNoEmergencyStopCheck();
+    engineConfig.setTradeCycleSchedule("FIXED_RATE");
+    expect(engineConfigService.getEngineConfig()).andReturn(engineConfig);
+    setupStrategyAndMarketConfigExpectations();
+
+    // expect Trading Strategy to be invoked at least twice
+    tradingStrategy.execute();
+    expectLastCall().atLeastOnce();
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    await().until(engineStateChanged(tradingEngine, EngineState.RUNNING));
+    await().until(() -> tradeCycleMetricsService.getTradeCycleMetrics().getCycleCount() >= 2);
+
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+    assertTrue(tradeCycleMetricsService.getTradeCycleMetrics().getLastCycleStart() != null);
+
+    PowerMock.verifyAll();
+  }
+
+  /*
+   * Tests the engine executes each market's strategy on its own trade cycle interval.
+   */
+  @Test
+  public void testEngineExecutesStrategiesOnPerMarketTradeCycleIntervals() throws Exception {
+    setupExchangeAdapterConfigExpectations();
+    setupEngineConfigForNoEmergencyStopCheckExpectations();
+    final List<MarketConfig> markets = twoMarketsConfig();
+    markets.get(1).setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL * 2);
+    setupTwoStrategiesAndMarketConfigExpectations(markets);
+
+    // expect 1st strategy to run every tick and 2nd strategy every other tick
+    tradingStrategy.execute();
+    expectLastCall().times(3, Integer.MAX_VALUE);
+    tradingStrategy2.execute();
+    expectLastCall().times(2, Integer.MAX_VALUE);
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    await().until(engineStateChanged(tradingEngine, EngineState.RUNNING));
+    await().until(() -> tradeCycleMetricsService.getTradeCycleMetrics().getCycleCount() >= 4);
+
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
+  /*
+   * Tests the engine executes the strategies concurrently when strategyParallelism is set and can
+   * be shutdown successfully.
+   */
+  @Test
+  public void testEngineExecutesStrategiesConcurrentlyAndCanBeShutdownSuccessfully()
+      throws Exception {
+    setupConfigLoadingExpectationsForConcurrentStrategies();
+
+    final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    // balance limit NOT breached for BTC
+    balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+
+    // expect BalanceInfo to be fetched using Trading API
+    final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo).atLeastOnce();
+    expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
+
+    // expect both Trading Strategies to be invoked
+    tradingStrategy.execute();
+    expectLastCall().atLeastOnce();
+    tradingStrategy2.execute();
+    expectLastCall().atLeastOnce();
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    await().until(engineStateChanged(tradingEngine, EngineState.RUNNING));
+    assertTrue(tradingEngine.isRunning());
+
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
+  /*
+   * Tests the engine shuts down when a concurrently executed Trading Strategy throws a
+   * StrategyException - the fail-fast policy must be the same as for sequential execution.
+   */
+  @Test
+  public void testEngineShutsDownWhenItReceivesStrategyExceptionFromConcurrentTradingStrategy()
+      throws Exception {
+    setupConfigLoadingExpectationsForConcurrentStrategies();
+
+    final String exceptionErrorMsg = "Eeek! My concurrent strat just broke. Please shutdown!";
+    final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    // balance limit NOT breached for BTC
+    balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+    final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+
+    expect(exchangeAdapter.getBalanceInfo(true)).andReturn(balanceInfo);
+    expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
+
+    // 1st strategy may or may not get to run before the 2nd one fails
+    tradingStrategy.execute();
+    expectLastCall().times(0, 1);
+    tradingStrategy2.execute();
+    expectLastCall().andThrow(new StrategyException(exceptionErrorMsg));
+
+    // expect Email Alert to be sent
+    emailAlerter.sendMessage(
+        eq(CRITICAL_EMAIL_ALERT_SUBJECT),
+        contains("A FATAL error has occurred in Trading Strategy! Details: " + exceptionErrorMsg));
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleMetricsService);
+
+    tradingEngine.start();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  private utils
   // --------------------------------------------------------------------------
@@ -743,7 +1030,23 @@ public class TestTradingEngine {
     expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
         .andReturn(tradingStrategy);
     tradingStrategy.init(
-        eq(exchangeAdapter),
+        anyObject(OrderTrackingExchangeAdapter.class),
+        anyObject(Market.class),
+        anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+  }
+
+  private void setupTwoStrategiesAndMarketConfigExpectations(List<MarketConfig> markets) {
+    expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+    expect(marketConfigService.getAllMarketConfig()).andReturn(markets);
+    expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
+        .andReturn(tradingStrategy)
+        .andReturn(tradingStrategy2);
+    tradingStrategy.init(
+        anyObject(OrderTrackingExchangeAdapter.class),
+        anyObject(Market.class),
+        anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+    tradingStrategy2.init(
+        anyObject(OrderTrackingExchangeAdapter.class),
         anyObject(Market.class),
         anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
   }
@@ -754,6 +1057,14 @@ public class TestTradingEngine {
     setupStrategyAndMarketConfigExpectations();
   }
 
+  private void setupConfigLoadingExpectationsForConcurrentStrategies() {
+    setupExchangeAdapterConfigExpectations();
+    final EngineConfig engineConfig = someEngineConfig();
+    engineConfig.setStrategyParallelism(ENGINE_STRATEGY_PARALLELISM);
+    expect(engineConfigService.getEngineConfig()).andReturn(engineConfig);
+    setupTwoStrategiesAndMarketConfigExpectations(twoMarketsConfig());
+  }
+
   private void setupConfigLoadingExpectationsForNoEmergencyStopCheck() {
     setupExchangeAdapterConfigExpectations();
     setupEngineConfigForNoEmergencyStopCheckExpectations();
@@ -860,6 +1171,19 @@ public class TestTradingEngine {
     return allMarkets;
   }
 
+  private static List<MarketConfig> twoMarketsConfig() {
+    final List<MarketConfig> allMarkets = allTheMarketsConfig();
+    allMarkets.add(
+        new MarketConfig(
+            MARKET_2_ID,
+            MARKET_2_NAME,
+            MARKET_2_BASE_CURRENCY,
+            MARKET_COUNTER_CURRENCY,
+            MARKET_IS_ENABLED,
+            STRATEGY_ID));
+    return allMarkets;
+  }
+
   private Callable<Boolean> engineStateChanged(TradingEngine engine, EngineState engineState) {
     return () -> {
       boolean stateChanged = false;
@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.bot;
+
+import com.google.common.base.MoreObjects;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Date;
+
+/**
+ * Domain object representing the Trading Engine's trade cycle timing metrics.
+ *
+ * <p>The cycle lag is how late a trade cycle started compared to when it was scheduled to start.
+ * A steadily growing lag means the trade cycles are taking longer than the configured
+ * tradeCycleInterval, typically because of exchange latency.
+ *
+ * @author gazbert
+ */
+@Schema
+public class TradeCycleMetrics {
+
+  @Schema(required = true, description = "The Bot ID.")
+  private String botId;
+
+  @Schema(description = "The trade cycle scheduling mode: FIXED_DELAY or FIXED_RATE.")
+  private String tradeCycleSchedule;
+
+  @Schema(description = "The configured trade cycle interval in secs.")
+  private int tradeCycleInterval;
+
+  @Schema(description = "The number of trade cycles started since the engine started.")
+  private long cycleCount;
+
+  @Schema(
+      description =
+          "The number of scheduled trade cycles that were skipped because a previous cycle "
+              + "overran its slot.")
+  private long skippedCycleCount;
+
+  @Schema(description = "How late (in millis) the last trade cycle started.")
+  private long lastCycleLag;
+
+  @Schema(description = "The mean lag (in millis) of all the trade cycles started.")
+  private long meanCycleLag;
+
+  @Schema(description = "The maximum lag (in millis) of all the trade cycles started.")
+  private long maxCycleLag;
+
+  @Schema(description = "How long (in millis) the last completed trade cycle took to execute.")
+  private long lastCycleDuration;
+
+  @Schema(description = "When the last trade cycle started.")
+  private Date lastCycleStart;
+
+  @Schema(
+      description =
+          "The number of Exchange Adapter calls in the last completed trade cycle that were "
+              + "served from the trade cycle cache.")
+  private long lastCycleCacheHits;
+
+  @Schema(
+      description =
+          "The number of Exchange Adapter calls in the last completed trade cycle that went to "
+              + "the exchange.")
+  private long lastCycleCacheMisses;
+
+  @Schema(description = "The total number of trade cycle cache hits since the engine started.")
+  private long cacheHitCount;
+
+  @Schema(description = "The total number of trade cycle cache misses since the engine started.")
+  private long cacheMissCount;
+
+  public TradeCycleMetrics() {
+  }
+
+  public String getBotId() {
+    return botId;
+  }
+
+  public void setBotId(String botId) {
+    this.botId = botId;
+  }
+
+  public String getTradeCycleSchedule() {
+    return tradeCycleSchedule;
+  }
+
+  public void setTradeCycleSchedule(String tradeCycleSchedule) {
+    this.tradeCycleSchedule = tradeCycleSchedule;
+  }
+
+  public int getTradeCycleInterval() {
+    return tradeCycleInterval;
+  }
+
+  public void setTradeCycleInterval(int tradeCycleInterval) {
+    this.tradeCycleInterval = tradeCycleInterval;
+  }
+
+  public long getCycleCount() {
+    return cycleCount;
+  }
+
+  public void setCycleCount(long cycleCount) {
+    this.cycleCount = cycleCount;
+  }
+
+  public long getSkippedCycleCount() {
+    return skippedCycleCount;
+  }
+
+  public void setSkippedCycleCount(long skippedCycleCount) {
+    this.skippedCycleCount = skippedCycleCount;
+  }
+
+  public long getLastCycleLag() {
+    return lastCycleLag;
+  }
+
+  public void setLastCycleLag(long lastCycleLag) {
+    this.lastCycleLag = lastCycleLag;
+  }
+
+  public long getMeanCycleLag() {
+    return meanCycleLag;
+  }
+
+  public void setMeanCycleLag(long meanCycleLag) {
+    this.meanCycleLag = meanCycleLag;
+  }
+
+  public long getMaxCycleLag() {
+    return maxCycleLag;
+  }
+
+  public void setMaxCycleLag(long maxCycleLag) {
+    this.maxCycleLag = maxCycleLag;
+  }
+
+  public long getLastCycleDuration() {
+    return lastCycleDuration;
+  }
+
+  public void setLastCycleDuration(long lastCycleDuration) {
+    this.lastCycleDuration = lastCycleDuration;
+  }
+
+  public Date getLastCycleStart() {
+    return lastCycleStart != null ? new Date(lastCycleStart.getTime()) : null;
+  }
+
+  public void setLastCycleStart(Date lastCycleStart) {
+    this.lastCycleStart = lastCycleStart != null ? new Date(lastCycleStart.getTime()) : null;
+  }
+
+  public long getLastCycleCacheHits() {
+    return lastCycleCacheHits;
+  }
+
+  public void setLastCycleCacheHits(long lastCycleCacheHits) {
+    this.lastCycleCacheHits = lastCycleCacheHits;
+  }
+
+  public long getLastCycleCacheMisses() {
+    return lastCycleCacheMisses;
+  }
+
+  public void setLastCycleCacheMisses(long lastCycleCacheMisses) {
+    this.lastCycleCacheMisses = lastCycleCacheMisses;
+  }
+
+  public long getCacheHitCount() {
+    return cacheHitCount;
+  }
+
+  public void setCacheHitCount(long cacheHitCount) {
+    this.cacheHitCount = cacheHitCount;
+  }
+
+  public long getCacheMissCount() {
+    return cacheMissCount;
+  }
+
+  public void setCacheMissCount(long cacheMissCount) {
+    this.cacheMissCount = cacheMissCount;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("botId", botId)
+        .add("tradeCycleSchedule", tradeCycleSchedule)
+        .add("tradeCycleInterval", tradeCycleInterval)
+        .add("cycleCount", cycleCount)
+        .add("skippedCycleCount", skippedCycleCount)
+        .add("lastCycleLag", lastCycleLag)
+        .add("meanCycleLag", meanCycleLag)
+        .add("maxCycleLag", maxCycleLag)
+        .add("lastCycleDuration", lastCycleDuration)
+        .add("lastCycleStart", getLastCycleStart())
+        .add("lastCycleCacheHits", lastCycleCacheHits)
+        .add("lastCycleCacheMisses", lastCycleCacheMisses)
+        .add("cacheHitCount", cacheHitCount)
+        .add("cacheMissCount", cacheMissCount)
+        .toString();
+  }
+}
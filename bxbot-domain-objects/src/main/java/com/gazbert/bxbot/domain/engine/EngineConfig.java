@@ -29,6 +29,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import java.math.BigDecimal;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
 
 /**
  * Domain object representing the Engine config.
@@ -75,6 +76,26 @@ public class EngineConfig {
   @Min(value = 1, message = "Trace Cycle Interval must be more than 1 second")
   private int tradeCycleInterval;
 
+  @Schema(
+      description =
+          "Optional. How the trade cycles are scheduled. FIXED_DELAY waits tradeCycleInterval secs"
+              + " after each cycle completes before starting the next one. FIXED_RATE starts each"
+              + " cycle tradeCycleInterval secs after the previous one started, so the cycle period"
+              + " does not drift with exchange latency; cycles that overrun their slot are"
+              + " coalesced. Defaults to FIXED_DELAY.")
+  @Pattern(
+      regexp = "FIXED_DELAY|FIXED_RATE",
+      message = "Trade Cycle Schedule must be FIXED_DELAY or FIXED_RATE")
+  private String tradeCycleSchedule;
+
+  @Schema(
+      description =
+          "Optional. The maximum number of Trading Strategies the Trading Engine will execute"
+              + " concurrently in each trade cycle. If not set, or set to 0 or 1, the strategies"
+              + " are executed sequentially on the engine thread.")
+  @Min(value = 0, message = "Strategy Parallelism must be 0 or more")
+  private int strategyParallelism;
+
   // Required by ConfigurableComponentFactory
   public EngineConfig() {
   }
@@ -142,6 +163,22 @@ public class EngineConfig {
     this.tradeCycleInterval = tradeCycleInterval;
   }
 
+  public String getTradeCycleSchedule() {
+    return tradeCycleSchedule;
+  }
+
+  public void setTradeCycleSchedule(String tradeCycleSchedule) {
+    this.tradeCycleSchedule = tradeCycleSchedule;
+  }
+
+  public int getStrategyParallelism() {
+    return strategyParallelism;
+  }
+
+  public void setStrategyParallelism(int strategyParallelism) {
+    this.strategyParallelism = strategyParallelism;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -167,6 +204,8 @@ public class EngineConfig {
         .add("emergencyStopCurrency", emergencyStopCurrency)
         .add("emergencyStopBalance", emergencyStopBalance)
         .add("tradeCycleInterval", tradeCycleInterval)
+        .add("tradeCycleSchedule", tradeCycleSchedule)
+        .add("strategyParallelism", strategyParallelism)
         .toString();
   }
 }
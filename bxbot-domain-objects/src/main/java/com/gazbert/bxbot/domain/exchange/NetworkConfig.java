@@ -28,6 +28,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Positive;
 
 /**
  * Domain object representing the Exchange Network config.
@@ -58,6 +59,76 @@ public class NetworkConfig {
               + "from temporary network issues.")
   private List<String> nonFatalErrorMessages;
 
+  @Schema(
+      description =
+          "Optional maximum number of idle connections the adapter keeps open to the exchange."
+              + " If not set, there is no limit.")
+  @Min(message = "Connection pool size must be 1 or more", value = 1)
+  private Integer connectionPoolSize;
+
+  @Schema(
+      description =
+          "Optional time (secs) an idle connection to the exchange is kept open for reuse."
+              + " Defaults to 1200s.")
+  @Min(message = "Connection idle timeout must be 1 second or more", value = 1)
+  private Integer connectionIdleTimeout;
+
+  @Schema(
+      description =
+          "Optional maximum rate (requests/sec) of public market data requests sent to the"
+              + " exchange. If not set, public requests are not rate limited.")
+  @Positive(message = "Public requests per second must be more than 0")
+  private Double publicRequestsPerSecond;
+
+  @Schema(
+      description =
+          "Optional maximum rate (requests/sec) of private account requests sent to the exchange."
+              + " If not set, private requests are not rate limited.")
+  @Positive(message = "Private requests per second must be more than 0")
+  private Double privateRequestsPerSecond;
+
+  @Schema(
+      description =
+          "Optional maximum rate (requests/sec) of create and cancel order requests sent to the"
+              + " exchange. If not set, trading requests are not rate limited.")
+  @Positive(message = "Trading requests per second must be more than 0")
+  private Double tradingRequestsPerSecond;
+
+  @Schema(
+      description =
+          "Optional number of times an idempotent read request is retried after a network error."
+              + " Defaults to 0 (no retries).")
+  @Min(message = "Max retries must be 0 or more", value = 0)
+  private Integer maxRetries;
+
+  @Schema(
+      description =
+          "Optional time (millis) to back off before the first retry. It doubles for each further"
+              + " retry, with random jitter. Defaults to 250ms.")
+  @Min(message = "Retry backoff must be 1 millisecond or more", value = 1)
+  private Integer retryBackoff;
+
+  @Schema(
+      description =
+          "Optional maximum time (millis) to back off between retries. Defaults to 4000ms.")
+  @Min(message = "Max retry backoff must be 1 millisecond or more", value = 1)
+  private Integer maxRetryBackoff;
+
+  @Schema(
+      description =
+          "Optional number of consecutive network errors that opens the circuit breaker. While"
+              + " open, requests fail fast without calling the exchange. If not set, the circuit"
+              + " breaker is disabled.")
+  @Min(message = "Circuit breaker failure threshold must be 1 or more", value = 1)
+  private Integer circuitBreakerFailureThreshold;
+
+  @Schema(
+      description =
+          "Optional time (secs) the circuit breaker stays open before a probe request is allowed"
+              + " through to the exchange. Defaults to 30s.")
+  @Min(message = "Circuit breaker open timeout must be 1 second or more", value = 1)
+  private Integer circuitBreakerOpenTimeout;
+
   public NetworkConfig() {
     nonFatalErrorCodes = new ArrayList<>();
     nonFatalErrorMessages = new ArrayList<>();
@@ -87,12 +158,102 @@ public class NetworkConfig {
     this.nonFatalErrorMessages = nonFatalErrorMessages;
   }
 
+  public Integer getConnectionPoolSize() {
+    return connectionPoolSize;
+  }
+
+  public void setConnectionPoolSize(Integer connectionPoolSize) {
+    this.connectionPoolSize = connectionPoolSize;
+  }
+
+  public Integer getConnectionIdleTimeout() {
+    return connectionIdleTimeout;
+  }
+
+  public void setConnectionIdleTimeout(Integer connectionIdleTimeout) {
+    this.connectionIdleTimeout = connectionIdleTimeout;
+  }
+
+  public Double getPublicRequestsPerSecond() {
+    return publicRequestsPerSecond;
+  }
+
+  public void setPublicRequestsPerSecond(Double publicRequestsPerSecond) {
+    this.publicRequestsPerSecond = publicRequestsPerSecond;
+  }
+
+  public Double getPrivateRequestsPerSecond() {
+    return privateRequestsPerSecond;
+  }
+
+  public void setPrivateRequestsPerSecond(Double privateRequestsPerSecond) {
+    this.privateRequestsPerSecond = privateRequestsPerSecond;
+  }
+
+  public Double getTradingRequestsPerSecond() {
+    return tradingRequestsPerSecond;
+  }
+
+  public void setTradingRequestsPerSecond(Double tradingRequestsPerSecond) {
+    this.tradingRequestsPerSecond = tradingRequestsPerSecond;
+  }
+
+  public Integer getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(Integer maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public Integer getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(Integer retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  public Integer getMaxRetryBackoff() {
+    return maxRetryBackoff;
+  }
+
+  public void setMaxRetryBackoff(Integer maxRetryBackoff) {
+    this.maxRetryBackoff = maxRetryBackoff;
+  }
+
+  public Integer getCircuitBreakerFailureThreshold() {
+    return circuitBreakerFailureThreshold;
+  }
+
+  public void setCircuitBreakerFailureThreshold(Integer circuitBreakerFailureThreshold) {
+    this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+  }
+
+  public Integer getCircuitBreakerOpenTimeout() {
+    return circuitBreakerOpenTimeout;
+  }
+
+  public void setCircuitBreakerOpenTimeout(Integer circuitBreakerOpenTimeout) {
+    this.circuitBreakerOpenTimeout = circuitBreakerOpenTimeout;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
         .add("connectionTimeout", connectionTimeout)
         .add("nonFatalErrorCodes", nonFatalErrorCodes)
         .add("nonFatalErrorMessages", nonFatalErrorMessages)
+        .add("connectionPoolSize", connectionPoolSize)
+        .add("connectionIdleTimeout", connectionIdleTimeout)
+        .add("publicRequestsPerSecond", publicRequestsPerSecond)
+        .add("privateRequestsPerSecond", privateRequestsPerSecond)
+        .add("tradingRequestsPerSecond", tradingRequestsPerSecond)
+        .add("maxRetries", maxRetries)
+        .add("retryBackoff", retryBackoff)
+        .add("maxRetryBackoff", maxRetryBackoff)
+        .add("circuitBreakerFailureThreshold", circuitBreakerFailureThreshold)
+        .add("circuitBreakerOpenTimeout", circuitBreakerOpenTimeout)
         .toString();
   }
 }
@@ -26,6 +26,7 @@ package com.gazbert.bxbot.domain.market;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import io.swagger.v3.oas.annotations.media.Schema;
+import javax.validation.constraints.Min;
 
 /**
  * Domain object representing a Market config.
@@ -57,6 +58,14 @@ public class MarketConfig {
   @Schema(required = true, description = "The Strategy ID to use for the Market.")
   private String tradingStrategyId;
 
+  @Schema(
+      description =
+          "Optional. The interval in (secs) between executions of this Market's Trading"
+              + " Strategy. If not set, the Engine tradeCycleInterval is used. The minimum value is"
+              + " 1 second.")
+  @Min(value = 1, message = "Market Trade Cycle Interval must be more than 1 second")
+  private Integer tradeCycleInterval;
+
   // Required by ConfigurableComponentFactory
   public MarketConfig() {
   }
@@ -73,6 +82,7 @@ public class MarketConfig {
     this.counterCurrency = other.counterCurrency;
     this.enabled = other.enabled;
     this.tradingStrategyId = other.tradingStrategyId;
+    this.tradeCycleInterval = other.tradeCycleInterval;
   }
 
   /**
@@ -149,6 +159,14 @@ public class MarketConfig {
     this.tradingStrategyId = tradingStrategyId;
   }
 
+  public Integer getTradeCycleInterval() {
+    return tradeCycleInterval;
+  }
+
+  public void setTradeCycleInterval(Integer tradeCycleInterval) {
+    this.tradeCycleInterval = tradeCycleInterval;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -175,6 +193,7 @@ public class MarketConfig {
         .add("counterCurrency", counterCurrency)
         .add("enabled", enabled)
         .add("tradingStrategyId", tradingStrategyId)
+        .add("tradeCycleInterval", tradeCycleInterval)
         .toString();
   }
 }
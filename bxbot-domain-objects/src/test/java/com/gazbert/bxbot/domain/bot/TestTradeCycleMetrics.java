@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests a TradeCycleMetrics domain object behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestTradeCycleMetrics {
+
+  private static final String BOT_ID = "avro-707_1";
+  private static final String TRADE_CYCLE_SCHEDULE = "FIXED_RATE";
+  private static final int TRADE_CYCLE_INTERVAL = 20;
+  private static final long CYCLE_COUNT = 42L;
+  private static final long SKIPPED_CYCLE_COUNT = 3L;
+  private static final long LAST_CYCLE_LAG = 12L;
+  private static final long MEAN_CYCLE_LAG = 8L;
+  private static final long MAX_CYCLE_LAG = 1250L;
+  private static final long LAST_CYCLE_DURATION = 3400L;
+  private static final Date LAST_CYCLE_START = new Date();
+  private static final long LAST_CYCLE_CACHE_HITS = 6L;
+  private static final long LAST_CYCLE_CACHE_MISSES = 4L;
+  private static final long CACHE_HIT_COUNT = 120L;
+  private static final long CACHE_MISS_COUNT = 80L;
+
+  @Test
+  void testSettersWorkAsExpected() {
+    final TradeCycleMetrics metrics = new TradeCycleMetrics();
+    assertNull(metrics.getBotId());
+    assertNull(metrics.getTradeCycleSchedule());
+    assertEquals(0, metrics.getTradeCycleInterval());
+    assertEquals(0, metrics.getCycleCount());
+    assertNull(metrics.getLastCycleStart());
+
+    metrics.setBotId(BOT_ID);
+    assertEquals(BOT_ID, metrics.getBotId());
+
+    metrics.setTradeCycleSchedule(TRADE_CYCLE_SCHEDULE);
+    assertEquals(TRADE_CYCLE_SCHEDULE, metrics.getTradeCycleSchedule());
+
+    metrics.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+    assertEquals(TRADE_CYCLE_INTERVAL, metrics.getTradeCycleInterval());
+
+    metrics.setCycleCount(CYCLE_COUNT);
+    assertEquals(CYCLE_COUNT, metrics.getCycleCount());
+
+    metrics.setSkippedCycleCount(SKIPPED_CYCLE_COUNT);
+    assertEquals(SKIPPED_CYCLE_COUNT, metrics.getSkippedCycleCount());
+
+    metrics.setLastCycleLag(LAST_CYCLE_LAG);
+    assertEquals(LAST_CYCLE_LAG, metrics.getLastCycleLag());
+
+    metrics.setMeanCycleLag(MEAN_CYCLE_LAG);
+    assertEquals(MEAN_CYCLE_LAG, metrics.getMeanCycleLag());
+
+    metrics.setMaxCycleLag(MAX_CYCLE_LAG);
+    assertEquals(MAX_CYCLE_LAG, metrics.getMaxCycleLag());
+
+    metrics.setLastCycleDuration(LAST_CYCLE_DURATION);
+    assertEquals(LAST_CYCLE_DURATION, metrics.getLastCycleDuration());
+
+    metrics.setLastCycleStart(LAST_CYCLE_START);
+    assertEquals(LAST_CYCLE_START.getTime(), metrics.getLastCycleStart().getTime());
+
+    metrics.setLastCycleStart(null);
+    assertNull(metrics.getLastCycleStart());
+
+    metrics.setLastCycleCacheHits(LAST_CYCLE_CACHE_HITS);
+    assertEquals(LAST_CYCLE_CACHE_HITS, metrics.getLastCycleCacheHits());
+
+    metrics.setLastCycleCacheMisses(LAST_CYCLE_CACHE_MISSES);
+    assertEquals(LAST_CYCLE_CACHE_MISSES, metrics.getLastCycleCacheMisses());
+
+    metrics.setCacheHitCount(CACHE_HIT_COUNT);
+    assertEquals(CACHE_HIT_COUNT, metrics.getCacheHitCount());
+
+    metrics.setCacheMissCount(CACHE_MISS_COUNT);
+    assertEquals(CACHE_MISS_COUNT, metrics.getCacheMissCount());
+  }
+
+  @Test
+  void testToStringWorksAsExpected() {
+    final TradeCycleMetrics metrics = new TradeCycleMetrics();
+    metrics.setBotId(BOT_ID);
+    metrics.setTradeCycleSchedule(TRADE_CYCLE_SCHEDULE);
+    metrics.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+    metrics.setCycleCount(CYCLE_COUNT);
+    assertTrue(
+        metrics
+            .toString()
+            .startsWith(
+                "TradeCycleMetrics{botId=avro-707_1, tradeCycleSchedule=FIXED_RATE, "
+                    + "tradeCycleInterval=20, cycleCount=42, skippedCycleCount=0,"));
+  }
+}
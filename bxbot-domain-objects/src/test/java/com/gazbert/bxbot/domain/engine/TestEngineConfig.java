@@ -42,6 +42,8 @@ class TestEngineConfig {
   private static final String EMERGENCY_STOP_CURRENCY = "BTC";
   private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("1.5");
   private static final int TRADE_CYCLE_INTERVAL = 30;
+  private static final String TRADE_CYCLE_SCHEDULE = "FIXED_RATE";
+  private static final int STRATEGY_PARALLELISM = 4;
 
   @Test
   void testInitialisationWorksAsExpected() {
@@ -68,6 +70,8 @@ class TestEngineConfig {
     assertNull(engineConfig.getEmergencyStopCurrency());
     assertNull(engineConfig.getEmergencyStopBalance());
     assertEquals(0, engineConfig.getTradeCycleInterval());
+    assertNull(engineConfig.getTradeCycleSchedule());
+    assertEquals(0, engineConfig.getStrategyParallelism());
 
     engineConfig.setBotId(BOT_ID);
     assertEquals(BOT_ID, engineConfig.getBotId());
@@ -83,6 +87,12 @@ class TestEngineConfig {
 
     engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
     assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+
+    engineConfig.setTradeCycleSchedule(TRADE_CYCLE_SCHEDULE);
+    assertEquals(TRADE_CYCLE_SCHEDULE, engineConfig.getTradeCycleSchedule());
+
+    engineConfig.setStrategyParallelism(STRATEGY_PARALLELISM);
+    assertEquals(STRATEGY_PARALLELISM, engineConfig.getStrategyParallelism());
   }
 
   @Test
@@ -159,7 +169,8 @@ class TestEngineConfig {
 
     assertEquals(
         "EngineConfig{botId=avro-707_1, botName=Avro 707, emergencyStopCurrency=BTC, "
-            + "emergencyStopBalance=1.5, tradeCycleInterval=30}",
+            + "emergencyStopBalance=1.5, tradeCycleInterval=30, tradeCycleSchedule=null, "
+            + "strategyParallelism=0}",
         engineConfig.toString());
   }
 }
@@ -86,7 +86,12 @@ class TestExchangeConfig {
         "ExchangeConfig{name=Bitstamp, "
             + "adapter=com.gazbert.bxbot.exchanges.TestExchangeAdapter, "
             + "networkConfig=NetworkConfig{connectionTimeout=null, nonFatalErrorCodes=[], "
-            + "nonFatalErrorMessages=[]}, otherConfig={}}",
+            + "nonFatalErrorMessages=[], connectionPoolSize=null, connectionIdleTimeout=null, "
+            + "publicRequestsPerSecond=null, privateRequestsPerSecond=null, "
+            + "tradingRequestsPerSecond=null, maxRetries=null, retryBackoff=null, "
+            + "maxRetryBackoff=null, circuitBreakerFailureThreshold=null, "
+            + "circuitBreakerOpenTimeout=null}, "
+            + "otherConfig={}}",
         exchangeConfig.toString());
   }
 }
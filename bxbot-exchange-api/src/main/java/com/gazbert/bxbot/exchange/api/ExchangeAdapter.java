@@ -29,8 +29,10 @@ import com.gazbert.bxbot.trading.api.TradingApi;
  * All Exchange Adapters must implement this interface. It's main purpose is for the Trading Engine
  * to pass the adapter its configuration on startup.
  *
- * <p>The Trading Engine will send only 1 thread through the Exchange Adapter code at a time - you
- * do not have to code for concurrency.
+ * <p>By default, the Trading Engine will send only 1 thread through the Exchange Adapter code at a
+ * time - you do not have to code for concurrency. If the engine config strategyParallelism is set
+ * to more than 1, the adapter is called concurrently; adapters that sign requests with an
+ * increasing nonce do not support this.
  *
  * @author gazbert
  * @since 1.0
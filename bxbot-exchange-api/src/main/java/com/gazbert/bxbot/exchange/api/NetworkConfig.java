@@ -53,4 +53,104 @@ public interface NetworkConfig {
    * @return the connection timeout value if present, null otherwise.
    */
   Integer getConnectionTimeout();
+
+  /**
+   * Fetches (optional) maximum number of idle connections to keep open to the exchange.
+   *
+   * @return the connection pool size if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getConnectionPoolSize() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) time in secs that an idle connection to the exchange is kept open.
+   *
+   * @return the connection idle timeout if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getConnectionIdleTimeout() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) maximum rate of public market data requests to send to the exchange.
+   *
+   * @return the public requests per second if present, null otherwise.
+   * @since 1.3
+   */
+  default Double getPublicRequestsPerSecond() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) maximum rate of private account requests to send to the exchange.
+   *
+   * @return the private requests per second if present, null otherwise.
+   * @since 1.3
+   */
+  default Double getPrivateRequestsPerSecond() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) maximum rate of create and cancel order requests to send to the exchange.
+   *
+   * @return the trading requests per second if present, null otherwise.
+   * @since 1.3
+   */
+  default Double getTradingRequestsPerSecond() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) number of times an idempotent read request is retried after a network error.
+   *
+   * @return the max retries if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getMaxRetries() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) time in millis to back off before the first retry.
+   *
+   * @return the retry backoff if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getRetryBackoff() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) maximum time in millis to back off between retries.
+   *
+   * @return the max retry backoff if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getMaxRetryBackoff() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) number of consecutive network errors that opens the circuit breaker.
+   *
+   * @return the circuit breaker failure threshold if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getCircuitBreakerFailureThreshold() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) time in secs the circuit breaker stays open before a probe request is sent.
+   *
+   * @return the circuit breaker open timeout if present, null otherwise.
+   * @since 1.3
+   */
+  default Integer getCircuitBreakerOpenTimeout() {
+    return null;
+  }
 }
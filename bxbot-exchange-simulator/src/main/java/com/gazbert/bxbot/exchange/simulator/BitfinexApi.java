@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Simulates the Bitfinex v1 REST API used by the BitfinexExchangeAdapter.
+ *
+ * @author gazbert
+ */
+class BitfinexApi extends ExchangeApi {
+
+  private static final String API_PATH = "/v1/";
+  private static final String MAKER_FEE = "0.1";
+  private static final String TAKER_FEE = "0.2";
+
+  private final SimulatorConfig config;
+
+  BitfinexApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    final String path = request.getPath();
+    if (!path.startsWith(API_PATH)) {
+      return notFound();
+    }
+    final String resource = path.substring(API_PATH.length());
+    if (resource.startsWith("book/")) {
+      return ok(book(resource.substring("book/".length())));
+    } else if (resource.startsWith("pubticker/")) {
+      return ok(ticker(resource.substring("pubticker/".length())));
+    }
+    switch (resource) {
+      case "orders":
+        return ok(openOrders());
+      case "order/new":
+        return ok(placeOrder(request));
+      case "order/cancel":
+        return cancelOrder(request.getParam("order_id"));
+      case "balances":
+        return ok(balances());
+      case "account_infos":
+        return ok(accountInfos());
+      default:
+        return notFound();
+    }
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    final Map<String, Object> error = object();
+    error.put("message", "Invalid order: " + reason);
+    return new SimulatedResponse(HTTP_BAD_REQUEST, error);
+  }
+
+  private Map<String, Object> book(String symbol) {
+    final String timestamp = timestamp(System.currentTimeMillis());
+    final Map<String, Object> book = object();
+    book.put("bids", priceLevelObjects(symbol, Side.BUY, config.getBookDepth(), timestamp));
+    book.put("asks", priceLevelObjects(symbol, Side.SELL, config.getBookDepth(), timestamp));
+    return book;
+  }
+
+  private Map<String, Object> ticker(String symbol) {
+    final MarketStats stats = matchingEngine.getMarketStats(symbol);
+    final Map<String, Object> ticker = object();
+    ticker.put("mid", decimal(stats.getBid().add(stats.getAsk()).divide(BigDecimal.valueOf(2))));
+    ticker.put("bid", decimal(stats.getBid()));
+    ticker.put("ask", decimal(stats.getAsk()));
+    ticker.put("last_price", decimal(stats.getLast()));
+    ticker.put("low", decimal(stats.getLow()));
+    ticker.put("high", decimal(stats.getHigh()));
+    ticker.put("volume", decimal(stats.getVolume()));
+    ticker.put("timestamp", timestamp(System.currentTimeMillis()));
+    return ticker;
+  }
+
+  private List<Map<String, Object>> openOrders() {
+    final List<Map<String, Object>> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(order(order));
+    }
+    return openOrders;
+  }
+
+  private Map<String, Object> placeOrder(SimulatedRequest request)
+      throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            request.getParam("symbol"),
+            side(request.getParam("side")),
+            decimal(request.getParam("amount")),
+            decimal(request.getParam("price")));
+    final Map<String, Object> newOrder = order(order);
+    newOrder.put("order_id", order.getId());
+    return newOrder;
+  }
+
+  private SimulatedResponse cancelOrder(String id) {
+    final SimulatedOrder order = matchingEngine.cancelOrder(orderId(id));
+    if (order == null) {
+      final Map<String, Object> error = object();
+      error.put("message", "Order could not be cancelled.");
+      return new SimulatedResponse(HTTP_BAD_REQUEST, error);
+    }
+    return ok(order(order));
+  }
+
+  private List<Map<String, Object>> balances() {
+    final Map<String, BigDecimal> available = matchingEngine.getAvailableBalances();
+    final Map<String, BigDecimal> onHold = matchingEngine.getBalancesOnHold();
+    final List<Map<String, Object>> balances = new ArrayList<>();
+    for (final Map.Entry<String, BigDecimal> currency : available.entrySet()) {
+      final BigDecimal hold = onHold.getOrDefault(currency.getKey(), BigDecimal.ZERO);
+      final Map<String, Object> balance = object();
+      balance.put("type", "exchange");
+      balance.put("currency", currency.getKey().toLowerCase(Locale.ROOT));
+      balance.put("amount", decimal(currency.getValue().add(hold)));
+      balance.put("available", decimal(currency.getValue()));
+      balances.add(balance);
+    }
+    return balances;
+  }
+
+  private static List<Map<String, Object>> accountInfos() {
+    final Map<String, Object> pairFee = object();
+    pairFee.put("pairs", "BTC");
+    pairFee.put("maker_fees", MAKER_FEE);
+    pairFee.put("taker_fees", TAKER_FEE);
+    final Map<String, Object> accountInfo = object();
+    accountInfo.put("maker_fees", MAKER_FEE);
+    accountInfo.put("taker_fees", TAKER_FEE);
+    accountInfo.put("fees", List.of(pairFee));
+    return List.of(accountInfo);
+  }
+
+  private static Map<String, Object> order(SimulatedOrder order) {
+    final Map<String, Object> bitfinexOrder = object();
+    bitfinexOrder.put("id", order.getId());
+    bitfinexOrder.put("symbol", order.getMarketId());
+    bitfinexOrder.put("exchange", "bitfinex");
+    bitfinexOrder.put("price", decimal(order.getPrice()));
+    bitfinexOrder.put("avg_execution_price", "0.0");
+    bitfinexOrder.put("side", order.getSide().name().toLowerCase(Locale.ROOT));
+    bitfinexOrder.put("type", "exchange limit");
+    bitfinexOrder.put("timestamp", timestamp(order.getCreatedTime().toEpochMilli()));
+    bitfinexOrder.put("is_live", order.isOpen());
+    bitfinexOrder.put("is_cancelled", order.isCancelled());
+    bitfinexOrder.put("is_hidden", false);
+    bitfinexOrder.put("was_forced", false);
+    bitfinexOrder.put("original_amount", decimal(order.getQuantity()));
+    bitfinexOrder.put("remaining_amount", decimal(order.getRemaining()));
+    bitfinexOrder.put("executed_amount", decimal(order.getFilled()));
+    return bitfinexOrder;
+  }
+
+  /*
+   * Bitfinex sends Unix timestamps in secs with a decimal point, e.g. "1442073766.0"
+   */
+  private static String timestamp(long millis) {
+    return (millis / 1000) + ".0";
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Simulates the Bitstamp v2 REST API used by the BitstampExchangeAdapter.
+ *
+ * @author gazbert
+ */
+class BitstampApi extends ExchangeApi {
+
+  private static final String API_PATH = "/api/v2/";
+  private static final List<String> DEFAULT_MARKETS =
+      List.of("btcusd", "btceur", "eurusd", "xrpusd", "xrpeur", "xrpbtc", "ltcusd", "ltceur",
+          "ltcbtc");
+  private static final String FEE = "0.25";
+  private static final DateTimeFormatter DATE_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+  private final SimulatorConfig config;
+
+  BitstampApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    final String path = request.getPath();
+    if (!path.startsWith(API_PATH)) {
+      return notFound();
+    }
+    final String[] resource = path.substring(API_PATH.length()).split("/");
+    final String marketId = resource.length > 1 ? resource[1] : null;
+    switch (resource[0]) {
+      case "order_book":
+        return ok(orderBook(marketId));
+      case "ticker":
+        return ok(ticker(marketId));
+      case "open_orders":
+        return ok(openOrders(marketId));
+      case "buy":
+        return ok(placeOrder(marketId, Side.BUY, request));
+      case "sell":
+        return ok(placeOrder(marketId, Side.SELL, request));
+      case "cancel_order":
+        return cancelOrder(request.getParam("id"));
+      case "balance":
+        return ok(balance());
+      default:
+        return notFound();
+    }
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    final Map<String, Object> error = object();
+    error.put("status", "error");
+    error.put("reason", Map.of("__all__", List.of(reason)));
+    return ok(error);
+  }
+
+  private Map<String, Object> orderBook(String marketId) {
+    final Map<String, Object> orderBook = object();
+    orderBook.put("timestamp", Long.toString(System.currentTimeMillis() / 1000));
+    orderBook.put("bids", priceLevels(marketId, Side.BUY, config.getBookDepth()));
+    orderBook.put("asks", priceLevels(marketId, Side.SELL, config.getBookDepth()));
+    return orderBook;
+  }
+
+  private Map<String, Object> ticker(String marketId) {
+    final MarketStats stats = matchingEngine.getMarketStats(marketId);
+    final Map<String, Object> ticker = object();
+    ticker.put("high", decimal(stats.getHigh()));
+    ticker.put("last", decimal(stats.getLast()));
+    ticker.put("timestamp", Long.toString(System.currentTimeMillis() / 1000));
+    ticker.put("bid", decimal(stats.getBid()));
+    ticker.put("vwap", decimal(stats.getVwap()));
+    ticker.put("volume", decimal(stats.getVolume()));
+    ticker.put("low", decimal(stats.getLow()));
+    ticker.put("ask", decimal(stats.getAsk()));
+    ticker.put("open", decimal(stats.getOpen()));
+    return ticker;
+  }
+
+  private List<Map<String, Object>> openOrders(String marketId) {
+    final List<Map<String, Object>> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(marketId)) {
+      openOrders.add(order(order, order.getRemaining()));
+    }
+    return openOrders;
+  }
+
+  private Map<String, Object> placeOrder(String marketId, Side side, SimulatedRequest request)
+      throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            marketId,
+            side,
+            decimal(request.getParam("amount")),
+            decimal(request.getParam("price")));
+    return order(order, order.getQuantity());
+  }
+
+  private SimulatedResponse cancelOrder(String id) {
+    final SimulatedOrder order = matchingEngine.cancelOrder(orderId(id));
+    if (order == null) {
+      final Map<String, Object> error = object();
+      error.put("error", "Order not found");
+      return ok(error);
+    }
+    final Map<String, Object> cancelledOrder = object();
+    cancelledOrder.put("id", order.getId());
+    cancelledOrder.put("price", decimal(order.getPrice()));
+    cancelledOrder.put("amount", decimal(order.getRemaining()));
+    cancelledOrder.put("type", order.getSide() == Side.BUY ? 0 : 1);
+    return ok(cancelledOrder);
+  }
+
+  private Map<String, Object> balance() {
+    final Map<String, BigDecimal> available = matchingEngine.getAvailableBalances();
+    final Map<String, BigDecimal> onHold = matchingEngine.getBalancesOnHold();
+    final Map<String, Object> balance = object();
+    for (final Map.Entry<String, BigDecimal> currency : available.entrySet()) {
+      final String name = currency.getKey().toLowerCase(Locale.ROOT);
+      final BigDecimal reserved = onHold.getOrDefault(currency.getKey(), BigDecimal.ZERO);
+      balance.put(name + "_available", decimal(currency.getValue()));
+      balance.put(name + "_balance", decimal(currency.getValue().add(reserved)));
+      balance.put(name + "_reserved", decimal(reserved));
+    }
+    final TreeSet<String> markets = new TreeSet<>(DEFAULT_MARKETS);
+    markets.addAll(matchingEngine.getMarketIds());
+    for (final String market : markets) {
+      balance.put(market + "_fee", FEE);
+    }
+    return balance;
+  }
+
+  private static Map<String, Object> order(SimulatedOrder order, BigDecimal amount) {
+    final Map<String, Object> bitstampOrder = object();
+    bitstampOrder.put("id", order.getId());
+    bitstampOrder.put("datetime", DATE_FORMAT.format(order.getCreatedTime()));
+    bitstampOrder.put("type", order.getSide() == Side.BUY ? 0 : 1);
+    bitstampOrder.put("price", decimal(order.getPrice()));
+    bitstampOrder.put("amount", decimal(amount));
+    return bitstampOrder;
+  }
+}
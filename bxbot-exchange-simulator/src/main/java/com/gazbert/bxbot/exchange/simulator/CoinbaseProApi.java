@@ -0,0 +1,211 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Simulates the Coinbase Pro REST API used by the CoinbaseProExchangeAdapter.
+ *
+ * <p>Order ids are UUIDs, like the real exchange's.
+ *
+ * @author gazbert
+ */
+class CoinbaseProApi extends ExchangeApi {
+
+  private static final String PRODUCTS_PATH = "/products/";
+  private static final String ORDERS_PATH = "/orders";
+  private static final String PROFILE_ID = new UUID(2L, 1L).toString();
+
+  private final SimulatorConfig config;
+
+  CoinbaseProApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    final String path = request.getPath();
+    final String method = request.getMethod();
+
+    if (path.startsWith(PRODUCTS_PATH)) {
+      final String[] resource = path.substring(PRODUCTS_PATH.length()).split("/");
+      if (resource.length == 2) {
+        switch (resource[1]) {
+          case "book":
+            return ok(book(resource[0]));
+          case "ticker":
+            return ok(ticker(resource[0]));
+          case "stats":
+            return ok(stats(resource[0]));
+          default:
+            return notFound();
+        }
+      }
+    } else if (path.equals(ORDERS_PATH)) {
+      if ("GET".equals(method)) {
+        return ok(openOrders());
+      } else if ("POST".equals(method)) {
+        return ok(placeOrder(request));
+      }
+    } else if (path.startsWith(ORDERS_PATH + "/") && "DELETE".equals(method)) {
+      return cancelOrder(path.substring(ORDERS_PATH.length() + 1));
+    } else if (path.equals("/accounts")) {
+      return ok(accounts());
+    }
+    return notFound();
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    final Map<String, Object> error = object();
+    error.put("message", reason);
+    return new SimulatedResponse(HTTP_BAD_REQUEST, error);
+  }
+
+  private Map<String, Object> book(String productId) {
+    final Map<String, Object> book = object();
+    book.put("sequence", System.currentTimeMillis());
+    book.put("bids", withOrderCount(priceLevels(productId, Side.BUY, config.getBookDepth())));
+    book.put("asks", withOrderCount(priceLevels(productId, Side.SELL, config.getBookDepth())));
+    return book;
+  }
+
+  private Map<String, Object> ticker(String productId) {
+    final MarketStats stats = matchingEngine.getMarketStats(productId);
+    final Map<String, Object> ticker = object();
+    ticker.put("trade_id", 1);
+    ticker.put("price", decimal(stats.getLast()));
+    ticker.put("size", "0");
+    ticker.put("bid", decimal(stats.getBid()));
+    ticker.put("ask", decimal(stats.getAsk()));
+    ticker.put("volume", decimal(stats.getVolume()));
+    ticker.put("time", Instant.now().toString());
+    return ticker;
+  }
+
+  private Map<String, Object> stats(String productId) {
+    final MarketStats marketStats = matchingEngine.getMarketStats(productId);
+    final Map<String, Object> stats = object();
+    stats.put("open", decimal(marketStats.getOpen()));
+    stats.put("high", decimal(marketStats.getHigh()));
+    stats.put("low", decimal(marketStats.getLow()));
+    stats.put("volume", decimal(marketStats.getVolume()));
+    stats.put("last", decimal(marketStats.getLast()));
+    stats.put("volume_30day", decimal(marketStats.getVolume()));
+    return stats;
+  }
+
+  private List<Map<String, Object>> openOrders() {
+    final List<Map<String, Object>> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(order(order));
+    }
+    return openOrders;
+  }
+
+  private Map<String, Object> placeOrder(SimulatedRequest request)
+      throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            request.getParam("product_id"),
+            side(request.getParam("side")),
+            decimal(request.getParam("size")),
+            decimal(request.getParam("price")));
+    return order(order);
+  }
+
+  private SimulatedResponse cancelOrder(String id) {
+    long orderId;
+    try {
+      orderId = UUID.fromString(id).getLeastSignificantBits();
+    } catch (IllegalArgumentException e) {
+      orderId = -1L;
+    }
+    if (matchingEngine.cancelOrder(orderId) == null) {
+      return rejected("Order already done");
+    }
+    return ok(List.of(id));
+  }
+
+  private List<Map<String, Object>> accounts() {
+    final Map<String, BigDecimal> available = matchingEngine.getAvailableBalances();
+    final Map<String, BigDecimal> onHold = matchingEngine.getBalancesOnHold();
+    final List<Map<String, Object>> accounts = new ArrayList<>();
+    long accountNumber = 1L;
+    for (final Map.Entry<String, BigDecimal> currency : available.entrySet()) {
+      final BigDecimal hold = onHold.getOrDefault(currency.getKey(), BigDecimal.ZERO);
+      final Map<String, Object> account = object();
+      account.put("id", new UUID(1L, accountNumber++).toString());
+      account.put("currency", currency.getKey());
+      account.put("balance", decimal(currency.getValue().add(hold)));
+      account.put("hold", decimal(hold));
+      account.put("available", decimal(currency.getValue()));
+      account.put("profile_id", PROFILE_ID);
+      accounts.add(account);
+    }
+    return accounts;
+  }
+
+  private static Map<String, Object> order(SimulatedOrder order) {
+    final Map<String, Object> coinbaseProOrder = object();
+    coinbaseProOrder.put("id", new UUID(0L, order.getId()).toString());
+    coinbaseProOrder.put("price", decimal(order.getPrice()));
+    coinbaseProOrder.put("size", decimal(order.getQuantity()));
+    coinbaseProOrder.put("product_id", order.getMarketId());
+    coinbaseProOrder.put("side", order.getSide().name().toLowerCase(Locale.ROOT));
+    coinbaseProOrder.put("stp", "dc");
+    coinbaseProOrder.put("type", "limit");
+    coinbaseProOrder.put("time_in_force", "GTC");
+    coinbaseProOrder.put("post_only", false);
+    coinbaseProOrder.put("created_at", order.getCreatedTime().toString());
+    coinbaseProOrder.put("fill_fees", "0");
+    coinbaseProOrder.put("filled_size", decimal(order.getFilled()));
+    coinbaseProOrder.put("executed_value", decimal(order.getPrice().multiply(order.getFilled())));
+    coinbaseProOrder.put("status", order.isOpen() ? "open" : "done");
+    coinbaseProOrder.put("settled", !order.isOpen());
+    return coinbaseProOrder;
+  }
+
+  private static List<List<String>> withOrderCount(List<List<String>> levels) {
+    final List<List<String>> levelsWithOrderCount = new ArrayList<>();
+    for (final List<String> level : levels) {
+      levelsWithOrderCount.add(List.of(level.get(0), level.get(1), "1"));
+    }
+    return levelsWithOrderCount;
+  }
+}
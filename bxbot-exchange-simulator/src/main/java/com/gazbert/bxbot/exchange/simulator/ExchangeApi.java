@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base class for the simulated exchange APIs. It injects the latency and errors, and turns the
+ * HTTP exchange into a {@link SimulatedRequest} for the subclass to answer.
+ *
+ * <p>Responses are built as maps and lists, and serialised with Gson. Decimals are sent as
+ * Strings, like most exchanges do.
+ *
+ * @author gazbert
+ */
+abstract class ExchangeApi implements HttpHandler {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final int HTTP_OK = 200;
+  static final int HTTP_CREATED = 201;
+  static final int HTTP_ACCEPTED = 202;
+  static final int HTTP_BAD_REQUEST = 400;
+  static final int HTTP_NOT_FOUND = 404;
+  static final int HTTP_INTERNAL_ERROR = 500;
+
+  private final String contextPath;
+  private final FaultInjector faultInjector;
+  private final Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+  final MatchingEngine matchingEngine;
+
+  ExchangeApi(String contextPath, MatchingEngine matchingEngine, FaultInjector faultInjector) {
+    this.contextPath = contextPath;
+    this.matchingEngine = matchingEngine;
+    this.faultInjector = faultInjector;
+  }
+
+  /**
+   * Builds the exchange's error response for a rejected order.
+   *
+   * @param reason the reason the order was rejected.
+   * @return the error response.
+   */
+  abstract SimulatedResponse rejected(String reason);
+
+  /**
+   * Answers a request.
+   *
+   * @param request the request.
+   * @return the response.
+   * @throws OrderRejectedException if the request was for an order the engine rejected.
+   */
+  abstract SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException;
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try {
+      final long latency = faultInjector.nextLatencyInMillis();
+      if (latency > 0) {
+        TimeUnit.MILLISECONDS.sleep(latency);
+      }
+
+      final int errorStatusCode = faultInjector.nextErrorStatusCode();
+      if (errorStatusCode > 0) {
+        send(exchange, new SimulatedResponse(errorStatusCode, "Simulated exchange error"));
+        return;
+      }
+
+      final String body =
+          new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+      final String path = exchange.getRequestURI().getRawPath().substring(contextPath.length());
+      final SimulatedRequest request =
+          new SimulatedRequest(
+              exchange.getRequestMethod(), path, exchange.getRequestURI().getRawQuery(), body);
+
+      SimulatedResponse response;
+      try {
+        response = handle(request);
+      } catch (OrderRejectedException e) {
+        response = rejected(e.getMessage());
+      } catch (RuntimeException e) {
+        LOG.error("Failed to handle simulated exchange request: " + request.getPath(), e);
+        response = new SimulatedResponse(HTTP_INTERNAL_ERROR, "Internal error");
+      }
+      send(exchange, response);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void send(HttpExchange exchange, SimulatedResponse response) throws IOException {
+    final Object body = response.getBody();
+    final byte[] payload =
+        (body instanceof String ? (String) body : gson.toJson(body))
+            .getBytes(StandardCharsets.UTF_8);
+    exchange
+        .getResponseHeaders()
+        .add("Content-Type", body instanceof String ? "text/plain" : "application/json");
+    exchange.sendResponseHeaders(response.getStatusCode(), payload.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(payload);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  Helpers for building responses
+  // --------------------------------------------------------------------------
+
+  static SimulatedResponse ok(Object body) {
+    return new SimulatedResponse(HTTP_OK, body);
+  }
+
+  static SimulatedResponse notFound() {
+    return new SimulatedResponse(HTTP_NOT_FOUND, "Not found");
+  }
+
+  static Map<String, Object> object() {
+    return new LinkedHashMap<>();
+  }
+
+  static String decimal(BigDecimal value) {
+    return value.toPlainString();
+  }
+
+  static BigDecimal decimal(String value) throws OrderRejectedException {
+    if (value == null) {
+      throw new OrderRejectedException("Missing number");
+    }
+    try {
+      return new BigDecimal(value);
+    } catch (NumberFormatException e) {
+      throw new OrderRejectedException("Invalid number: " + value);
+    }
+  }
+
+  static Side side(String side) throws OrderRejectedException {
+    if ("buy".equalsIgnoreCase(side)) {
+      return Side.BUY;
+    } else if ("sell".equalsIgnoreCase(side)) {
+      return Side.SELL;
+    }
+    throw new OrderRejectedException("Invalid order side: " + side);
+  }
+
+  static long orderId(String orderId) {
+    try {
+      return Long.parseLong(orderId);
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  /**
+   * Returns the price levels on one side of a market's book as [price, quantity] String arrays.
+   *
+   * @param marketId the market id.
+   * @param side BUY for bids, SELL for asks.
+   * @param depth the maximum number of levels.
+   * @return the price levels.
+   */
+  List<List<String>> priceLevels(String marketId, Side side, int depth) {
+    final List<List<String>> levels = new ArrayList<>();
+    for (final BigDecimal[] level : matchingEngine.getPriceLevels(marketId, side, depth)) {
+      levels.add(List.of(decimal(level[0]), decimal(level[1])));
+    }
+    return levels;
+  }
+
+  /**
+   * Returns the price levels on one side of a market's book as objects with price, amount and
+   * timestamp fields, as used by Bitfinex and Gemini.
+   *
+   * @param marketId the market id.
+   * @param side BUY for bids, SELL for asks.
+   * @param depth the maximum number of levels.
+   * @param timestamp the timestamp to put on each level.
+   * @return the price levels.
+   */
+  List<Map<String, Object>> priceLevelObjects(
+      String marketId, Side side, int depth, String timestamp) {
+    final List<Map<String, Object>> levels = new ArrayList<>();
+    for (final BigDecimal[] level : matchingEngine.getPriceLevels(marketId, side, depth)) {
+      final Map<String, Object> priceLevel = object();
+      priceLevel.put("price", decimal(level[0]));
+      priceLevel.put("amount", decimal(level[1]));
+      priceLevel.put("timestamp", timestamp);
+      levels.add(priceLevel);
+    }
+    return levels;
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An embedded mock exchange server.
+ *
+ * <p>It speaks enough of each supported exchange's REST API for the bot's exchange adapters to
+ * run against it unchanged: point an adapter at {@link #getBaseUri(SimulatedExchange)} using the
+ * <code>bxbot.exchange.base.uri</code> system property. Every exchange gets its own {@link
+ * MatchingEngine}, so orders placed on one never show up on another. Latency and error responses
+ * are injected as configured in the {@link SimulatorConfig}.
+ *
+ * <p>Authentication headers and signatures are accepted without being checked.
+ *
+ * @author gazbert
+ * @since 1.3
+ */
+public class ExchangeSimulator {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String SYSTEM_PROPERTY_PREFIX = "bxbot.simulator.";
+  private static final int DEFAULT_PORT = 8090;
+  private static final int STOP_DELAY_IN_SECS = 0;
+
+  private final SimulatorConfig config;
+  private final FaultInjector faultInjector;
+  private final Map<SimulatedExchange, MatchingEngine> matchingEngines =
+      new EnumMap<>(SimulatedExchange.class);
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * Creates a new simulator. Call {@link #start()} to start serving requests.
+   *
+   * @param config the simulator config.
+   */
+  public ExchangeSimulator(SimulatorConfig config) {
+    this.config = config;
+    faultInjector = new FaultInjector(config);
+    for (final SimulatedExchange exchange : SimulatedExchange.values()) {
+      matchingEngines.put(exchange, new MatchingEngine(config));
+    }
+  }
+
+  /**
+   * Starts the HTTP server.
+   *
+   * @throws IOException if the server cannot bind to its port.
+   */
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Exchange simulator is already running");
+    }
+    server =
+        HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getPort()), 0);
+    for (final SimulatedExchange exchange : SimulatedExchange.values()) {
+      server.createContext(
+          exchange.getContextPath(),
+          exchange.createApi(matchingEngines.get(exchange), faultInjector, config));
+    }
+    executor = Executors.newFixedThreadPool(config.getWorkerThreads());
+    server.setExecutor(executor);
+    server.start();
+    LOG.info(() -> "Exchange simulator started on port " + getPort() + " with " + config);
+  }
+
+  /** Stops the HTTP server. Does nothing if it is not running. */
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.stop(STOP_DELAY_IN_SECS);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    server = null;
+    executor = null;
+    LOG.info("Exchange simulator stopped");
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   *
+   * @return the port.
+   */
+  public synchronized int getPort() {
+    if (server == null) {
+      throw new IllegalStateException("Exchange simulator is not running");
+    }
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Returns the base URI to point an exchange adapter at.
+   *
+   * @param exchange the exchange.
+   * @return the base URI, e.g. http://127.0.0.1:8090/kraken
+   */
+  public URI getBaseUri(SimulatedExchange exchange) {
+    return URI.create("http://127.0.0.1:" + getPort() + exchange.getContextPath());
+  }
+
+  /**
+   * Makes every exchange fail all requests for the given duration.
+   *
+   * @param duration how long the error storm lasts.
+   */
+  public void startErrorStorm(Duration duration) {
+    faultInjector.startErrorStorm(duration);
+  }
+
+  MatchingEngine getMatchingEngine(SimulatedExchange exchange) {
+    return matchingEngines.get(exchange);
+  }
+
+  /**
+   * Runs the simulator standalone. Config is read from <code>bxbot.simulator.*</code> system
+   * properties named after the {@link SimulatorConfig} fields, e.g. <code>
+   * -Dbxbot.simulator.port=8090 -Dbxbot.simulator.latencyInMillis=50</code>.
+   *
+   * @param args not used.
+   * @throws IOException if the server cannot bind to its port.
+   */
+  public static void main(String[] args) throws IOException {
+    final ExchangeSimulator simulator = new ExchangeSimulator(loadConfig(System.getProperties()));
+    simulator.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop));
+    for (final SimulatedExchange exchange : SimulatedExchange.values()) {
+      LOG.info(() -> exchange + " -> " + simulator.getBaseUri(exchange));
+    }
+  }
+
+  static SimulatorConfig loadConfig(Properties properties) {
+    final SimulatorConfig config = new SimulatorConfig();
+    config.setPort(Integer.parseInt(property(properties, "port", DEFAULT_PORT)));
+    config.setWorkerThreads(
+        Integer.parseInt(property(properties, "workerThreads", config.getWorkerThreads())));
+    config.setLatencyInMillis(
+        Long.parseLong(property(properties, "latencyInMillis", config.getLatencyInMillis())));
+    config.setLatencyJitterInMillis(
+        Long.parseLong(
+            property(properties, "latencyJitterInMillis", config.getLatencyJitterInMillis())));
+    config.setErrorRate(
+        Double.parseDouble(property(properties, "errorRate", config.getErrorRate())));
+    config.setErrorStormIntervalInSecs(
+        Long.parseLong(
+            property(
+                properties, "errorStormIntervalInSecs", config.getErrorStormIntervalInSecs())));
+    config.setErrorStormDurationInSecs(
+        Long.parseLong(
+            property(
+                properties, "errorStormDurationInSecs", config.getErrorStormDurationInSecs())));
+    config.setRandomSeed(
+        Long.parseLong(property(properties, "randomSeed", config.getRandomSeed())));
+    config.setInitialPrice(
+        new BigDecimal(
+            property(properties, "initialPrice", config.getInitialPrice().toPlainString())));
+    return config;
+  }
+
+  private static String property(Properties properties, String name, Object defaultValue) {
+    return properties.getProperty(SYSTEM_PROPERTY_PREFIX + name, String.valueOf(defaultValue));
+  }
+}
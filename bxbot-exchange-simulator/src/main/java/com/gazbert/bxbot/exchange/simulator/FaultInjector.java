@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides the latency and errors injected into each simulated exchange response.
+ *
+ * <p>Errors are injected at random at the configured error rate, and for every request during an
+ * error storm. Error storms start at a fixed interval, or on demand.
+ *
+ * @author gazbert
+ */
+class FaultInjector {
+
+  private final SimulatorConfig config;
+  private final LongSupplier nanoClock;
+  private final Random random;
+  private final long startNanos;
+  private long errorStormEndNanos;
+
+  FaultInjector(SimulatorConfig config) {
+    this(config, System::nanoTime);
+  }
+
+  FaultInjector(SimulatorConfig config, LongSupplier nanoClock) {
+    this.config = config;
+    this.nanoClock = nanoClock;
+    this.random = new Random(config.getRandomSeed());
+    this.startNanos = nanoClock.getAsLong();
+    this.errorStormEndNanos = startNanos;
+  }
+
+  /**
+   * Returns the latency to add to the next response.
+   *
+   * @return the latency in millis.
+   */
+  synchronized long nextLatencyInMillis() {
+    final long jitter = config.getLatencyJitterInMillis();
+    return config.getLatencyInMillis() + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+  }
+
+  /**
+   * Returns the error status code to respond to the next request with.
+   *
+   * @return the error status code, 0 if the request should succeed.
+   */
+  synchronized int nextErrorStatusCode() {
+    final List<Integer> errorStatusCodes = config.getErrorStatusCodes();
+    if (errorStatusCodes.isEmpty()) {
+      return 0;
+    }
+    if (isErrorStorm() || random.nextDouble() < config.getErrorRate()) {
+      return errorStatusCodes.get(random.nextInt(errorStatusCodes.size()));
+    }
+    return 0;
+  }
+
+  /**
+   * Starts an error storm now.
+   *
+   * @param duration how long the error storm lasts.
+   */
+  synchronized void startErrorStorm(Duration duration) {
+    errorStormEndNanos = nanoClock.getAsLong() + duration.toNanos();
+  }
+
+  private boolean isErrorStorm() {
+    final long now = nanoClock.getAsLong();
+    if (now < errorStormEndNanos) {
+      return true;
+    }
+    final long interval = TimeUnit.SECONDS.toNanos(config.getErrorStormIntervalInSecs());
+    if (interval <= 0) {
+      return false;
+    }
+    final long duration = TimeUnit.SECONDS.toNanos(config.getErrorStormDurationInSecs());
+    final long elapsed = now - startNanos;
+    return elapsed >= interval && elapsed % interval < duration;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Simulates the Gemini v1 REST API used by the GeminiExchangeAdapter.
+ *
+ * @author gazbert
+ */
+class GeminiApi extends ExchangeApi {
+
+  private static final String API_PATH = "/v1/";
+
+  private final SimulatorConfig config;
+
+  GeminiApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    final String path = request.getPath();
+    if (!path.startsWith(API_PATH)) {
+      return notFound();
+    }
+    final String resource = path.substring(API_PATH.length());
+    if (resource.startsWith("book/")) {
+      return ok(book(resource.substring("book/".length())));
+    } else if (resource.startsWith("pubticker/")) {
+      return ok(ticker(resource.substring("pubticker/".length())));
+    }
+    switch (resource) {
+      case "orders":
+        return ok(openOrders());
+      case "order/new":
+        return ok(placeOrder(request));
+      case "order/cancel":
+        return cancelOrder(request.getParam("order_id"));
+      case "balances":
+        return ok(balances());
+      default:
+        return notFound();
+    }
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    return error(reason.startsWith("Insufficient") ? "InsufficientFunds" : "InvalidOrder", reason);
+  }
+
+  private Map<String, Object> book(String symbol) {
+    final String timestamp = Long.toString(System.currentTimeMillis() / 1000);
+    final Map<String, Object> book = object();
+    book.put("bids", priceLevelObjects(symbol, Side.BUY, config.getBookDepth(), timestamp));
+    book.put("asks", priceLevelObjects(symbol, Side.SELL, config.getBookDepth(), timestamp));
+    return book;
+  }
+
+  private Map<String, Object> ticker(String symbol) {
+    final MarketStats stats = matchingEngine.getMarketStats(symbol);
+    final String[] currencies = matchingEngine.getCurrencies(symbol);
+    final Map<String, Object> volume = object();
+    volume.put(currencies[0], decimal(stats.getVolume()));
+    volume.put(currencies[1], decimal(stats.getVolume().multiply(stats.getVwap())));
+    volume.put("timestamp", System.currentTimeMillis());
+    final Map<String, Object> ticker = object();
+    ticker.put("bid", decimal(stats.getBid()));
+    ticker.put("ask", decimal(stats.getAsk()));
+    ticker.put("last", decimal(stats.getLast()));
+    ticker.put("volume", volume);
+    return ticker;
+  }
+
+  private List<Map<String, Object>> openOrders() {
+    final List<Map<String, Object>> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(order(order));
+    }
+    return openOrders;
+  }
+
+  private Map<String, Object> placeOrder(SimulatedRequest request)
+      throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            request.getParam("symbol"),
+            side(request.getParam("side")),
+            decimal(request.getParam("amount")),
+            decimal(request.getParam("price")));
+    return order(order);
+  }
+
+  private SimulatedResponse cancelOrder(String id) {
+    final SimulatedOrder order = matchingEngine.cancelOrder(orderId(id));
+    if (order == null) {
+      return error("OrderNotFound", "Order " + id + " not found");
+    }
+    return ok(order(order));
+  }
+
+  private List<Map<String, Object>> balances() {
+    final Map<String, BigDecimal> available = matchingEngine.getAvailableBalances();
+    final Map<String, BigDecimal> onHold = matchingEngine.getBalancesOnHold();
+    final List<Map<String, Object>> balances = new ArrayList<>();
+    for (final Map.Entry<String, BigDecimal> currency : available.entrySet()) {
+      final BigDecimal hold = onHold.getOrDefault(currency.getKey(), BigDecimal.ZERO);
+      final Map<String, Object> balance = object();
+      balance.put("type", "exchange");
+      balance.put("currency", currency.getKey());
+      balance.put("amount", decimal(currency.getValue().add(hold)));
+      balance.put("available", decimal(currency.getValue()));
+      balance.put("availableForWithdrawal", decimal(currency.getValue()));
+      balances.add(balance);
+    }
+    return balances;
+  }
+
+  private static Map<String, Object> order(SimulatedOrder order) {
+    final long createdMillis = order.getCreatedTime().toEpochMilli();
+    final Map<String, Object> geminiOrder = object();
+    geminiOrder.put("order_id", Long.toString(order.getId()));
+    geminiOrder.put("id", Long.toString(order.getId()));
+    geminiOrder.put("symbol", order.getMarketId());
+    geminiOrder.put("exchange", "gemini");
+    geminiOrder.put("price", decimal(order.getPrice()));
+    geminiOrder.put("avg_execution_price", "0.00");
+    geminiOrder.put("side", order.getSide().name().toLowerCase(Locale.ROOT));
+    geminiOrder.put("type", "exchange limit");
+    geminiOrder.put("timestamp", Long.toString(createdMillis / 1000));
+    geminiOrder.put("timestampms", createdMillis);
+    geminiOrder.put("is_live", order.isOpen());
+    geminiOrder.put("is_cancelled", order.isCancelled());
+    geminiOrder.put("is_hidden", false);
+    geminiOrder.put("was_forced", false);
+    geminiOrder.put("executed_amount", decimal(order.getFilled()));
+    geminiOrder.put("remaining_amount", decimal(order.getRemaining()));
+    geminiOrder.put("original_amount", decimal(order.getQuantity()));
+    return geminiOrder;
+  }
+
+  private static SimulatedResponse error(String reason, String message) {
+    final Map<String, Object> error = object();
+    error.put("result", "error");
+    error.put("reason", reason);
+    error.put("message", message);
+    return new SimulatedResponse(HTTP_BAD_REQUEST, error);
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Simulates the itBit v1 REST API used by the ItBitExchangeAdapter.
+ *
+ * <p>The account has a single wallet. Order ids are UUIDs, like the real exchange's.
+ *
+ * @author gazbert
+ */
+class ItBitApi extends ExchangeApi {
+
+  private static final String MARKETS_PATH = "/v1/markets/";
+  private static final String WALLETS_PATH = "/v1/wallets";
+  private static final String WALLET_ID = new UUID(3L, 1L).toString();
+
+  private final SimulatorConfig config;
+
+  ItBitApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    final String path = request.getPath();
+    final String method = request.getMethod();
+
+    if (path.startsWith(MARKETS_PATH)) {
+      final String[] resource = path.substring(MARKETS_PATH.length()).split("/");
+      if (resource.length == 2 && "order_book".equals(resource[1])) {
+        return ok(book(resource[0]));
+      } else if (resource.length == 2 && "ticker".equals(resource[1])) {
+        return ok(ticker(resource[0]));
+      }
+    } else if (path.equals(WALLETS_PATH)) {
+      return ok(wallets(request.getParam("userId")));
+    } else if (path.startsWith(WALLETS_PATH + "/" + WALLET_ID + "/orders")) {
+      final String orders = WALLETS_PATH + "/" + WALLET_ID + "/orders";
+      if (path.equals(orders) && "GET".equals(method)) {
+        return ok(openOrders());
+      } else if (path.equals(orders) && "POST".equals(method)) {
+        return new SimulatedResponse(HTTP_CREATED, placeOrder(request));
+      } else if ("DELETE".equals(method)) {
+        return cancelOrder(path.substring(orders.length() + 1));
+      }
+    }
+    return notFound();
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    final Map<String, Object> error = object();
+    error.put("code", 10000);
+    error.put("description", reason);
+    return new SimulatedResponse(HTTP_BAD_REQUEST, error);
+  }
+
+  private Map<String, Object> book(String marketId) {
+    final Map<String, Object> book = object();
+    book.put("bids", priceLevels(marketId, Side.BUY, config.getBookDepth()));
+    book.put("asks", priceLevels(marketId, Side.SELL, config.getBookDepth()));
+    return book;
+  }
+
+  private Map<String, Object> ticker(String marketId) {
+    final MarketStats stats = matchingEngine.getMarketStats(marketId);
+    final Map<String, Object> ticker = object();
+    ticker.put("pair", marketId);
+    ticker.put("bid", decimal(stats.getBid()));
+    ticker.put("bidAmt", decimal(config.getMakerOrderSize()));
+    ticker.put("ask", decimal(stats.getAsk()));
+    ticker.put("askAmt", decimal(config.getMakerOrderSize()));
+    ticker.put("lastPrice", decimal(stats.getLast()));
+    ticker.put("lastAmt", "0");
+    ticker.put("volume24h", decimal(stats.getVolume()));
+    ticker.put("volumeToday", decimal(stats.getVolume()));
+    ticker.put("high24h", decimal(stats.getHigh()));
+    ticker.put("low24h", decimal(stats.getLow()));
+    ticker.put("highToday", decimal(stats.getHigh()));
+    ticker.put("lowToday", decimal(stats.getLow()));
+    ticker.put("openToday", decimal(stats.getOpen()));
+    ticker.put("vwapToday", decimal(stats.getVwap()));
+    ticker.put("vwap24h", decimal(stats.getVwap()));
+    ticker.put("serverTimeUTC", Instant.now().toString());
+    return ticker;
+  }
+
+  private List<Map<String, Object>> wallets(String userId) {
+    final Map<String, BigDecimal> available = matchingEngine.getAvailableBalances();
+    final Map<String, BigDecimal> onHold = matchingEngine.getBalancesOnHold();
+    final List<Map<String, Object>> balances = new ArrayList<>();
+    for (final Map.Entry<String, BigDecimal> currency : available.entrySet()) {
+      final BigDecimal hold = onHold.getOrDefault(currency.getKey(), BigDecimal.ZERO);
+      final Map<String, Object> balance = object();
+      balance.put("currency", currency.getKey());
+      balance.put("availableBalance", decimal(currency.getValue()));
+      balance.put("totalBalance", decimal(currency.getValue().add(hold)));
+      balances.add(balance);
+    }
+    final Map<String, Object> wallet = object();
+    wallet.put("id", WALLET_ID);
+    wallet.put("userId", userId);
+    wallet.put("name", "Wallet");
+    wallet.put("balances", balances);
+    return List.of(wallet);
+  }
+
+  private List<Map<String, Object>> openOrders() {
+    final List<Map<String, Object>> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(order(order));
+    }
+    return openOrders;
+  }
+
+  private Map<String, Object> placeOrder(SimulatedRequest request)
+      throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            request.getParam("instrument"),
+            side(request.getParam("side")),
+            decimal(request.getParam("amount")),
+            decimal(request.getParam("price")));
+    return order(order);
+  }
+
+  private SimulatedResponse cancelOrder(String id) {
+    long orderId;
+    try {
+      orderId = UUID.fromString(id).getLeastSignificantBits();
+    } catch (IllegalArgumentException e) {
+      orderId = -1L;
+    }
+    if (matchingEngine.cancelOrder(orderId) == null) {
+      return rejected("Order not found");
+    }
+    return new SimulatedResponse(HTTP_ACCEPTED, object());
+  }
+
+  private static Map<String, Object> order(SimulatedOrder order) {
+    final Map<String, Object> itBitOrder = object();
+    itBitOrder.put("id", new UUID(0L, order.getId()).toString());
+    itBitOrder.put("walletId", WALLET_ID);
+    itBitOrder.put("side", order.getSide().name().toLowerCase(Locale.ROOT));
+    itBitOrder.put("instrument", order.getMarketId());
+    itBitOrder.put("type", "limit");
+    itBitOrder.put("amount", decimal(order.getQuantity()));
+    itBitOrder.put("displayAmount", decimal(order.getQuantity()));
+    itBitOrder.put("price", decimal(order.getPrice()));
+    itBitOrder.put("volumeWeightedAveragePrice", "0");
+    itBitOrder.put("amountFilled", decimal(order.getFilled()));
+    itBitOrder.put("createdTime", order.getCreatedTime().toString());
+    itBitOrder.put("status", order.isOpen() ? "open" : "filled");
+    itBitOrder.put("clientOrderIdentifier", null);
+    return itBitOrder;
+  }
+}
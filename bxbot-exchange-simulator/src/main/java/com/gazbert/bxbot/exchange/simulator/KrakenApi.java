@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Simulates the Kraken REST API used by the KrakenExchangeAdapter.
+ *
+ * <p>Every response is wrapped in Kraken's <code>{"error":[],"result":{...}}</code> envelope;
+ * errors are sent in the error array with a 200 status.
+ *
+ * @author gazbert
+ */
+class KrakenApi extends ExchangeApi {
+
+  private static final List<String> DEFAULT_PAIRS =
+      List.of("XBTUSD", "XBTEUR", "ETHUSD", "ETHXBT", "LTCUSD");
+  private static final String ORDER_ID_PREFIX = "O";
+
+  private final SimulatorConfig config;
+
+  KrakenApi(
+      String contextPath,
+      MatchingEngine matchingEngine,
+      FaultInjector faultInjector,
+      SimulatorConfig config) {
+    super(contextPath, matchingEngine, faultInjector);
+    this.config = config;
+  }
+
+  @Override
+  SimulatedResponse handle(SimulatedRequest request) throws OrderRejectedException {
+    switch (request.getPath()) {
+      case "/0/public/AssetPairs":
+        return result(assetPairs());
+      case "/0/public/Depth":
+        return result(depth(request.getParam("pair"), request.getParam("count")));
+      case "/0/public/Ticker":
+        return result(ticker(request.getParam("pair")));
+      case "/0/private/OpenOrders":
+        return result(openOrders());
+      case "/0/private/AddOrder":
+        return result(addOrder(request));
+      case "/0/private/CancelOrder":
+        return cancelOrder(request.getParam("txid"));
+      case "/0/private/Balance":
+        return result(balance());
+      default:
+        return error("EGeneral:Unknown method");
+    }
+  }
+
+  @Override
+  SimulatedResponse rejected(String reason) {
+    return error(
+        reason.startsWith("Insufficient")
+            ? "EOrder:Insufficient funds"
+            : "EGeneral:Invalid arguments:" + reason);
+  }
+
+  private Map<String, Object> assetPairs() {
+    final TreeSet<String> pairs = new TreeSet<>(DEFAULT_PAIRS);
+    pairs.addAll(matchingEngine.getMarketIds());
+    final Map<String, Object> assetPairs = object();
+    for (final String pair : pairs) {
+      final Map<String, Object> assetPair = object();
+      assetPair.put("altname", pair);
+      assetPair.put("pair_decimals", config.getPriceScale());
+      assetPair.put("lot_decimals", 8);
+      assetPair.put("ordermin", "0.0001");
+      assetPairs.put(krakenPairName(pair), assetPair);
+    }
+    return assetPairs;
+  }
+
+  private Map<String, Object> depth(String pair, String count) {
+    final int depth = count != null ? Integer.parseInt(count) : config.getBookDepth();
+    final String timestamp = Long.toString(System.currentTimeMillis() / 1000);
+    final Map<String, Object> book = object();
+    book.put("asks", withTimestamp(priceLevels(pair, Side.SELL, depth), timestamp));
+    book.put("bids", withTimestamp(priceLevels(pair, Side.BUY, depth), timestamp));
+    final Map<String, Object> depthResult = object();
+    depthResult.put(krakenPairName(pair), book);
+    return depthResult;
+  }
+
+  private Map<String, Object> ticker(String pair) {
+    final MarketStats stats = matchingEngine.getMarketStats(pair);
+    final String volume = decimal(stats.getVolume());
+    final String vwap = decimal(stats.getVwap());
+    final Map<String, Object> ticker = object();
+    ticker.put("a", List.of(decimal(stats.getAsk()), "1", "1.000"));
+    ticker.put("b", List.of(decimal(stats.getBid()), "1", "1.000"));
+    ticker.put("c", List.of(decimal(stats.getLast()), "0"));
+    ticker.put("v", List.of(volume, volume));
+    ticker.put("p", List.of(vwap, vwap));
+    ticker.put("l", List.of(decimal(stats.getLow()), decimal(stats.getLow())));
+    ticker.put("h", List.of(decimal(stats.getHigh()), decimal(stats.getHigh())));
+    ticker.put("o", decimal(stats.getOpen()));
+    final Map<String, Object> tickerResult = object();
+    tickerResult.put(krakenPairName(pair), ticker);
+    return tickerResult;
+  }
+
+  private Map<String, Object> openOrders() {
+    final Map<String, Object> open = object();
+    for (final SimulatedOrder order : matchingEngine.getOpenOrders(null)) {
+      final Map<String, Object> descr = object();
+      descr.put("pair", order.getMarketId());
+      descr.put("type", order.getSide().name().toLowerCase(Locale.ROOT));
+      descr.put("ordertype", "limit");
+      descr.put("price", decimal(order.getPrice()));
+      descr.put("price2", "0");
+      descr.put("leverage", "none");
+      descr.put("order", describe(order));
+
+      final Map<String, Object> openOrder = object();
+      openOrder.put("refid", null);
+      openOrder.put("userref", null);
+      openOrder.put("status", "open");
+      openOrder.put("opentm", order.getCreatedTime().toEpochMilli() / 1000.0);
+      openOrder.put("starttm", 0);
+      openOrder.put("expiretm", 0);
+      openOrder.put("descr", descr);
+      openOrder.put("vol", decimal(order.getQuantity()));
+      openOrder.put("vol_exec", decimal(order.getFilled()));
+      openOrder.put("cost", decimal(order.getPrice().multiply(order.getFilled())));
+      openOrder.put("fee", "0");
+      openOrder.put("price", decimal(order.getPrice()));
+      openOrder.put("misc", "");
+      openOrder.put("oflags", "fciq");
+      open.put(ORDER_ID_PREFIX + order.getId(), openOrder);
+    }
+    final Map<String, Object> openOrdersResult = object();
+    openOrdersResult.put("open", open);
+    return openOrdersResult;
+  }
+
+  private Map<String, Object> addOrder(SimulatedRequest request) throws OrderRejectedException {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            request.getParam("pair"),
+            side(request.getParam("type")),
+            decimal(request.getParam("volume")),
+            decimal(request.getParam("price")));
+    final Map<String, Object> descr = object();
+    descr.put("order", describe(order));
+    final Map<String, Object> addOrderResult = object();
+    addOrderResult.put("descr", descr);
+    addOrderResult.put("txid", List.of(ORDER_ID_PREFIX + order.getId()));
+    return addOrderResult;
+  }
+
+  private SimulatedResponse cancelOrder(String txid) {
+    final long orderId =
+        txid != null && txid.startsWith(ORDER_ID_PREFIX)
+            ? orderId(txid.substring(ORDER_ID_PREFIX.length()))
+            : -1L;
+    if (matchingEngine.cancelOrder(orderId) == null) {
+      return error("EOrder:Unknown order");
+    }
+    final Map<String, Object> cancelResult = object();
+    cancelResult.put("count", 1);
+    return result(cancelResult);
+  }
+
+  private Map<String, Object> balance() {
+    final Map<String, Object> balances = object();
+    for (final Map.Entry<String, BigDecimal> balance :
+        matchingEngine.getAvailableBalances().entrySet()) {
+      balances.put(balance.getKey(), decimal(balance.getValue()));
+    }
+    return balances;
+  }
+
+  private static List<List<String>> withTimestamp(List<List<String>> levels, String timestamp) {
+    final List<List<String>> levelsWithTimestamp = new ArrayList<>();
+    for (final List<String> level : levels) {
+      levelsWithTimestamp.add(List.of(level.get(0), level.get(1), timestamp));
+    }
+    return levelsWithTimestamp;
+  }
+
+  private static String describe(SimulatedOrder order) {
+    return order.getSide().name().toLowerCase(Locale.ROOT)
+        + " "
+        + decimal(order.getQuantity())
+        + " "
+        + order.getMarketId()
+        + " @ limit "
+        + decimal(order.getPrice());
+  }
+
+  /*
+   * Kraken returns pairs in X-ISO4217-A3 format, e.g. XBTUSD is XXBTZUSD.
+   */
+  private static String krakenPairName(String pair) {
+    if (pair.length() == 6) {
+      return "X" + pair.substring(0, 3) + "Z" + pair.substring(3);
+    }
+    return pair;
+  }
+
+  private static SimulatedResponse result(Object result) {
+    final Map<String, Object> response = object();
+    response.put("error", List.of());
+    response.put("result", result);
+    return ok(response);
+  }
+
+  private static SimulatedResponse error(String error) {
+    final Map<String, Object> response = object();
+    response.put("error", List.of(error));
+    return ok(response);
+  }
+}
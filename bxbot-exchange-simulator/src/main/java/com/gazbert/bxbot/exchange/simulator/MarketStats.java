@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import java.math.BigDecimal;
+
+/**
+ * Snapshot of a simulated market's prices and volume, used to build the ticker responses.
+ *
+ * @author gazbert
+ */
+class MarketStats {
+
+  private final BigDecimal last;
+  private final BigDecimal bid;
+  private final BigDecimal ask;
+  private final BigDecimal open;
+  private final BigDecimal high;
+  private final BigDecimal low;
+  private final BigDecimal volume;
+  private final BigDecimal vwap;
+
+  MarketStats(
+      BigDecimal last,
+      BigDecimal bid,
+      BigDecimal ask,
+      BigDecimal open,
+      BigDecimal high,
+      BigDecimal low,
+      BigDecimal volume,
+      BigDecimal vwap) {
+    this.last = last;
+    this.bid = bid;
+    this.ask = ask;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.volume = volume;
+    this.vwap = vwap;
+  }
+
+  BigDecimal getLast() {
+    return last;
+  }
+
+  BigDecimal getBid() {
+    return bid;
+  }
+
+  BigDecimal getAsk() {
+    return ask;
+  }
+
+  BigDecimal getOpen() {
+    return open;
+  }
+
+  BigDecimal getHigh() {
+    return high;
+  }
+
+  BigDecimal getLow() {
+    return low;
+  }
+
+  BigDecimal getVolume() {
+    return volume;
+  }
+
+  BigDecimal getVwap() {
+    return vwap;
+  }
+}
@@ -0,0 +1,437 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The matching engine behind a simulated exchange.
+ *
+ * <p>Each market has a price-time priority limit order book. A market maker keeps the configured
+ * number of price levels on each side of the book, spaced around the last trade price. The bot's
+ * orders are matched against the book when they are placed; whatever is not filled rests on the
+ * book until it is matched or cancelled.
+ *
+ * <p>The account starts with the configured balance in every currency it sees. Placing an order
+ * puts the funds it needs on hold; fills and cancels release them. The market maker has unlimited
+ * funds. Fees are not charged.
+ *
+ * <p>Markets are created the first time they are used, so any market id works. The base and
+ * quote currencies are taken from the market id, e.g. XBTUSD, btcusd, BTC-USD
+ *
+ * <p>This class is thread-safe; all access is serialised.
+ *
+ * @author gazbert
+ */
+class MatchingEngine {
+
+  private final SimulatorConfig config;
+  private final Clock clock;
+  private final Map<String, OrderBook> books = new HashMap<>();
+  private final Map<Long, SimulatedOrder> accountOrders = new LinkedHashMap<>();
+  private final Map<String, BigDecimal> availableBalances = new TreeMap<>();
+  private final Map<String, BigDecimal> balancesOnHold = new TreeMap<>();
+  private long nextOrderId = 1000000L;
+
+  MatchingEngine(SimulatorConfig config) {
+    this(config, Clock.systemUTC());
+  }
+
+  MatchingEngine(SimulatorConfig config, Clock clock) {
+    this.config = config;
+    this.clock = clock;
+  }
+
+  /**
+   * Places a limit order for the account.
+   *
+   * @param marketId the market id.
+   * @param side the order side.
+   * @param quantity the order quantity, in the base currency.
+   * @param price the limit price, in the quote currency.
+   * @return a snapshot of the order after it was matched against the book.
+   * @throws OrderRejectedException if the order is invalid, or the account cannot pay for it.
+   */
+  synchronized SimulatedOrder placeOrder(
+      String marketId, Side side, BigDecimal quantity, BigDecimal price)
+      throws OrderRejectedException {
+    if (quantity == null || quantity.signum() <= 0 || price == null || price.signum() <= 0) {
+      throw new OrderRejectedException("Invalid order quantity or price");
+    }
+
+    final OrderBook book = getBook(marketId);
+    final String holdCurrency = side == Side.BUY ? book.quoteCurrency : book.baseCurrency;
+    final BigDecimal holdAmount = side == Side.BUY ? price.multiply(quantity) : quantity;
+    if (getAvailable(holdCurrency).compareTo(holdAmount) < 0) {
+      throw new OrderRejectedException("Insufficient funds");
+    }
+    add(availableBalances, holdCurrency, holdAmount.negate());
+    add(balancesOnHold, holdCurrency, holdAmount);
+
+    final SimulatedOrder order =
+        new SimulatedOrder(
+            nextOrderId++, marketId, side, price, quantity, clock.instant(), true);
+    match(book, order);
+    if (order.isOpen()) {
+      book.rest(order);
+      accountOrders.put(order.getId(), order);
+    }
+    replenish(book);
+    return order.snapshot();
+  }
+
+  /**
+   * Cancels one of the account's open orders.
+   *
+   * @param orderId the order id.
+   * @return a snapshot of the cancelled order, null if the account has no open order with the id.
+   */
+  synchronized SimulatedOrder cancelOrder(long orderId) {
+    final SimulatedOrder order = accountOrders.remove(orderId);
+    if (order == null) {
+      return null;
+    }
+    final OrderBook book = books.get(order.getMarketId());
+    book.remove(order);
+    order.cancel();
+    if (order.getSide() == Side.BUY) {
+      release(book.quoteCurrency, order.getPrice().multiply(order.getRemaining()));
+    } else {
+      release(book.baseCurrency, order.getRemaining());
+    }
+    return order.snapshot();
+  }
+
+  /**
+   * Returns the account's open orders.
+   *
+   * @param marketId the market id, null for all markets.
+   * @return snapshots of the open orders, oldest first.
+   */
+  synchronized List<SimulatedOrder> getOpenOrders(String marketId) {
+    final List<SimulatedOrder> openOrders = new ArrayList<>();
+    for (final SimulatedOrder order : accountOrders.values()) {
+      if (marketId == null || marketId.equals(order.getMarketId())) {
+        openOrders.add(order.snapshot());
+      }
+    }
+    return openOrders;
+  }
+
+  /**
+   * Returns the aggregated price levels on one side of a market's book.
+   *
+   * @param marketId the market id.
+   * @param side BUY for the bids, SELL for the asks.
+   * @param depth the maximum number of levels to return.
+   * @return the price levels, best first. Each level is a price and a quantity.
+   */
+  synchronized List<BigDecimal[]> getPriceLevels(String marketId, Side side, int depth) {
+    final OrderBook book = getBook(marketId);
+    final NavigableMap<BigDecimal, Deque<SimulatedOrder>> levels =
+        side == Side.BUY ? book.bids : book.asks;
+    final List<BigDecimal[]> priceLevels = new ArrayList<>();
+    for (final Map.Entry<BigDecimal, Deque<SimulatedOrder>> level : levels.entrySet()) {
+      if (priceLevels.size() == depth) {
+        break;
+      }
+      BigDecimal quantity = BigDecimal.ZERO;
+      for (final SimulatedOrder order : level.getValue()) {
+        quantity = quantity.add(order.getRemaining());
+      }
+      priceLevels.add(new BigDecimal[] {level.getKey(), quantity});
+    }
+    return priceLevels;
+  }
+
+  /**
+   * Returns a snapshot of a market's prices and volume.
+   *
+   * @param marketId the market id.
+   * @return the market stats.
+   */
+  synchronized MarketStats getMarketStats(String marketId) {
+    final OrderBook book = getBook(marketId);
+    final BigDecimal vwap =
+        book.volume.signum() == 0
+            ? book.lastPrice
+            : book.turnover.divide(book.volume, config.getPriceScale(), RoundingMode.HALF_UP);
+    return new MarketStats(
+        book.lastPrice,
+        book.bids.isEmpty() ? book.lastPrice : book.bids.firstKey(),
+        book.asks.isEmpty() ? book.lastPrice : book.asks.firstKey(),
+        book.openPrice,
+        book.highPrice,
+        book.lowPrice,
+        book.volume,
+        vwap);
+  }
+
+  /**
+   * Returns the base and quote currency of a market.
+   *
+   * @param marketId the market id.
+   * @return the base and quote currency, in upper case.
+   */
+  synchronized String[] getCurrencies(String marketId) {
+    final OrderBook book = getBook(marketId);
+    return new String[] {book.baseCurrency, book.quoteCurrency};
+  }
+
+  /**
+   * Returns the ids of the markets used so far.
+   *
+   * @return the market ids, sorted.
+   */
+  synchronized List<String> getMarketIds() {
+    return new ArrayList<>(new TreeSet<>(books.keySet()));
+  }
+
+  /**
+   * Returns the account's available balances.
+   *
+   * @return the available balance by currency.
+   */
+  synchronized Map<String, BigDecimal> getAvailableBalances() {
+    return Collections.unmodifiableMap(new TreeMap<>(availableBalances));
+  }
+
+  /**
+   * Returns the account's balances on hold for open orders.
+   *
+   * @return the balance on hold by currency.
+   */
+  synchronized Map<String, BigDecimal> getBalancesOnHold() {
+    return Collections.unmodifiableMap(new TreeMap<>(balancesOnHold));
+  }
+
+  // --------------------------------------------------------------------------
+  //  Matching and settlement
+  // --------------------------------------------------------------------------
+
+  private void match(OrderBook book, SimulatedOrder order) {
+    final NavigableMap<BigDecimal, Deque<SimulatedOrder>> opposite =
+        order.getSide() == Side.BUY ? book.asks : book.bids;
+
+    while (order.getRemaining().signum() > 0 && !opposite.isEmpty()) {
+      final BigDecimal bestPrice = opposite.firstKey();
+      final boolean crosses =
+          order.getSide() == Side.BUY
+              ? bestPrice.compareTo(order.getPrice()) <= 0
+              : bestPrice.compareTo(order.getPrice()) >= 0;
+      if (!crosses) {
+        break;
+      }
+
+      final Deque<SimulatedOrder> level = opposite.get(bestPrice);
+      final Iterator<SimulatedOrder> restingOrders = level.iterator();
+      while (order.getRemaining().signum() > 0 && restingOrders.hasNext()) {
+        final SimulatedOrder resting = restingOrders.next();
+        final BigDecimal fillQuantity = order.getRemaining().min(resting.getRemaining());
+        order.fill(fillQuantity);
+        resting.fill(fillQuantity);
+        settle(book, order, fillQuantity, bestPrice);
+        settle(book, resting, fillQuantity, bestPrice);
+        book.recordTrade(bestPrice, fillQuantity);
+        if (resting.getRemaining().signum() == 0) {
+          restingOrders.remove();
+          accountOrders.remove(resting.getId());
+        }
+      }
+      if (level.isEmpty()) {
+        opposite.remove(bestPrice);
+      }
+    }
+  }
+
+  private void settle(
+      OrderBook book, SimulatedOrder order, BigDecimal fillQuantity, BigDecimal tradePrice) {
+    if (!order.isAccountOrder()) {
+      return;
+    }
+    if (order.getSide() == Side.BUY) {
+      // The order held funds at its own price; refund any price improvement.
+      final BigDecimal held = order.getPrice().multiply(fillQuantity);
+      add(balancesOnHold, book.quoteCurrency, held.negate());
+      add(availableBalances, book.quoteCurrency, held.subtract(tradePrice.multiply(fillQuantity)));
+      add(availableBalances, book.baseCurrency, fillQuantity);
+    } else {
+      add(balancesOnHold, book.baseCurrency, fillQuantity.negate());
+      add(availableBalances, book.quoteCurrency, tradePrice.multiply(fillQuantity));
+    }
+  }
+
+  private void release(String currency, BigDecimal amount) {
+    add(balancesOnHold, currency, amount.negate());
+    add(availableBalances, currency, amount);
+  }
+
+  /*
+   * Tops up the market maker's price levels around the last trade price, without crossing the
+   * other side of the book.
+   */
+  private void replenish(OrderBook book) {
+    final BigDecimal step = book.lastPrice.multiply(config.getPriceStep());
+    for (int i = 1; book.asks.size() < config.getBookDepth() && i <= config.getBookDepth(); i++) {
+      final BigDecimal price = scale(book.lastPrice.add(step.multiply(BigDecimal.valueOf(i))));
+      if ((book.bids.isEmpty() || price.compareTo(book.bids.firstKey()) > 0)
+          && !book.asks.containsKey(price)) {
+        book.rest(makerOrder(book, Side.SELL, price));
+      }
+    }
+    for (int i = 1; book.bids.size() < config.getBookDepth() && i <= config.getBookDepth(); i++) {
+      final BigDecimal price =
+          scale(book.lastPrice.subtract(step.multiply(BigDecimal.valueOf(i))));
+      if (price.signum() > 0
+          && (book.asks.isEmpty() || price.compareTo(book.asks.firstKey()) < 0)
+          && !book.bids.containsKey(price)) {
+        book.rest(makerOrder(book, Side.BUY, price));
+      }
+    }
+  }
+
+  private SimulatedOrder makerOrder(OrderBook book, Side side, BigDecimal price) {
+    return new SimulatedOrder(
+        nextOrderId++,
+        book.marketId,
+        side,
+        price,
+        config.getMakerOrderSize(),
+        clock.instant(),
+        false);
+  }
+
+  private BigDecimal scale(BigDecimal price) {
+    return price.setScale(config.getPriceScale(), RoundingMode.HALF_UP);
+  }
+
+  // --------------------------------------------------------------------------
+  //  Markets and balances
+  // --------------------------------------------------------------------------
+
+  private OrderBook getBook(String marketId) {
+    OrderBook book = books.get(marketId);
+    if (book == null) {
+      final String[] currencies = parseCurrencies(marketId);
+      book = new OrderBook(marketId, currencies[0], currencies[1], scale(config.getInitialPrice()));
+      books.put(marketId, book);
+      availableBalances.putIfAbsent(book.baseCurrency, config.getInitialBalance());
+      availableBalances.putIfAbsent(book.quoteCurrency, config.getInitialBalance());
+      replenish(book);
+    }
+    return book;
+  }
+
+  private BigDecimal getAvailable(String currency) {
+    return availableBalances.getOrDefault(currency, BigDecimal.ZERO);
+  }
+
+  private static void add(Map<String, BigDecimal> balances, String currency, BigDecimal amount) {
+    balances.merge(currency, amount, BigDecimal::add);
+  }
+
+  private static String[] parseCurrencies(String marketId) {
+    final String upperCaseMarketId = marketId.toUpperCase(Locale.ROOT);
+    final int separator = upperCaseMarketId.indexOf('-');
+    if (separator > 0) {
+      return new String[] {
+        upperCaseMarketId.substring(0, separator), upperCaseMarketId.substring(separator + 1)
+      };
+    }
+    if (upperCaseMarketId.length() > 3) {
+      return new String[] {upperCaseMarketId.substring(0, 3), upperCaseMarketId.substring(3)};
+    }
+    return new String[] {upperCaseMarketId, upperCaseMarketId};
+  }
+
+  /** A market's order book and trade stats. */
+  private static class OrderBook {
+
+    final String marketId;
+    final String baseCurrency;
+    final String quoteCurrency;
+    final NavigableMap<BigDecimal, Deque<SimulatedOrder>> bids =
+        new TreeMap<>(Collections.reverseOrder());
+    final NavigableMap<BigDecimal, Deque<SimulatedOrder>> asks = new TreeMap<>();
+    final BigDecimal openPrice;
+    BigDecimal lastPrice;
+    BigDecimal highPrice;
+    BigDecimal lowPrice;
+    BigDecimal volume = BigDecimal.ZERO;
+    BigDecimal turnover = BigDecimal.ZERO;
+
+    OrderBook(String marketId, String baseCurrency, String quoteCurrency, BigDecimal openPrice) {
+      this.marketId = marketId;
+      this.baseCurrency = baseCurrency;
+      this.quoteCurrency = quoteCurrency;
+      this.openPrice = openPrice;
+      this.lastPrice = openPrice;
+      this.highPrice = openPrice;
+      this.lowPrice = openPrice;
+    }
+
+    void rest(SimulatedOrder order) {
+      final NavigableMap<BigDecimal, Deque<SimulatedOrder>> side =
+          order.getSide() == Side.BUY ? bids : asks;
+      side.computeIfAbsent(order.getPrice(), price -> new ArrayDeque<>()).add(order);
+    }
+
+    void remove(SimulatedOrder order) {
+      final NavigableMap<BigDecimal, Deque<SimulatedOrder>> side =
+          order.getSide() == Side.BUY ? bids : asks;
+      final Deque<SimulatedOrder> level = side.get(order.getPrice());
+      if (level != null) {
+        level.remove(order);
+        if (level.isEmpty()) {
+          side.remove(order.getPrice());
+        }
+      }
+    }
+
+    void recordTrade(BigDecimal price, BigDecimal quantity) {
+      lastPrice = price;
+      highPrice = highPrice.max(price);
+      lowPrice = lowPrice.min(price);
+      volume = volume.add(quantity);
+      turnover = turnover.add(price.multiply(quantity));
+    }
+  }
+}
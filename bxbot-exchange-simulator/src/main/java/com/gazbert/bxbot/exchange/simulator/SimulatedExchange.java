@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+/**
+ * The exchanges the simulator can stand in for. Each one is mounted under its own context path.
+ *
+ * @author gazbert
+ */
+public enum SimulatedExchange {
+  KRAKEN("kraken"),
+  BITSTAMP("bitstamp"),
+  COINBASE_PRO("coinbasepro"),
+  BITFINEX("bitfinex"),
+  GEMINI("gemini"),
+  ITBIT("itbit");
+
+  private final String contextPath;
+
+  SimulatedExchange(String contextPath) {
+    this.contextPath = "/" + contextPath;
+  }
+
+  /**
+   * Returns the context path the exchange's API is mounted under.
+   *
+   * @return the context path, e.g. /kraken
+   */
+  public String getContextPath() {
+    return contextPath;
+  }
+
+  ExchangeApi createApi(
+      MatchingEngine matchingEngine, FaultInjector faultInjector, SimulatorConfig config) {
+    switch (this) {
+      case KRAKEN:
+        return new KrakenApi(contextPath, matchingEngine, faultInjector, config);
+      case BITSTAMP:
+        return new BitstampApi(contextPath, matchingEngine, faultInjector, config);
+      case COINBASE_PRO:
+        return new CoinbaseProApi(contextPath, matchingEngine, faultInjector, config);
+      case BITFINEX:
+        return new BitfinexApi(contextPath, matchingEngine, faultInjector, config);
+      case GEMINI:
+        return new GeminiApi(contextPath, matchingEngine, faultInjector, config);
+      case ITBIT:
+        return new ItBitApi(contextPath, matchingEngine, faultInjector, config);
+      default:
+        throw new IllegalStateException("Unsupported exchange: " + this);
+    }
+  }
+}
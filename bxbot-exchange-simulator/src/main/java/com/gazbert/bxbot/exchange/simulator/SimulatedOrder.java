@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * An order on a simulated exchange. Orders are placed by the account, i.e. the bot, or by the
+ * simulator's market maker.
+ *
+ * <p>Orders are only changed by the {@link MatchingEngine}, holding its lock; the snapshots it
+ * hands out are copies.
+ *
+ * @author gazbert
+ */
+class SimulatedOrder {
+
+  /** Order side. */
+  enum Side {
+    BUY,
+    SELL
+  }
+
+  private final long id;
+  private final String marketId;
+  private final Side side;
+  private final BigDecimal price;
+  private final BigDecimal quantity;
+  private final Instant createdTime;
+  private final boolean accountOrder;
+  private BigDecimal remaining;
+  private boolean cancelled;
+
+  SimulatedOrder(
+      long id,
+      String marketId,
+      Side side,
+      BigDecimal price,
+      BigDecimal quantity,
+      Instant createdTime,
+      boolean accountOrder) {
+    this.id = id;
+    this.marketId = marketId;
+    this.side = side;
+    this.price = price;
+    this.quantity = quantity;
+    this.createdTime = createdTime;
+    this.accountOrder = accountOrder;
+    this.remaining = quantity;
+  }
+
+  private SimulatedOrder(SimulatedOrder order) {
+    this(
+        order.id,
+        order.marketId,
+        order.side,
+        order.price,
+        order.quantity,
+        order.createdTime,
+        order.accountOrder);
+    this.remaining = order.remaining;
+    this.cancelled = order.cancelled;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  String getMarketId() {
+    return marketId;
+  }
+
+  Side getSide() {
+    return side;
+  }
+
+  BigDecimal getPrice() {
+    return price;
+  }
+
+  BigDecimal getQuantity() {
+    return quantity;
+  }
+
+  BigDecimal getRemaining() {
+    return remaining;
+  }
+
+  BigDecimal getFilled() {
+    return quantity.subtract(remaining);
+  }
+
+  Instant getCreatedTime() {
+    return createdTime;
+  }
+
+  boolean isAccountOrder() {
+    return accountOrder;
+  }
+
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  boolean isOpen() {
+    return !cancelled && remaining.signum() > 0;
+  }
+
+  void fill(BigDecimal fillQuantity) {
+    remaining = remaining.subtract(fillQuantity);
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  SimulatedOrder snapshot() {
+    return new SimulatedOrder(this);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("id", id)
+        .add("marketId", marketId)
+        .add("side", side)
+        .add("price", price)
+        .add("quantity", quantity)
+        .add("remaining", remaining)
+        .add("createdTime", createdTime)
+        .add("accountOrder", accountOrder)
+        .add("cancelled", cancelled)
+        .toString();
+  }
+}
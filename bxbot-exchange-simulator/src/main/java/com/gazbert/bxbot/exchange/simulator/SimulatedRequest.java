@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request received by a simulated exchange. Query, form and JSON body params are merged, as the
+ * simulated APIs do not care how a param was sent.
+ *
+ * @author gazbert
+ */
+class SimulatedRequest {
+
+  private final String method;
+  private final String path;
+  private final Map<String, String> params = new HashMap<>();
+
+  /**
+   * Creates the request.
+   *
+   * @param method the HTTP method.
+   * @param path the request path, relative to the simulated exchange's base URI.
+   * @param query the raw query string. This can be null.
+   * @param body the request body. This can be null.
+   */
+  SimulatedRequest(String method, String path, String query, String body) {
+    this.method = method;
+    this.path =
+        path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    parseForm(query);
+    if (body != null && !body.isBlank()) {
+      if (body.trim().startsWith("{")) {
+        parseJson(body);
+      } else {
+        parseForm(body);
+      }
+    }
+  }
+
+  String getMethod() {
+    return method;
+  }
+
+  /**
+   * Returns the request path, without any trailing slash.
+   *
+   * @return the path.
+   */
+  String getPath() {
+    return path;
+  }
+
+  String getParam(String name) {
+    return params.get(name);
+  }
+
+  private void parseForm(String form) {
+    if (form == null || form.isEmpty()) {
+      return;
+    }
+    for (final String param : form.split("&")) {
+      final int equals = param.indexOf('=');
+      if (equals > 0) {
+        params.put(
+            URLDecoder.decode(param.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(param.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private void parseJson(String json) {
+    final JsonObject jsonObject = JsonParser.parseString(json).getAsJsonObject();
+    for (final Map.Entry<String, JsonElement> param : jsonObject.entrySet()) {
+      if (param.getValue().isJsonPrimitive()) {
+        params.put(param.getKey(), param.getValue().getAsString());
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Config for the Exchange Simulator. The defaults give a fast and reliable exchange; set the
+ * latency and error fields to make it behave like a real one.
+ *
+ * @author gazbert
+ * @since 1.3
+ */
+public class SimulatorConfig {
+
+  private int port;
+  private int workerThreads = 16;
+  private long latencyInMillis;
+  private long latencyJitterInMillis;
+  private double errorRate;
+  private List<Integer> errorStatusCodes = new ArrayList<>(List.of(502, 503, 504));
+  private long errorStormIntervalInSecs;
+  private long errorStormDurationInSecs;
+  private long randomSeed = 1L;
+  private BigDecimal initialPrice = new BigDecimal("20000");
+  private BigDecimal priceStep = new BigDecimal("0.001");
+  private int priceScale = 2;
+  private int bookDepth = 20;
+  private BigDecimal makerOrderSize = BigDecimal.ONE;
+  private BigDecimal initialBalance = new BigDecimal("100000");
+
+  /**
+   * Returns the port the simulator listens on.
+   *
+   * @return the port. 0 means any free port.
+   */
+  public int getPort() {
+    return port;
+  }
+
+  public void setPort(int port) {
+    this.port = port;
+  }
+
+  /**
+   * Returns the number of threads handling requests.
+   *
+   * @return the number of worker threads.
+   */
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  public void setWorkerThreads(int workerThreads) {
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Returns the latency added to every response.
+   *
+   * @return the latency in millis.
+   */
+  public long getLatencyInMillis() {
+    return latencyInMillis;
+  }
+
+  public void setLatencyInMillis(long latencyInMillis) {
+    this.latencyInMillis = latencyInMillis;
+  }
+
+  /**
+   * Returns the maximum random latency added on top of the fixed latency.
+   *
+   * @return the latency jitter in millis.
+   */
+  public long getLatencyJitterInMillis() {
+    return latencyJitterInMillis;
+  }
+
+  public void setLatencyJitterInMillis(long latencyJitterInMillis) {
+    this.latencyJitterInMillis = latencyJitterInMillis;
+  }
+
+  /**
+   * Returns the fraction of requests that fail with one of the error status codes.
+   *
+   * @return the error rate, from 0 to 1.
+   */
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Returns the HTTP status codes of injected errors. One is picked at random for each error.
+   *
+   * @return the error status codes.
+   */
+  public List<Integer> getErrorStatusCodes() {
+    return errorStatusCodes;
+  }
+
+  public void setErrorStatusCodes(List<Integer> errorStatusCodes) {
+    this.errorStatusCodes = errorStatusCodes;
+  }
+
+  /**
+   * Returns how often an error storm starts. Every request fails during an error storm.
+   *
+   * @return the error storm interval in secs. 0 means no error storms.
+   */
+  public long getErrorStormIntervalInSecs() {
+    return errorStormIntervalInSecs;
+  }
+
+  public void setErrorStormIntervalInSecs(long errorStormIntervalInSecs) {
+    this.errorStormIntervalInSecs = errorStormIntervalInSecs;
+  }
+
+  /**
+   * Returns how long each error storm lasts.
+   *
+   * @return the error storm duration in secs.
+   */
+  public long getErrorStormDurationInSecs() {
+    return errorStormDurationInSecs;
+  }
+
+  public void setErrorStormDurationInSecs(long errorStormDurationInSecs) {
+    this.errorStormDurationInSecs = errorStormDurationInSecs;
+  }
+
+  /**
+   * Returns the seed for the latency jitter and error injection, so runs can be reproduced.
+   *
+   * @return the random seed.
+   */
+  public long getRandomSeed() {
+    return randomSeed;
+  }
+
+  public void setRandomSeed(long randomSeed) {
+    this.randomSeed = randomSeed;
+  }
+
+  /**
+   * Returns the price markets open at.
+   *
+   * @return the initial price.
+   */
+  public BigDecimal getInitialPrice() {
+    return initialPrice;
+  }
+
+  public void setInitialPrice(BigDecimal initialPrice) {
+    this.initialPrice = initialPrice;
+  }
+
+  /**
+   * Returns the gap between the market maker's price levels, as a fraction of the last price.
+   *
+   * @return the price step, e.g. 0.001 for 0.1%
+   */
+  public BigDecimal getPriceStep() {
+    return priceStep;
+  }
+
+  public void setPriceStep(BigDecimal priceStep) {
+    this.priceStep = priceStep;
+  }
+
+  /**
+   * Returns the number of decimal places in the market maker's prices.
+   *
+   * @return the price scale.
+   */
+  public int getPriceScale() {
+    return priceScale;
+  }
+
+  public void setPriceScale(int priceScale) {
+    this.priceScale = priceScale;
+  }
+
+  /**
+   * Returns the number of price levels the market maker keeps on each side of the book.
+   *
+   * @return the book depth.
+   */
+  public int getBookDepth() {
+    return bookDepth;
+  }
+
+  public void setBookDepth(int bookDepth) {
+    this.bookDepth = bookDepth;
+  }
+
+  /**
+   * Returns the quantity of each market maker order.
+   *
+   * @return the market maker order size.
+   */
+  public BigDecimal getMakerOrderSize() {
+    return makerOrderSize;
+  }
+
+  public void setMakerOrderSize(BigDecimal makerOrderSize) {
+    this.makerOrderSize = makerOrderSize;
+  }
+
+  /**
+   * Returns the balance the account starts with in every currency.
+   *
+   * @return the initial balance.
+   */
+  public BigDecimal getInitialBalance() {
+    return initialBalance;
+  }
+
+  public void setInitialBalance(BigDecimal initialBalance) {
+    this.initialBalance = initialBalance;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("port", port)
+        .add("workerThreads", workerThreads)
+        .add("latencyInMillis", latencyInMillis)
+        .add("latencyJitterInMillis", latencyJitterInMillis)
+        .add("errorRate", errorRate)
+        .add("errorStatusCodes", errorStatusCodes)
+        .add("errorStormIntervalInSecs", errorStormIntervalInSecs)
+        .add("errorStormDurationInSecs", errorStormDurationInSecs)
+        .add("randomSeed", randomSeed)
+        .add("initialPrice", initialPrice)
+        .add("priceStep", priceStep)
+        .add("priceScale", priceScale)
+        .add("bookDepth", bookDepth)
+        .add("makerOrderSize", makerOrderSize)
+        .add("initialBalance", initialBalance)
+        .toString();
+  }
+}
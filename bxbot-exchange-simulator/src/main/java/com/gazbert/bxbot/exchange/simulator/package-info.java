@@ -0,0 +1,41 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+/**
+ *
+ *
+ * <h2>Exchange Simulator</h2>
+ *
+ * <p>An embedded HTTP server that implements enough of the Kraken, Bitstamp, Coinbase Pro,
+ * Bitfinex, Gemini and itBit REST APIs for the inbuilt Exchange Adapters to run against it
+ * unchanged. Start the bot with the <code>bxbot.exchange.base.uri</code> system property set to
+ * the simulator's base URI for the exchange, e.g. <code>http://localhost:8090/kraken</code>.
+ *
+ * <p>Each simulated exchange has its own matching engine. Latency and errors are injected as
+ * configured in the {@link com.gazbert.bxbot.exchange.simulator.SimulatorConfig}.
+ *
+ * @author gazbert
+ * @since 1.3
+ */
+package com.gazbert.bxbot.exchange.simulator;
@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.BitfinexExchangeAdapter;
+import com.gazbert.bxbot.exchanges.BitstampExchangeAdapter;
+import com.gazbert.bxbot.exchanges.CoinbaseProExchangeAdapter;
+import com.gazbert.bxbot.exchanges.GeminiExchangeAdapter;
+import com.gazbert.bxbot.exchanges.ItBitExchangeAdapter;
+import com.gazbert.bxbot.exchanges.KrakenExchangeAdapter;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the real exchange adapters can trade against the Exchange Simulator.
+ *
+ * @author gazbert
+ */
+class TestExchangeSimulator {
+
+  private static final String BASE_URI_SYSTEM_PROPERTY = "bxbot.exchange.base.uri";
+  private static final String SECRET = "c2VjcmV0"; // base64 for Kraken and Coinbase Pro
+  private static final BigDecimal BUY_PRICE = new BigDecimal("19000");
+
+  private static ExchangeSimulator simulator;
+
+  @BeforeAll
+  static void startSimulator() throws Exception {
+    simulator = new ExchangeSimulator(new SimulatorConfig());
+    simulator.start();
+  }
+
+  @AfterAll
+  static void stopSimulator() {
+    simulator.stop();
+  }
+
+  @AfterEach
+  void clearBaseUri() {
+    System.clearProperty(BASE_URI_SYSTEM_PROPERTY);
+  }
+
+  @Test
+  void testKrakenAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.KRAKEN,
+        new KrakenExchangeAdapter(),
+        "XBTUSD",
+        Map.of("key", "key", "secret", SECRET),
+        Map.of("buy-fee", "0.26", "sell-fee", "0.26", "keep-alive-during-maintenance", "false"));
+  }
+
+  @Test
+  void testBitstampAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.BITSTAMP,
+        new BitstampExchangeAdapter(),
+        "btcusd",
+        Map.of("client-id", "123", "key", "key", "secret", SECRET),
+        Map.of());
+  }
+
+  @Test
+  void testCoinbaseProAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.COINBASE_PRO,
+        new CoinbaseProExchangeAdapter(),
+        "BTC-USD",
+        Map.of("passphrase", "passphrase", "key", "key", "secret", SECRET),
+        Map.of("buy-fee", "0.5", "sell-fee", "0.5", "time-server-bias", "0"));
+  }
+
+  @Test
+  void testBitfinexAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.BITFINEX,
+        new BitfinexExchangeAdapter(),
+        "btcusd",
+        Map.of("key", "key", "secret", SECRET),
+        Map.of());
+  }
+
+  @Test
+  void testGeminiAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.GEMINI,
+        new GeminiExchangeAdapter(),
+        "btcusd",
+        Map.of("key", "key", "secret", SECRET),
+        Map.of("buy-fee", "0.25", "sell-fee", "0.25"));
+  }
+
+  @Test
+  void testItBitAdapter() throws Exception {
+    assertAdapterCanTrade(
+        SimulatedExchange.ITBIT,
+        new ItBitExchangeAdapter(),
+        "XBTUSD",
+        Map.of("userId", "user", "key", "key", "secret", SECRET),
+        Map.of("buy-fee", "0.25", "sell-fee", "0.25", "keep-alive-during-maintenance", "false"));
+  }
+
+  @Test
+  void testConcurrentRequests() throws Exception {
+    final ExchangeAdapter adapter =
+        initAdapter(
+            SimulatedExchange.BITSTAMP,
+            new BitstampExchangeAdapter(),
+            Map.of("client-id", "123", "key", "key", "secret", SECRET),
+            Map.of(),
+            List.of());
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<BigDecimal>> prices = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        prices.add(executor.submit(() -> adapter.getLatestMarketPrice("ethusd")));
+      }
+      for (final Future<BigDecimal> price : prices) {
+        assertThat(price.get()).isEqualByComparingTo("20000");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testInjectedErrorsAreNonFatalForAdapter() throws Exception {
+    final SimulatorConfig config = new SimulatorConfig();
+    config.setLatencyInMillis(1);
+    final ExchangeSimulator faultySimulator = new ExchangeSimulator(config);
+    faultySimulator.start();
+    try {
+      System.setProperty(
+          BASE_URI_SYSTEM_PROPERTY,
+          faultySimulator.getBaseUri(SimulatedExchange.BITFINEX).toString());
+      final ExchangeAdapter adapter = new BitfinexExchangeAdapter();
+      adapter.init(
+          new SimulatorExchangeConfig(
+              Map.of("key", "key", "secret", SECRET), Map.of(), List.of(502, 503, 504)));
+      assertThat(adapter.getLatestMarketPrice("btcusd")).isEqualByComparingTo("20000");
+
+      faultySimulator.startErrorStorm(Duration.ofMinutes(1));
+      assertThatThrownBy(() -> adapter.getLatestMarketPrice("btcusd"))
+          .isInstanceOf(ExchangeNetworkException.class);
+    } finally {
+      faultySimulator.stop();
+    }
+    assertThatThrownBy(faultySimulator::getPort).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void testErrorResponses() throws Exception {
+    assertResponse(SimulatedExchange.BITSTAMP, "GET", "/api/v2/unknown/btcusd", "", 404, "");
+    assertResponse(
+        SimulatedExchange.BITSTAMP,
+        "POST",
+        "/api/v2/buy/btcusd",
+        "amount=abc&price=19000",
+        200,
+        "\"status\":\"error\"");
+    assertResponse(
+        SimulatedExchange.KRAKEN, "POST", "/0/private/Unknown", "", 200, "EGeneral:Unknown method");
+    assertResponse(
+        SimulatedExchange.KRAKEN,
+        "POST",
+        "/0/private/CancelOrder",
+        "txid=Ounknown",
+        200,
+        "EOrder:Unknown order");
+    assertResponse(
+        SimulatedExchange.COINBASE_PRO,
+        "POST",
+        "/orders",
+        "{\"side\":\"sideways\",\"size\":\"1\",\"price\":\"1\"}",
+        400,
+        "\"message\"");
+    assertResponse(
+        SimulatedExchange.COINBASE_PRO, "GET", "/products/BTC-USD/stats", "", 200, "\"open\"");
+    assertResponse(
+        SimulatedExchange.GEMINI,
+        "POST",
+        "/v1/order/new",
+        "{\"symbol\":\"btcusd\",\"side\":\"sell\",\"amount\":\"1000000\","
+            + "\"price\":\"1\"}",
+        400,
+        "InsufficientFunds");
+    assertResponse(
+        SimulatedExchange.BITFINEX, "POST", "/v1/account_infos", "{}", 200, "maker_fees");
+    assertResponse(
+        SimulatedExchange.ITBIT,
+        "DELETE",
+        "/v1/wallets/" + new UUID(3L, 1L) + "/orders/unknown",
+        "",
+        400,
+        "Order not found");
+  }
+
+  @Test
+  void testStartingTwiceIsRejected() {
+    assertThatThrownBy(simulator::start).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void testConfigIsLoadedFromProperties() {
+    final Properties properties = new Properties();
+    properties.setProperty("bxbot.simulator.port", "9000");
+    properties.setProperty("bxbot.simulator.latencyInMillis", "25");
+    properties.setProperty("bxbot.simulator.errorRate", "0.01");
+    properties.setProperty("bxbot.simulator.initialPrice", "1500.5");
+
+    final SimulatorConfig config = ExchangeSimulator.loadConfig(properties);
+
+    assertThat(config.getPort()).isEqualTo(9000);
+    assertThat(config.getLatencyInMillis()).isEqualTo(25);
+    assertThat(config.getErrorRate()).isEqualTo(0.01);
+    assertThat(config.getInitialPrice()).isEqualByComparingTo("1500.5");
+    assertThat(config.getWorkerThreads()).isEqualTo(new SimulatorConfig().getWorkerThreads());
+    assertThat(ExchangeSimulator.loadConfig(new Properties()).getPort()).isEqualTo(8090);
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private static void assertAdapterCanTrade(
+      SimulatedExchange exchange,
+      ExchangeAdapter adapter,
+      String marketId,
+      Map<String, String> authenticationItems,
+      Map<String, String> otherItems)
+      throws Exception {
+    initAdapter(exchange, adapter, authenticationItems, otherItems, List.of());
+
+    final MarketOrderBook book = adapter.getMarketOrders(marketId);
+    assertThat(book.getBuyOrders()).isNotEmpty();
+    assertThat(book.getSellOrders()).isNotEmpty();
+    assertThat(book.getBuyOrders().get(0).getPrice())
+        .isLessThan(book.getSellOrders().get(0).getPrice());
+    assertThat(adapter.getLatestMarketPrice(marketId)).isPositive();
+    assertThat(adapter.getBalanceInfo().getBalancesAvailable()).isNotEmpty();
+
+    final String orderId = adapter.createOrder(marketId, OrderType.BUY, BigDecimal.ONE, BUY_PRICE);
+    final List<OpenOrder> openOrders = adapter.getYourOpenOrders(marketId);
+    assertThat(openOrders).extracting(OpenOrder::getId).containsExactly(orderId);
+    assertThat(openOrders.get(0).getPrice()).isEqualByComparingTo(BUY_PRICE);
+    assertThat(simulator.getMatchingEngine(exchange).getOpenOrders(null)).hasSize(1);
+
+    assertThat(adapter.cancelOrder(orderId, marketId)).isTrue();
+    assertThat(adapter.getYourOpenOrders(marketId)).isEmpty();
+  }
+
+  private static void assertResponse(
+      SimulatedExchange exchange,
+      String method,
+      String path,
+      String body,
+      int expectedStatusCode,
+      String expectedBody)
+      throws Exception {
+    final HttpRequest request =
+        HttpRequest.newBuilder(URI.create(simulator.getBaseUri(exchange) + path))
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    final HttpResponse<String> response =
+        HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    assertThat(response.statusCode()).isEqualTo(expectedStatusCode);
+    assertThat(response.body()).contains(expectedBody);
+  }
+
+  private static ExchangeAdapter initAdapter(
+      SimulatedExchange exchange,
+      ExchangeAdapter adapter,
+      Map<String, String> authenticationItems,
+      Map<String, String> otherItems,
+      List<Integer> nonFatalErrorCodes) {
+    System.setProperty(BASE_URI_SYSTEM_PROPERTY, simulator.getBaseUri(exchange).toString());
+    adapter.init(new SimulatorExchangeConfig(authenticationItems, otherItems, nonFatalErrorCodes));
+    return adapter;
+  }
+
+  private static class SimulatorExchangeConfig implements ExchangeConfig {
+
+    private final Map<String, String> authenticationItems;
+    private final Map<String, String> otherItems;
+    private final List<Integer> nonFatalErrorCodes;
+
+    SimulatorExchangeConfig(
+        Map<String, String> authenticationItems,
+        Map<String, String> otherItems,
+        List<Integer> nonFatalErrorCodes) {
+      this.authenticationItems = authenticationItems;
+      this.otherItems = otherItems;
+      this.nonFatalErrorCodes = nonFatalErrorCodes;
+    }
+
+    @Override
+    public String getExchangeName() {
+      return "Simulator";
+    }
+
+    @Override
+    public String getExchangeAdapter() {
+      return "simulator";
+    }
+
+    @Override
+    public AuthenticationConfig getAuthenticationConfig() {
+      return authenticationItems::get;
+    }
+
+    @Override
+    public NetworkConfig getNetworkConfig() {
+      return new NetworkConfig() {
+        @Override
+        public List<Integer> getNonFatalErrorCodes() {
+          return nonFatalErrorCodes;
+        }
+
+        @Override
+        public List<String> getNonFatalErrorMessages() {
+          return List.of();
+        }
+
+        @Override
+        public Integer getConnectionTimeout() {
+          return 5;
+        }
+      };
+    }
+
+    @Override
+    public OtherConfig getOtherConfig() {
+      return otherItems::get;
+    }
+  }
+}
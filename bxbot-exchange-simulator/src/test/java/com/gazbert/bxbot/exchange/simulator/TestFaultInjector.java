@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Fault Injector behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestFaultInjector {
+
+  private final AtomicLong nanoClock = new AtomicLong();
+  private SimulatorConfig config;
+
+  @BeforeEach
+  void setup() {
+    config = new SimulatorConfig();
+    config.setErrorStatusCodes(List.of(503));
+  }
+
+  @Test
+  void testNoFaultsByDefault() {
+    final FaultInjector faultInjector = new FaultInjector(config, nanoClock::get);
+    for (int i = 0; i < 100; i++) {
+      assertThat(faultInjector.nextErrorStatusCode()).isZero();
+      assertThat(faultInjector.nextLatencyInMillis()).isZero();
+    }
+  }
+
+  @Test
+  void testLatencyIncludesJitter() {
+    config.setLatencyInMillis(50);
+    config.setLatencyJitterInMillis(10);
+    final FaultInjector faultInjector = new FaultInjector(config, nanoClock::get);
+    for (int i = 0; i < 100; i++) {
+      assertThat(faultInjector.nextLatencyInMillis()).isBetween(50L, 60L);
+    }
+  }
+
+  @Test
+  void testErrorRate() {
+    config.setErrorRate(0.25);
+    final FaultInjector faultInjector = new FaultInjector(config, nanoClock::get);
+    int errors = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (faultInjector.nextErrorStatusCode() == 503) {
+        errors++;
+      }
+    }
+    assertThat(errors).isBetween(200, 300);
+
+    config.setErrorStatusCodes(List.of());
+    assertThat(faultInjector.nextErrorStatusCode()).isZero();
+  }
+
+  @Test
+  void testPeriodicErrorStorms() {
+    config.setErrorStormIntervalInSecs(60);
+    config.setErrorStormDurationInSecs(5);
+    final FaultInjector faultInjector = new FaultInjector(config, nanoClock::get);
+
+    nanoClock.set(TimeUnit.SECONDS.toNanos(30));
+    assertThat(faultInjector.nextErrorStatusCode()).isZero();
+    nanoClock.set(TimeUnit.SECONDS.toNanos(62));
+    assertThat(faultInjector.nextErrorStatusCode()).isEqualTo(503);
+    nanoClock.set(TimeUnit.SECONDS.toNanos(66));
+    assertThat(faultInjector.nextErrorStatusCode()).isZero();
+    nanoClock.set(TimeUnit.SECONDS.toNanos(121));
+    assertThat(faultInjector.nextErrorStatusCode()).isEqualTo(503);
+  }
+
+  @Test
+  void testManualErrorStorm() {
+    final FaultInjector faultInjector = new FaultInjector(config, nanoClock::get);
+    faultInjector.startErrorStorm(Duration.ofSeconds(10));
+
+    nanoClock.set(TimeUnit.SECONDS.toNanos(9));
+    assertThat(faultInjector.nextErrorStatusCode()).isEqualTo(503);
+    nanoClock.set(TimeUnit.SECONDS.toNanos(10));
+    assertThat(faultInjector.nextErrorStatusCode()).isZero();
+  }
+}
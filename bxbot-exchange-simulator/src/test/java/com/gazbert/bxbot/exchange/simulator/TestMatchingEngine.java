@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.gazbert.bxbot.exchange.simulator.SimulatedOrder.Side;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Matching Engine behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestMatchingEngine {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final Instant NOW = Instant.parse("2022-08-01T10:15:30Z");
+
+  private MatchingEngine matchingEngine;
+
+  @BeforeEach
+  void setup() {
+    final SimulatorConfig config = new SimulatorConfig();
+    config.setBookDepth(5);
+    matchingEngine = new MatchingEngine(config, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void testNewMarketIsSeededWithMarketMakerOrders() {
+    final List<BigDecimal[]> bids = matchingEngine.getPriceLevels(MARKET_ID, Side.BUY, 10);
+    final List<BigDecimal[]> asks = matchingEngine.getPriceLevels(MARKET_ID, Side.SELL, 10);
+
+    assertThat(bids).hasSize(5);
+    assertThat(asks).hasSize(5);
+    assertThat(bids.get(0)[0]).isEqualByComparingTo("19980");
+    assertThat(bids.get(0)[1]).isEqualByComparingTo("1");
+    assertThat(asks.get(0)[0]).isEqualByComparingTo("20020");
+    assertThat(asks.get(4)[0]).isEqualByComparingTo("20100");
+
+    assertThat(matchingEngine.getCurrencies(MARKET_ID)).containsExactly("BTC", "USD");
+    assertThat(matchingEngine.getCurrencies("BTC-EUR")).containsExactly("BTC", "EUR");
+    assertThat(matchingEngine.getMarketIds()).containsExactly("BTC-EUR", MARKET_ID);
+    assertThat(matchingEngine.getAvailableBalances().get("USD")).isEqualByComparingTo("100000");
+  }
+
+  @Test
+  void testCrossingOrderFillsAtRestingPriceAndRestsRemainder() throws Exception {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            MARKET_ID, Side.BUY, new BigDecimal("1.5"), new BigDecimal("20030"));
+
+    assertThat(order.getFilled()).isEqualByComparingTo("1");
+    assertThat(order.getRemaining()).isEqualByComparingTo("0.5");
+    assertThat(order.isOpen()).isTrue();
+    assertThat(order.getCreatedTime()).isEqualTo(NOW);
+    assertThat(order.toString()).contains("id=" + order.getId(), "marketId=" + MARKET_ID);
+    assertThat(matchingEngine.getOpenOrders(MARKET_ID)).hasSize(1);
+    assertThat(matchingEngine.getPriceLevels(MARKET_ID, Side.BUY, 1).get(0)[0])
+        .isEqualByComparingTo("20030");
+
+    // 1 BTC bought at 20020, 0.5 BTC held at 20030.
+    assertThat(matchingEngine.getAvailableBalances().get("BTC")).isEqualByComparingTo("100001");
+    assertThat(matchingEngine.getAvailableBalances().get("USD"))
+        .isEqualByComparingTo("69965");
+    assertThat(matchingEngine.getBalancesOnHold().get("USD")).isEqualByComparingTo("10015");
+
+    final MarketStats stats = matchingEngine.getMarketStats(MARKET_ID);
+    assertThat(stats.getLast()).isEqualByComparingTo("20020");
+    assertThat(stats.getBid()).isEqualByComparingTo("20030");
+    assertThat(stats.getHigh()).isEqualByComparingTo("20020");
+    assertThat(stats.getLow()).isEqualByComparingTo("20000");
+    assertThat(stats.getOpen()).isEqualByComparingTo("20000");
+    assertThat(stats.getVolume()).isEqualByComparingTo("1");
+    assertThat(stats.getVwap()).isEqualByComparingTo("20020");
+  }
+
+  @Test
+  void testSellOrderIsFilledByAccountBuyOrder() throws Exception {
+    final SimulatedOrder buy =
+        matchingEngine.placeOrder(
+            MARKET_ID, Side.BUY, new BigDecimal("2"), new BigDecimal("19990"));
+    final SimulatedOrder sell =
+        matchingEngine.placeOrder(
+            MARKET_ID, Side.SELL, new BigDecimal("2"), new BigDecimal("19990"));
+
+    assertThat(sell.isOpen()).isFalse();
+    assertThat(matchingEngine.getOpenOrders(null)).isEmpty();
+    assertThat(matchingEngine.cancelOrder(buy.getId())).isNull();
+    assertThat(matchingEngine.getAvailableBalances().get("BTC")).isEqualByComparingTo("100000");
+    assertThat(matchingEngine.getAvailableBalances().get("USD")).isEqualByComparingTo("100000");
+    assertThat(matchingEngine.getBalancesOnHold().get("BTC")).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void testCancelReleasesHeldFunds() throws Exception {
+    final SimulatedOrder order =
+        matchingEngine.placeOrder(
+            MARKET_ID, Side.SELL, new BigDecimal("3"), new BigDecimal("21000"));
+    assertThat(matchingEngine.getAvailableBalances().get("BTC")).isEqualByComparingTo("99997");
+
+    final SimulatedOrder cancelled = matchingEngine.cancelOrder(order.getId());
+
+    assertThat(cancelled.isCancelled()).isTrue();
+    assertThat(cancelled.isOpen()).isFalse();
+    assertThat(matchingEngine.getOpenOrders(null)).isEmpty();
+    assertThat(matchingEngine.getAvailableBalances().get("BTC")).isEqualByComparingTo("100000");
+    assertThat(matchingEngine.getBalancesOnHold().get("BTC")).isEqualByComparingTo("0");
+    assertThat(matchingEngine.cancelOrder(order.getId())).isNull();
+  }
+
+  @Test
+  void testOrdersAreRejectedIfInvalidOrUnfunded() {
+    assertThatThrownBy(
+            () ->
+                matchingEngine.placeOrder(
+                    MARKET_ID, Side.BUY, BigDecimal.ZERO, new BigDecimal("20000")))
+        .isInstanceOf(OrderRejectedException.class)
+        .hasMessage("Invalid order quantity or price");
+    assertThatThrownBy(
+            () ->
+                matchingEngine.placeOrder(
+                    MARKET_ID, Side.BUY, BigDecimal.TEN, new BigDecimal("20000")))
+        .isInstanceOf(OrderRejectedException.class)
+        .hasMessage("Insufficient funds");
+    assertThat(matchingEngine.getAvailableBalances().get("USD")).isEqualByComparingTo("100000");
+  }
+}
@@ -82,6 +82,16 @@ public class BitfinexIT {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
 
     exchangeConfig = createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -27,30 +27,56 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderResult;
+import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.UnresolvedAddressException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.text.DecimalFormatSymbols;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -73,6 +99,10 @@ abstract class AbstractExchangeAdapter {
       "Failed to connect to Exchange due to socket timeout.";
   private static final String IO_5XX_TIMEOUT_ERROR_MSG =
       "Failed to connect to Exchange due to 5xx timeout.";
+  private static final String EXCHANGE_IS_DEAD_ERROR_MSG =
+      "Failed to connect to Exchange. It's dead Jim!";
+  private static final String RATE_LIMIT_EXCEEDED_ERROR_MSG =
+      "Exchange rejected request because rate limit was exceeded.";
   private static final String AUTHENTICATION_CONFIG_MISSING =
       "authenticationConfig is missing in exchange.yaml file.";
   private static final String NETWORK_CONFIG_MISSING =
@@ -85,11 +115,69 @@ abstract class AbstractExchangeAdapter {
   private static final String CONNECTION_TIMEOUT_PROPERTY_NAME = "connection-timeout";
   private static final String NON_FATAL_ERROR_CODES_PROPERTY_NAME = "non-fatal-error-codes";
   private static final String NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME = "non-fatal-error-messages";
+  private static final String CONNECTION_POOL_SIZE_PROPERTY_NAME = "connection-pool-size";
+  private static final String CONNECTION_IDLE_TIMEOUT_PROPERTY_NAME = "connection-idle-timeout";
+  private static final String PUBLIC_REQUESTS_PER_SECOND_PROPERTY_NAME =
+      "public-requests-per-second";
+  private static final String PRIVATE_REQUESTS_PER_SECOND_PROPERTY_NAME =
+      "private-requests-per-second";
+  private static final String TRADING_REQUESTS_PER_SECOND_PROPERTY_NAME =
+      "trading-requests-per-second";
+  private static final String MAX_RETRIES_PROPERTY_NAME = "max-retries";
+  private static final String RETRY_BACKOFF_PROPERTY_NAME = "retry-backoff";
+  private static final String MAX_RETRY_BACKOFF_PROPERTY_NAME = "max-retry-backoff";
+  private static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD_PROPERTY_NAME =
+      "circuit-breaker-failure-threshold";
+  private static final String CIRCUIT_BREAKER_OPEN_TIMEOUT_PROPERTY_NAME =
+      "circuit-breaker-open-timeout";
+
+  private static final int DEFAULT_RETRY_BACKOFF_IN_MILLIS = 250;
+  private static final int DEFAULT_MAX_RETRY_BACKOFF_IN_MILLIS = 4000;
+  private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_TIMEOUT_IN_SECS = 30;
+
+  private static final int HTTP_ERROR_STATUS_CODE_START = 400;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  /** The depth adapters use internally to fetch the whole order book. */
+  static final int FULL_ORDER_BOOK_DEPTH = 0;
+
+  /** The most requests from one batch call that are sent to the exchange at the same time. */
+  static final int MAX_PARALLEL_REQUESTS = 4;
+
+  private static final AtomicInteger PARALLEL_REQUEST_THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService PARALLEL_REQUEST_EXECUTOR =
+      Executors.newFixedThreadPool(
+          MAX_PARALLEL_REQUESTS,
+          runnable -> {
+            final Thread thread =
+                new Thread(
+                    runnable,
+                    "bxbot-parallel-request-" + PARALLEL_REQUEST_THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private static final String BASE_URI_SYSTEM_PROPERTY = "bxbot.exchange.base.uri";
+  private static final String RECORD_FILE_SYSTEM_PROPERTY = "bxbot.exchange.record.file";
+  private static final String REPLAY_FILE_SYSTEM_PROPERTY = "bxbot.exchange.replay.file";
+  private static final String REPLAY_LATENCY_SYSTEM_PROPERTY = "bxbot.exchange.replay.latency";
+
+  // UUIDs or long numbers in a URL path are order or wallet ids.
+  private static final Pattern ID_PATH_SEGMENT_PATTERN =
+      Pattern.compile("/(\\p{XDigit}{8}(-\\p{XDigit}{4}){3}-\\p{XDigit}{12}|\\d{5,})(?=/|$)");
 
   private final Set<Integer> nonFatalNetworkErrorCodes;
   private final Set<String> nonFatalNetworkErrorMessages;
 
   private int connectionTimeout;
+  private Integer connectionPoolSize;
+  private Integer connectionIdleTimeout;
+  private ExchangeHttpTransport httpTransport;
+  private ExchangeRateLimiter rateLimiter;
+  private ExchangeRetryPolicy retryPolicy;
+  private ExchangeCircuitBreaker circuitBreaker;
+  private ExchangeRequestMetrics requestMetrics;
   private DecimalFormatSymbols decimalFormatSymbols;
 
   /**
@@ -110,11 +198,21 @@ abstract class AbstractExchangeAdapter {
   /**
    * Makes a request to the Exchange.
    *
+   * <p>Requests are sent over the adapter's HTTP transport, which keeps connections to the
+   * Exchange alive between requests. Error status codes are mapped to exceptions here.
+   *
+   * <p>Requests wait for the adapter's rate limiter before they are sent. If the Exchange still
+   * throttles the request, the rate limiter backs off and an ExchangeNetworkException is thrown;
+   * the request is not resent here because authenticated requests carry a nonce.
+   *
+   * <p>Requests that {@link #isRetryable(URL, String) can be retried} are resent with exponential
+   * backoff if they fail with a network error. All requests go through the adapter's circuit
+   * breaker, which fails them fast while the Exchange is down.
+   *
    * @param url the URL to invoke.
    * @param postData optional post data to send. This can be null.
    * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
-   * @param requestHeaders optional request headers to set on the {@link URLConnection} used to
-   *     invoke the Exchange.
+   * @param requestHeaders optional request headers to send to the Exchange.
    * @return the response from the Exchange.
    * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
    *     This exception allows for recovery from temporary network issues.
@@ -125,96 +223,402 @@ abstract class AbstractExchangeAdapter {
       URL url, String httpMethod, String postData, Map<String, String> requestHeaders)
       throws TradingApiException, ExchangeNetworkException {
 
-    HttpURLConnection exchangeConnection = null;
-    final StringBuilder exchangeResponse = new StringBuilder();
+    final EndpointClass endpointClass = getEndpointClass(url, httpMethod);
+    final ExchangeRetryPolicy exchangeRetryPolicy = getRetryPolicy();
+    final ExchangeCircuitBreaker exchangeCircuitBreaker = getCircuitBreaker();
+    final int maxRetries =
+        isRetryable(url, httpMethod) ? exchangeRetryPolicy.getMaxRetries() : 0;
 
-    try {
-      LOG.debug(() -> "Using following URL for API call: " + url);
-
-      exchangeConnection = (HttpURLConnection) url.openConnection();
-      exchangeConnection.setUseCaches(false);
-      exchangeConnection.setDoOutput(true);
-      exchangeConnection.setRequestMethod(httpMethod); // GET|POST|DELETE
+    for (int retry = 1; ; retry++) {
+      exchangeCircuitBreaker.acquirePermission();
 
-      setRequestHeaders(exchangeConnection, requestHeaders);
+      final ExchangeHttpResponse exchangeResponse;
+      final boolean rateLimited;
+      try {
+        exchangeResponse =
+            sendNetworkRequestOnce(url, httpMethod, postData, requestHeaders, endpointClass);
+        rateLimited = isRateLimited(exchangeResponse);
+        if (!rateLimited) {
+          checkResponseStatus(exchangeResponse, isNotFoundExpected(url, httpMethod));
+        }
 
-      // Add a timeout so we don't get blocked indefinitely; timeout on URLConnection is in millis.
-      final int timeoutInMillis = connectionTimeout * 1000;
-      exchangeConnection.setConnectTimeout(timeoutInMillis);
-      exchangeConnection.setReadTimeout(timeoutInMillis);
+      } catch (TradingApiException e) {
+        // The Exchange is up, but there is no point retrying.
+        exchangeCircuitBreaker.recordSuccess();
+        throw e;
 
-      if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
-        LOG.debug(() -> "Doing POST with request body: " + postData);
-        try (final OutputStreamWriter outputPostStream =
-            new OutputStreamWriter(exchangeConnection.getOutputStream(), StandardCharsets.UTF_8)) {
-          outputPostStream.write(postData);
+      } catch (ExchangeNetworkException e) {
+        exchangeCircuitBreaker.recordFailure();
+        if (retry > maxRetries) {
+          throw e;
+        }
+        if (!backOff(url, retry, maxRetries, exchangeRetryPolicy.getBackoffInNanos(retry))) {
+          throw e;
         }
+        continue;
       }
 
-      // Grab the response - we just block here as per Connection API
-      try (final BufferedReader responseInputStream =
-          new BufferedReader(
-              new InputStreamReader(exchangeConnection.getInputStream(), StandardCharsets.UTF_8))) {
+      // The Exchange responded, even if it throttled the request.
+      exchangeCircuitBreaker.recordSuccess();
+      if (rateLimited) {
+        final long retryAfterInNanos = getRetryAfterInNanos(exchangeResponse);
+        getRateLimiter().onThrottled(endpointClass, retryAfterInNanos);
+        final String errorMsg =
+            RATE_LIMIT_EXCEEDED_ERROR_MSG + " HTTP status: " + exchangeResponse.getStatusCode();
 
-        // Read the JSON response lines into our response buffer
-        String responseLine;
-        while ((responseLine = responseInputStream.readLine()) != null) {
-          exchangeResponse.append(responseLine);
+        // Wait as long as the Exchange asked, unless that is longer than we would ever back off.
+        if (retry <= maxRetries
+            && retryAfterInNanos <= exchangeRetryPolicy.getMaxBackoffInNanos()) {
+          final long waitInNanos =
+              retryAfterInNanos > 0
+                  ? retryAfterInNanos
+                  : exchangeRetryPolicy.getBackoffInNanos(retry);
+          if (backOff(url, retry, maxRetries, waitInNanos)) {
+            continue;
+          }
         }
-
-        return new ExchangeHttpResponse(
-            exchangeConnection.getResponseCode(),
-            exchangeConnection.getResponseMessage(),
-            exchangeResponse.toString());
+        LOG.error(errorMsg);
+        throw new ExchangeNetworkException(errorMsg);
       }
+      getRateLimiter().onSuccess(endpointClass);
+      return exchangeResponse;
+    }
+  }
+
+  /*
+   * Sleeps before a retry. Returns false if the thread was interrupted, in which case the request
+   * must not be retried.
+   */
+  private static boolean backOff(URL url, int retry, int maxRetries, long backoffInNanos) {
+    LOG.warn(
+        () ->
+            "Retry "
+                + retry
+                + " of "
+                + maxRetries
+                + " for "
+                + url
+                + " in "
+                + TimeUnit.NANOSECONDS.toMillis(backoffInNanos)
+                + "ms");
+    try {
+      TimeUnit.NANOSECONDS.sleep(backoffInNanos);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private ExchangeHttpResponse sendNetworkRequestOnce(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      EndpointClass endpointClass)
+      throws TradingApiException, ExchangeNetworkException {
+
+    final ExchangeHttpResponse exchangeResponse;
+    try {
+      getRateLimiter().acquire(endpointClass);
+      LOG.debug(() -> "Using following URL for API call: " + url);
+      exchangeResponse = sendAndRecordMetrics(url.toURI(), httpMethod, postData, requestHeaders);
 
-    } catch (MalformedURLException e) {
+    } catch (URISyntaxException | IllegalArgumentException e) {
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new TradingApiException(errorMsg, e);
 
-    } catch (SocketTimeoutException e) {
+    } catch (HttpTimeoutException e) {
       final String errorMsg = IO_SOCKET_TIMEOUT_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new ExchangeNetworkException(errorMsg, e);
 
-    } catch (FileNotFoundException | UnknownHostException e) {
-      // Huobi started throwing FileNotFoundException as of 8 Nov 2015.
-      // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
-      final String errorMsg = "Failed to connect to Exchange. It's dead Jim!";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final String errorMsg = "Interrupted waiting for Exchange response.";
       LOG.error(errorMsg, e);
       throw new ExchangeNetworkException(errorMsg, e);
 
     } catch (IOException e) {
-      try {
-        if (errorMessageIsRecoverableNetworkError(e)) {
-          final String errorMsg =
-              "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
-          LOG.error(errorMsg, e);
-          throw new ExchangeNetworkException(errorMsg, e);
-
-        } else if (errorCodeIsRecoverableNetworkError(exchangeConnection)) {
-          final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG;
-          LOG.error(errorMsg, e);
-          throw new ExchangeNetworkException(errorMsg, e);
-
-        } else {
-          // Game over!
-          String errorMsg = extractIoErrorMessage(exchangeConnection);
-          LOG.error(errorMsg, e);
-          throw new TradingApiException(errorMsg, e);
-        }
+      if (isUnknownHost(e)) {
+        // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
+        final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG;
+        LOG.error(errorMsg, e);
+        throw new ExchangeNetworkException(errorMsg, e);
 
-      } catch (IOException e1) {
+      } else if (isRecoverableNetworkError(e)) {
+        final String errorMsg =
+            "Failed to connect to Exchange. Connection was refused, closed or timed out.";
+        LOG.error(errorMsg, e);
+        throw new ExchangeNetworkException(errorMsg, e);
+
+      } else {
+        // Game over!
         final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-        LOG.error(errorMsg, e1);
-        throw new TradingApiException(errorMsg, e1);
+        LOG.error(errorMsg, e);
+        throw new TradingApiException(errorMsg, e);
+      }
+    }
+
+    return exchangeResponse;
+  }
+
+  private ExchangeHttpResponse sendAndRecordMetrics(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException {
+
+    final String apiMethod = getApiMethodName(uri);
+    final ExchangeRequestMetrics exchangeRequestMetrics = getRequestMetrics();
+    final long startTime = System.nanoTime();
+    try {
+      final ExchangeHttpResponse exchangeResponse =
+          getHttpTransport().send(uri, httpMethod, postData, requestHeaders);
+      exchangeRequestMetrics.recordResponse(
+          apiMethod,
+          httpMethod,
+          exchangeResponse.getStatusCode(),
+          System.nanoTime() - startTime,
+          exchangeResponse.getPayloadSize());
+      return exchangeResponse;
+
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      exchangeRequestMetrics.recordError(apiMethod, httpMethod, System.nanoTime() - startTime, e);
+      throw e;
+    }
+  }
+
+  private void checkResponseStatus(ExchangeHttpResponse exchangeResponse, boolean notFoundExpected)
+      throws TradingApiException, ExchangeNetworkException {
+    final int statusCode = exchangeResponse.getStatusCode();
+    if (statusCode >= HTTP_ERROR_STATUS_CODE_START) {
+      if (statusCode == HttpURLConnection.HTTP_NOT_FOUND && notFoundExpected) {
+        // The Exchange is up; the resource requested does not exist.
+        return;
+
+      } else if (statusCode == HttpURLConnection.HTTP_NOT_FOUND
+          || statusCode == HttpURLConnection.HTTP_GONE) {
+        // Huobi started returning 404 as of 8 Nov 2015.
+        final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG + " HTTP status: " + statusCode;
+        LOG.error(errorMsg);
+        throw new ExchangeNetworkException(errorMsg);
+
+      } else if (nonFatalNetworkErrorCodes.contains(statusCode)) {
+        final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG + " HTTP status: " + statusCode;
+        LOG.error(errorMsg);
+        throw new ExchangeNetworkException(errorMsg);
+
+      } else {
+        // Game over!
+        final String errorMsg =
+            UNEXPECTED_IO_ERROR_MSG
+                + " HTTP status: "
+                + statusCode
+                + " ErrorStream Response: "
+                + exchangeResponse.getPayload();
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
       }
+    }
+  }
 
-    } finally {
-      if (exchangeConnection != null) {
-        exchangeConnection.disconnect();
+  /**
+   * Returns the rate limit class of a request. Adapters should override this to separate their
+   * private and trading requests from public market data requests.
+   *
+   * @param url the request URL.
+   * @param httpMethod the HTTP method, e.g. GET, POST, DELETE
+   * @return the endpoint class of the request. Defaults to PUBLIC.
+   */
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    return EndpointClass.PUBLIC;
+  }
+
+  /**
+   * Returns the API method name used to tag the request metrics. By default, this is the request
+   * path with any order or wallet ids replaced with {id}, so that the metrics for each API method
+   * can be aggregated.
+   *
+   * @param uri the request URI.
+   * @return the API method name.
+   */
+  String getApiMethodName(URI uri) {
+    final String path = uri.getPath() == null ? "" : uri.getPath();
+    return ID_PATH_SEGMENT_PATTERN.matcher(path).replaceAll("/{id}");
+  }
+
+  /**
+   * Checks if a request can safely be resent after a network error, or after the Exchange throttled
+   * it. By default, only public GET requests are retried: signed requests usually carry a nonce, so
+   * resending the same request would be rejected by the Exchange. Adapters whose signed reads can
+   * be resent should override this.
+   *
+   * @param url the request URL.
+   * @param httpMethod the HTTP method, e.g. GET, POST, DELETE
+   * @return true if the request can be retried, false otherwise.
+   */
+  boolean isRetryable(URL url, String httpMethod) {
+    return "GET".equals(httpMethod) && getEndpointClass(url, httpMethod) == EndpointClass.PUBLIC;
+  }
+
+  /**
+   * Checks if a 404 response to a request means the resource requested, e.g. an order, does not
+   * exist. Such responses are returned to the adapter to handle. By default, a 404 response means
+   * the Exchange is down and an ExchangeNetworkException is thrown. Adapters that look up
+   * resources by id should override this for those requests.
+   *
+   * @param url the request URL.
+   * @param httpMethod the HTTP method, e.g. GET, POST, DELETE
+   * @return true if a 404 response should be returned to the adapter, false otherwise.
+   */
+  boolean isNotFoundExpected(URL url, String httpMethod) {
+    return false;
+  }
+
+  /**
+   * Checks if the Exchange rejected a request because the rate limit was exceeded. Adapters for
+   * Exchanges that do not use the 429 status code should override this.
+   *
+   * @param exchangeResponse the response from the Exchange.
+   * @return true if the request was throttled, false otherwise.
+   */
+  boolean isRateLimited(ExchangeHttpResponse exchangeResponse) {
+    return exchangeResponse.getStatusCode() == HTTP_TOO_MANY_REQUESTS;
+  }
+
+  /**
+   * Checks the depth asked for in {@link
+   * com.gazbert.bxbot.trading.api.TradingApi#getMarketOrders(String, int)}.
+   *
+   * @param depth the maximum number of orders on each side of the book.
+   * @throws IllegalArgumentException if the depth is less than 1.
+   */
+  static void checkOrderBookDepth(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Order book depth must be at least 1: " + depth);
+    }
+  }
+
+  /**
+   * Returns the top of an order book, for Exchanges (and local order books) that have more levels
+   * than were asked for.
+   *
+   * @param orderBook the order book.
+   * @param depth the maximum number of orders on each side of the book, or {@link
+   *     #FULL_ORDER_BOOK_DEPTH}.
+   * @return the order book, or a copy of its top levels if it is deeper than the depth.
+   */
+  static MarketOrderBook limitOrderBookDepth(MarketOrderBook orderBook, int depth) {
+    if (depth == FULL_ORDER_BOOK_DEPTH) {
+      return orderBook;
+    }
+    final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+    final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+    if (sellOrders.size() <= depth && buyOrders.size() <= depth) {
+      return orderBook;
+    }
+    return new MarketOrderBookImpl(
+        orderBook.getMarketId(),
+        new ArrayList<>(sellOrders.subList(0, Math.min(depth, sellOrders.size()))),
+        new ArrayList<>(buyOrders.subList(0, Math.min(depth, buyOrders.size()))));
+  }
+
+  /**
+   * Sends the calls for a batch of orders in parallel, for Exchanges that have no bulk endpoint. At
+   * most {@link #MAX_PARALLEL_REQUESTS} calls are in flight at once, and each one still goes
+   * through the rate limiter.
+   *
+   * <p>Only use this for Exchanges that sign requests with a timestamp. Exchanges that need a
+   * strictly increasing nonce would reject requests that overtake each other on the wire.
+   *
+   * @param orders the orders in the batch.
+   * @param call makes the call for one order. It must report exchange errors in its result.
+   * @param <T> the type of order, e.g. an order request or an order id.
+   * @return the result for each order, in the same order as the batch.
+   * @throws ExchangeNetworkException if interrupted while waiting for the calls to finish.
+   */
+  static <T> List<OrderResult> dispatchInParallel(
+      List<T> orders, Function<T, OrderResult> call) throws ExchangeNetworkException {
+    final List<OrderResult> results = new ArrayList<>(orders.size());
+    if (orders.size() <= 1) {
+      for (final T order : orders) {
+        results.add(call.apply(order));
+      }
+      return results;
+    }
+
+    final List<Callable<OrderResult>> tasks = new ArrayList<>(orders.size());
+    for (final T order : orders) {
+      tasks.add(() -> call.apply(order));
+    }
+    try {
+      for (final Future<OrderResult> result : PARALLEL_REQUEST_EXECUTOR.invokeAll(tasks)) {
+        results.add(result.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExchangeNetworkException("Interrupted sending batch of orders to exchange", e);
+    } catch (ExecutionException e) {
+      // the call reports exchange errors in its result, so only unchecked exceptions get here
+      final Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Unexpected failure sending order to exchange", cause);
+    }
+  }
+
+  /**
+   * Fetches the tickers for several markets in parallel, for Exchanges that have no multi-market
+   * ticker endpoint. At most {@link #MAX_PARALLEL_REQUESTS} calls are in flight at once. Ticker
+   * calls are public, so there is no nonce to keep in order.
+   *
+   * @param marketIds the ids of the markets.
+   * @param call fetches the ticker for one market.
+   * @return the ticker for each market, keyed by market id, in the order the market ids were given.
+   * @throws ExchangeNetworkException if a ticker call failed with a network error, or if
+   *     interrupted while waiting for the calls to finish.
+   * @throws TradingApiException if a ticker call failed for any other reason.
+   */
+  static Map<String, Ticker> getTickersInParallel(Collection<String> marketIds, TickerCall call)
+      throws ExchangeNetworkException, TradingApiException {
+    final List<String> distinctMarketIds = new ArrayList<>(new LinkedHashSet<>(marketIds));
+    final Map<String, Ticker> tickers = new LinkedHashMap<>();
+    if (distinctMarketIds.size() <= 1) {
+      for (final String marketId : distinctMarketIds) {
+        tickers.put(marketId, call.getTicker(marketId));
+      }
+      return tickers;
+    }
+
+    final List<Callable<Ticker>> tasks = new ArrayList<>(distinctMarketIds.size());
+    for (final String marketId : distinctMarketIds) {
+      tasks.add(() -> call.getTicker(marketId));
+    }
+    try {
+      final List<Future<Ticker>> results = PARALLEL_REQUEST_EXECUTOR.invokeAll(tasks);
+      for (int i = 0; i < distinctMarketIds.size(); i++) {
+        tickers.put(distinctMarketIds.get(i), results.get(i).get());
+      }
+      return tickers;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExchangeNetworkException("Interrupted fetching tickers from exchange", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ExchangeNetworkException) {
+        throw (ExchangeNetworkException) cause;
+      } else if (cause instanceof TradingApiException) {
+        throw (TradingApiException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      throw new TradingApiException("Unexpected failure fetching tickers from exchange", cause);
     }
   }
 
@@ -253,6 +657,109 @@ abstract class AbstractExchangeAdapter {
       nonFatalNetworkErrorMessages.addAll(nonFatalErrorMessagesFromConfig);
     }
     LOG.info(() -> NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME + ": " + nonFatalNetworkErrorMessages);
+
+    connectionPoolSize = networkConfig.getConnectionPoolSize();
+    LOG.info(() -> CONNECTION_POOL_SIZE_PROPERTY_NAME + ": " + connectionPoolSize);
+
+    connectionIdleTimeout = networkConfig.getConnectionIdleTimeout();
+    LOG.info(() -> CONNECTION_IDLE_TIMEOUT_PROPERTY_NAME + ": " + connectionIdleTimeout);
+
+    setHttpTransport(createHttpTransport());
+
+    final Map<EndpointClass, Double> requestsPerSecond = new EnumMap<>(EndpointClass.class);
+    putRequestsPerSecond(
+        requestsPerSecond,
+        EndpointClass.PUBLIC,
+        PUBLIC_REQUESTS_PER_SECOND_PROPERTY_NAME,
+        networkConfig.getPublicRequestsPerSecond());
+    putRequestsPerSecond(
+        requestsPerSecond,
+        EndpointClass.PRIVATE,
+        PRIVATE_REQUESTS_PER_SECOND_PROPERTY_NAME,
+        networkConfig.getPrivateRequestsPerSecond());
+    putRequestsPerSecond(
+        requestsPerSecond,
+        EndpointClass.TRADING,
+        TRADING_REQUESTS_PER_SECOND_PROPERTY_NAME,
+        networkConfig.getTradingRequestsPerSecond());
+    setRateLimiter(new ExchangeRateLimiter(getClass().getSimpleName(), requestsPerSecond));
+
+    final int maxRetries =
+        getOptionalNetworkConfigItem(MAX_RETRIES_PROPERTY_NAME, networkConfig.getMaxRetries(), 0);
+    final int retryBackoff =
+        getOptionalNetworkConfigItem(
+            RETRY_BACKOFF_PROPERTY_NAME,
+            networkConfig.getRetryBackoff(),
+            DEFAULT_RETRY_BACKOFF_IN_MILLIS);
+    final int maxRetryBackoff =
+        getOptionalNetworkConfigItem(
+            MAX_RETRY_BACKOFF_PROPERTY_NAME,
+            networkConfig.getMaxRetryBackoff(),
+            DEFAULT_MAX_RETRY_BACKOFF_IN_MILLIS);
+    setRetryPolicy(new ExchangeRetryPolicy(maxRetries, retryBackoff, maxRetryBackoff));
+
+    final int circuitBreakerFailureThreshold =
+        getOptionalNetworkConfigItem(
+            CIRCUIT_BREAKER_FAILURE_THRESHOLD_PROPERTY_NAME,
+            networkConfig.getCircuitBreakerFailureThreshold(),
+            0);
+    final int circuitBreakerOpenTimeout =
+        getOptionalNetworkConfigItem(
+            CIRCUIT_BREAKER_OPEN_TIMEOUT_PROPERTY_NAME,
+            networkConfig.getCircuitBreakerOpenTimeout(),
+            DEFAULT_CIRCUIT_BREAKER_OPEN_TIMEOUT_IN_SECS);
+    setCircuitBreaker(
+        new ExchangeCircuitBreaker(circuitBreakerFailureThreshold, circuitBreakerOpenTimeout));
+  }
+
+  /**
+   * Sets the transport used to send requests to the exchange. The default transport is created
+   * from the network config.
+   *
+   * @param httpTransport the transport.
+   */
+  synchronized void setHttpTransport(ExchangeHttpTransport httpTransport) {
+    this.httpTransport = httpTransport;
+  }
+
+  /**
+   * Sets the rate limiter for requests sent to the exchange. The default rate limiter is created
+   * from the network config.
+   *
+   * @param rateLimiter the rate limiter.
+   */
+  synchronized void setRateLimiter(ExchangeRateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Sets the retry policy for requests sent to the exchange. The default retry policy is created
+   * from the network config.
+   *
+   * @param retryPolicy the retry policy.
+   */
+  synchronized void setRetryPolicy(ExchangeRetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Sets the circuit breaker for requests sent to the exchange. The default circuit breaker is
+   * created from the network config.
+   *
+   * @param circuitBreaker the circuit breaker.
+   */
+  synchronized void setCircuitBreaker(ExchangeCircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Sets the metrics recorder for requests sent to the exchange. By default, metrics are recorded
+   * in the Micrometer global registry.
+   *
+   * @param requestMetrics the request metrics.
+   */
+  synchronized void setRequestMetrics(ExchangeRequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
   }
 
   /**
@@ -317,6 +824,29 @@ abstract class AbstractExchangeAdapter {
     return assertItemExists(itemName, itemValue);
   }
 
+  /**
+   * Fetches an optional cache time to live from the adapter's other config.
+   *
+   * @param otherConfig other config for the adapter.
+   * @param itemName the config item name, e.g. balance-cache-ttl
+   * @return the time to live in millis, or 0 if the item is not set.
+   * @throws IllegalArgumentException if the item is not a whole number of millis, or is negative.
+   */
+  long getOptionalTimeToLiveConfigItem(OtherConfig otherConfig, String itemName) {
+    final String itemValue = otherConfig.getItem(itemName);
+    if (itemValue == null || itemValue.isEmpty()) {
+      return 0;
+    }
+    final long timeToLive = Long.parseLong(itemValue);
+    if (timeToLive < 0) {
+      final String errorMsg = itemName + " must not be negative. Value: " + timeToLive;
+      LOG.error(errorMsg);
+      throw new IllegalArgumentException(errorMsg);
+    }
+    LOG.info(() -> itemName + ": " + timeToLive);
+    return timeToLive;
+  }
+
   /**
    * Sorts the request params alphabetically (uses natural ordering) and returns them as a query
    * string.
@@ -350,17 +880,62 @@ abstract class AbstractExchangeAdapter {
     return decimalFormatSymbols;
   }
 
-  /** Wrapper for holding Exchange HTTP response. */
+  /** Fetches the ticker for one market. */
+  @FunctionalInterface
+  interface TickerCall {
+    Ticker getTicker(String marketId) throws ExchangeNetworkException, TradingApiException;
+  }
+
+  /**
+   * Wrapper for holding Exchange HTTP response.
+   *
+   * <p>The whole response body is read into a byte array before it is returned; it is not streamed
+   * off the wire. Large responses, e.g. order books, should be parsed from {@link
+   * #getPayloadReader()}, which avoids copying the body into a String; the payload String is only
+   * decoded if {@link #getPayload()} is called, e.g. when the response is logged.
+   */
   static class ExchangeHttpResponse {
 
     private final int statusCode;
     private final String reasonPhrase;
-    private final String payload;
+    private final byte[] body;
+    private final Map<String, List<String>> headers;
+    private String payload;
 
     ExchangeHttpResponse(int statusCode, String reasonPhrase, String payload) {
       this.statusCode = statusCode;
       this.reasonPhrase = reasonPhrase;
       this.payload = payload;
+      this.body = null;
+      this.headers = Collections.emptyMap();
+    }
+
+    ExchangeHttpResponse(int statusCode, String reasonPhrase, byte[] body) {
+      this(statusCode, reasonPhrase, body, Collections.emptyMap());
+    }
+
+    ExchangeHttpResponse(
+        int statusCode, String reasonPhrase, byte[] body, Map<String, List<String>> headers) {
+      this.statusCode = statusCode;
+      this.reasonPhrase = reasonPhrase;
+      this.body = body;
+      this.headers = headers;
+    }
+
+    /**
+     * Returns the size of the response body.
+     *
+     * @return the body size in bytes.
+     */
+    int getPayloadSize() {
+      if (body != null) {
+        return body.length;
+      }
+      return payload != null ? payload.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    Map<String, List<String>> getHeaders() {
+      return headers;
     }
 
     String getReasonPhrase() {
@@ -371,16 +946,71 @@ abstract class AbstractExchangeAdapter {
       return statusCode;
     }
 
-    String getPayload() {
+    synchronized String getPayload() {
+      if (payload == null && body != null) {
+        payload = new String(body, StandardCharsets.UTF_8);
+      }
       return payload;
     }
 
+    /**
+     * Returns a reader over the response body bytes, for parsing it with a JSON parser without
+     * decoding it into a String first.
+     *
+     * @return the response body reader.
+     */
+    Reader getPayloadReader() {
+      if (body != null) {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+      }
+      return new StringReader(payload != null ? payload : "");
+    }
+
+    /**
+     * Returns the first value of a response header.
+     *
+     * @param name the header name. This is not case sensitive.
+     * @return the header value, null if the header is not in the response.
+     */
+    String getFirstHeader(String name) {
+      for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+        if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+          return header.getValue().get(0);
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Checks if the response body contains some (ASCII) text, without decoding the body into a
+     * String.
+     *
+     * @param text the text to look for.
+     * @return true if the body contains the text, false otherwise.
+     */
+    boolean payloadContains(String text) {
+      if (body == null) {
+        return payload != null && payload.contains(text);
+      }
+      final byte[] target = text.getBytes(StandardCharsets.UTF_8);
+      for (int i = 0; i <= body.length - target.length; i++) {
+        int j = 0;
+        while (j < target.length && body[i + j] == target[j]) {
+          j++;
+        }
+        if (j == target.length) {
+          return true;
+        }
+      }
+      return false;
+    }
+
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("statusCode", statusCode)
           .add("reasonPhrase", reasonPhrase)
-          .add("payload", payload)
+          .add("payload", getPayload())
           .toString();
     }
   }
@@ -389,52 +1019,156 @@ abstract class AbstractExchangeAdapter {
   //  Util methods
   // --------------------------------------------------------------------------
 
-  private void setRequestHeaders(
-      HttpURLConnection exchangeConnection, Map<String, String> requestHeaders) {
-    // Er, perhaps, we need to be a bit more stealth here...
-    // This was needed for some exchanges back in the day!
-    exchangeConnection.setRequestProperty(
-        "User-Agent",
-        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
-            + "Chrome/74.0.3729.169 Safari/537.36");
-
-    if (requestHeaders != null) {
-      for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
-        exchangeConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
-        LOG.debug(() -> "Setting following request header: " + requestHeader);
+  private synchronized ExchangeHttpTransport getHttpTransport() {
+    if (httpTransport == null) {
+      httpTransport = createHttpTransport();
+    }
+    return httpTransport;
+  }
+
+  /*
+   * Creates the transport to the exchange. The bxbot.exchange.replay.file system property
+   * replaces the exchange with a recording; the bxbot.exchange.base.uri system property sends the
+   * requests somewhere else, e.g. to the exchange simulator; the bxbot.exchange.record.file system
+   * property records the requests sent to the exchange.
+   */
+  private ExchangeHttpTransport createHttpTransport() {
+    final String replayFile = System.getProperty(REPLAY_FILE_SYSTEM_PROPERTY);
+    if (replayFile != null) {
+      final long latency = Long.getLong(REPLAY_LATENCY_SYSTEM_PROPERTY, 0L);
+      LOG.warn(
+          () ->
+              "Replaying exchange responses from " + replayFile
+                  + " - nothing will be sent to the exchange. Simulated latency: " + latency
+                  + "ms");
+      try {
+        return new ReplayTransport(Paths.get(replayFile), latency);
+      } catch (IOException e) {
+        final String errorMsg = "Failed to load exchange recording: " + replayFile;
+        LOG.error(errorMsg, e);
+        throw new IllegalArgumentException(errorMsg, e);
       }
     }
+
+    ExchangeHttpTransport transport =
+        new HttpClientTransport(connectionTimeout, connectionPoolSize, connectionIdleTimeout);
+    final String baseUri = System.getProperty(BASE_URI_SYSTEM_PROPERTY);
+    if (baseUri != null) {
+      LOG.warn(() -> "Sending exchange requests to " + baseUri);
+      transport = new BaseUriTransport(transport, URI.create(baseUri));
+    }
+    final String recordFile = System.getProperty(RECORD_FILE_SYSTEM_PROPERTY);
+    if (recordFile != null) {
+      LOG.warn(() -> "Recording exchange requests and responses to " + recordFile);
+      return new RecordingTransport(transport, Paths.get(recordFile));
+    }
+    return transport;
   }
 
-  private boolean errorMessageIsRecoverableNetworkError(Exception e) {
-    return e.getMessage() != null && nonFatalNetworkErrorMessages.contains(e.getMessage());
+  private synchronized ExchangeRateLimiter getRateLimiter() {
+    if (rateLimiter == null) {
+      rateLimiter =
+          new ExchangeRateLimiter(getClass().getSimpleName(), new EnumMap<>(EndpointClass.class));
+    }
+    return rateLimiter;
   }
 
-  private boolean errorCodeIsRecoverableNetworkError(HttpURLConnection exchangeConnection)
-      throws IOException {
-    return (exchangeConnection != null
-        && nonFatalNetworkErrorCodes.contains(exchangeConnection.getResponseCode()));
+  private synchronized ExchangeRequestMetrics getRequestMetrics() {
+    if (requestMetrics == null) {
+      requestMetrics = new ExchangeRequestMetrics(getClass().getSimpleName());
+    }
+    return requestMetrics;
   }
 
-  private String extractIoErrorMessage(HttpURLConnection exchangeConnection) throws IOException {
-    String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-    // Check for any clue in the response...
-    if (exchangeConnection != null) {
-      final InputStream rawErrorStream = exchangeConnection.getErrorStream();
-      if (rawErrorStream != null) {
-        try (final BufferedReader errorInputStream =
-            new BufferedReader(new InputStreamReader(rawErrorStream, StandardCharsets.UTF_8))) {
+  private synchronized ExchangeRetryPolicy getRetryPolicy() {
+    if (retryPolicy == null) {
+      retryPolicy =
+          new ExchangeRetryPolicy(
+              0, DEFAULT_RETRY_BACKOFF_IN_MILLIS, DEFAULT_MAX_RETRY_BACKOFF_IN_MILLIS);
+    }
+    return retryPolicy;
+  }
 
-          final StringBuilder errorResponse = new StringBuilder();
-          String errorLine;
-          while ((errorLine = errorInputStream.readLine()) != null) {
-            errorResponse.append(errorLine);
-          }
-          errorMsg += " ErrorStream Response: " + errorResponse;
-        }
+  private synchronized ExchangeCircuitBreaker getCircuitBreaker() {
+    if (circuitBreaker == null) {
+      circuitBreaker =
+          new ExchangeCircuitBreaker(0, DEFAULT_CIRCUIT_BREAKER_OPEN_TIMEOUT_IN_SECS);
+    }
+    return circuitBreaker;
+  }
+
+  private static int getOptionalNetworkConfigItem(
+      String propertyName, Integer value, int defaultValue) {
+    final int itemValue = value != null ? value : defaultValue;
+    if (itemValue < 0) {
+      final String errorMsg = propertyName + " cannot be negative. Value: " + itemValue;
+      LOG.error(errorMsg);
+      throw new IllegalArgumentException(errorMsg);
+    }
+    LOG.info(() -> propertyName + ": " + itemValue);
+    return itemValue;
+  }
+
+  private static void putRequestsPerSecond(
+      Map<EndpointClass, Double> requestsPerSecond,
+      EndpointClass endpointClass,
+      String propertyName,
+      Double value) {
+    if (value != null) {
+      if (value <= 0) {
+        final String errorMsg = propertyName + " must be more than 0. Value: " + value;
+        LOG.error(errorMsg);
+        throw new IllegalArgumentException(errorMsg);
       }
+      requestsPerSecond.put(endpointClass, value);
     }
-    return errorMsg;
+    LOG.info(() -> propertyName + ": " + value);
+  }
+
+  /*
+   * Retry-After is either a number of seconds or an HTTP date. Returns 0 if it is missing or
+   * cannot be parsed, and the rate limiter falls back to its own interval.
+   */
+  private static long getRetryAfterInNanos(ExchangeHttpResponse exchangeResponse) {
+    final String retryAfter = exchangeResponse.getFirstHeader(RETRY_AFTER_HEADER);
+    if (retryAfter == null) {
+      return 0;
+    }
+    try {
+      return Math.max(0, Duration.ofSeconds(Long.parseLong(retryAfter.trim())).toNanos());
+    } catch (NumberFormatException e) {
+      try {
+        final ZonedDateTime retryAt =
+            ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        return Math.max(0, Duration.between(ZonedDateTime.now(), retryAt).toNanos());
+      } catch (DateTimeParseException e2) {
+        LOG.warn(() -> "Failed to parse " + RETRY_AFTER_HEADER + " header: " + retryAfter);
+        return 0;
+      }
+    }
+  }
+
+  private boolean isRecoverableNetworkError(Exception e) {
+    // The HttpClient wraps the underlying socket exception, so check the causes too. Its
+    // ConnectException has no message, so classify by type first and only fall back to the
+    // configured messages for anything else.
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof ConnectException
+          || t instanceof HttpTimeoutException
+          || t instanceof ClosedChannelException) {
+        return true;
+      }
+      if (t.getMessage() != null && nonFatalNetworkErrorMessages.contains(t.getMessage())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isUnknownHost(IOException e) {
+    return e instanceof UnknownHostException
+        || e.getCause() instanceof UnknownHostException
+        || e.getCause() instanceof UnresolvedAddressException;
   }
 
   private static String assertItemExists(String itemName, String itemValue) {
@@ -0,0 +1,299 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base class for exchange WebSocket feeds.
+ *
+ * <p>Looks after the connection: it is opened on demand, and if it drops, or goes quiet for longer
+ * than the stale timeout, the feed is told to discard its state and the connection is reopened
+ * with exponential backoff. Subclasses subscribe to their channels when the connection opens, and
+ * handle each complete text message.
+ *
+ * <p>Messages are handled on the WebSocket client's thread, one at a time. This class is
+ * thread-safe.
+ *
+ * @author gazbert
+ */
+abstract class AbstractWebSocketFeed implements WebSocket.Listener {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+
+  private final String exchangeName;
+  private final URI uri;
+  private final Duration initialReconnectDelay;
+  private final Duration staleTimeout;
+  private final HttpClient httpClient;
+  private final ScheduledExecutorService scheduler;
+
+  private final StringBuilder partialMessage = new StringBuilder();
+  private WebSocket webSocket;
+  private boolean connecting;
+  private boolean closed;
+  private Duration reconnectDelay;
+  private volatile long lastMessageNanos;
+
+  /**
+   * Creates a new feed.
+   *
+   * @param exchangeName the exchange name, used for logging.
+   * @param uri the WebSocket API URI.
+   * @param initialReconnectDelay the delay before the first reconnect attempt.
+   * @param staleTimeout how long the connection can go without a message, including heartbeats,
+   *     before it is considered dead.
+   */
+  AbstractWebSocketFeed(
+      String exchangeName, URI uri, Duration initialReconnectDelay, Duration staleTimeout) {
+    this.exchangeName = exchangeName;
+    this.uri = uri;
+    this.initialReconnectDelay = initialReconnectDelay;
+    this.staleTimeout = staleTimeout;
+    this.reconnectDelay = initialReconnectDelay;
+    final String threadName = exchangeName.toLowerCase(Locale.ROOT) + "-websocket-feed";
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, threadName);
+              thread.setDaemon(true);
+              return thread;
+            });
+    httpClient = HttpClient.newHttpClient();
+    final long watchdogPeriod = Math.max(1, staleTimeout.toMillis() / 2);
+    scheduler.scheduleWithFixedDelay(
+        this::checkStale, watchdogPeriod, watchdogPeriod, TimeUnit.MILLISECONDS);
+  }
+
+  /** Closes the connection and stops reconnecting. */
+  void close() {
+    final WebSocket currentWebSocket;
+    synchronized (this) {
+      closed = true;
+      currentWebSocket = webSocket;
+      webSocket = null;
+    }
+    if (currentWebSocket != null) {
+      currentWebSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+    }
+    scheduler.shutdownNow();
+    onDisconnected();
+  }
+
+  /**
+   * Subscribes to the feed's channels on a newly opened connection.
+   *
+   * @param webSocket the connection.
+   */
+  abstract void onConnected(WebSocket webSocket);
+
+  /** Discards any state built from the connection that has just been lost. */
+  abstract void onDisconnected();
+
+  /**
+   * Handles a complete text message.
+   *
+   * @param webSocket the connection the message arrived on.
+   * @param message the message.
+   */
+  abstract void handleMessage(WebSocket webSocket, String message);
+
+  /**
+   * Returns the open connection, opening it first if there isn't one.
+   *
+   * @return the connection, null if it is not open yet. {@link #onConnected(WebSocket)} is called
+   *     once it is.
+   */
+  final synchronized WebSocket getConnection() {
+    if (webSocket == null && !connecting && !closed) {
+      connect();
+    }
+    return webSocket;
+  }
+
+  /**
+   * Returns true if nothing has been received within the stale timeout. Data received on a stale
+   * connection must not be served.
+   *
+   * @return true if the feed is stale.
+   */
+  final boolean isStale() {
+    return System.nanoTime() - lastMessageNanos > staleTimeout.toNanos();
+  }
+
+  /**
+   * Sends a text message, waiting for it to be written.
+   *
+   * @param webSocket the connection.
+   * @param message the message.
+   */
+  final void send(WebSocket webSocket, String message) {
+    LOG.debug(() -> "Sending " + exchangeName + " WebSocket message: " + message);
+    synchronized (webSocket) {
+      webSocket.sendText(message, true).join();
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  WebSocket listener
+  // --------------------------------------------------------------------------
+
+  @Override
+  public void onOpen(WebSocket webSocket) {
+    LOG.info(() -> "Connected to " + exchangeName + " WebSocket API at " + uri);
+    lastMessageNanos = System.nanoTime();
+    webSocket.request(1);
+  }
+
+  @Override
+  public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+    lastMessageNanos = System.nanoTime();
+    partialMessage.append(data);
+    if (last) {
+      final String message = partialMessage.toString();
+      partialMessage.setLength(0);
+      try {
+        handleMessage(webSocket, message);
+      } catch (RuntimeException e) {
+        LOG.error("Failed to handle " + exchangeName + " WebSocket message: " + message, e);
+      }
+    }
+    webSocket.request(1);
+    return null;
+  }
+
+  @Override
+  public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+    LOG.warn(() -> exchangeName + " WebSocket closed: " + statusCode + " " + reason);
+    disconnected(webSocket);
+    return null;
+  }
+
+  @Override
+  public void onError(WebSocket webSocket, Throwable error) {
+    LOG.warn(exchangeName + " WebSocket error", error);
+    disconnected(webSocket);
+  }
+
+  // --------------------------------------------------------------------------
+  //  Connection handling
+  // --------------------------------------------------------------------------
+
+  private synchronized void connect() {
+    connecting = true;
+    LOG.info(() -> "Connecting to " + exchangeName + " WebSocket API at " + uri);
+    httpClient
+        .newWebSocketBuilder()
+        .connectTimeout(staleTimeout)
+        .buildAsync(uri, this)
+        .whenComplete(
+            (newWebSocket, error) -> {
+              if (error != null) {
+                LOG.warn(
+                    () ->
+                        "Failed to connect to "
+                            + exchangeName
+                            + " WebSocket API: "
+                            + error.getMessage());
+                synchronized (this) {
+                  connecting = false;
+                }
+                scheduleReconnect();
+              } else {
+                connected(newWebSocket);
+              }
+            });
+  }
+
+  private void connected(WebSocket newWebSocket) {
+    synchronized (this) {
+      connecting = false;
+      if (closed) {
+        newWebSocket.abort();
+        return;
+      }
+      webSocket = newWebSocket;
+      reconnectDelay = initialReconnectDelay;
+    }
+    onConnected(newWebSocket);
+  }
+
+  private void disconnected(WebSocket closedWebSocket) {
+    synchronized (this) {
+      if (webSocket != closedWebSocket) {
+        return;
+      }
+      webSocket = null;
+    }
+    onDisconnected();
+    scheduleReconnect();
+  }
+
+  private void scheduleReconnect() {
+    final Duration delay;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      delay = reconnectDelay;
+      final Duration nextDelay = reconnectDelay.multipliedBy(2);
+      reconnectDelay =
+          nextDelay.compareTo(MAX_RECONNECT_DELAY) > 0 ? MAX_RECONNECT_DELAY : nextDelay;
+      connecting = true;
+    }
+    LOG.info(
+        () ->
+            "Reconnecting to "
+                + exchangeName
+                + " WebSocket API in "
+                + delay.toMillis()
+                + "ms");
+    scheduler.schedule(this::connect, delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void checkStale() {
+    final WebSocket currentWebSocket;
+    synchronized (this) {
+      currentWebSocket = webSocket;
+    }
+    if (currentWebSocket != null && isStale()) {
+      LOG.warn(() -> exchangeName + " WebSocket has gone quiet - reconnecting.");
+      currentWebSocket.abort();
+      disconnected(currentWebSocket);
+    }
+  }
+}
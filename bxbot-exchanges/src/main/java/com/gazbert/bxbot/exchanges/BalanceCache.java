@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches the wallet balances fetched from the exchange.
+ *
+ * <p>Balances are fetched by the Emergency Stop check every trade cycle, and often again by the
+ * Trading Strategies; each fetch is a rate limited authenticated request. The cache serves the last
+ * balances until the time to live has passed, or until something changes them: an order being
+ * created or cancelled, or an open order disappearing because it was filled.
+ *
+ * <p>A fetch that was started before the cache was invalidated is not cached, so the cache never
+ * holds balances older than the last change.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class BalanceCache {
+
+  /** Fetches the balances from the exchange. */
+  @FunctionalInterface
+  interface BalanceInfoCall {
+    BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException;
+  }
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final long timeToLiveInNanos;
+  private final LongSupplier nanoClock;
+  private final Map<String, Set<String>> openOrderIdsByMarket = new HashMap<>();
+
+  private BalanceInfo balanceInfo;
+  private long fetchedAtNanos;
+  private long generation;
+
+  /**
+   * Creates the cache.
+   *
+   * @param timeToLiveInMillis how long the balances are served from the cache. 0 disables the
+   *     cache.
+   */
+  BalanceCache(long timeToLiveInMillis) {
+    this(timeToLiveInMillis, System::nanoTime);
+  }
+
+  BalanceCache(long timeToLiveInMillis, LongSupplier nanoClock) {
+    this.timeToLiveInNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveInMillis);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Returns the cached balances, or fetches them from the exchange if the cache is empty or has
+   * expired.
+   *
+   * @param forceRefresh true to always fetch the balances from the exchange, e.g. for the
+   *     Emergency Stop check.
+   * @param call fetches the balances from the exchange.
+   * @return the balances.
+   * @throws ExchangeNetworkException if the fetch failed with a network error.
+   * @throws TradingApiException if the fetch failed for any other reason.
+   */
+  BalanceInfo getBalanceInfo(boolean forceRefresh, BalanceInfoCall call)
+      throws ExchangeNetworkException, TradingApiException {
+    final long fetchGeneration;
+    synchronized (this) {
+      if (!forceRefresh
+          && balanceInfo != null
+          && nanoClock.getAsLong() - fetchedAtNanos < timeToLiveInNanos) {
+        return balanceInfo;
+      }
+      fetchGeneration = generation;
+    }
+
+    final BalanceInfo fetchedBalanceInfo = call.getBalanceInfo();
+    synchronized (this) {
+      if (timeToLiveInNanos > 0 && fetchGeneration == generation) {
+        balanceInfo = fetchedBalanceInfo;
+        fetchedAtNanos = nanoClock.getAsLong();
+      }
+    }
+    return fetchedBalanceInfo;
+  }
+
+  /** Empties the cache. Call it after an order is created or cancelled. */
+  synchronized void invalidate() {
+    generation++;
+    balanceInfo = null;
+  }
+
+  /**
+   * Empties the cache if an order that was open last time has gone from a market's open orders,
+   * i.e. it was filled or cancelled outside the bot.
+   *
+   * @param marketId the market id.
+   * @param openOrders the market's open orders just fetched from the exchange.
+   */
+  synchronized void checkOpenOrders(String marketId, List<OpenOrder> openOrders) {
+    final Set<String> openOrderIds =
+        openOrders.stream().map(OpenOrder::getId).collect(Collectors.toSet());
+    final Set<String> previousOpenOrderIds = openOrderIdsByMarket.put(marketId, openOrderIds);
+    if (previousOpenOrderIds != null && !openOrderIds.containsAll(previousOpenOrderIds)) {
+      LOG.debug(() -> "An open order has gone on market " + marketId + " - emptying balance cache");
+      invalidate();
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Transport that sends requests to a different base URI than the exchange's, e.g. to run the
+ * adapters against a simulated exchange. The request path and query are kept, and appended to the
+ * base URI's path.
+ *
+ * @author gazbert
+ */
+class BaseUriTransport implements ExchangeHttpTransport {
+
+  private final ExchangeHttpTransport delegate;
+  private final URI baseUri;
+
+  /**
+   * Creates the transport.
+   *
+   * @param delegate the transport used to send the requests.
+   * @param baseUri the base URI to send the requests to, e.g. http://localhost:8090/kraken
+   */
+  BaseUriTransport(ExchangeHttpTransport delegate, URI baseUri) {
+    this.delegate = delegate;
+    this.baseUri = baseUri;
+  }
+
+  @Override
+  public ExchangeHttpResponse send(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException {
+    return delegate.send(rebase(uri), httpMethod, postData, requestHeaders);
+  }
+
+  URI rebase(URI uri) {
+    String basePath = baseUri.getRawPath() == null ? "" : baseUri.getRawPath();
+    if (basePath.endsWith("/")) {
+      basePath = basePath.substring(0, basePath.length() - 1);
+    }
+    final String query = uri.getRawQuery();
+    return URI.create(
+        baseUri.getScheme()
+            + "://"
+            + baseUri.getRawAuthority()
+            + basePath
+            + uri.getRawPath()
+            + (query != null ? "?" + query : ""));
+  }
+}
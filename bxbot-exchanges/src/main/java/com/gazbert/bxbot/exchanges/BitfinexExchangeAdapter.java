@@ -26,6 +26,9 @@ package com.gazbert.bxbot.exchanges;
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
@@ -36,6 +39,7 @@ import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderResult;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApi;
@@ -47,21 +51,22 @@ import com.google.gson.annotations.SerializedName;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -79,6 +84,12 @@ import org.apache.logging.log4j.Logger;
  * 'deposit' (liquidity SWAPs) accounts. Furthermore, the adapter does not support sending 'hidden'
  * orders.
  *
+ * <p>If the optional <code>websocket-market-data</code> item is set to true in the exchange.yaml
+ * file, the adapter also subscribes to the v2 public WebSocket book, ticker and trades channels.
+ * {@link #getMarketOrders(String)}, {@link #getLatestMarketPrice(String)} and {@link
+ * #getTicker(String)} are then served from memory, falling back to the REST API until the feed is
+ * in sync.
+ *
  * <p>There are different exchange fees for Takers and Makers - see <a
  * href="https://www.bitfinex.com/pages/fees">here.</a> This adapter will use the <em>Taker</em>
  * fees to keep things simple for now.
@@ -126,23 +137,33 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
 
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
+  private static final String WEBSOCKET_MARKET_DATA_PROPERTY_NAME = "websocket-market-data";
+
+  private static final String WEBSOCKET_URI = "wss://api-pub.bitfinex.com/ws/2";
+  private static final int WEBSOCKET_BOOK_LENGTH = 25;
+  private static final Duration WEBSOCKET_RECONNECT_DELAY = Duration.ofSeconds(1);
+  // Bitfinex sends a heartbeat on each channel every 15 seconds
+  private static final Duration WEBSOCKET_STALE_TIMEOUT = Duration.ofSeconds(30);
 
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
+  private RequestSigner requestSigner;
   private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
+  private NonceProvider nonceProvider;
 
   private Gson gson;
 
+  private BitfinexWebSocketFeed webSocketFeed;
+
   @Override
   public void init(ExchangeConfig config) {
     LOG.info(() -> "About to initialise Bitfinex ExchangeConfig: " + config);
     setAuthenticationConfig(config);
     setNetworkConfig(config);
+    setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
+    nonceProvider = NonceProvider.forApiKey("Bitfinex", key, System.currentTimeMillis() / 1000);
     initSecureMessageLayer();
     initGson();
   }
@@ -155,12 +176,38 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrderBook(marketId, FULL_ORDER_BOOK_DEPTH);
+  }
+
+  /**
+   * Fetches the top of the order book. Bitfinex sends just the top levels when the book API is
+   * called with the limit_bids and limit_asks params.
+   */
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+    checkOrderBookDepth(depth);
+    return getMarketOrderBook(marketId, depth);
+  }
+
+  private MarketOrderBook getMarketOrderBook(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+    if (webSocketFeed != null) {
+      final String symbol = getWebSocketSymbol(marketId);
+      webSocketFeed.subscribe(symbol);
+      final MarketOrderBook orderBook = webSocketFeed.getOrderBook(symbol, marketId);
+      if (orderBook != null) {
+        return limitOrderBookDepth(orderBook, depth);
+      }
+    }
+
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
+      final ExchangeHttpResponse response =
+          sendPublicRequestToExchange("book/" + marketId + getOrderBookLimitParams(depth));
       LOG.debug(() -> "Market Orders response: " + response);
 
       final BitfinexOrderBook orderBook =
-          gson.fromJson(response.getPayload(), BitfinexOrderBook.class);
+          gson.fromJson(response.getPayloadReader(), BitfinexOrderBook.class);
 
       final List<MarketOrder> buyOrders = new ArrayList<>();
       for (BitfinexMarketOrder bitfinexBuyOrder : orderBook.bids) {
@@ -359,9 +406,65 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /*
+   * Cancels the orders in one request:
+   * https://docs.bitfinex.com/v1/reference#rest-auth-cancel-multiple-orders
+   * The exchange only says if the request worked, so every order in the batch gets the same result.
+   */
+  @Override
+  public List<OrderResult> cancelOrders(List<String> orderIds, String marketIdNotNeeded)
+      throws TradingApiException, ExchangeNetworkException {
+    final List<OrderResult> results = new ArrayList<>(orderIds.size());
+    if (orderIds.isEmpty()) {
+      return results;
+    }
+
+    Exception failure;
+    try {
+      final List<Long> bitfinexOrderIds = new ArrayList<>(orderIds.size());
+      for (final String orderId : orderIds) {
+        bitfinexOrderIds.add(Long.parseLong(orderId));
+      }
+      final Map<String, Object> params = createRequestParamMap();
+      params.put("order_ids", bitfinexOrderIds);
+
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("order/cancel/multi", params);
+      LOG.debug(() -> "Cancel Orders response: " + response);
+
+      gson.fromJson(response.getPayload(), BitfinexCancelMultipleOrdersResponse.class);
+      for (final String orderId : orderIds) {
+        results.add(OrderResult.success(orderId));
+      }
+      return results;
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      LOG.error("Failed to cancel orders on exchange: " + orderIds, e);
+      failure = e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      failure = new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+
+    for (final String orderId : orderIds) {
+      results.add(OrderResult.failure(orderId, failure));
+    }
+    return results;
+  }
+
   @Override
   public BigDecimal getLatestMarketPrice(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    if (webSocketFeed != null) {
+      final String symbol = getWebSocketSymbol(marketId);
+      webSocketFeed.subscribe(symbol);
+      final BigDecimal lastTradePrice = webSocketFeed.getLastTradePrice(symbol);
+      if (lastTradePrice != null) {
+        return lastTradePrice;
+      }
+    }
+
     try {
       final ExchangeHttpResponse response = sendPublicRequestToExchange("pubticker/" + marketId);
       LOG.debug(() -> "Latest Market Price response: " + response);
@@ -473,8 +576,26 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     return "Bitfinex API v1";
   }
 
+  /*
+   * The ticker API only takes one market, so the tickers are fetched in parallel.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    return getTickersInParallel(marketIds, this::getTicker);
+  }
+
   @Override
   public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    if (webSocketFeed != null) {
+      final String symbol = getWebSocketSymbol(marketId);
+      webSocketFeed.subscribe(symbol);
+      final Ticker ticker = webSocketFeed.getTicker(symbol);
+      if (ticker != null) {
+        return ticker;
+      }
+    }
+
     try {
       final ExchangeHttpResponse response = sendPublicRequestToExchange("pubticker/" + marketId);
       LOG.debug(() -> "Latest Market Price response: " + response);
@@ -831,6 +952,17 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /** GSON class for Bitfinex 'order/cancel/multi' response. */
+  private static class BitfinexCancelMultipleOrdersResponse {
+
+    String result; // e.g. "Orders cancelled"
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("result", result).toString();
+    }
+  }
+
   /** GSON class for Bitfinex 'order/cancel' response. */
   private static class BitfinexCancelOrderResponse {
 
@@ -893,6 +1025,13 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   //  Transport layer methods
   // --------------------------------------------------------------------------
 
+  private static String getOrderBookLimitParams(int depth) {
+    if (depth == FULL_ORDER_BOOK_DEPTH) {
+      return "";
+    }
+    return "?limit_bids=" + depth + "&limit_asks=" + depth;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
@@ -949,8 +1088,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       }
 
       // nonce is required by Bitfinex in every request
-      params.put("nonce", Long.toString(nonce));
-      nonce++; // increment ready for next call.
+      params.put("nonce", Long.toString(nonceProvider.next()));
 
       // must include the method in request param too
       params.put("request", "/" + BITFINEX_API_VERSION + "/" + apiMethod);
@@ -959,8 +1097,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       final String paramsInJson = gson.toJson(params);
 
       // Need to base64 encode payload as per API
-      final String base64payload =
-          DatatypeConverter.printBase64Binary(paramsInJson.getBytes(StandardCharsets.UTF_8));
+      final String base64payload = RequestSigner.base64(paramsInJson);
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -968,15 +1105,12 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       requestHeaders.put("X-BFX-PAYLOAD", base64payload);
 
       // Add the signature
-      mac.reset(); // force reset
-      mac.update(base64payload.getBytes(StandardCharsets.UTF_8));
-
       /*
        * signature = HMAC-SHA384(payload, api-secret) as hexadecimal - MUST be in LOWERCASE else
        * signature fails. See:
        * http://bitcoin.stackexchange.com/questions/25835/bitfinex-api-call-returns-400-bad-request
        */
-      final String signature = toHex(mac.doFinal()).toLowerCase();
+      final String signature = requestSigner.sign(base64payload, Encoding.HEX_LOWER_CASE);
       requestHeaders.put("X-BFX-SIGNATURE", signature);
 
       // payload is JSON for this exchange
@@ -992,14 +1126,6 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
-  private String toHex(byte[] byteArrayToConvert) {
-    final StringBuilder hexString = new StringBuilder();
-    for (final byte aByte : byteArrayToConvert) {
-      hexString.append(String.format("%02x", aByte & 0xff));
-    }
-    return hexString.toString();
-  }
-
   /*
    * Initialises the secure messaging layer.
    * Sets up the MAC to safeguard the data we send to the exchange.
@@ -1008,10 +1134,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA384");
-      mac = Mac.getInstance("HmacSHA384");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA384", secret.getBytes(StandardCharsets.UTF_8));
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
@@ -1034,10 +1157,34 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     secret = getAuthenticationConfigItem(authenticationConfig, SECRET_PROPERTY_NAME);
   }
 
+  /*
+   * Other config is optional for this adapter.
+   */
+  private void setOtherConfig(ExchangeConfig exchangeConfig) {
+    final OtherConfig otherConfig = exchangeConfig.getOtherConfig();
+    if (otherConfig != null
+        && Boolean.parseBoolean(otherConfig.getItem(WEBSOCKET_MARKET_DATA_PROPERTY_NAME))) {
+      LOG.info(() -> "Using WebSocket market data feed");
+      webSocketFeed =
+          new BitfinexWebSocketFeed(
+              URI.create(WEBSOCKET_URI),
+              WEBSOCKET_BOOK_LENGTH,
+              WEBSOCKET_RECONNECT_DELAY,
+              WEBSOCKET_STALE_TIMEOUT);
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Util methods
   // --------------------------------------------------------------------------
 
+  /*
+   * The v2 API prefixes trading pair symbols with a t, e.g. tBTCUSD for btcusd.
+   */
+  private static String getWebSocketSymbol(String marketId) {
+    return "t" + marketId.toUpperCase(Locale.ROOT);
+  }
+
   private void initGson() {
     final GsonBuilder gsonBuilder = new GsonBuilder();
     gson = gsonBuilder.create();
@@ -1057,6 +1204,18 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/order/new") || path.contains("/order/cancel")) {
+      return EndpointClass.TRADING;
+    }
+    if (path.contains("/book/") || path.contains("/pubticker/")) {
+      return EndpointClass.PUBLIC;
+    }
+    return EndpointClass.PRIVATE;
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A Bitfinex price-level order book kept up to date from the v2 WebSocket book channel.
+ *
+ * <p>Each level is a price, an order count and an amount; bids have a positive amount and asks a
+ * negative one. A level with a zero count is removed. The exchange sends a checksum of the top 25
+ * levels every so often; {@link #checksum()} computes the same checksum from the local book, so a
+ * missed or misapplied update can be detected. See <a
+ * href="https://docs.bitfinex.com/docs/ws-websocket-checksum">Bitfinex checksums</a>.
+ *
+ * <p>Price levels keep the exact strings sent by the exchange, as the checksum depends on them.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class BitfinexLocalOrderBook {
+
+  private static final int CHECKSUM_DEPTH = 25;
+
+  private final NavigableMap<BigDecimal, String[]> asks = new TreeMap<>();
+  private final NavigableMap<BigDecimal, String[]> bids = new TreeMap<>(Collections.reverseOrder());
+
+  /**
+   * Applies a price level from a snapshot or an update.
+   *
+   * @param price the price.
+   * @param count the number of orders at the price; 0 removes the level.
+   * @param amount the total amount at the price; positive for bids, negative for asks. When
+   *     removing a level, 1 means a bid and -1 an ask.
+   */
+  synchronized void apply(String price, String count, String amount) {
+    final BigDecimal levelPrice = new BigDecimal(price);
+    final boolean isBid = new BigDecimal(amount).signum() > 0;
+    final NavigableMap<BigDecimal, String[]> side = isBid ? bids : asks;
+    if (new BigDecimal(count).signum() == 0) {
+      side.remove(levelPrice);
+    } else {
+      side.put(levelPrice, new String[] {price, amount});
+    }
+  }
+
+  /**
+   * Computes the Bitfinex checksum of the book: the CRC32 of the top 25 bids and asks, interleaved
+   * best first, as price:amount pairs joined with colons.
+   *
+   * @return the checksum, as a signed 32 bit value.
+   */
+  synchronized int checksum() {
+    final List<String> fields = new ArrayList<>(CHECKSUM_DEPTH * 4);
+    final Iterator<String[]> bidLevels = bids.values().iterator();
+    final Iterator<String[]> askLevels = asks.values().iterator();
+    for (int i = 0; i < CHECKSUM_DEPTH; i++) {
+      if (bidLevels.hasNext()) {
+        Collections.addAll(fields, bidLevels.next());
+      }
+      if (askLevels.hasNext()) {
+        Collections.addAll(fields, askLevels.next());
+      }
+    }
+    final CRC32 crc32 = new CRC32();
+    crc32.update(String.join(":", fields).getBytes(StandardCharsets.US_ASCII));
+    return (int) crc32.getValue();
+  }
+
+  /**
+   * Returns a copy of the book adapted to the Trading API.
+   *
+   * @param marketId the market id.
+   * @return the market order book.
+   */
+  synchronized MarketOrderBook toMarketOrderBook(String marketId) {
+    return new MarketOrderBookImpl(
+        marketId, marketOrders(OrderType.SELL, asks), marketOrders(OrderType.BUY, bids));
+  }
+
+  private static List<MarketOrder> marketOrders(
+      OrderType orderType, NavigableMap<BigDecimal, String[]> side) {
+    final List<MarketOrder> marketOrders = new ArrayList<>(side.size());
+    for (final Map.Entry<BigDecimal, String[]> level : side.entrySet()) {
+      final BigDecimal price = level.getKey();
+      final BigDecimal quantity = new BigDecimal(level.getValue()[1]).abs();
+      marketOrders.add(new MarketOrderImpl(orderType, price, quantity, price.multiply(quantity)));
+    }
+    return marketOrders;
+  }
+}
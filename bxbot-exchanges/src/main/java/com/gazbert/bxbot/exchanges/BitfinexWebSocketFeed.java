@@ -0,0 +1,338 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bitfinex v2 WebSocket market data feed.
+ *
+ * <p>Subscribes to the book, ticker and trades channels for the symbols the Exchange Adapter asks
+ * for, and keeps a {@link BitfinexLocalOrderBook}, the latest ticker and the last trade price per
+ * symbol in memory. Checksums are switched on for the connection, and each one is checked against
+ * the local book; on a mismatch the book channel is resubscribed to get a fresh snapshot. If the
+ * connection drops, or goes quiet for longer than the stale timeout, all state is discarded and the
+ * feed reconnects with exponential backoff, resubscribing all symbols.
+ *
+ * <p>The connection is opened when the first symbol is subscribed. Until a channel's snapshot has
+ * arrived, its getter returns null and the Exchange Adapter falls back to the REST API. See <a
+ * href="https://docs.bitfinex.com/docs/ws-public">Bitfinex WebSocket Public Channels</a>.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class BitfinexWebSocketFeed extends AbstractWebSocketFeed {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String BOOK_CHANNEL = "book";
+  private static final String TICKER_CHANNEL = "ticker";
+  private static final String TRADES_CHANNEL = "trades";
+  private static final int CHECKSUM_FLAG = 131072;
+
+  // ticker array fields
+  private static final int BID = 0;
+  private static final int ASK = 2;
+  private static final int DAILY_CHANGE = 4;
+  private static final int LAST_PRICE = 6;
+  private static final int VOLUME = 7;
+  private static final int HIGH = 8;
+  private static final int LOW = 9;
+
+  // trade array fields
+  private static final int TRADE_TIMESTAMP = 1;
+  private static final int TRADE_PRICE = 3;
+
+  private final int bookLength;
+  private final Gson gson = new Gson();
+
+  private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+  private final Map<Integer, String[]> channels = new ConcurrentHashMap<>();
+  private final Map<String, BitfinexLocalOrderBook> orderBooks = new ConcurrentHashMap<>();
+  private final Map<String, Ticker> tickers = new ConcurrentHashMap<>();
+  private final Map<String, BigDecimal> lastTradePrices = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new feed.
+   *
+   * @param uri the WebSocket API URI.
+   * @param bookLength the number of price levels per side to subscribe to: 1, 25, 100 or 250.
+   * @param initialReconnectDelay the delay before the first reconnect attempt.
+   * @param staleTimeout how long the connection can go without a message, including heartbeats,
+   *     before it is considered dead.
+   */
+  BitfinexWebSocketFeed(
+      URI uri, int bookLength, Duration initialReconnectDelay, Duration staleTimeout) {
+    super("Bitfinex", uri, initialReconnectDelay, staleTimeout);
+    this.bookLength = bookLength;
+  }
+
+  /**
+   * Subscribes to the book, ticker and trades channels for a symbol. Does nothing if the symbol is
+   * already subscribed.
+   *
+   * @param symbol the v2 symbol, e.g. tBTCUSD.
+   */
+  void subscribe(String symbol) {
+    if (!symbols.add(symbol)) {
+      return;
+    }
+    final WebSocket webSocket = getConnection();
+    if (webSocket != null) {
+      sendSubscribe(webSocket, symbol);
+    }
+  }
+
+  /**
+   * Returns a copy of the local order book for a symbol.
+   *
+   * @param symbol the v2 symbol.
+   * @param marketId the market id to put in the returned book.
+   * @return the order book, null if the book is not in sync with the exchange.
+   */
+  MarketOrderBook getOrderBook(String symbol, String marketId) {
+    final BitfinexLocalOrderBook orderBook = isStale() ? null : orderBooks.get(symbol);
+    return orderBook == null ? null : orderBook.toMarketOrderBook(marketId);
+  }
+
+  /**
+   * Returns the latest ticker for a symbol.
+   *
+   * @param symbol the v2 symbol.
+   * @return the ticker, null if no ticker has been received since the feed last connected.
+   */
+  Ticker getTicker(String symbol) {
+    return isStale() ? null : tickers.get(symbol);
+  }
+
+  /**
+   * Returns the price of the last trade for a symbol.
+   *
+   * @param symbol the v2 symbol.
+   * @return the last trade price, null if no trades have been received since the feed last
+   *     connected.
+   */
+  BigDecimal getLastTradePrice(String symbol) {
+    return isStale() ? null : lastTradePrices.get(symbol);
+  }
+
+  @Override
+  void onConnected(WebSocket webSocket) {
+    final Map<String, Object> conf = new LinkedHashMap<>();
+    conf.put("event", "conf");
+    conf.put("flags", CHECKSUM_FLAG);
+    send(webSocket, gson.toJson(conf));
+    for (final String symbol : new ArrayList<>(symbols)) {
+      sendSubscribe(webSocket, symbol);
+    }
+  }
+
+  @Override
+  void onDisconnected() {
+    channels.clear();
+    orderBooks.clear();
+    tickers.clear();
+    lastTradePrices.clear();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Message handling
+  // --------------------------------------------------------------------------
+
+  @Override
+  void handleMessage(WebSocket webSocket, String message) {
+    final JsonElement json = JsonParser.parseString(message);
+    if (json.isJsonObject()) {
+      handleEvent(json.getAsJsonObject(), message);
+      return;
+    }
+
+    // [chanId, payload] or [chanId, "hb"|"cs"|"te"|"tu", payload]
+    final JsonArray channelMessage = json.getAsJsonArray();
+    final String[] channel = channels.get(channelMessage.get(0).getAsInt());
+    if (channel == null) {
+      return; // unsubscribed, or from before a reconnect
+    }
+    final JsonElement payload = channelMessage.get(1);
+    final String symbol = channel[1];
+    switch (channel[0]) {
+      case BOOK_CHANNEL:
+        handleBookMessage(webSocket, symbol, channelMessage);
+        break;
+      case TICKER_CHANNEL:
+        if (payload.isJsonArray()) {
+          tickers.put(symbol, adaptTicker(payload.getAsJsonArray()));
+        }
+        break;
+      case TRADES_CHANNEL:
+        handleTradesMessage(symbol, channelMessage);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void handleEvent(JsonObject event, String message) {
+    switch (event.get("event").getAsString()) {
+      case "subscribed":
+        channels.put(
+            event.get("chanId").getAsInt(),
+            new String[] {event.get("channel").getAsString(), event.get("symbol").getAsString()});
+        break;
+      case "unsubscribed":
+        channels.remove(event.get("chanId").getAsInt());
+        break;
+      case "error":
+        LOG.error(() -> "Bitfinex WebSocket API error: " + message);
+        break;
+      default:
+        LOG.info(() -> "Bitfinex WebSocket API event: " + message);
+        break;
+    }
+  }
+
+  private void handleBookMessage(WebSocket webSocket, String symbol, JsonArray channelMessage) {
+    final JsonElement payload = channelMessage.get(1);
+    if (payload.isJsonArray()) {
+      final JsonArray levels = payload.getAsJsonArray();
+      if (levels.size() == 0 || levels.get(0).isJsonArray()) {
+        final BitfinexLocalOrderBook orderBook = new BitfinexLocalOrderBook();
+        for (final JsonElement level : levels) {
+          applyLevel(orderBook, level.getAsJsonArray());
+        }
+        orderBooks.put(symbol, orderBook);
+      } else {
+        final BitfinexLocalOrderBook orderBook = orderBooks.get(symbol);
+        if (orderBook != null) {
+          applyLevel(orderBook, levels);
+        }
+      }
+    } else if ("cs".equals(payload.getAsString())) {
+      final BitfinexLocalOrderBook orderBook = orderBooks.get(symbol);
+      if (orderBook == null) {
+        return; // waiting for a snapshot
+      }
+      final int expectedChecksum = channelMessage.get(2).getAsInt();
+      final int checksum = orderBook.checksum();
+      if (checksum != expectedChecksum) {
+        LOG.warn(
+            () ->
+                "Bitfinex order book checksum mismatch for "
+                    + symbol
+                    + ": expected "
+                    + expectedChecksum
+                    + " but was "
+                    + checksum
+                    + " - resubscribing.");
+        orderBooks.remove(symbol);
+        final Map<String, Object> unsubscribe = new LinkedHashMap<>();
+        unsubscribe.put("event", "unsubscribe");
+        unsubscribe.put("chanId", channelMessage.get(0).getAsInt());
+        send(webSocket, gson.toJson(unsubscribe));
+        sendSubscription(webSocket, BOOK_CHANNEL, symbol);
+      }
+    }
+  }
+
+  private void handleTradesMessage(String symbol, JsonArray channelMessage) {
+    final JsonElement payload = channelMessage.get(1);
+    if (payload.isJsonArray()) {
+      // snapshot, most recent first
+      long latestTimestamp = Long.MIN_VALUE;
+      for (final JsonElement trade : payload.getAsJsonArray()) {
+        final JsonArray tradeFields = trade.getAsJsonArray();
+        final long timestamp = tradeFields.get(TRADE_TIMESTAMP).getAsLong();
+        if (timestamp > latestTimestamp) {
+          latestTimestamp = timestamp;
+          lastTradePrices.put(symbol, tradeFields.get(TRADE_PRICE).getAsBigDecimal());
+        }
+      }
+    } else if ("te".equals(payload.getAsString())) {
+      final JsonArray tradeFields = channelMessage.get(2).getAsJsonArray();
+      lastTradePrices.put(symbol, tradeFields.get(TRADE_PRICE).getAsBigDecimal());
+    }
+  }
+
+  private static void applyLevel(BitfinexLocalOrderBook orderBook, JsonArray level) {
+    orderBook.apply(
+        level.get(0).getAsString(), level.get(1).getAsString(), level.get(2).getAsString());
+  }
+
+  /*
+   * The v2 ticker has no open, vwap or timestamp. The open is worked out from the daily change.
+   */
+  private static Ticker adaptTicker(JsonArray ticker) {
+    final BigDecimal last = ticker.get(LAST_PRICE).getAsBigDecimal();
+    return new TickerImpl(
+        last,
+        ticker.get(BID).getAsBigDecimal(),
+        ticker.get(ASK).getAsBigDecimal(),
+        ticker.get(LOW).getAsBigDecimal(),
+        ticker.get(HIGH).getAsBigDecimal(),
+        last.subtract(ticker.get(DAILY_CHANGE).getAsBigDecimal()),
+        ticker.get(VOLUME).getAsBigDecimal(),
+        null,
+        null);
+  }
+
+  private void sendSubscribe(WebSocket webSocket, String symbol) {
+    sendSubscription(webSocket, BOOK_CHANNEL, symbol);
+    sendSubscription(webSocket, TICKER_CHANNEL, symbol);
+    sendSubscription(webSocket, TRADES_CHANNEL, symbol);
+  }
+
+  private void sendSubscription(WebSocket webSocket, String channel, String symbol) {
+    final Map<String, Object> request = new LinkedHashMap<>();
+    request.put("event", "subscribe");
+    request.put("channel", channel);
+    request.put("symbol", symbol);
+    if (BOOK_CHANNEL.equals(channel)) {
+      request.put("prec", "P0");
+      request.put("freq", "F0");
+      request.put("len", Integer.toString(bookLength));
+    }
+    send(webSocket, gson.toJson(request));
+  }
+}
@@ -26,6 +26,9 @@ package com.gazbert.bxbot.exchanges;
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
@@ -63,12 +66,11 @@ import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -122,14 +124,18 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
 
+  private static final String BALANCE_CACHE_TTL_PROPERTY_NAME = "balance-cache-ttl";
+
   private String clientId = "";
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private long nonce = 0;
+  private RequestSigner requestSigner;
+  private NonceProvider nonceProvider;
   private boolean initializedMacAuthentication = false;
 
+  private BalanceCache balanceCache = new BalanceCache(0);
+
   private Gson gson;
 
   @Override
@@ -137,8 +143,9 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     LOG.info(() -> "About to initialise Bitstamp ExchangeConfig: " + config);
     setAuthenticationConfig(config);
     setNetworkConfig(config);
+    setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
+    nonceProvider = NonceProvider.forApiKey("Bitstamp", key, System.currentTimeMillis() / 1000);
     initSecureMessageLayer();
     initGson();
   }
@@ -156,7 +163,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
       LOG.debug(() -> "Market Orders response: " + response);
 
       final BitstampOrderBook bitstampOrderBook =
-          gson.fromJson(response.getPayload(), BitstampOrderBook.class);
+          gson.fromJson(response.getPayloadReader(), BitstampOrderBook.class);
 
       final List<MarketOrder> buyOrders = new ArrayList<>();
       final List<List<BigDecimal>> bitstampBuyOrders = bitstampOrderBook.bids;
@@ -230,6 +237,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
                 );
         ordersToReturn.add(order);
       }
+      balanceCache.checkOpenOrders(marketId, ordersToReturn);
       return ordersToReturn;
 
     } catch (ExchangeNetworkException | TradingApiException e) {
@@ -293,6 +301,10 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      // Even a failed request may have changed the balances, so the cache is always emptied.
+      balanceCache.invalidate();
     }
   }
 
@@ -326,6 +338,9 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      balanceCache.invalidate();
     }
   }
 
@@ -351,6 +366,16 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
 
   @Override
   public BalanceInfo getBalanceInfo() throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(forceRefresh, this::fetchBalanceInfo);
+  }
+
+  private BalanceInfo fetchBalanceInfo() throws TradingApiException, ExchangeNetworkException {
     try {
       final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange(BALANCE, null);
       LOG.debug(() -> "Balance Info response: " + response);
@@ -463,6 +488,15 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     return "Bitstamp HTTP API v2";
   }
 
+  /*
+   * The ticker API only takes one market, so the tickers are fetched in parallel.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    return getTickersInParallel(marketIds, this::getTicker);
+  }
+
   @Override
   public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -777,15 +811,13 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
         params = createRequestParamMap();
       }
 
+      final long nonce = nonceProvider.next();
       params.put("key", key);
       params.put("nonce", Long.toString(nonce));
 
       // Create MAC message for signature
       // message = nonce + client_id + api_key
-      mac.reset(); // force reset
-      mac.update(String.valueOf(nonce).getBytes(StandardCharsets.UTF_8));
-      mac.update(clientId.getBytes(StandardCharsets.UTF_8));
-      mac.update(key.getBytes(StandardCharsets.UTF_8));
+      final String message = nonce + clientId + key;
 
       /*
        * Signature is a HMAC-SHA256 encoded message containing: nonce, client ID and API key.
@@ -795,12 +827,9 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
        *
        * signature = hmac.new(API_SECRET, msg=message, digestmod=hashlib.sha256).hexdigest().upper()
        */
-      final String signature = toHex(mac.doFinal()).toUpperCase();
+      final String signature = requestSigner.sign(message, Encoding.HEX_UPPER_CASE);
       params.put("signature", signature);
 
-      // increment ready for next call...
-      nonce++;
-
       // Build the URL with query param args in it
       final StringBuilder postData = new StringBuilder();
       for (final Map.Entry<String, String> param : params.entrySet()) {
@@ -827,14 +856,6 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     }
   }
 
-  private String toHex(byte[] byteArrayToConvert) {
-    final StringBuilder hexString = new StringBuilder();
-    for (final byte aByte : byteArrayToConvert) {
-      hexString.append(String.format("%02x", aByte & 0xff));
-    }
-    return hexString.toString();
-  }
-
   /*
    * Initialises the secure messaging layer.
    * Sets up the MAC to safeguard the data we send to the exchange.
@@ -843,10 +864,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-      mac = Mac.getInstance("HmacSHA256");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA256", secret.getBytes(StandardCharsets.UTF_8));
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
@@ -870,6 +888,16 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     secret = getAuthenticationConfigItem(authenticationConfig, SECRET_PROPERTY_NAME);
   }
 
+  /* Other config is optional for this adapter. */
+  private void setOtherConfig(ExchangeConfig exchangeConfig) {
+    final OtherConfig otherConfig = exchangeConfig.getOtherConfig();
+    if (otherConfig != null) {
+      balanceCache =
+          new BalanceCache(
+              getOptionalTimeToLiveConfigItem(otherConfig, BALANCE_CACHE_TTL_PROPERTY_NAME));
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Util methods
   // --------------------------------------------------------------------------
@@ -894,6 +922,18 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/buy/") || path.contains("/sell/") || path.contains("/cancel_order")) {
+      return EndpointClass.TRADING;
+    }
+    if (path.contains("/order_book/") || path.contains("/ticker/")) {
+      return EndpointClass.PUBLIC;
+    }
+    return EndpointClass.PRIVATE;
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
@@ -28,6 +28,8 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
@@ -38,6 +40,8 @@ import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderResult;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApi;
@@ -50,6 +54,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
@@ -57,14 +62,14 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -91,6 +96,15 @@ import org.apache.logging.log4j.Logger;
  * all markets. Make sure you keep an eye on the <a
  * href="https://docs.pro.coinbase.com/#fees">exchange fees</a> and update the config accordingly.
  *
+ * <p>If the optional <code>user-channel-feed</code> item is set to true in the exchange.yaml file,
+ * the adapter subscribes to the authenticated WebSocket user channel and {@link
+ * #getYourOpenOrders(String)} is answered from memory once each market has been seeded from the
+ * REST API. Fills are then seen as soon as they happen instead of on the next poll.
+ *
+ * <p>Orders created with a client order id are sent with it as the <code>client_oid</code>. If
+ * creating the order fails with a network error, a retry with the same client order id looks the
+ * order up by its <code>client_oid</code> before placing it again.
+ *
  * <p>NOTE: CoinbasePro requires all price values to be limited to 2 decimal places when creating
  * orders. This adapter truncates any prices with more than 2 decimal places and rounds using {@link
  * java.math.RoundingMode#HALF_EVEN}, E.g. 250.176 would be sent to the exchange as 250.18.
@@ -121,6 +135,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
   private static final String PRODUCTS = "products/";
   private static final String PRICE = "price";
+  private static final String CLIENT_ORDER_PATH = "orders/client:";
 
   private static final String PASSPHRASE_PROPERTY_NAME = "passphrase";
   private static final String KEY_PROPERTY_NAME = "key";
@@ -129,20 +144,30 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   private static final String BUY_FEE_PROPERTY_NAME = "buy-fee";
   private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
   private static final String SERVER_TIME_BIAS_PROPERTY_NAME = "time-server-bias";
+  private static final String USER_CHANNEL_FEED_PROPERTY_NAME = "user-channel-feed";
+
+  private static final String WEBSOCKET_URI = "wss://ws-feed.pro.coinbase.com";
+  private static final Duration WEBSOCKET_RECONNECT_DELAY = Duration.ofSeconds(1);
+  private static final Duration WEBSOCKET_STALE_TIMEOUT = Duration.ofSeconds(10);
 
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
   private Long timeServerBias;
+  private boolean useUserChannelFeed;
 
   private String passphrase = "";
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
+  private RequestSigner requestSigner;
   private boolean initializedMacAuthentication = false;
 
   private Gson gson;
 
+  private CoinbaseProUserFeed userFeed;
+
+  private final InFlightOrders inFlightOrders = new InFlightOrders();
+
   @Override
   public void init(ExchangeConfig config) {
     LOG.info(() -> "About to initialise COINBASE PRO ExchangeConfig: " + config);
@@ -152,6 +177,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
     initSecureMessageLayer();
     initGson();
+    initUserFeed();
   }
 
   // --------------------------------------------------------------------------
@@ -163,6 +189,30 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    return inFlightOrders.createOrder(
+        clientOrderId,
+        this::findOrderIdByClientOrderId,
+        () -> sendCreateOrder(marketId, orderType, quantity, price, clientOrderId));
+  }
+
+  private String sendCreateOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
     try {
       /*
        * Build Limit Order: https://docs.pro.coinbase.com/#place-a-new-order
@@ -171,7 +221,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
        *                                Cancel
        * post_only param optional     - defaults to 'false'
        * time_in_force param optional - defaults to 'GTC' Good til Cancel
-       * client_oid param is optional - thia adapter does not use it.
+       * client_oid param is optional - must be a UUID; only sent if given.
        */
       final Map<String, String> params = createRequestParamMap();
 
@@ -192,6 +242,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       }
 
       params.put("product_id", marketId);
+      if (clientOrderId != null) {
+        params.put("client_oid", clientOrderId);
+      }
 
       // note we need to limit price to 2 decimal places else exchange will barf
       params.put(PRICE, new DecimalFormat("#.##", getDecimalFormatSymbols()).format(price));
@@ -209,6 +262,18 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
             gson.fromJson(response.getPayload(), CoinbaseProOrder.class);
         if (createOrderResponse != null
             && (createOrderResponse.id != null && !createOrderResponse.id.isEmpty())) {
+          if (userFeed != null) {
+            userFeed.orderCreated(
+                new OpenOrderImpl(
+                    createOrderResponse.id,
+                    new Date(),
+                    marketId,
+                    orderType,
+                    price,
+                    quantity,
+                    quantity,
+                    price.multiply(quantity)));
+          }
           return createOrderResponse.id;
         } else {
           final String errorMsg = "Failed to place order on exchange. Error response: " + response;
@@ -230,6 +295,38 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /*
+   * The exchange looks the order up by its client_oid whatever its status, so an order that was
+   * filled straight away is found too. A 404 response means the exchange does not have the order.
+   */
+  private String findOrderIdByClientOrderId(String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("GET", CLIENT_ORDER_PATH + clientOrderId, null);
+      LOG.debug(() -> "Find Order response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final CoinbaseProOrder coinbaseProOrder =
+            gson.fromJson(response.getPayload(), CoinbaseProOrder.class);
+        return coinbaseProOrder == null ? null : coinbaseProOrder.id;
+      } else if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        return null;
+      } else {
+        final String errorMsg = "Failed to find order on exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   /*
    * marketId is not needed for cancelling orders on this exchange.
    */
@@ -245,6 +342,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
         // 1 Nov 2017 - COINBASE PRO API no longer returns cancelled orderId in array payload;
         // it returns [null]...
+        if (userFeed != null) {
+          userFeed.orderCancelled(orderId);
+        }
         return true;
       } else {
         final String errorMsg = "Failed to cancel order on exchange. Details: " + response;
@@ -261,9 +361,96 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /*
+   * COINBASE PRO has no endpoint for placing several orders, but requests are signed with a
+   * timestamp rather than a nonce, so they can be sent in parallel.
+   */
+  @Override
+  public List<OrderResult> createOrders(List<OrderRequest> orderRequests)
+      throws TradingApiException, ExchangeNetworkException {
+    return dispatchInParallel(
+        orderRequests,
+        orderRequest -> {
+          try {
+            return OrderResult.success(
+                createOrder(
+                    orderRequest.getMarketId(),
+                    orderRequest.getOrderType(),
+                    orderRequest.getQuantity(),
+                    orderRequest.getPrice()));
+          } catch (ExchangeNetworkException | TradingApiException e) {
+            return OrderResult.failure(null, e);
+          }
+        });
+  }
+
+  @Override
+  public List<OrderResult> cancelOrders(List<String> orderIds, String marketIdNotNeeded)
+      throws TradingApiException, ExchangeNetworkException {
+    return dispatchInParallel(
+        orderIds,
+        orderId -> {
+          try {
+            return cancelOrder(orderId, marketIdNotNeeded)
+                ? OrderResult.success(orderId)
+                : OrderResult.failure(orderId, null);
+          } catch (ExchangeNetworkException | TradingApiException e) {
+            return OrderResult.failure(orderId, e);
+          }
+        });
+  }
+
+  /*
+   * Cancels the open orders for the market in one request:
+   * https://docs.pro.coinbase.com/#cancel-all - the exchange returns the ids of the cancelled
+   * orders.
+   */
+  @Override
+  public List<OrderResult> cancelAllOrders(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("DELETE", "orders?product_id=" + marketId, null);
+      LOG.debug(() -> "Cancel All Orders response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final String[] cancelledOrderIds = gson.fromJson(response.getPayload(), String[].class);
+        final List<OrderResult> results = new ArrayList<>(cancelledOrderIds.length);
+        for (final String orderId : cancelledOrderIds) {
+          if (userFeed != null) {
+            userFeed.orderCancelled(orderId);
+          }
+          results.add(OrderResult.success(orderId));
+        }
+        return results;
+      } else {
+        final String errorMsg = "Failed to cancel all orders on exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   @Override
   public List<OpenOrder> getYourOpenOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    if (userFeed != null) {
+      userFeed.subscribe(marketId);
+      final List<OpenOrder> openOrders = userFeed.getOpenOrders(marketId);
+      if (openOrders != null) {
+        return openOrders;
+      }
+    }
+    // read before the REST call, so a seed is only used if no user channel messages were missed
+    final long syncEpoch = userFeed == null ? -1 : userFeed.getSyncEpoch(marketId);
+
     try {
       // we use default request no-param call - only open or un-settled orders are returned.
       // As soon as an order is no longer open and settled, it will no longer appear in the default
@@ -312,6 +499,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
           ordersToReturn.add(order);
         }
+        if (userFeed != null) {
+          userFeed.seedOpenOrders(marketId, ordersToReturn, syncEpoch);
+        }
         return ordersToReturn;
       } else {
         final String errorMsg =
@@ -332,9 +522,29 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrderBook(marketId, FULL_ORDER_BOOK_DEPTH);
+  }
+
+  /**
+   * Fetches the top of the order book. Coinbase Pro only sends the best bid and ask at level 1,
+   * so that is used for a depth of 1; deeper books are fetched at level 2 and truncated.
+   */
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+    checkOrderBookDepth(depth);
+    return getMarketOrderBook(marketId, depth);
+  }
+
+  private MarketOrderBook getMarketOrderBook(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
     try {
       final Map<String, String> params = createRequestParamMap();
-      params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+      if (depth == 1) {
+        params.put("level", "1"); //  "1" = Only the best bid and ask
+      } else {
+        params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+      }
 
       final ExchangeHttpResponse response =
           sendPublicRequestToExchange(PRODUCTS + marketId + "/book", params);
@@ -343,7 +553,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
         final CoinbaseProBookWrapper orderBook =
-            gson.fromJson(response.getPayload(), CoinbaseProBookWrapper.class);
+            gson.fromJson(response.getPayloadReader(), CoinbaseProBookWrapper.class);
 
         final List<MarketOrder> buyOrders = new ArrayList<>();
         for (CoinbaseProMarketOrder coinbaseProBuyOrder : orderBook.bids) {
@@ -366,7 +576,8 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
                   coinbaseProSellOrder.get(0).multiply(coinbaseProSellOrder.get(1)));
           sellOrders.add(sellOrder);
         }
-        return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+        return limitOrderBookDepth(
+            new MarketOrderBookImpl(marketId, sellOrders, buyOrders), depth);
 
       } else {
         final String errorMsg =
@@ -472,6 +683,15 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     return "COINBASE PRO REST API v1";
   }
 
+  /*
+   * The ticker API only takes one market, so the tickers are fetched in parallel.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws ExchangeNetworkException, TradingApiException {
+    return getTickersInParallel(marketIds, this::getTicker);
+  }
+
   @Override
   public Ticker getTicker(String marketId) throws ExchangeNetworkException, TradingApiException {
     try {
@@ -546,6 +766,10 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   private static class CoinbaseProOrder {
 
     String id;
+
+    @SerializedName("client_oid")
+    String clientOid;
+
     BigDecimal price;
     BigDecimal size;
 
@@ -578,6 +802,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("id", id)
+          .add("clientOid", clientOid)
           .add(PRICE, price)
           .add("size", size)
           .add("productId", productId)
@@ -850,9 +1075,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
           timestamp + httpMethod.toUpperCase() + "/" + apiMethod + requestBody;
 
       // Sign the signature string and Base64 encode it
-      mac.reset();
-      mac.update(signatureBuilder.getBytes(StandardCharsets.UTF_8));
-      final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+      final String signature = requestSigner.sign(signatureBuilder, Encoding.BASE64);
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -883,9 +1106,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       // COINBASE PRO secret is in Base64 so we must decode it first.
       final byte[] decodedBase64Secret = DatatypeConverter.parseBase64Binary(secret);
 
-      final SecretKeySpec keyspec = new SecretKeySpec(decodedBase64Secret, "HmacSHA256");
-      mac = Mac.getInstance("HmacSHA256");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA256", decodedBase64Secret);
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
@@ -926,6 +1147,24 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
         getOtherConfigItem(otherConfig, SERVER_TIME_BIAS_PROPERTY_NAME);
     timeServerBias = Long.parseLong(serverTimeBiasInConfig);
     LOG.info(() -> "Time server bias in long format: " + timeServerBias);
+
+    useUserChannelFeed =
+        Boolean.parseBoolean(otherConfig.getItem(USER_CHANNEL_FEED_PROPERTY_NAME));
+    LOG.info(() -> "Use WebSocket user channel feed: " + useUserChannelFeed);
+  }
+
+  private void initUserFeed() {
+    if (useUserChannelFeed) {
+      userFeed =
+          new CoinbaseProUserFeed(
+              URI.create(WEBSOCKET_URI),
+              key,
+              requestSigner,
+              passphrase,
+              timeServerBias,
+              WEBSOCKET_RECONNECT_DELAY,
+              WEBSOCKET_STALE_TIMEOUT);
+    }
   }
 
   // --------------------------------------------------------------------------
@@ -951,6 +1190,34 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    if (url.getPath().startsWith("/" + PRODUCTS)) {
+      return EndpointClass.PUBLIC;
+    }
+    if (httpMethod.equals("POST") || httpMethod.equals("DELETE")) {
+      return EndpointClass.TRADING;
+    }
+    return EndpointClass.PRIVATE;
+  }
+
+  /*
+   * Coinbase Pro signs requests with a timestamp instead of a nonce, so authenticated GETs can be
+   * resent too.
+   */
+  @Override
+  boolean isRetryable(URL url, String httpMethod) {
+    return "GET".equals(httpMethod);
+  }
+
+  /*
+   * Looking an order up by client_oid returns a 404 if the exchange does not have the order.
+   */
+  @Override
+  boolean isNotFoundExpected(URL url, String httpMethod) {
+    return "GET".equals(httpMethod) && url.getPath().contains("/" + CLIENT_ORDER_PATH);
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
@@ -0,0 +1,433 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Coinbase Pro authenticated WebSocket user channel feed.
+ *
+ * <p>Keeps the open orders for the products the Exchange Adapter asks for in memory, applying the
+ * received, open, match, change and done messages as they arrive, so fills are seen as soon as
+ * they happen rather than on the next REST poll. The heartbeat channel is subscribed as well so a
+ * quiet account does not look like a dead connection.
+ *
+ * <p>The user channel only reports changes, so the orders that were open before a product was
+ * subscribed are seeded once from the REST API: {@link #getSyncEpoch(String)} is read before the
+ * REST call, and the result is passed to {@link #seedOpenOrders(String, List, long)}. A seed
+ * taken on an earlier connection is ignored. If the connection drops, all state is discarded and
+ * products must be seeded again after the feed has reconnected and resubscribed. See <a
+ * href="https://docs.pro.coinbase.com/#the-user-channel">The User Channel</a>.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class CoinbaseProUserFeed extends AbstractWebSocketFeed {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String VERIFY_REQUEST_PATH = "/users/self/verify";
+  private static final int MAX_DONE_ORDER_IDS = 1000;
+
+  private final String key;
+  private final RequestSigner requestSigner;
+  private final String passphrase;
+  private final long timeServerBias;
+  private final Gson gson = new Gson();
+
+  private final Set<String> productIds = ConcurrentHashMap.newKeySet();
+
+  // all guarded by this feed's order lock
+  private final Object orderLock = new Object();
+  private final Map<String, OpenOrder> openOrders = new HashMap<>();
+  private final Map<String, Long> subscribedProducts = new HashMap<>();
+  private final Set<String> syncedProducts = new HashSet<>();
+  private final Map<String, Boolean> doneOrderIds = new DoneOrderIds();
+  private long epoch;
+
+  /**
+   * Creates a new feed.
+   *
+   * @param uri the WebSocket API URI.
+   * @param key the API key.
+   * @param requestSigner signs with the API secret, as for REST requests.
+   * @param passphrase the API passphrase.
+   * @param timeServerBias seconds to add to the local clock when signing.
+   * @param initialReconnectDelay the delay before the first reconnect attempt.
+   * @param staleTimeout how long the connection can go without a message, including heartbeats,
+   *     before it is considered dead.
+   */
+  CoinbaseProUserFeed(
+      URI uri,
+      String key,
+      RequestSigner requestSigner,
+      String passphrase,
+      long timeServerBias,
+      Duration initialReconnectDelay,
+      Duration staleTimeout) {
+    super("Coinbase Pro", uri, initialReconnectDelay, staleTimeout);
+    this.key = key;
+    this.requestSigner = requestSigner;
+    this.passphrase = passphrase;
+    this.timeServerBias = timeServerBias;
+  }
+
+  /**
+   * Subscribes to the user channel for a product. Does nothing if the product is already
+   * subscribed.
+   *
+   * @param productId the product id, e.g. BTC-USD.
+   */
+  void subscribe(String productId) {
+    if (!productIds.add(productId)) {
+      return;
+    }
+    final WebSocket webSocket = getConnection();
+    if (webSocket != null) {
+      sendSubscribe(webSocket, List.of(productId));
+    }
+  }
+
+  /**
+   * Returns the open orders for a product.
+   *
+   * @param productId the product id.
+   * @return the open orders, null if the product has not been seeded since the feed last
+   *     connected.
+   */
+  List<OpenOrder> getOpenOrders(String productId) {
+    if (isStale()) {
+      return null;
+    }
+    synchronized (orderLock) {
+      if (!syncedProducts.contains(productId)) {
+        return null;
+      }
+      final List<OpenOrder> productOrders = new ArrayList<>();
+      for (final OpenOrder openOrder : openOrders.values()) {
+        if (productId.equals(openOrder.getMarketId())) {
+          productOrders.add(openOrder);
+        }
+      }
+      productOrders.sort((o1, o2) -> o1.getCreationDate().compareTo(o2.getCreationDate()));
+      return productOrders;
+    }
+  }
+
+  /**
+   * Returns the connection epoch in which the product's subscription was confirmed.
+   *
+   * @param productId the product id.
+   * @return the epoch to pass to {@link #seedOpenOrders(String, List, long)}, -1 if the product is
+   *     not subscribed yet.
+   */
+  long getSyncEpoch(String productId) {
+    synchronized (orderLock) {
+      final Long subscribedEpoch = subscribedProducts.get(productId);
+      return subscribedEpoch == null ? -1 : subscribedEpoch;
+    }
+  }
+
+  /**
+   * Seeds a product's open orders from the REST API. Orders already seen on the user channel, or
+   * already done, are not overwritten.
+   *
+   * @param productId the product id.
+   * @param restOpenOrders the open orders fetched from the REST API.
+   * @param syncEpoch the epoch returned by {@link #getSyncEpoch(String)} before the REST call.
+   */
+  void seedOpenOrders(String productId, List<OpenOrder> restOpenOrders, long syncEpoch) {
+    synchronized (orderLock) {
+      if (syncEpoch < 0 || syncEpoch != epoch || syncedProducts.contains(productId)) {
+        return;
+      }
+      for (final OpenOrder openOrder : restOpenOrders) {
+        if (!doneOrderIds.containsKey(openOrder.getId())) {
+          openOrders.putIfAbsent(openOrder.getId(), openOrder);
+        }
+      }
+      syncedProducts.add(productId);
+    }
+    LOG.info(() -> "Coinbase Pro user feed synced for " + productId);
+  }
+
+  /**
+   * Records an order the Exchange Adapter has just placed, in case the user channel has not
+   * reported it yet.
+   *
+   * @param openOrder the new order.
+   */
+  void orderCreated(OpenOrder openOrder) {
+    synchronized (orderLock) {
+      if (!doneOrderIds.containsKey(openOrder.getId())) {
+        openOrders.putIfAbsent(openOrder.getId(), openOrder);
+      }
+    }
+  }
+
+  /**
+   * Records an order the Exchange Adapter has just cancelled.
+   *
+   * @param orderId the order id.
+   */
+  void orderCancelled(String orderId) {
+    synchronized (orderLock) {
+      orderDone(orderId);
+    }
+  }
+
+  @Override
+  void onConnected(WebSocket webSocket) {
+    synchronized (orderLock) {
+      epoch++;
+    }
+    sendSubscribe(webSocket, new ArrayList<>(productIds));
+  }
+
+  @Override
+  void onDisconnected() {
+    synchronized (orderLock) {
+      epoch++;
+      openOrders.clear();
+      subscribedProducts.clear();
+      syncedProducts.clear();
+      doneOrderIds.clear();
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  Message handling
+  // --------------------------------------------------------------------------
+
+  @Override
+  void handleMessage(WebSocket webSocket, String message) {
+    final JsonObject json = JsonParser.parseString(message).getAsJsonObject();
+    final String type = json.get("type").getAsString();
+    switch (type) {
+      case "subscriptions":
+        subscriptionsConfirmed(json);
+        break;
+      case "received":
+        orderReceived(json);
+        break;
+      case "open":
+        orderOpen(json);
+        break;
+      case "match":
+        orderMatched(json);
+        break;
+      case "change":
+        orderChanged(json);
+        break;
+      case "done":
+        synchronized (orderLock) {
+          orderDone(json.get("order_id").getAsString());
+        }
+        LOG.info(
+            () ->
+                "Coinbase Pro order "
+                    + json.get("order_id").getAsString()
+                    + " done: "
+                    + stringField(json, "reason"));
+        break;
+      case "error":
+        LOG.error(() -> "Coinbase Pro WebSocket API error: " + message);
+        break;
+      default:
+        break; // heartbeat, or a message type we don't use
+    }
+  }
+
+  private void subscriptionsConfirmed(JsonObject json) {
+    synchronized (orderLock) {
+      for (final JsonElement channel : json.getAsJsonArray("channels")) {
+        final JsonObject channelObject = channel.getAsJsonObject();
+        if ("user".equals(channelObject.get("name").getAsString())) {
+          for (final JsonElement productId : channelObject.getAsJsonArray("product_ids")) {
+            subscribedProducts.putIfAbsent(productId.getAsString(), epoch);
+          }
+        }
+      }
+    }
+  }
+
+  private void orderReceived(JsonObject json) {
+    final String price = stringField(json, "price");
+    if (price == null) {
+      return; // market order, never rests on the book
+    }
+    final BigDecimal orderPrice = new BigDecimal(price);
+    final BigDecimal size = new BigDecimal(json.get("size").getAsString());
+    final OpenOrder openOrder =
+        new OpenOrderImpl(
+            json.get("order_id").getAsString(),
+            Date.from(Instant.parse(json.get("time").getAsString())),
+            json.get("product_id").getAsString(),
+            adaptOrderType(json),
+            orderPrice,
+            size,
+            size,
+            orderPrice.multiply(size));
+    orderCreated(openOrder);
+  }
+
+  private void orderOpen(JsonObject json) {
+    final String orderId = json.get("order_id").getAsString();
+    final BigDecimal remaining = new BigDecimal(json.get("remaining_size").getAsString());
+    synchronized (orderLock) {
+      if (doneOrderIds.containsKey(orderId)) {
+        return;
+      }
+      final OpenOrder openOrder = openOrders.get(orderId);
+      if (openOrder != null) {
+        openOrders.put(orderId, withQuantity(openOrder, remaining));
+      } else {
+        final BigDecimal price = new BigDecimal(json.get("price").getAsString());
+        openOrders.put(
+            orderId,
+            new OpenOrderImpl(
+                orderId,
+                Date.from(Instant.parse(json.get("time").getAsString())),
+                json.get("product_id").getAsString(),
+                adaptOrderType(json),
+                price,
+                remaining,
+                remaining,
+                price.multiply(remaining)));
+      }
+    }
+  }
+
+  private void orderMatched(JsonObject json) {
+    final BigDecimal size = new BigDecimal(json.get("size").getAsString());
+    synchronized (orderLock) {
+      for (final String idField : List.of("maker_order_id", "taker_order_id")) {
+        final String orderId = stringField(json, idField);
+        final OpenOrder openOrder = orderId == null ? null : openOrders.get(orderId);
+        if (openOrder != null) {
+          final BigDecimal remaining = openOrder.getQuantity().subtract(size).max(BigDecimal.ZERO);
+          openOrders.put(orderId, withQuantity(openOrder, remaining));
+          LOG.info(() -> "Coinbase Pro order " + orderId + " filled " + size);
+        }
+      }
+    }
+  }
+
+  private void orderChanged(JsonObject json) {
+    final String newSize = stringField(json, "new_size");
+    if (newSize == null) {
+      return; // funds change on a market order
+    }
+    final String orderId = json.get("order_id").getAsString();
+    synchronized (orderLock) {
+      final OpenOrder openOrder = openOrders.get(orderId);
+      if (openOrder != null) {
+        openOrders.put(orderId, withQuantity(openOrder, new BigDecimal(newSize)));
+      }
+    }
+  }
+
+  /* Caller must hold the order lock. */
+  private void orderDone(String orderId) {
+    openOrders.remove(orderId);
+    doneOrderIds.put(orderId, Boolean.TRUE);
+  }
+
+  private static OpenOrder withQuantity(OpenOrder openOrder, BigDecimal quantity) {
+    return new OpenOrderImpl(
+        openOrder.getId(),
+        openOrder.getCreationDate(),
+        openOrder.getMarketId(),
+        openOrder.getType(),
+        openOrder.getPrice(),
+        quantity,
+        openOrder.getOriginalQuantity(),
+        openOrder.getTotal());
+  }
+
+  private static OrderType adaptOrderType(JsonObject json) {
+    return "buy".equals(json.get("side").getAsString()) ? OrderType.BUY : OrderType.SELL;
+  }
+
+  private static String stringField(JsonObject json, String name) {
+    final JsonElement field = json.get(name);
+    return field == null || field.isJsonNull() ? null : field.getAsString();
+  }
+
+  /*
+   * Signed the same way as a REST request: timestamp + GET + /users/self/verify.
+   */
+  private void sendSubscribe(WebSocket webSocket, List<String> subscribeProductIds) {
+    if (subscribeProductIds.isEmpty()) {
+      return;
+    }
+    final String timestamp = Long.toString(Instant.now().getEpochSecond() + timeServerBias);
+    final Map<String, Object> request = new LinkedHashMap<>();
+    request.put("type", "subscribe");
+    request.put("product_ids", subscribeProductIds);
+    request.put("channels", List.of("user", "heartbeat"));
+    request.put(
+        "signature", requestSigner.sign(timestamp + "GET" + VERIFY_REQUEST_PATH, Encoding.BASE64));
+    request.put("key", key);
+    request.put("passphrase", passphrase);
+    request.put("timestamp", timestamp);
+    send(webSocket, gson.toJson(request));
+  }
+
+  /** The most recent done order ids, so late messages and REST seeds don't bring them back. */
+  private static final class DoneOrderIds extends LinkedHashMap<String, Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_DONE_ORDER_IDS;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Circuit breaker for the requests an Exchange Adapter sends to the exchange.
+ *
+ * <p>After a number of consecutive network errors the circuit opens, and requests fail fast with
+ * an ExchangeNetworkException instead of waiting for the exchange to time out. Once the open
+ * timeout has passed, a single probe request is let through: if it succeeds the circuit closes
+ * again, otherwise it stays open for another timeout.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class ExchangeCircuitBreaker {
+
+  /** The circuit breaker states. */
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final String CIRCUIT_OPEN_ERROR_MSG =
+      "Exchange circuit breaker is open - not sending request to Exchange.";
+
+  private final int failureThreshold;
+  private final long openTimeoutInNanos;
+  private final LongSupplier nanoClock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+
+  /**
+   * Creates the circuit breaker.
+   *
+   * @param failureThreshold the number of consecutive network errors that opens the circuit. 0
+   *     disables the circuit breaker.
+   * @param openTimeoutInSecs how long the circuit stays open before a probe request is sent.
+   */
+  ExchangeCircuitBreaker(int failureThreshold, long openTimeoutInSecs) {
+    this(failureThreshold, openTimeoutInSecs, System::nanoTime);
+  }
+
+  ExchangeCircuitBreaker(int failureThreshold, long openTimeoutInSecs, LongSupplier nanoClock) {
+    this.failureThreshold = failureThreshold;
+    this.openTimeoutInNanos = TimeUnit.SECONDS.toNanos(openTimeoutInSecs);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Checks that a request can be sent to the exchange.
+   *
+   * @throws ExchangeNetworkException if the circuit is open.
+   */
+  synchronized void acquirePermission() throws ExchangeNetworkException {
+    if (state == State.CLOSED) {
+      return;
+    }
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openTimeoutInNanos) {
+      LOG.info("Exchange circuit breaker is half open - sending probe request to Exchange.");
+      state = State.HALF_OPEN;
+      return;
+    }
+    // Open, or half open with the probe request still in flight.
+    LOG.warn(CIRCUIT_OPEN_ERROR_MSG);
+    throw new ExchangeNetworkException(CIRCUIT_OPEN_ERROR_MSG);
+  }
+
+  /** Records that the exchange responded to a request. */
+  synchronized void recordSuccess() {
+    if (state != State.CLOSED) {
+      LOG.info("Exchange circuit breaker is closed - Exchange has recovered.");
+    }
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+  }
+
+  /** Records that a request failed with a network error. */
+  synchronized void recordFailure() {
+    if (failureThreshold == 0) {
+      return;
+    }
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      if (state != State.OPEN) {
+        final int failures = consecutiveFailures;
+        LOG.warn(
+            () ->
+                "Exchange circuit breaker is open after "
+                    + failures
+                    + " consecutive network errors.");
+      }
+      state = State.OPEN;
+      openedAtNanos = nanoClock.getAsLong();
+    }
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+}
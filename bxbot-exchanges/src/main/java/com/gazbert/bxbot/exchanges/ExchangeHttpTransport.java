@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * The transport used by the Exchange Adapters to send HTTP requests to the exchange.
+ *
+ * <p>Implementations return the response whatever its status code; it is up to the caller to map
+ * error status codes to Trading API exceptions. Network failures are thrown as IOExceptions.
+ *
+ * @author gazbert
+ */
+interface ExchangeHttpTransport {
+
+  /**
+   * Sends a request to the exchange and waits for the response.
+   *
+   * @param uri the URI to invoke.
+   * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
+   * @param postData optional post data to send. This can be null.
+   * @param requestHeaders the request headers to send.
+   * @return the response from the exchange.
+   * @throws IOException if the request could not be sent or the response could not be read.
+   * @throws InterruptedException if the calling thread was interrupted waiting for the response.
+   */
+  ExchangeHttpResponse send(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException;
+}
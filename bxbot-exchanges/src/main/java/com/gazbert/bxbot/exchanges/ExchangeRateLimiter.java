@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Token bucket rate limiter for the requests an Exchange Adapter sends to the exchange.
+ *
+ * <p>Exchanges limit public, private (account) and trading requests separately, so each {@link
+ * EndpointClass} has its own bucket. A bucket holds up to 1 second's worth of tokens. Callers that
+ * find the bucket empty reserve the next free token and wait for it, so requests queue up in the
+ * order they arrived instead of failing.
+ *
+ * <p>When the exchange throttles a request, the bucket's rate is halved and no tokens are handed
+ * out until the exchange's Retry-After time has passed. Each successful request then recovers the
+ * rate by a tenth of the configured rate until it is back to the configured value.
+ *
+ * <p>The time spent waiting for a token is recorded in the {@value #QUEUE_WAIT_METRIC} timer,
+ * tagged with the adapter and endpoint class.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class ExchangeRateLimiter {
+
+  /** The classes of exchange endpoint that are rate limited separately. */
+  enum EndpointClass {
+    PUBLIC,
+    PRIVATE,
+    TRADING
+  }
+
+  static final String QUEUE_WAIT_METRIC = "bxbot.exchange.ratelimit.queue.wait";
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final long NANOS_PER_SEC = TimeUnit.SECONDS.toNanos(1);
+  private static final double THROTTLED_RATE_FACTOR = 0.5;
+  private static final double MIN_RATE_FACTOR = 0.125;
+  private static final double RECOVERY_RATE_FACTOR = 0.1;
+
+  private final Map<EndpointClass, TokenBucket> buckets = new EnumMap<>(EndpointClass.class);
+  private final Map<EndpointClass, Timer> queueWaitTimers = new EnumMap<>(EndpointClass.class);
+  private final LongSupplier nanoClock;
+  private final Sleeper sleeper;
+
+  /**
+   * Creates the rate limiter.
+   *
+   * @param adapterName the name of the adapter, used to tag the queue wait metric.
+   * @param requestsPerSecond the configured rate for each endpoint class. Classes that are not in
+   *     the map are not limited, but still honour the exchange's Retry-After time.
+   */
+  ExchangeRateLimiter(String adapterName, Map<EndpointClass, Double> requestsPerSecond) {
+    this(
+        adapterName,
+        requestsPerSecond,
+        System::nanoTime,
+        TimeUnit.NANOSECONDS::sleep,
+        Metrics.globalRegistry);
+  }
+
+  ExchangeRateLimiter(
+      String adapterName,
+      Map<EndpointClass, Double> requestsPerSecond,
+      LongSupplier nanoClock,
+      Sleeper sleeper,
+      MeterRegistry meterRegistry) {
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+    final long now = nanoClock.getAsLong();
+    for (final EndpointClass endpointClass : EndpointClass.values()) {
+      buckets.put(endpointClass, new TokenBucket(requestsPerSecond.get(endpointClass), now));
+      queueWaitTimers.put(
+          endpointClass,
+          Timer.builder(QUEUE_WAIT_METRIC)
+              .description("Time requests waited for an exchange rate limit token")
+              .tag("adapter", adapterName)
+              .tag("endpoint", endpointClass.name().toLowerCase(Locale.ENGLISH))
+              .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Waits until a request to the given endpoint class can be sent.
+   *
+   * @param endpointClass the endpoint class.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  void acquire(EndpointClass endpointClass) throws InterruptedException {
+    final long waitInNanos = buckets.get(endpointClass).reserve(nanoClock.getAsLong());
+    queueWaitTimers.get(endpointClass).record(waitInNanos, TimeUnit.NANOSECONDS);
+    if (waitInNanos > 0) {
+      LOG.debug(() -> "Waiting " + waitInNanos / 1_000_000 + "ms for " + endpointClass + " token");
+      sleeper.sleep(waitInNanos);
+    }
+  }
+
+  /**
+   * Records that the exchange throttled a request.
+   *
+   * @param endpointClass the endpoint class of the request.
+   * @param retryAfterInNanos how long the exchange asked us to wait, 0 if it did not say.
+   */
+  void onThrottled(EndpointClass endpointClass, long retryAfterInNanos) {
+    final TokenBucket bucket = buckets.get(endpointClass);
+    bucket.throttle(nanoClock.getAsLong(), retryAfterInNanos);
+    LOG.warn(
+        () ->
+            "Exchange throttled "
+                + endpointClass
+                + " request. Retry after: "
+                + retryAfterInNanos / 1_000_000
+                + "ms. Rate is now: "
+                + bucket.getRate()
+                + " requests/sec");
+  }
+
+  /**
+   * Records that a request was not throttled.
+   *
+   * @param endpointClass the endpoint class of the request.
+   */
+  void onSuccess(EndpointClass endpointClass) {
+    buckets.get(endpointClass).recover();
+  }
+
+  /**
+   * Returns the current rate for an endpoint class.
+   *
+   * @param endpointClass the endpoint class.
+   * @return the current rate in requests/sec, null if the class is not limited.
+   */
+  Double getRate(EndpointClass endpointClass) {
+    return buckets.get(endpointClass).getRate();
+  }
+
+  /** Sleeps for the given time. */
+  @FunctionalInterface
+  interface Sleeper {
+    void sleep(long nanos) throws InterruptedException;
+  }
+
+  /*
+   * A token bucket that hands out tokens by reservation: each caller takes the next free token,
+   * even if it is in the future, and is told how long to wait for it.
+   */
+  private static final class TokenBucket {
+
+    private final Double configuredRate;
+    private double rate;
+    private double storedTokens;
+    private long nextFreeTokenNanos;
+
+    TokenBucket(Double configuredRate, long now) {
+      this.configuredRate = configuredRate;
+      this.rate = configuredRate != null ? configuredRate : 0;
+      this.nextFreeTokenNanos = now;
+    }
+
+    synchronized long reserve(long now) {
+      refill(now);
+      final long waitUntil = nextFreeTokenNanos;
+      final double tokensFromStore = Math.min(1, storedTokens);
+      storedTokens -= tokensFromStore;
+      nextFreeTokenNanos += (long) ((1 - tokensFromStore) * intervalInNanos());
+      return Math.max(0, waitUntil - now);
+    }
+
+    synchronized void throttle(long now, long retryAfterInNanos) {
+      if (configuredRate != null) {
+        rate = Math.max(configuredRate * MIN_RATE_FACTOR, rate * THROTTLED_RATE_FACTOR);
+      }
+      storedTokens = 0;
+      nextFreeTokenNanos =
+          Math.max(nextFreeTokenNanos, now + Math.max(retryAfterInNanos, intervalInNanos()));
+    }
+
+    synchronized void recover() {
+      if (configuredRate != null) {
+        rate = Math.min(configuredRate, rate + configuredRate * RECOVERY_RATE_FACTOR);
+      }
+    }
+
+    synchronized Double getRate() {
+      return configuredRate != null ? rate : null;
+    }
+
+    private void refill(long now) {
+      if (now > nextFreeTokenNanos) {
+        final long interval = intervalInNanos();
+        if (interval > 0) {
+          final double maxTokens = Math.max(1, rate);
+          storedTokens =
+              Math.min(maxTokens, storedTokens + (double) (now - nextFreeTokenNanos) / interval);
+        }
+        nextFreeTokenNanos = now;
+      }
+    }
+
+    private long intervalInNanos() {
+      return configuredRate != null ? (long) (NANOS_PER_SEC / rate) : 0;
+    }
+  }
+}
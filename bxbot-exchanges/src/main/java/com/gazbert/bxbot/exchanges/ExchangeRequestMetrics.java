@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics for the requests an Exchange Adapter sends to the exchange.
+ *
+ * <ul>
+ *   <li>{@value #REQUEST_METRIC} - request latency timer, tagged with the adapter, API method, HTTP
+ *       method and status class (2xx, 4xx, 5xx, or 'error' if no response was received). The 50th,
+ *       95th and 99th percentiles are published too.
+ *   <li>{@value #RESPONSE_BYTES_METRIC} - bytes received, tagged with the adapter and API method.
+ *   <li>{@value #ERRORS_METRIC} - requests that failed without a response, tagged with the
+ *       adapter, API method and exception type.
+ * </ul>
+ *
+ * <p>Metrics are registered with the Micrometer global registry, which Spring Boot's registry is
+ * added to, so they show up in the bot's actuator metrics.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class ExchangeRequestMetrics {
+
+  static final String REQUEST_METRIC = "bxbot.exchange.request";
+  static final String RESPONSE_BYTES_METRIC = "bxbot.exchange.response.bytes";
+  static final String ERRORS_METRIC = "bxbot.exchange.request.errors";
+
+  private static final String ADAPTER_TAG = "adapter";
+  private static final String API_TAG = "api";
+  private static final String METHOD_TAG = "method";
+  private static final String STATUS_TAG = "status";
+  private static final String EXCEPTION_TAG = "exception";
+  private static final String NO_RESPONSE_STATUS = "error";
+
+  private final String adapterName;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Creates the request metrics.
+   *
+   * @param adapterName the name of the adapter, used to tag the metrics.
+   */
+  ExchangeRequestMetrics(String adapterName) {
+    this(adapterName, Metrics.globalRegistry);
+  }
+
+  ExchangeRequestMetrics(String adapterName, MeterRegistry meterRegistry) {
+    this.adapterName = adapterName;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Records a response from the exchange.
+   *
+   * @param apiMethod the API method called.
+   * @param httpMethod the HTTP method.
+   * @param statusCode the HTTP status code of the response.
+   * @param durationInNanos the time taken to receive the response.
+   * @param bytesReceived the size of the response body.
+   */
+  void recordResponse(
+      String apiMethod,
+      String httpMethod,
+      int statusCode,
+      long durationInNanos,
+      long bytesReceived) {
+    requestTimer(apiMethod, httpMethod, statusCode / 100 + "xx")
+        .record(durationInNanos, TimeUnit.NANOSECONDS);
+    Counter.builder(RESPONSE_BYTES_METRIC)
+        .description("Bytes received from the exchange")
+        .baseUnit("bytes")
+        .tag(ADAPTER_TAG, adapterName)
+        .tag(API_TAG, apiMethod)
+        .register(meterRegistry)
+        .increment(bytesReceived);
+  }
+
+  /**
+   * Records a request that failed without a response from the exchange.
+   *
+   * @param apiMethod the API method called.
+   * @param httpMethod the HTTP method.
+   * @param durationInNanos the time taken before the request failed.
+   * @param error the error.
+   */
+  void recordError(String apiMethod, String httpMethod, long durationInNanos, Exception error) {
+    requestTimer(apiMethod, httpMethod, NO_RESPONSE_STATUS)
+        .record(durationInNanos, TimeUnit.NANOSECONDS);
+    Counter.builder(ERRORS_METRIC)
+        .description("Requests to the exchange that failed without a response")
+        .tag(ADAPTER_TAG, adapterName)
+        .tag(API_TAG, apiMethod)
+        .tag(EXCEPTION_TAG, error.getClass().getSimpleName())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private Timer requestTimer(String apiMethod, String httpMethod, String status) {
+    return Timer.builder(REQUEST_METRIC)
+        .description("Latency of requests to the exchange")
+        .tag(ADAPTER_TAG, adapterName)
+        .tag(API_TAG, apiMethod)
+        .tag(METHOD_TAG, httpMethod)
+        .tag(STATUS_TAG, status)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+}
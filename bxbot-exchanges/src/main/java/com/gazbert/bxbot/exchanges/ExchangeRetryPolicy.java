@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Retry policy for idempotent requests that fail with a network error.
+ *
+ * <p>The backoff before each retry doubles, up to a maximum. Half of each backoff is random
+ * jitter, so bots that lost their connection at the same time do not all retry at the same time.
+ *
+ * <p>This class is immutable and thread-safe.
+ *
+ * @author gazbert
+ */
+class ExchangeRetryPolicy {
+
+  private final int maxRetries;
+  private final long initialBackoffInNanos;
+  private final long maxBackoffInNanos;
+  private final DoubleSupplier random;
+
+  /**
+   * Creates the retry policy.
+   *
+   * @param maxRetries the maximum number of times a request is retried. 0 means no retries.
+   * @param initialBackoffInMillis the backoff before the first retry.
+   * @param maxBackoffInMillis the maximum backoff between retries.
+   */
+  ExchangeRetryPolicy(int maxRetries, long initialBackoffInMillis, long maxBackoffInMillis) {
+    this(
+        maxRetries,
+        initialBackoffInMillis,
+        maxBackoffInMillis,
+        () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  ExchangeRetryPolicy(
+      int maxRetries, long initialBackoffInMillis, long maxBackoffInMillis, DoubleSupplier random) {
+    this.maxRetries = maxRetries;
+    this.initialBackoffInNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoffInMillis);
+    this.maxBackoffInNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffInMillis);
+    this.random = random;
+  }
+
+  int getMaxRetries() {
+    return maxRetries;
+  }
+
+  long getMaxBackoffInNanos() {
+    return maxBackoffInNanos;
+  }
+
+  /**
+   * Returns the time to back off before a retry.
+   *
+   * @param retry the retry number, starting at 1.
+   * @return the backoff in nanos.
+   */
+  long getBackoffInNanos(int retry) {
+    final double exponentialBackoff = initialBackoffInNanos * Math.pow(2, retry - 1.0);
+    final long backoff = (long) Math.min(maxBackoffInNanos, exponentialBackoff);
+    final long halfBackoff = backoff / 2;
+    return halfBackoff + (long) (random.getAsDouble() * halfBackoff);
+  }
+}
@@ -27,6 +27,8 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
@@ -45,6 +47,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -58,9 +61,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -90,6 +90,10 @@ import org.apache.logging.log4j.Logger;
  * markets. Make sure you keep an eye on the <a href="https://gemini.com/fee-schedule/">exchange
  * fees</a> and update the config accordingly.
  *
+ * <p>Orders created with a client order id are sent with it as the <code>client_order_id</code>. If
+ * creating the order fails with a network error, a retry with the same client order id looks the
+ * order up with <code>order/status</code> before placing it again.
+ *
  * <p>NOTE: Gemini requires "btcusd" and "ethusd" market price currency (USD) values to be limited
  * to 2 decimal places when creating orders - the adapter truncates any prices with more than 2
  * decimal places and rounds using {@link java.math.RoundingMode#HALF_EVEN}, E.g. 250.176 would be
@@ -124,12 +128,14 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
   private static final String AMOUNT = "amount";
   private static final String PRICE = "price";
+  private static final String ORDER_NOT_FOUND_REASON = "OrderNotFound";
 
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
 
   private static final String BUY_FEE_PROPERTY_NAME = "buy-fee";
   private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
+  private static final String BALANCE_CACHE_TTL_PROPERTY_NAME = "balance-cache-ttl";
 
   /*
    * Markets on the exchange. Used for determining order price truncation/rounding policy.
@@ -153,12 +159,15 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
 
+  private BalanceCache balanceCache = new BalanceCache(0);
+  private final InFlightOrders inFlightOrders = new InFlightOrders();
+
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
+  private RequestSigner requestSigner;
   private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
+  private NonceProvider nonceProvider;
 
   private Gson gson;
 
@@ -169,7 +178,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     setNetworkConfig(config);
     setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
+    nonceProvider = NonceProvider.forApiKey("Gemini", key, System.currentTimeMillis() / 1000);
     initSecureMessageLayer();
     initGson();
   }
@@ -183,6 +192,30 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    return inFlightOrders.createOrder(
+        clientOrderId,
+        this::findOrderIdByClientOrderId,
+        () -> sendCreateOrder(marketId, orderType, quantity, price, clientOrderId));
+  }
+
+  private String sendCreateOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
     try {
       final Map<String, String> params = createRequestParamMap();
 
@@ -232,6 +265,10 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       // this adapter only supports 'exchange limit' orders
       params.put("type", "exchange limit");
 
+      if (clientOrderId != null) {
+        params.put("client_order_id", clientOrderId);
+      }
+
       final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order/new", params);
 
       LOG.debug(() -> "Create Order response: " + response);
@@ -250,6 +287,53 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
 
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      // Even a failed request may have changed the balances, so the cache is always emptied.
+      balanceCache.invalidate();
+    }
+  }
+
+  /*
+   * Looking an order up by client_order_id returns the matching orders as an array, whatever their
+   * status. The exchange returns a 404 with an OrderNotFound error if it does not have the order.
+   */
+  private String findOrderIdByClientOrderId(String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final Map<String, String> params = createRequestParamMap();
+      params.put("client_order_id", clientOrderId);
+
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("order/status", params);
+
+      LOG.debug(() -> "Find Order response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        final GeminiError error = gson.fromJson(response.getPayload(), GeminiError.class);
+        if (error != null && ORDER_NOT_FOUND_REASON.equals(error.reason)) {
+          return null;
+        }
+        final String errorMsg = "Failed to find order on exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+      final GeminiOpenOrder[] geminiOrders =
+          gson.fromJson(response.getPayload(), GeminiOpenOrder[].class);
+      for (final GeminiOpenOrder geminiOrder : geminiOrders) {
+        if (clientOrderId.equals(geminiOrder.clientOrderId) && geminiOrder.orderId != 0) {
+          return Long.toString(geminiOrder.orderId);
+        }
+      }
+      return null;
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
@@ -286,6 +370,9 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      balanceCache.invalidate();
     }
   }
 
@@ -336,6 +423,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
         ordersToReturn.add(order);
       }
+      balanceCache.checkOpenOrders(marketId, ordersToReturn);
       return ordersToReturn;
 
     } catch (ExchangeNetworkException | TradingApiException e) {
@@ -350,12 +438,30 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrderBook(marketId, FULL_ORDER_BOOK_DEPTH);
+  }
+
+  /**
+   * Fetches the top of the order book. Gemini sends just the top levels when the book API is
+   * called with the limit_bids and limit_asks params.
+   */
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+    checkOrderBookDepth(depth);
+    return getMarketOrderBook(marketId, depth);
+  }
+
+  private MarketOrderBook getMarketOrderBook(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
+      final ExchangeHttpResponse response =
+          sendPublicRequestToExchange("book/" + marketId + getOrderBookLimitParams(depth));
 
       LOG.debug(() -> "Market Orders response: " + response);
 
-      final GeminiOrderBook orderBook = gson.fromJson(response.getPayload(), GeminiOrderBook.class);
+      final GeminiOrderBook orderBook =
+          gson.fromJson(response.getPayloadReader(), GeminiOrderBook.class);
 
       final List<MarketOrder> buyOrders = new ArrayList<>();
       for (GeminiMarketOrder geminiBuyOrder : orderBook.bids) {
@@ -412,6 +518,16 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
   @Override
   public BalanceInfo getBalanceInfo() throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(forceRefresh, this::fetchBalanceInfo);
+  }
+
+  private BalanceInfo fetchBalanceInfo() throws TradingApiException, ExchangeNetworkException {
     try {
       final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("balances", null);
 
@@ -577,6 +693,9 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     @SerializedName("order_id")
     long orderId; // use this value for order id as per the API spec
 
+    @SerializedName("client_order_id")
+    String clientOrderId;
+
     long id;
     String symbol;
     String exchange;
@@ -615,6 +734,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("orderId", orderId)
+          .add("clientOrderId", clientOrderId)
           .add("id", id)
           .add("symbol", symbol)
           .add("exchange", exchange)
@@ -635,10 +755,34 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /** GSON class for an error response. */
+  private static class GeminiError {
+
+    String result;
+    String reason;
+    String message;
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("result", result)
+          .add("reason", reason)
+          .add("message", message)
+          .toString();
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Transport layer
   // --------------------------------------------------------------------------
 
+  private static String getOrderBookLimitParams(int depth) {
+    if (depth == FULL_ORDER_BOOK_DEPTH) {
+      return "";
+    }
+    return "?limit_bids=" + depth + "&limit_asks=" + depth;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
@@ -713,20 +857,16 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       params.put("request", "/" + GEMINI_API_VERSION + "/" + apiMethod);
 
       // nonce is required by Gemini in every request
-      params.put("nonce", Long.toString(nonce));
-      nonce++;
+      params.put("nonce", Long.toString(nonceProvider.next()));
 
       // JSON-ify the param dictionary
       final String paramsInJson = gson.toJson(params);
 
       // Need to base64 encode payload as per API
-      final String base64payload =
-          DatatypeConverter.printBase64Binary(paramsInJson.getBytes(StandardCharsets.UTF_8));
+      final String base64payload = RequestSigner.base64(paramsInJson);
 
       // Create the signature
-      mac.reset(); // force reset
-      mac.update(base64payload.getBytes(StandardCharsets.UTF_8));
-      final String signature = toHex(mac.doFinal()).toLowerCase();
+      final String signature = requestSigner.sign(base64payload, Encoding.HEX_LOWER_CASE);
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -747,14 +887,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
-  private String toHex(byte[] byteArrayToConvert) {
-    final StringBuilder hexString = new StringBuilder();
-    for (final byte aByte : byteArrayToConvert) {
-      hexString.append(String.format("%02x", aByte & 0xff));
-    }
-    return hexString.toString();
-  }
-
   /*
    * Initialises the secure messaging layer.
    * Sets up the MAC to safeguard the data we send to the exchange.
@@ -763,10 +895,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA384");
-      mac = Mac.getInstance("HmacSHA384");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA384", secret.getBytes(StandardCharsets.UTF_8));
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
@@ -801,6 +930,10 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     sellFeePercentage =
         new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, RoundingMode.HALF_UP);
     LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+    balanceCache =
+        new BalanceCache(
+            getOptionalTimeToLiveConfigItem(otherConfig, BALANCE_CACHE_TTL_PROPERTY_NAME));
   }
 
   // --------------------------------------------------------------------------
@@ -826,6 +959,26 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/order/new") || path.contains("/order/cancel")) {
+      return EndpointClass.TRADING;
+    }
+    if (path.contains("/book/") || path.contains("/pubticker/")) {
+      return EndpointClass.PUBLIC;
+    }
+    return EndpointClass.PRIVATE;
+  }
+
+  /*
+   * Looking an order up returns a 404 if the exchange does not have the order.
+   */
+  @Override
+  boolean isNotFoundExpected(URL url, String httpMethod) {
+    return url.getPath().contains("/order/status");
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exchange HTTP transport built on the JDK {@link HttpClient}.
+ *
+ * <p>The client keeps connections to the exchange alive between requests, so only the first
+ * request pays for the TCP and TLS handshakes. HTTP/2 is used if the exchange supports it, and
+ * concurrent requests are multiplexed over a single connection; otherwise it falls back to
+ * HTTP/1.1.
+ *
+ * <p>The JDK client only supports process-wide connection pool settings, and it reads them when
+ * the first client is created. The pool size and idle timeout are therefore applied as the {@code
+ * jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout} system
+ * properties, unless they have already been set on the command line. BX-bot only runs 1 Exchange
+ * Adapter per bot, so this is not a problem in practice.
+ *
+ * <p>HTTP/2 does not have reason phrases, so the response reason phrase is always empty.
+ *
+ * @author gazbert
+ */
+class HttpClientTransport implements ExchangeHttpTransport {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final String CONNECTION_POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+  static final String KEEP_ALIVE_TIMEOUT_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+  // Er, perhaps, we need to be a bit more stealth here...
+  // This was needed for some exchanges back in the day!
+  private static final String USER_AGENT =
+      "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
+          + "Chrome/74.0.3729.169 Safari/537.36";
+
+  private final HttpClient httpClient;
+  private final Duration timeout;
+
+  /**
+   * Creates the transport.
+   *
+   * @param timeoutInSecs the connect and request timeout in secs.
+   * @param connectionPoolSize the maximum number of idle connections to keep open. Null to use the
+   *     JDK default (unlimited).
+   * @param connectionIdleTimeoutInSecs how long an idle connection is kept open. Null to use the
+   *     JDK default (1200s).
+   */
+  HttpClientTransport(
+      int timeoutInSecs, Integer connectionPoolSize, Integer connectionIdleTimeoutInSecs) {
+    applyConnectionPoolSetting(CONNECTION_POOL_SIZE_PROPERTY, connectionPoolSize);
+    applyConnectionPoolSetting(KEEP_ALIVE_TIMEOUT_PROPERTY, connectionIdleTimeoutInSecs);
+
+    timeout = Duration.ofSeconds(timeoutInSecs);
+    httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(timeout)
+            .build();
+  }
+
+  @Override
+  public ExchangeHttpResponse send(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException {
+
+    final HttpRequest.Builder requestBuilder =
+        HttpRequest.newBuilder(uri)
+            .timeout(timeout)
+            .header("User-Agent", USER_AGENT)
+            .method(httpMethod, createBodyPublisher(httpMethod, postData));
+
+    if (requestHeaders != null) {
+      for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+        requestBuilder.setHeader(requestHeader.getKey(), requestHeader.getValue());
+        LOG.debug(() -> "Setting following request header: " + requestHeader);
+      }
+    }
+
+    // The whole body is read into a byte array; it is only decoded into a String if the adapter
+    // asks for the payload. The body is not streamed to the JSON parser: the status checks,
+    // metrics, record/replay and retries all need the complete response, and streaming would only
+    // save 1 body-sized array per request.
+    final HttpResponse<byte[]> response =
+        httpClient.send(requestBuilder.build(), BodyHandlers.ofByteArray());
+    LOG.debug(() -> "Response received over " + response.version());
+    return new ExchangeHttpResponse(
+        response.statusCode(), "", response.body(), response.headers().map());
+  }
+
+  private static BodyPublisher createBodyPublisher(String httpMethod, String postData) {
+    if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
+      LOG.debug(() -> "Doing POST with request body: " + postData);
+      return BodyPublishers.ofString(postData, StandardCharsets.UTF_8);
+    }
+    return BodyPublishers.noBody();
+  }
+
+  private static void applyConnectionPoolSetting(String propertyName, Integer value) {
+    if (value == null) {
+      return;
+    }
+    final String existingValue = System.getProperty(propertyName);
+    if (existingValue == null) {
+      System.setProperty(propertyName, String.valueOf(value));
+      LOG.info(() -> propertyName + ": " + value);
+    } else if (!existingValue.equals(String.valueOf(value))) {
+      LOG.warn(
+          () ->
+              propertyName
+                  + " is already set to "
+                  + existingValue
+                  + " - ignoring network config value: "
+                  + value);
+    }
+  }
+}
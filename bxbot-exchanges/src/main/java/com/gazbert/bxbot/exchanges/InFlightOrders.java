@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps track of the orders being placed with a client order id, so a retried order is not placed
+ * twice.
+ *
+ * <p>When placing an order fails with a network error, e.g. a timeout, the exchange may still have
+ * accepted it. The client order id is then kept as unresolved. When the order is retried with the
+ * same client order id, it is first looked up on the exchange; if it is found, its id is returned
+ * instead of placing it again. A retry made while the first attempt is still in flight fails with
+ * an ExchangeNetworkException, so it can be retried later.
+ *
+ * <p>At most {@value #MAX_UNRESOLVED_ORDERS} unresolved client order ids are kept; the oldest are
+ * forgotten first.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class InFlightOrders {
+
+  /** Places the order on the exchange. */
+  @FunctionalInterface
+  interface CreateOrderCall {
+    String createOrder() throws ExchangeNetworkException, TradingApiException;
+  }
+
+  /** Looks up the order on the exchange by its client order id. */
+  @FunctionalInterface
+  interface OrderLookup {
+    /**
+     * Returns the exchange's id for the order.
+     *
+     * @param clientOrderId the client order id.
+     * @return the order id, or null if the exchange does not have the order.
+     * @throws ExchangeNetworkException if the lookup failed with a network error.
+     * @throws TradingApiException if the lookup failed for any other reason.
+     */
+    String findOrderId(String clientOrderId) throws ExchangeNetworkException, TradingApiException;
+  }
+
+  static final int MAX_UNRESOLVED_ORDERS = 1000;
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private enum State {
+    IN_FLIGHT,
+    UNRESOLVED
+  }
+
+  private final Map<String, State> orders = new LinkedHashMap<>();
+
+  /**
+   * Places an order, unless a previous attempt with the same client order id was accepted by the
+   * exchange.
+   *
+   * @param clientOrderId the client order id. If null, the order is just placed.
+   * @param lookup looks the order up on the exchange.
+   * @param call places the order on the exchange.
+   * @return the id of the order.
+   * @throws ExchangeNetworkException if placing or looking up the order failed with a network
+   *     error, or the order is already being placed.
+   * @throws TradingApiException if placing or looking up the order failed for any other reason.
+   */
+  String createOrder(String clientOrderId, OrderLookup lookup, CreateOrderCall call)
+      throws ExchangeNetworkException, TradingApiException {
+    if (clientOrderId == null) {
+      return call.createOrder();
+    }
+
+    final State previousState = startPlacing(clientOrderId);
+    try {
+      if (previousState == State.UNRESOLVED) {
+        final String orderId = lookup.findOrderId(clientOrderId);
+        if (orderId != null) {
+          LOG.info(
+              () ->
+                  "Order with client order id "
+                      + clientOrderId
+                      + " was placed by an earlier attempt as order "
+                      + orderId);
+          finishPlacing(clientOrderId, null);
+          return orderId;
+        }
+      }
+      final String orderId = call.createOrder();
+      finishPlacing(clientOrderId, null);
+      return orderId;
+
+    } catch (ExchangeNetworkException e) {
+      finishPlacing(clientOrderId, State.UNRESOLVED);
+      throw e;
+    } catch (TradingApiException | RuntimeException e) {
+      finishPlacing(clientOrderId, null);
+      throw e;
+    }
+  }
+
+  private synchronized State startPlacing(String clientOrderId) throws ExchangeNetworkException {
+    final State previousState = orders.put(clientOrderId, State.IN_FLIGHT);
+    if (previousState == State.IN_FLIGHT) {
+      throw new ExchangeNetworkException(
+          "Order with client order id " + clientOrderId + " is already being placed");
+    }
+    return previousState;
+  }
+
+  private synchronized void finishPlacing(String clientOrderId, State newState) {
+    if (newState == null) {
+      orders.remove(clientOrderId);
+    } else {
+      orders.put(clientOrderId, newState);
+      final Iterator<String> oldestFirst = orders.keySet().iterator();
+      while (orders.size() > MAX_UNRESOLVED_ORDERS) {
+        oldestFirst.next();
+        oldestFirst.remove();
+      }
+    }
+  }
+}
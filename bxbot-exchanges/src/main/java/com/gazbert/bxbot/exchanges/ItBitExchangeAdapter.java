@@ -27,6 +27,8 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
@@ -53,17 +55,15 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -159,9 +159,9 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
+  private RequestSigner requestSigner;
   private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
+  private NonceProvider nonceProvider;
 
   private Gson gson;
 
@@ -172,7 +172,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     setNetworkConfig(config);
     setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
+    nonceProvider = NonceProvider.forApiKey("itBit", key, System.currentTimeMillis() / 1000);
     initSecureMessageLayer();
     initGson();
   }
@@ -378,7 +378,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
         final ItBitOrderBookWrapper orderBook =
-            gson.fromJson(response.getPayload(), ItBitOrderBookWrapper.class);
+            gson.fromJson(response.getPayloadReader(), ItBitOrderBookWrapper.class);
 
         final List<MarketOrder> buyOrders = new ArrayList<>();
         for (ItBitMarketOrder itBitBuyOrder : orderBook.bids) {
@@ -533,6 +533,15 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     return "itBit REST API v1";
   }
 
+  /*
+   * The ticker API only takes one market, so the tickers are fetched in parallel.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    return getTickersInParallel(marketIds, this::getTicker);
+  }
+
   @Override
   public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -803,8 +812,8 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       // Generate new UNIX time in secs
       final String unixTime = Long.toString(System.currentTimeMillis());
 
-      // increment nonce for use in this call
-      nonce++;
+      // next nonce for use in this call
+      final long nonce = nonceProvider.next();
 
       if (params == null) {
         // create empty map for non-param API calls
@@ -897,18 +906,12 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       final String noncePrependedToJson = nonce + signatureParamsInJson;
 
       // Construct the SHA-256 hash of the noncePrependedToJson. Call this the message hash.
-      final MessageDigest md = MessageDigest.getInstance("SHA-256");
-      md.update(noncePrependedToJson.getBytes(StandardCharsets.UTF_8));
-      final byte[] messageHash = md.digest();
-
       // Prepend the UTF-8 encoded request URL to the message hash.
       // Generate the SHA-512 HMAC of the prependRequestUrlToMsgHash using your API secret as the
       // key.
-      mac.reset(); // force reset
-      mac.update(invocationUrl.getBytes(StandardCharsets.UTF_8));
-      mac.update(messageHash);
-
-      final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+      final String signature =
+          requestSigner.signWithHashedMessage(
+              invocationUrl, noncePrependedToJson, Encoding.BASE64);
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -930,11 +933,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new TradingApiException(errorMsg, e);
-
-    } catch (NoSuchAlgorithmException e) {
-      final String errorMsg = "Failed to create SHA-256 digest when building message signature.";
-      LOG.error(errorMsg, e);
-      throw new TradingApiException(errorMsg, e);
     }
   }
 
@@ -946,10 +944,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-      mac = Mac.getInstance("HmacSHA512");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA512", secret.getBytes(StandardCharsets.UTF_8));
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA512 installed?";
@@ -1103,6 +1098,17 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    if (url.getPath().contains("/" + MARKETS_RESOURCE + "/")) {
+      return EndpointClass.PUBLIC;
+    }
+    if (httpMethod.equals("POST") || httpMethod.equals("DELETE")) {
+      return EndpointClass.TRADING;
+    }
+    return EndpointClass.PRIVATE;
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
@@ -31,8 +31,11 @@ import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.exchange.api.PairPrecisionConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
 import com.gazbert.bxbot.exchanges.config.PairPrecisionConfigImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.FixedPointMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
@@ -55,29 +58,34 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -115,6 +123,19 @@ import org.apache.logging.log4j.Logger;
  * response contains the asset pair in the 3 letter format ('XBTUSD'), and we need to be able to
  * filter only the orders for the given market id.
  *
+ * <p>If the websocket-order-book config-item is set to true, the order book and ticker are
+ * served from a local copy kept up to date by the <a href="https://docs.kraken.com/websockets/">
+ * Kraken WebSocket API</a>, falling back to the REST API while the feed is not in sync. See {@link
+ * KrakenWebSocketFeed}.
+ *
+ * <p>Orders created with a client order id are sent with it as the <code>userref</code>, which
+ * Kraken limits to a 32-bit integer: a numeric client order id is sent as it is, any other id as
+ * its hash code. If creating the order fails with a network error, a retry with the same client
+ * order id looks the order up by its <code>userref</code> in the open and closed orders before
+ * placing it again. Hash codes can collide, so if more than 1 order has the <code>userref</code>,
+ * the retry fails with a TradingApiException rather than guess; use numeric client order ids to
+ * avoid this.
+ *
  * <p>The exchange regularly goes down for maintenance. If the keep-alive-during-maintenance
  * config-item is set to true in the exchange.yaml config file, the bot will stay alive and wait
  * until the next trade cycle.
@@ -161,10 +182,12 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   private static final String FAILED_TO_GET_OPEN_ORDERS =
       "Failed to get Open Orders from exchange. Details: ";
   private static final String FAILED_TO_ADD_ORDER = "Failed to Add Order on exchange. Details: ";
+  private static final String FAILED_TO_FIND_ORDER = "Failed to Find Order on exchange. Details: ";
   private static final String FAILED_TO_CANCEL_ORDER =
       "Failed to Cancel Order on exchange. Details: ";
 
   private static final String PRICE = "price";
+  private static final String USERREF = "userref";
 
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
@@ -176,19 +199,37 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       "keep-alive-during-maintenance";
   private static final String EXCHANGE_UNDERGOING_MAINTENANCE_RESPONSE = "EService:Unavailable";
 
+  private static final String WEBSOCKET_ORDER_BOOK_PROPERTY_NAME = "websocket-order-book";
+  private static final String WEBSOCKET_ORDER_BOOK_DEPTH_PROPERTY_NAME =
+      "websocket-order-book-depth";
+  private static final String OPEN_ORDERS_CACHE_TTL_PROPERTY_NAME = "open-orders-cache-ttl";
+  private static final String BALANCE_CACHE_TTL_PROPERTY_NAME = "balance-cache-ttl";
+  private static final String KRAKEN_WEBSOCKET_URI = "wss://ws.kraken.com";
+  private static final int DEFAULT_WEBSOCKET_ORDER_BOOK_DEPTH = 10;
+  private static final Set<Integer> WEBSOCKET_ORDER_BOOK_DEPTHS = Set.of(10, 25, 100, 500, 1000);
+  private static final Duration WEBSOCKET_RECONNECT_DELAY = Duration.ofSeconds(1);
+  private static final Duration WEBSOCKET_STALE_TIMEOUT = Duration.ofSeconds(10);
+
   private PairPrecisionConfig pairPrecisionConfig;
 
-  private long nonce = 0;
+  private NonceProvider nonceProvider;
 
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
 
   private boolean keepAliveDuringMaintenance;
 
+  private KrakenWebSocketFeed webSocketFeed;
+  private Map<String, String> webSocketPairNames = new HashMap<>();
+  private Map<String, String> resultPairNames = new HashMap<>();
+  private OpenOrdersIndex openOrdersIndex = new OpenOrdersIndex(0);
+  private BalanceCache balanceCache = new BalanceCache(0);
+  private final InFlightOrders inFlightOrders = new InFlightOrders();
+
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
+  private RequestSigner requestSigner;
   private boolean initializedMacAuthentication = false;
 
   private Gson gson;
@@ -202,7 +243,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     loadPairPrecisionConfig();
     setOtherConfig(config);
 
-    nonce = System.currentTimeMillis();
+    nonceProvider = NonceProvider.forApiKey("Kraken", key, System.currentTimeMillis());
     initSecureMessageLayer();
   }
 
@@ -214,20 +255,55 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrderBook(marketId, FULL_ORDER_BOOK_DEPTH);
+  }
+
+  /**
+   * Fetches the top of the order book. Kraken sends just the top levels when the Depth API is
+   * called with the count param.
+   */
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+    checkOrderBookDepth(depth);
+    return getMarketOrderBook(marketId, depth);
+  }
+
+  private MarketOrderBook getMarketOrderBook(String marketId, int depth)
+      throws TradingApiException, ExchangeNetworkException {
+
+    if (webSocketFeed != null) {
+      final String pair = getWebSocketPairName(marketId);
+      webSocketFeed.subscribe(pair);
+      final MarketOrderBook localOrderBook = webSocketFeed.getOrderBook(pair, marketId);
+      if (localOrderBook != null) {
+        return limitOrderBookDepth(localOrderBook, depth);
+      }
+    }
 
     ExchangeHttpResponse response;
 
     try {
       final Map<String, String> params = createRequestParamMap();
       params.put("pair", marketId);
+      if (depth != FULL_ORDER_BOOK_DEPTH) {
+        params.put("count", Integer.toString(depth));
+      }
 
       response = sendPublicRequestToExchange("Depth", params);
       LOG.debug(() -> "Market Orders response: " + response);
 
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final MarketOrderBook fixedPointOrderBook =
+            adaptKrakenOrderBookToFixedPoint(response, marketId);
+        if (fixedPointOrderBook != null) {
+          return fixedPointOrderBook;
+        }
+
         final Type resultType =
             new TypeToken<KrakenResponse<KrakenMarketOrderBookResult>>() {}.getType();
-        final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+        final KrakenResponse krakenResponse =
+            gson.fromJson(response.getPayloadReader(), resultType);
 
         final List errors = krakenResponse.error;
         if (errors == null || errors.isEmpty()) {
@@ -263,9 +339,17 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   public List<OpenOrder> getYourOpenOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
 
+    final List<OpenOrder> indexedOpenOrders = openOrdersIndex.getOpenOrders(marketId);
+    if (indexedOpenOrders != null) {
+      final List<OpenOrder> openOrders = withMarketId(indexedOpenOrders, marketId);
+      balanceCache.checkOpenOrders(marketId, openOrders);
+      return openOrders;
+    }
+
     ExchangeHttpResponse response;
 
     try {
+      final long indexGeneration = openOrdersIndex.getGeneration();
       response = sendAuthenticatedRequestToExchange("OpenOrders", null);
       LOG.debug(() -> "Open Orders response: " + response);
 
@@ -276,7 +360,16 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
 
         final List errors = krakenResponse.error;
         if (errors == null || errors.isEmpty()) {
-          return adaptKrakenOpenOrders(krakenResponse, marketId);
+          // OpenOrders returns every market's orders, so index them all for the other markets.
+          final Map<String, List<OpenOrder>> openOrdersByMarket =
+              adaptKrakenOpenOrders(krakenResponse);
+          openOrdersIndex.refresh(indexGeneration, openOrdersByMarket);
+          final List<OpenOrder> openOrders =
+              withMarketId(
+                  openOrdersByMarket.getOrDefault(marketId.toUpperCase(Locale.ROOT), List.of()),
+                  marketId);
+          balanceCache.checkOpenOrders(marketId, openOrders);
+          return openOrders;
 
         } else {
           if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
@@ -308,6 +401,30 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    return inFlightOrders.createOrder(
+        clientOrderId,
+        this::findOrderIdByClientOrderId,
+        () -> sendCreateOrder(marketId, orderType, quantity, price, clientOrderId));
+  }
+
+  private String sendCreateOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
 
     ExchangeHttpResponse response;
 
@@ -339,6 +456,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       params.put(
           "volume", new DecimalFormat(volumePrecision, getDecimalFormatSymbols()).format(quantity));
 
+      if (clientOrderId != null) {
+        params.put(USERREF, toUserRef(clientOrderId));
+      }
+
       response = sendAuthenticatedRequestToExchange("AddOrder", params);
       LOG.debug(() -> "Create Order response: " + response);
 
@@ -377,12 +498,112 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
 
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      // Even a failed request may have added the order, so the caches are always emptied.
+      openOrdersIndex.invalidate();
+      balanceCache.invalidate();
+    }
+  }
+
+  /*
+   * An order that has not been filled is in the open orders; one that was filled straight away
+   * is only in the closed orders. Both are checked: a hashed userref can collide with an older
+   * order's, and then there is no telling which order this request created.
+   */
+  private String findOrderIdByClientOrderId(String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    final String userRef = toUserRef(clientOrderId);
+    final Set<String> orderIds = new LinkedHashSet<>();
+    final KrakenOpenOrderResult openOrderResult =
+        sendFindOrderRequest(
+            "OpenOrders", userRef, new TypeToken<KrakenResponse<KrakenOpenOrderResult>>() {});
+    if (openOrderResult.open != null) {
+      orderIds.addAll(openOrderResult.open.keySet());
+    }
+    final KrakenClosedOrderResult closedOrderResult =
+        sendFindOrderRequest(
+            "ClosedOrders", userRef, new TypeToken<KrakenResponse<KrakenClosedOrderResult>>() {});
+    if (closedOrderResult.closed != null) {
+      orderIds.addAll(closedOrderResult.closed.keySet());
+    }
+
+    if (orderIds.size() > 1) {
+      final String errorMsg =
+          "Found "
+              + orderIds.size()
+              + " orders with userref "
+              + userRef
+              + " for client order id "
+              + clientOrderId
+              + " - cannot tell which one was created: "
+              + orderIds;
+      LOG.error(errorMsg);
+      throw new TradingApiException(errorMsg);
+    }
+    return orderIds.isEmpty() ? null : orderIds.iterator().next();
+  }
+
+  private <T> T sendFindOrderRequest(
+      String apiMethod, String userRef, TypeToken<KrakenResponse<T>> resultType)
+      throws TradingApiException, ExchangeNetworkException {
+    ExchangeHttpResponse response;
+
+    try {
+      final Map<String, String> params = createRequestParamMap();
+      params.put(USERREF, userRef);
+
+      response = sendAuthenticatedRequestToExchange(apiMethod, params);
+      LOG.debug(() -> "Find Order response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final KrakenResponse<T> krakenResponse =
+            gson.fromJson(response.getPayload(), resultType.getType());
+
+        final List<String> errors = krakenResponse.error;
+        if (errors == null || errors.isEmpty()) {
+          return krakenResponse.result;
+
+        } else {
+          if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+            LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
+            throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
+          }
+
+          final String errorMsg = FAILED_TO_FIND_ORDER + response;
+          LOG.error(errorMsg);
+          throw new TradingApiException(errorMsg);
+        }
+
+      } else {
+        final String errorMsg = FAILED_TO_FIND_ORDER + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
     }
   }
 
+  /*
+   * Kraken's userref is a 32-bit signed integer.
+   */
+  private static String toUserRef(String clientOrderId) {
+    try {
+      return Integer.toString(Integer.parseInt(clientOrderId));
+    } catch (NumberFormatException e) {
+      return Integer.toString(clientOrderId.hashCode());
+    }
+  }
+
   @Override
   public boolean cancelOrder(String orderId, String marketIdNotNeeded)
       throws TradingApiException, ExchangeNetworkException {
@@ -428,6 +649,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     } catch (Exception e) {
       LOG.error(UNEXPECTED_ERROR_MSG, e);
       throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+
+    } finally {
+      openOrdersIndex.invalidate();
+      balanceCache.invalidate();
     }
   }
 
@@ -487,7 +712,16 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
 
   @Override
   public BalanceInfo getBalanceInfo() throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+  }
 
+  @Override
+  public BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws TradingApiException, ExchangeNetworkException {
+    return balanceCache.getBalanceInfo(forceRefresh, this::fetchBalanceInfo);
+  }
+
+  private BalanceInfo fetchBalanceInfo() throws TradingApiException, ExchangeNetworkException {
     ExchangeHttpResponse response;
 
     try {
@@ -546,6 +780,15 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
 
+    if (webSocketFeed != null) {
+      final String pair = getWebSocketPairName(marketId);
+      webSocketFeed.subscribe(pair);
+      final Ticker localTicker = webSocketFeed.getTicker(pair);
+      if (localTicker != null) {
+        return localTicker;
+      }
+    }
+
     ExchangeHttpResponse response;
 
     try {
@@ -564,19 +807,95 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
         if (errors == null || errors.isEmpty()) {
 
           // Assume we'll always get something here if errors array is empty; else blow fast wih NPE
-          final KrakenTickerResult tickerResult = (KrakenTickerResult) krakenResponse.result;
+          return adaptKrakenTicker((KrakenTickerResult) krakenResponse.result);
 
-          // ouch!
-          return new TickerImpl(
-              new BigDecimal(tickerResult.get("c")), // last trade
-              new BigDecimal(tickerResult.get("b")), // bid
-              new BigDecimal(tickerResult.get("a")), // ask
-              new BigDecimal(tickerResult.get("l")), // low 24h
-              new BigDecimal(tickerResult.get("h")), // high 24hr
-              new BigDecimal(tickerResult.get("o")), // open
-              new BigDecimal(tickerResult.get("v")), // volume 24hr
-              new BigDecimal(tickerResult.get("p")), // vwap 24hr
-              null); // timestamp not supplied by Kraken
+        } else {
+          if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+            LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
+            throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
+          }
+
+          final String errorMsg = FAILED_TO_GET_TICKER + response;
+          LOG.error(errorMsg);
+          throw new TradingApiException(errorMsg);
+        }
+
+      } else {
+        final String errorMsg = FAILED_TO_GET_TICKER + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
+  /*
+   * Kraken sends the tickers for several pairs in one Ticker request. The result is keyed by
+   * Kraken's own pair name, e.g. XXBTZUSD for XBTUSD, so it is mapped back using the altnames
+   * loaded from AssetPairs.
+   */
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+
+    final Map<String, Ticker> tickers = new LinkedHashMap<>();
+    final List<String> marketIdsToFetch = new ArrayList<>();
+    for (final String marketId : marketIds) {
+      Ticker localTicker = null;
+      if (webSocketFeed != null) {
+        final String pair = getWebSocketPairName(marketId);
+        webSocketFeed.subscribe(pair);
+        localTicker = webSocketFeed.getTicker(pair);
+      }
+      // put the local ticker (or a placeholder) now to keep the market ids in order
+      tickers.put(marketId, localTicker);
+      if (localTicker == null) {
+        marketIdsToFetch.add(marketId);
+      }
+    }
+    if (marketIdsToFetch.isEmpty()) {
+      return tickers;
+    }
+
+    ExchangeHttpResponse response;
+
+    try {
+      final Map<String, String> params = createRequestParamMap();
+      params.put("pair", String.join(",", marketIdsToFetch));
+
+      response = sendPublicRequestToExchange("Ticker", params);
+      LOG.debug(() -> "Tickers response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+
+        final Type resultType = new TypeToken<KrakenResponse<KrakenTickersResult>>() {}.getType();
+        final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+
+        final List errors = krakenResponse.error;
+        if (errors == null || errors.isEmpty()) {
+
+          final KrakenTickersResult tickersResult = (KrakenTickersResult) krakenResponse.result;
+          for (final String marketId : marketIdsToFetch) {
+            KrakenTickerResult tickerResult =
+                tickersResult.get(resultPairNames.getOrDefault(marketId, marketId));
+            if (tickerResult == null && tickersResult.size() == 1) {
+              tickerResult = tickersResult.values().iterator().next();
+            }
+            if (tickerResult == null) {
+              final String errorMsg =
+                  "No Ticker for " + marketId + " in exchange response: " + response;
+              LOG.error(errorMsg);
+              throw new TradingApiException(errorMsg);
+            }
+            tickers.put(marketId, adaptKrakenTicker(tickerResult));
+          }
+          return tickers;
 
         } else {
           if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
@@ -659,6 +978,15 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /** GSON class for a Ticker API call result for several pairs, keyed by Kraken's pair name. */
+  private static class KrakenTickersResult extends HashMap<String, KrakenTickerResult> {
+
+    private static final long serialVersionUID = 5526440382447913562L;
+
+    KrakenTickersResult() {
+    }
+  }
+
   private static class KrakenAssetPairsConfig extends HashMap<String, Object> {
 
     private static final long serialVersionUID = -9226840830768795L;
@@ -688,6 +1016,33 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
 
       return new PairPrecisionConfigImpl(prices, volumes, orderMins);
     }
+
+    Map<String, String> loadWebSocketPairNames() {
+      Gson gson = new Gson();
+      Map<String, String> webSocketPairNames = new HashMap<>();
+
+      for (Entry<String, Object> entry : this.entrySet()) {
+        JsonObject jsonObject = gson.toJsonTree(entry.getValue()).getAsJsonObject();
+        if (jsonObject.has("altname") && jsonObject.has("wsname")) {
+          webSocketPairNames.put(
+              jsonObject.get("altname").getAsString(), jsonObject.get("wsname").getAsString());
+        }
+      }
+      return webSocketPairNames;
+    }
+
+    Map<String, String> loadResultPairNames() {
+      Gson gson = new Gson();
+      Map<String, String> resultPairNames = new HashMap<>();
+
+      for (Entry<String, Object> entry : this.entrySet()) {
+        JsonObject jsonObject = gson.toJsonTree(entry.getValue()).getAsJsonObject();
+        if (jsonObject.has("altname")) {
+          resultPairNames.put(jsonObject.get("altname").getAsString(), entry.getKey());
+        }
+      }
+      return resultPairNames;
+    }
   }
 
   /** GSON class that wraps an Open Order API call result - your open orders. */
@@ -701,6 +1056,18 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /** GSON class that wraps a Closed Order API call result - your closed orders. */
+  private static class KrakenClosedOrderResult {
+
+    Map<String, KrakenOpenOrder> closed;
+    int count;
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("closed", closed).add("count", count).toString();
+    }
+  }
+
   /** GSON class the represents a Kraken Open Order. */
   private static class KrakenOpenOrder {
 
@@ -838,77 +1205,105 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     public KrakenTickerResult deserialize(
         JsonElement json, Type type, JsonDeserializationContext context) {
 
-      final KrakenTickerResult krakenTickerResult = new KrakenTickerResult();
       if (json.isJsonObject()) {
-
-        final JsonObject jsonObject = json.getAsJsonObject();
-
         // assume 1 (KV) entry as per API spec - the K is the market id, the V is a Map of ticker
         // params
-        final JsonElement tickerParams = jsonObject.entrySet().iterator().next().getValue();
-
-        final JsonObject tickerMap = tickerParams.getAsJsonObject();
-        for (Map.Entry<String, JsonElement> jsonTickerParam : tickerMap.entrySet()) {
-
-          final String key = jsonTickerParam.getKey();
-          switch (key) {
-            case "c":
-              final List<String> lastTradeDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("c", lastTradeDetails.get(0));
-              break;
-
-            case "b":
-              final List<String> bidDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("b", bidDetails.get(0));
-              break;
-
-            case "a":
-              final List<String> askDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("a", askDetails.get(0));
-              break;
-
-            case "l":
-              final List<String> lowDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("l", lowDetails.get(1));
-              break;
-
-            case "h":
-              final List<String> highDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("h", highDetails.get(1));
-              break;
-
-            case "o":
-              final String openDetails =
-                  context.deserialize(jsonTickerParam.getValue(), String.class);
-              krakenTickerResult.put("o", openDetails);
-              break;
-
-            case "v":
-              final List<String> volumeDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("v", volumeDetails.get(1));
-              break;
-
-            case "p":
-              final List<String> vWapDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("p", vWapDetails.get(1));
-              break;
-
-            default:
-              LOG.warn(() -> "Received unexpected Ticker param - ignoring: " + key);
-          }
+        final JsonElement tickerParams =
+            json.getAsJsonObject().entrySet().iterator().next().getValue();
+        return adaptKrakenTickerParams(tickerParams.getAsJsonObject(), context);
+      }
+      return new KrakenTickerResult();
+    }
+  }
+
+  /**
+   * Custom GSON Deserializer for a Ticker API call result for several pairs. The result is keyed by
+   * Kraken's pair name.
+   */
+  private static class KrakenTickersResultDeserializer
+      implements JsonDeserializer<KrakenTickersResult> {
+
+    KrakenTickersResultDeserializer() {
+    }
+
+    public KrakenTickersResult deserialize(
+        JsonElement json, Type type, JsonDeserializationContext context) {
+
+      final KrakenTickersResult krakenTickersResult = new KrakenTickersResult();
+      if (json.isJsonObject()) {
+        for (Map.Entry<String, JsonElement> pairTicker : json.getAsJsonObject().entrySet()) {
+          krakenTickersResult.put(
+              pairTicker.getKey(),
+              adaptKrakenTickerParams(pairTicker.getValue().getAsJsonObject(), context));
         }
       }
-      return krakenTickerResult;
+      return krakenTickersResult;
     }
   }
 
+  private static KrakenTickerResult adaptKrakenTickerParams(
+      JsonObject tickerMap, JsonDeserializationContext context) {
+
+    final KrakenTickerResult krakenTickerResult = new KrakenTickerResult();
+    for (Map.Entry<String, JsonElement> jsonTickerParam : tickerMap.entrySet()) {
+
+      final String key = jsonTickerParam.getKey();
+      switch (key) {
+        case "c":
+          final List<String> lastTradeDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("c", lastTradeDetails.get(0));
+          break;
+
+        case "b":
+          final List<String> bidDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("b", bidDetails.get(0));
+          break;
+
+        case "a":
+          final List<String> askDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("a", askDetails.get(0));
+          break;
+
+        case "l":
+          final List<String> lowDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("l", lowDetails.get(1));
+          break;
+
+        case "h":
+          final List<String> highDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("h", highDetails.get(1));
+          break;
+
+        case "o":
+          final String openDetails =
+              context.deserialize(jsonTickerParam.getValue(), String.class);
+          krakenTickerResult.put("o", openDetails);
+          break;
+
+        case "v":
+          final List<String> volumeDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("v", volumeDetails.get(1));
+          break;
+
+        case "p":
+          final List<String> vWapDetails =
+              context.deserialize(jsonTickerParam.getValue(), List.class);
+          krakenTickerResult.put("p", vWapDetails.get(1));
+          break;
+
+        default:
+          LOG.warn(() -> "Received unexpected Ticker param - ignoring: " + key);
+      }
+    }
+    return krakenTickerResult;
+  }
+
   // --------------------------------------------------------------------------
   //  Transport layer methods
   // --------------------------------------------------------------------------
@@ -986,7 +1381,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       // The nonce is required by Kraken in every request.
       // It MUST be incremented each time and the nonce param MUST match the value used in
       // signature.
-      nonce++;
+      final long nonce = nonceProvider.next();
       params.put("nonce", Long.toString(nonce));
 
       // Build the URL with query param args in it - yuk!
@@ -1001,23 +1396,13 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       }
 
       // And now the tricky part... ;-o
-      final byte[] pathInBytes =
-          ("/" + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH + apiMethod)
-              .getBytes(StandardCharsets.UTF_8);
+      final String path = "/" + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH + apiMethod;
       final String noncePrependedToPostData = Long.toString(nonce) + postData;
 
-      // Create sha256 hash of nonce and post data:
-      final MessageDigest md = MessageDigest.getInstance("SHA-256");
-      md.update(noncePrependedToPostData.getBytes(StandardCharsets.UTF_8));
-      final byte[] messageHash = md.digest();
-
-      // Create hmac_sha512 digest of path and previous sha256 hash
-      mac.reset(); // force reset
-      mac.update(pathInBytes);
-      mac.update(messageHash);
-
+      // Create hmac_sha512 digest of path and sha256 hash of nonce and post data.
       // Signature in Base64
-      final String signature = Base64.getEncoder().encodeToString(mac.doFinal());
+      final String signature =
+          requestSigner.signWithHashedMessage(path, noncePrependedToPostData, Encoding.BASE64);
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -1028,7 +1413,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
       return makeNetworkRequest(url, "POST", postData.toString(), requestHeaders);
 
-    } catch (MalformedURLException | NoSuchAlgorithmException e) {
+    } catch (MalformedURLException e) {
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new TradingApiException(errorMsg, e);
@@ -1046,9 +1431,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       // Kraken secret key is in Base64, so we need to decode it first
       final byte[] base64DecodedSecret = Base64.getDecoder().decode(secret);
 
-      final SecretKeySpec keyspec = new SecretKeySpec(base64DecodedSecret, "HmacSHA512");
-      mac = Mac.getInstance("HmacSHA512");
-      mac.init(keyspec);
+      requestSigner = new RequestSigner("HmacSHA512", base64DecodedSecret);
       initializedMacAuthentication = true;
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HmacSHA512 installed?";
@@ -1092,6 +1475,39 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     } else {
       LOG.info(() -> KEEP_ALIVE_DURING_MAINTENANCE_PROPERTY_NAME + " is not set in exchange.yaml");
     }
+
+    final String webSocketOrderBookConfig = otherConfig.getItem(WEBSOCKET_ORDER_BOOK_PROPERTY_NAME);
+    if (Boolean.parseBoolean(webSocketOrderBookConfig)) {
+      final String depthConfig = otherConfig.getItem(WEBSOCKET_ORDER_BOOK_DEPTH_PROPERTY_NAME);
+      final int depth =
+          depthConfig == null || depthConfig.isEmpty()
+              ? DEFAULT_WEBSOCKET_ORDER_BOOK_DEPTH
+              : Integer.parseInt(depthConfig);
+      if (!WEBSOCKET_ORDER_BOOK_DEPTHS.contains(depth)) {
+        final String errorMsg =
+            WEBSOCKET_ORDER_BOOK_DEPTH_PROPERTY_NAME
+                + " must be one of "
+                + WEBSOCKET_ORDER_BOOK_DEPTHS
+                + ". Value: "
+                + depth;
+        LOG.error(errorMsg);
+        throw new IllegalArgumentException(errorMsg);
+      }
+      LOG.info(() -> "Using WebSocket order book feed with depth: " + depth);
+      webSocketFeed =
+          new KrakenWebSocketFeed(
+              URI.create(KRAKEN_WEBSOCKET_URI),
+              depth,
+              WEBSOCKET_RECONNECT_DELAY,
+              WEBSOCKET_STALE_TIMEOUT);
+    }
+
+    openOrdersIndex =
+        new OpenOrdersIndex(
+            getOptionalTimeToLiveConfigItem(otherConfig, OPEN_ORDERS_CACHE_TTL_PROPERTY_NAME));
+    balanceCache =
+        new BalanceCache(
+            getOptionalTimeToLiveConfigItem(otherConfig, BALANCE_CACHE_TTL_PROPERTY_NAME));
   }
 
   private void loadPairPrecisionConfig() {
@@ -1112,6 +1528,8 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
         }
 
         this.pairPrecisionConfig = krakenResponse.result.loadPrecisionConfig();
+        this.webSocketPairNames = krakenResponse.result.loadWebSocketPairNames();
+        this.resultPairNames = krakenResponse.result.loadResultPairNames();
       }
     } catch (ExchangeNetworkException | TradingApiException e) {
       final String errorMsg = "Failed to load price precision config";
@@ -1123,9 +1541,35 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   //  Util methods
   // --------------------------------------------------------------------------
 
-  private List<OpenOrder> adaptKrakenOpenOrders(KrakenResponse krakenResponse, String marketId)
+  /*
+   * The WebSocket API names pairs differently, e.g. XBT/USD for XBTUSD. Uses the wsname loaded
+   * from AssetPairs, else assumes a 3 letter base currency.
+   */
+  private String getWebSocketPairName(String marketId) {
+    final String pair = webSocketPairNames.get(marketId);
+    if (pair != null) {
+      return pair;
+    }
+    return marketId.substring(0, 3) + "/" + marketId.substring(3);
+  }
+
+  private static Ticker adaptKrakenTicker(KrakenTickerResult tickerResult) {
+    // ouch!
+    return new TickerImpl(
+        new BigDecimal(tickerResult.get("c")), // last trade
+        new BigDecimal(tickerResult.get("b")), // bid
+        new BigDecimal(tickerResult.get("a")), // ask
+        new BigDecimal(tickerResult.get("l")), // low 24h
+        new BigDecimal(tickerResult.get("h")), // high 24hr
+        new BigDecimal(tickerResult.get("o")), // open
+        new BigDecimal(tickerResult.get("v")), // volume 24hr
+        new BigDecimal(tickerResult.get("p")), // vwap 24hr
+        null); // timestamp not supplied by Kraken
+  }
+
+  private static Map<String, List<OpenOrder>> adaptKrakenOpenOrders(KrakenResponse krakenResponse)
       throws TradingApiException {
-    final List<OpenOrder> openOrders = new ArrayList<>();
+    final Map<String, List<OpenOrder>> openOrdersByMarket = new HashMap<>();
 
     // Assume we'll always get something here if errors array is empty; else blow fast wih NPE
     final KrakenOpenOrderResult krakenOpenOrderResult =
@@ -1139,10 +1583,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
         final KrakenOpenOrder krakenOpenOrder = openOrder.getValue();
         final KrakenOpenOrderDescription krakenOpenOrderDescription = krakenOpenOrder.descr;
 
-        if (!marketId.equalsIgnoreCase(krakenOpenOrderDescription.pair)) {
-          continue;
-        }
-
         switch (krakenOpenOrderDescription.type) {
           case "buy":
             orderType = OrderType.BUY;
@@ -1156,6 +1596,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
                     + openOrder.getValue().descr.ordertype);
         }
 
+        final String marketId = krakenOpenOrderDescription.pair.toUpperCase(Locale.ROOT);
         final OpenOrder order =
             new OpenOrderImpl(
                 openOrder.getKey(),
@@ -1170,10 +1611,35 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
                 // always 0 :-(
                 krakenOpenOrderDescription.price.multiply(krakenOpenOrder.vol));
 
-        openOrders.add(order);
+        openOrdersByMarket.computeIfAbsent(marketId, pair -> new ArrayList<>()).add(order);
+      }
+    }
+    return openOrdersByMarket;
+  }
+
+  /*
+   * The open orders are indexed by Kraken's pair name, but callers expect the market id they asked
+   * for, whatever its case.
+   */
+  private static List<OpenOrder> withMarketId(List<OpenOrder> openOrders, String marketId) {
+    final List<OpenOrder> marketOpenOrders = new ArrayList<>(openOrders.size());
+    for (final OpenOrder openOrder : openOrders) {
+      if (marketId.equals(openOrder.getMarketId())) {
+        marketOpenOrders.add(openOrder);
+      } else {
+        marketOpenOrders.add(
+            new OpenOrderImpl(
+                openOrder.getId(),
+                openOrder.getCreationDate(),
+                marketId,
+                openOrder.getType(),
+                openOrder.getPrice(),
+                openOrder.getQuantity(),
+                openOrder.getOriginalQuantity(),
+                openOrder.getTotal()));
       }
     }
-    return openOrders;
+    return marketOpenOrders;
   }
 
   private MarketOrderBookImpl adaptKrakenOrderBook(KrakenResponse krakenResponse, String marketId)
@@ -1215,6 +1681,86 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  /*
+   * Parses the Depth response straight into a fixed-point order book, scaled by the pair's
+   * precision, without creating a BigDecimal per price and quantity. Returns null if the pair's
+   * precision is not known or the response is not a plain order book, e.g. it has errors; the
+   * caller then adapts the response the usual way.
+   */
+  private FixedPointMarketOrderBook adaptKrakenOrderBookToFixedPoint(
+      ExchangeHttpResponse response, String marketId) {
+
+    if (pairPrecisionConfig == null) {
+      return null;
+    }
+    final int pricePrecision = pairPrecisionConfig.getPricePrecision(marketId);
+    final int volumePrecision = pairPrecisionConfig.getVolumePrecision(marketId);
+    if (pricePrecision < 0 || volumePrecision < 0) {
+      return null;
+    }
+
+    final FixedPointMarketOrderBook.Builder orderBook =
+        FixedPointMarketOrderBook.builder(marketId, pricePrecision, volumePrecision);
+    try (JsonReader reader = new JsonReader(response.getPayloadReader())) {
+      boolean hasResult = false;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if ("error".equals(name)) {
+          reader.beginArray();
+          if (reader.hasNext()) {
+            return null;
+          }
+          reader.endArray();
+        } else if ("result".equals(name)) {
+          reader.beginObject();
+          reader.nextName(); // 1 pair per request
+          readKrakenOrderBookLevels(reader, orderBook);
+          reader.endObject();
+          hasResult = true;
+        } else {
+          reader.skipValue();
+        }
+      }
+      return hasResult ? orderBook.build() : null;
+
+    } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+      LOG.warn(() -> "Failed to parse fixed-point order book, falling back: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /* Reads {"asks":[["price","volume",timestamp],...],"bids":[...]} - best price first. */
+  private static void readKrakenOrderBookLevels(
+      JsonReader reader, FixedPointMarketOrderBook.Builder orderBook) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      final String side = reader.nextName();
+      final boolean asks = "asks".equals(side);
+      if (!asks && !"bids".equals(side)) {
+        reader.skipValue();
+        continue;
+      }
+      reader.beginArray();
+      while (reader.hasNext()) {
+        reader.beginArray();
+        final String price = reader.nextString();
+        final String volume = reader.nextString();
+        while (reader.hasNext()) {
+          reader.skipValue();
+        }
+        reader.endArray();
+        if (asks) {
+          orderBook.addAsk(price, volume);
+        } else {
+          orderBook.addBid(price, volume);
+        }
+      }
+      reader.endArray();
+    }
+    reader.endObject();
+  }
+
   private boolean adaptKrakenCancelOrderResult(KrakenResponse krakenResponse) {
     // Assume we'll always get something here if errors array is empty; else blow fast wih NPE
     final KrakenCancelOrderResult krakenCancelOrderResult =
@@ -1272,6 +1818,8 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   private void initGson() {
     final GsonBuilder gsonBuilder = new GsonBuilder();
     gsonBuilder.registerTypeAdapter(KrakenTickerResult.class, new KrakenTickerResultDeserializer());
+    gsonBuilder.registerTypeAdapter(
+        KrakenTickersResult.class, new KrakenTickersResultDeserializer());
     gson = gsonBuilder.create();
   }
 
@@ -1297,6 +1845,26 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     return new HashMap<>();
   }
 
+  @Override
+  EndpointClass getEndpointClass(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.endsWith("/private/AddOrder") || path.endsWith("/private/CancelOrder")) {
+      return EndpointClass.TRADING;
+    }
+    return path.contains("/private/") ? EndpointClass.PRIVATE : EndpointClass.PUBLIC;
+  }
+
+  /*
+   * Kraken returns HTTP 200 with an error message when requests are throttled.
+   */
+  @Override
+  boolean isRateLimited(ExchangeHttpResponse exchangeResponse) {
+    return super.isRateLimited(exchangeResponse)
+        || exchangeResponse.payloadContains("EAPI:Rate limit exceeded")
+        || exchangeResponse.payloadContains("EOrder:Rate limit exceeded")
+        || exchangeResponse.payloadContains("EGeneral:Too many requests");
+  }
+
   /*
    * Hack for unit-testing transport layer.
    */
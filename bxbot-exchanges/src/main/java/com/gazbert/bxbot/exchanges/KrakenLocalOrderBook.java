@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A Kraken order book kept up to date from the WebSocket book channel.
+ *
+ * <p>The book starts from a snapshot and is then updated with the price levels that change. A
+ * level with a zero volume is removed, and the book is truncated to the subscribed depth after each
+ * update. The exchange sends a CRC32 checksum of the top 10 levels with each update; {@link
+ * #checksum()} computes the same checksum from the local book, so a missed or misapplied update
+ * can be detected. See <a
+ * href="https://docs.kraken.com/websockets/#book-checksum">Kraken book checksum</a>.
+ *
+ * <p>Price levels keep the exact strings sent by the exchange, as the checksum depends on them.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class KrakenLocalOrderBook {
+
+  private static final int CHECKSUM_DEPTH = 10;
+
+  private final int depth;
+  private final NavigableMap<BigDecimal, String[]> asks = new TreeMap<>();
+  private final NavigableMap<BigDecimal, String[]> bids = new TreeMap<>(Collections.reverseOrder());
+
+  /**
+   * Creates an empty order book.
+   *
+   * @param depth the subscribed depth, i.e. the number of price levels kept on each side.
+   */
+  KrakenLocalOrderBook(int depth) {
+    this.depth = depth;
+  }
+
+  /**
+   * Replaces the book with a snapshot.
+   *
+   * @param askLevels the ask price levels; each level is a price, a volume and a timestamp.
+   * @param bidLevels the bid price levels.
+   */
+  synchronized void applySnapshot(List<List<String>> askLevels, List<List<String>> bidLevels) {
+    asks.clear();
+    bids.clear();
+    apply(asks, askLevels);
+    apply(bids, bidLevels);
+  }
+
+  /**
+   * Applies an update to the asks.
+   *
+   * @param askLevels the ask price levels that changed.
+   */
+  synchronized void updateAsks(List<List<String>> askLevels) {
+    apply(asks, askLevels);
+  }
+
+  /**
+   * Applies an update to the bids.
+   *
+   * @param bidLevels the bid price levels that changed.
+   */
+  synchronized void updateBids(List<List<String>> bidLevels) {
+    apply(bids, bidLevels);
+  }
+
+  /**
+   * Computes the Kraken checksum of the book: the CRC32 of the top 10 asks, lowest first, followed
+   * by the top 10 bids, highest first. Each level contributes its price and then its volume, with
+   * the decimal point and leading zeros removed.
+   *
+   * @return the checksum, as an unsigned 32 bit value.
+   */
+  synchronized long checksum() {
+    final StringBuilder checksumInput = new StringBuilder();
+    appendChecksumInput(checksumInput, asks);
+    appendChecksumInput(checksumInput, bids);
+    final CRC32 crc32 = new CRC32();
+    crc32.update(checksumInput.toString().getBytes(StandardCharsets.US_ASCII));
+    return crc32.getValue();
+  }
+
+  /**
+   * Returns the best bid price.
+   *
+   * @return the best bid price, null if there are no bids.
+   */
+  synchronized BigDecimal getBestBid() {
+    return bids.isEmpty() ? null : bids.firstKey();
+  }
+
+  /**
+   * Returns the best ask price.
+   *
+   * @return the best ask price, null if there are no asks.
+   */
+  synchronized BigDecimal getBestAsk() {
+    return asks.isEmpty() ? null : asks.firstKey();
+  }
+
+  /**
+   * Returns a copy of the book adapted to the Trading API.
+   *
+   * @param marketId the market id.
+   * @return the market order book.
+   */
+  synchronized MarketOrderBook toMarketOrderBook(String marketId) {
+    return new MarketOrderBookImpl(
+        marketId, marketOrders(OrderType.SELL, asks), marketOrders(OrderType.BUY, bids));
+  }
+
+  private void apply(NavigableMap<BigDecimal, String[]> side, List<List<String>> levels) {
+    for (final List<String> level : levels) {
+      final String price = level.get(0);
+      final String volume = level.get(1);
+      final BigDecimal levelPrice = new BigDecimal(price);
+      if (new BigDecimal(volume).signum() == 0) {
+        side.remove(levelPrice);
+      } else {
+        side.put(levelPrice, new String[] {price, volume});
+      }
+    }
+    while (side.size() > depth) {
+      side.pollLastEntry();
+    }
+  }
+
+  private static void appendChecksumInput(
+      StringBuilder checksumInput, NavigableMap<BigDecimal, String[]> side) {
+    int levels = 0;
+    for (final String[] level : side.values()) {
+      if (levels++ == CHECKSUM_DEPTH) {
+        break;
+      }
+      checksumInput.append(checksumField(level[0])).append(checksumField(level[1]));
+    }
+  }
+
+  private static String checksumField(String value) {
+    final String digits = value.replace(".", "");
+    int start = 0;
+    while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+      start++;
+    }
+    return digits.substring(start);
+  }
+
+  private static List<MarketOrder> marketOrders(
+      OrderType orderType, NavigableMap<BigDecimal, String[]> side) {
+    final List<MarketOrder> marketOrders = new ArrayList<>(side.size());
+    for (final Map.Entry<BigDecimal, String[]> level : side.entrySet()) {
+      final BigDecimal price = level.getKey();
+      final BigDecimal quantity = new BigDecimal(level.getValue()[1]);
+      marketOrders.add(new MarketOrderImpl(orderType, price, quantity, price.multiply(quantity)));
+    }
+    return marketOrders;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Kraken WebSocket market data feed.
+ *
+ * <p>Subscribes to the book and ticker channels for the pairs the Exchange Adapter asks for, and
+ * keeps a {@link KrakenLocalOrderBook} and latest ticker per pair in memory. Each book update is
+ * checked against the exchange's checksum; on a mismatch the pair is resubscribed to get a fresh
+ * snapshot. If the connection drops, or goes quiet for longer than the stale timeout, the local
+ * books are discarded and the feed reconnects with exponential backoff, resubscribing all pairs.
+ *
+ * <p>The connection is opened when the first pair is subscribed. Until a pair's snapshot has
+ * arrived, {@link #getOrderBook(String, String)} and {@link #getTicker(String)} return null and
+ * the Exchange Adapter falls back to the REST API. See <a
+ * href="https://docs.kraken.com/websockets/">Kraken WebSockets API</a>.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class KrakenWebSocketFeed extends AbstractWebSocketFeed {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String BOOK_CHANNEL = "book";
+  private static final String TICKER_CHANNEL = "ticker";
+  private static final Type PRICE_LEVELS_TYPE = new TypeToken<List<List<String>>>() {}.getType();
+
+  private final int depth;
+  private final Gson gson = new Gson();
+
+  private final Set<String> pairs = ConcurrentHashMap.newKeySet();
+  private final Map<String, KrakenLocalOrderBook> orderBooks = new ConcurrentHashMap<>();
+  private final Map<String, Ticker> tickers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new feed.
+   *
+   * @param uri the WebSocket API URI.
+   * @param depth the book depth to subscribe to: 10, 25, 100, 500 or 1000.
+   * @param initialReconnectDelay the delay before the first reconnect attempt.
+   * @param staleTimeout how long the connection can go without a message, including heartbeats,
+   *     before it is considered dead.
+   */
+  KrakenWebSocketFeed(URI uri, int depth, Duration initialReconnectDelay, Duration staleTimeout) {
+    super("Kraken", uri, initialReconnectDelay, staleTimeout);
+    this.depth = depth;
+  }
+
+  /**
+   * Subscribes to the book and ticker channels for a pair. Does nothing if the pair is already
+   * subscribed.
+   *
+   * @param pair the WebSocket pair name, e.g. XBT/USD.
+   */
+  void subscribe(String pair) {
+    if (!pairs.add(pair)) {
+      return;
+    }
+    final WebSocket webSocket = getConnection();
+    if (webSocket != null) {
+      sendSubscribe(webSocket, List.of(pair), BOOK_CHANNEL);
+      sendSubscribe(webSocket, List.of(pair), TICKER_CHANNEL);
+    }
+  }
+
+  /**
+   * Returns a copy of the local order book for a pair.
+   *
+   * @param pair the WebSocket pair name.
+   * @param marketId the market id to put in the returned book.
+   * @return the order book, null if the book is not in sync with the exchange.
+   */
+  MarketOrderBook getOrderBook(String pair, String marketId) {
+    final KrakenLocalOrderBook orderBook = isStale() ? null : orderBooks.get(pair);
+    return orderBook == null ? null : orderBook.toMarketOrderBook(marketId);
+  }
+
+  /**
+   * Returns the latest ticker for a pair.
+   *
+   * @param pair the WebSocket pair name.
+   * @return the ticker, null if no ticker has been received since the feed last connected.
+   */
+  Ticker getTicker(String pair) {
+    return isStale() ? null : tickers.get(pair);
+  }
+
+  @Override
+  void onConnected(WebSocket webSocket) {
+    final List<String> subscribedPairs = new ArrayList<>(pairs);
+    sendSubscribe(webSocket, subscribedPairs, BOOK_CHANNEL);
+    sendSubscribe(webSocket, subscribedPairs, TICKER_CHANNEL);
+  }
+
+  @Override
+  void onDisconnected() {
+    orderBooks.clear();
+    tickers.clear();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Message handling
+  // --------------------------------------------------------------------------
+
+  @Override
+  void handleMessage(WebSocket webSocket, String message) {
+    final JsonElement json = JsonParser.parseString(message);
+    if (json.isJsonObject()) {
+      final JsonObject event = json.getAsJsonObject();
+      if (event.has("errorMessage")) {
+        LOG.error(() -> "Kraken WebSocket API error: " + message);
+      }
+      return;
+    }
+
+    // [channelID, payload..., channelName, pair]
+    final JsonArray channelMessage = json.getAsJsonArray();
+    final int size = channelMessage.size();
+    final String channelName = channelMessage.get(size - 2).getAsString();
+    final String pair = channelMessage.get(size - 1).getAsString();
+    if (channelName.startsWith(BOOK_CHANNEL)) {
+      for (int i = 1; i < size - 2; i++) {
+        handleBookMessage(webSocket, pair, channelMessage.get(i).getAsJsonObject());
+      }
+    } else if (TICKER_CHANNEL.equals(channelName)) {
+      tickers.put(pair, adaptTicker(channelMessage.get(1).getAsJsonObject()));
+    }
+  }
+
+  private void handleBookMessage(WebSocket webSocket, String pair, JsonObject bookMessage) {
+    if (bookMessage.has("as") || bookMessage.has("bs")) {
+      final KrakenLocalOrderBook orderBook = new KrakenLocalOrderBook(depth);
+      orderBook.applySnapshot(priceLevels(bookMessage, "as"), priceLevels(bookMessage, "bs"));
+      orderBooks.put(pair, orderBook);
+      return;
+    }
+
+    final KrakenLocalOrderBook orderBook = orderBooks.get(pair);
+    if (orderBook == null) {
+      return; // waiting for a snapshot
+    }
+    if (bookMessage.has("a")) {
+      orderBook.updateAsks(priceLevels(bookMessage, "a"));
+    }
+    if (bookMessage.has("b")) {
+      orderBook.updateBids(priceLevels(bookMessage, "b"));
+    }
+    if (bookMessage.has("c")) {
+      final long expectedChecksum = Long.parseLong(bookMessage.get("c").getAsString());
+      final long checksum = orderBook.checksum();
+      if (checksum != expectedChecksum) {
+        LOG.warn(
+            () ->
+                "Kraken order book checksum mismatch for "
+                    + pair
+                    + ": expected "
+                    + expectedChecksum
+                    + " but was "
+                    + checksum
+                    + " - resubscribing.");
+        orderBooks.remove(pair);
+        sendSubscription(webSocket, List.of(pair), BOOK_CHANNEL, "unsubscribe");
+        sendSubscription(webSocket, List.of(pair), BOOK_CHANNEL, "subscribe");
+      }
+    }
+  }
+
+  private List<List<String>> priceLevels(JsonObject bookMessage, String side) {
+    final JsonElement priceLevels = bookMessage.get(side);
+    return priceLevels == null ? List.of() : gson.fromJson(priceLevels, PRICE_LEVELS_TYPE);
+  }
+
+  /*
+   * Uses the same fields as the REST Ticker call: today's open, and the last 24 hours for the
+   * rest.
+   */
+  private static Ticker adaptTicker(JsonObject ticker) {
+    return new TickerImpl(
+        tickerField(ticker, "c", 0),
+        tickerField(ticker, "b", 0),
+        tickerField(ticker, "a", 0),
+        tickerField(ticker, "l", 1),
+        tickerField(ticker, "h", 1),
+        tickerField(ticker, "o", 0),
+        tickerField(ticker, "v", 1),
+        tickerField(ticker, "p", 1),
+        null);
+  }
+
+  private static BigDecimal tickerField(JsonObject ticker, String name, int index) {
+    return new BigDecimal(ticker.getAsJsonArray(name).get(index).getAsString());
+  }
+
+  private void sendSubscribe(WebSocket webSocket, List<String> subscribePairs, String channel) {
+    if (!subscribePairs.isEmpty()) {
+      sendSubscription(webSocket, subscribePairs, channel, "subscribe");
+    }
+  }
+
+  private void sendSubscription(
+      WebSocket webSocket, List<String> subscribePairs, String channel, String event) {
+    final Map<String, Object> subscription = new LinkedHashMap<>();
+    subscription.put("name", channel);
+    if (BOOK_CHANNEL.equals(channel)) {
+      subscription.put("depth", depth);
+    }
+    final Map<String, Object> request = new LinkedHashMap<>();
+    request.put("event", event);
+    request.put("pair", subscribePairs);
+    request.put("subscription", subscription);
+    send(webSocket, gson.toJson(request));
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Provides the always increasing nonces that exchanges require in authenticated requests.
+ *
+ * <p>Nonces are handed out with an atomic increment, so no two threads are given the same nonce.
+ * This does not make it safe to send authenticated requests in parallel: the exchanges reject a
+ * request whose nonce arrives after a higher one, e.g. Kraken unless its nonce window is set.
+ *
+ * <p>To survive a restart without reusing nonces, a high-water mark is persisted to a file. Nonces
+ * are reserved in blocks: the end of the block is written and fsync-ed before any nonce in it is
+ * handed out, so there is 1 fsync per {@link #RESERVATION_SIZE} nonces, and a restart carries on
+ * after the end of the last block. The file lives in the directory named by the
+ * bxbot.exchange.nonce.dir system property, default ./nonces.
+ *
+ * <p>There is 1 provider per exchange and API key, shared by every adapter using the key.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+final class NonceProvider {
+
+  /** The number of nonces reserved by each write of the high-water mark. */
+  static final long RESERVATION_SIZE = 1000;
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String NONCE_DIRECTORY_SYSTEM_PROPERTY = "bxbot.exchange.nonce.dir";
+  private static final String DEFAULT_NONCE_DIRECTORY = "nonces";
+  private static final String FILE_EXTENSION = ".nonce";
+  private static final int KEY_HASH_HEX_LENGTH = 16;
+
+  private static final ConcurrentMap<Path, NonceProvider> PROVIDERS = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final AtomicLong lastNonce;
+  private volatile long reservedUpTo;
+
+  /**
+   * Creates a new provider.
+   *
+   * @param file the file the high-water mark is persisted to.
+   * @param seed the first nonce to hand out, if it's past the persisted high-water mark.
+   */
+  NonceProvider(Path file, long seed) {
+    this.file = file;
+    final long highWaterMark = readHighWaterMark(file);
+    reservedUpTo = highWaterMark;
+    lastNonce = new AtomicLong(Math.max(seed - 1, highWaterMark));
+  }
+
+  /**
+   * Returns the provider for an exchange and API key, creating it if needed.
+   *
+   * @param exchangeName the exchange name.
+   * @param apiKey the API key; it is hashed, not stored.
+   * @param seed the first nonce to hand out, if no higher one has been handed out before.
+   * @return the provider.
+   */
+  static NonceProvider forApiKey(String exchangeName, String apiKey, long seed) {
+    final Path directory =
+        Paths.get(System.getProperty(NONCE_DIRECTORY_SYSTEM_PROPERTY, DEFAULT_NONCE_DIRECTORY));
+    final Path file =
+        directory
+            .resolve(exchangeName.toLowerCase(Locale.ROOT) + "-" + hash(apiKey) + FILE_EXTENSION)
+            .toAbsolutePath();
+    final NonceProvider provider =
+        PROVIDERS.computeIfAbsent(file, nonceFile -> new NonceProvider(nonceFile, seed));
+    provider.advanceTo(seed);
+    return provider;
+  }
+
+  /**
+   * Returns the next nonce. It is higher than every nonce handed out before, including before a
+   * restart.
+   *
+   * @return the next nonce.
+   */
+  long next() {
+    final long nonce = lastNonce.incrementAndGet();
+    if (nonce > reservedUpTo) {
+      reserve(nonce);
+    }
+    return nonce;
+  }
+
+  /*
+   * Makes sure the next nonce is at least the given one, e.g. after a re-init seeded from the
+   * clock.
+   */
+  void advanceTo(long nonce) {
+    lastNonce.accumulateAndGet(nonce - 1, Math::max);
+  }
+
+  private synchronized void reserve(long nonce) {
+    if (nonce <= reservedUpTo) {
+      return; // another thread reserved it while we were waiting
+    }
+    final long highWaterMark = nonce + RESERVATION_SIZE;
+    try {
+      writeHighWaterMark(highWaterMark);
+    } catch (IOException e) {
+      LOG.error(
+          () ->
+              "Failed to persist nonce high-water mark to " + file
+                  + " - nonces may be reused after a restart",
+          e);
+    }
+    reservedUpTo = highWaterMark;
+  }
+
+  /* Writes to a temp file and moves it into place, so a crash never leaves a partial file. */
+  private void writeHighWaterMark(long highWaterMark) throws IOException {
+    Files.createDirectories(file.getParent());
+    final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            tempFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      final ByteBuffer buffer =
+          ByteBuffer.wrap((highWaterMark + "\n").getBytes(StandardCharsets.US_ASCII));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(
+        tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static long readHighWaterMark(Path file) {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    try {
+      final String highWaterMark = Files.readString(file, StandardCharsets.US_ASCII).trim();
+      LOG.info(() -> "Resuming nonces after " + highWaterMark + " from " + file);
+      return Long.parseLong(highWaterMark);
+    } catch (IOException | NumberFormatException e) {
+      LOG.error(() -> "Failed to read nonce high-water mark from " + file + " - ignoring it", e);
+      return 0;
+    }
+  }
+
+  private static String hash(String apiKey) {
+    try {
+      final byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder();
+      for (int i = 0; hex.length() < KEY_HASH_HEX_LENGTH; i++) {
+        hex.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+        hex.append(Character.forDigit(hash[i] & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Failed to create SHA-256 digest", e);
+    }
+  }
+}
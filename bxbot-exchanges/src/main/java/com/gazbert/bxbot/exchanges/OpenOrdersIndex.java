@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Index of all the open orders on the exchange account, split by market.
+ *
+ * <p>Some exchanges only return the open orders for the whole account. Instead of fetching and
+ * parsing them again for every market, the adapter stores them here and serves each market's
+ * orders from the index until the time to live has passed.
+ *
+ * <p>The index must be invalidated after an order is created or cancelled. A refresh that was
+ * started before the invalidation is thrown away, so the index never holds orders older than the
+ * last create or cancel.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+class OpenOrdersIndex {
+
+  private final long timeToLiveInNanos;
+  private final LongSupplier nanoClock;
+
+  private Map<String, List<OpenOrder>> openOrdersByMarket;
+  private long refreshedAtNanos;
+  private long generation;
+
+  /**
+   * Creates the index.
+   *
+   * @param timeToLiveInMillis how long the open orders are served from the index. 0 disables the
+   *     index.
+   */
+  OpenOrdersIndex(long timeToLiveInMillis) {
+    this(timeToLiveInMillis, System::nanoTime);
+  }
+
+  OpenOrdersIndex(long timeToLiveInMillis, LongSupplier nanoClock) {
+    this.timeToLiveInNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveInMillis);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Returns the open orders for a market.
+   *
+   * @param marketId the market id.
+   * @return the market's open orders, or null if the index is empty or has expired. The list is
+   *     immutable.
+   */
+  synchronized List<OpenOrder> getOpenOrders(String marketId) {
+    if (openOrdersByMarket == null
+        || nanoClock.getAsLong() - refreshedAtNanos >= timeToLiveInNanos) {
+      return null;
+    }
+    return openOrdersByMarket.getOrDefault(toKey(marketId), List.of());
+  }
+
+  /**
+   * Returns the generation to pass to {@link #refresh(long, Map)}. Call it before fetching the
+   * open orders from the exchange.
+   *
+   * @return the current generation.
+   */
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Replaces the index with the open orders just fetched from the exchange. They are ignored if
+   * the index was invalidated since the fetch started.
+   *
+   * @param fetchGeneration the generation returned before the fetch started.
+   * @param openOrders all the open orders on the account, keyed by market id.
+   */
+  synchronized void refresh(long fetchGeneration, Map<String, List<OpenOrder>> openOrders) {
+    if (timeToLiveInNanos == 0 || fetchGeneration != generation) {
+      return;
+    }
+    final Map<String, List<OpenOrder>> index = new HashMap<>();
+    openOrders.forEach((marketId, orders) -> index.put(toKey(marketId), List.copyOf(orders)));
+    openOrdersByMarket = Map.copyOf(index);
+    refreshedAtNanos = nanoClock.getAsLong();
+  }
+
+  /** Empties the index. Call it after an order is created or cancelled. */
+  synchronized void invalidate() {
+    generation++;
+    openOrdersByMarket = null;
+  }
+
+  private static String toKey(String marketId) {
+    return marketId.toUpperCase(Locale.ROOT);
+  }
+}
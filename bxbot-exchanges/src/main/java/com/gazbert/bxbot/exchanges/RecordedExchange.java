@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A request/response pair recorded by the {@link RecordingTransport} and served by the {@link
+ * ReplayTransport}.
+ *
+ * <p>Recordings are written as JSON Lines: one exchange per line, keyed on the request method,
+ * path and query. The replay transport indexes them by key when the file is loaded.
+ *
+ * @author gazbert
+ */
+class RecordedExchange {
+
+  static final String REDACTED = "REDACTED";
+
+  private static final List<String> SENSITIVE_HEADER_PREFIXES =
+      List.of("api-key", "api-sign", "x-bfx-", "x-gemini-", "cb-access-", "x-auth-");
+  private static final List<String> SENSITIVE_HEADERS = List.of("authorization");
+  private static final List<String> SENSITIVE_FORM_PARAMS = List.of("key", "signature", "otp");
+
+  String key;
+  String method;
+  String uri;
+  Map<String, String> requestHeaders;
+  String requestBody;
+  int statusCode;
+  Map<String, List<String>> responseHeaders;
+  String responseBody;
+
+  /**
+   * Builds the key that recorded exchanges are indexed on.
+   *
+   * @param httpMethod the HTTP method.
+   * @param uri the request URI.
+   * @return the key.
+   */
+  static String requestKey(String httpMethod, URI uri) {
+    final String query = uri.getRawQuery();
+    return httpMethod + " " + uri.getRawPath() + (query != null ? "?" + query : "");
+  }
+
+  /**
+   * Checks if a request header carries credentials or signatures and must not be recorded.
+   *
+   * @param name the header name.
+   * @return true if the header value must be redacted, false otherwise.
+   */
+  static boolean isSensitiveHeader(String name) {
+    final String lowerCaseName = name.toLowerCase(Locale.ROOT);
+    if (SENSITIVE_HEADERS.contains(lowerCaseName)) {
+      return true;
+    }
+    for (final String prefix : SENSITIVE_HEADER_PREFIXES) {
+      if (lowerCaseName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Redacts the credential and signature params from a form encoded request body. Other bodies,
+   * e.g. JSON, are returned unchanged; the adapters only send credentials in headers or forms.
+   *
+   * @param body the request body. This can be null.
+   * @return the redacted body.
+   */
+  static String redactFormBody(String body) {
+    if (body == null || body.isEmpty() || body.startsWith("{") || body.startsWith("[")) {
+      return body;
+    }
+    final StringBuilder redacted = new StringBuilder(body.length());
+    for (final String param : body.split("&", -1)) {
+      if (redacted.length() > 0) {
+        redacted.append('&');
+      }
+      final int equals = param.indexOf('=');
+      final String name = equals < 0 ? param : param.substring(0, equals);
+      if (equals >= 0 && SENSITIVE_FORM_PARAMS.contains(name.toLowerCase(Locale.ROOT))) {
+        redacted.append(name).append('=').append(REDACTED);
+      } else {
+        redacted.append(param);
+      }
+    }
+    return redacted.toString();
+  }
+}
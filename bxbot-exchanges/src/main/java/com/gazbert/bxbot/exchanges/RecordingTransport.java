@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transport that sends requests to the exchange using another transport and appends each
+ * request/response pair to a recording file. The recording can be replayed by the {@link
+ * ReplayTransport} to load test the bot without hitting the exchange.
+ *
+ * <p>Credentials and signatures are redacted before anything is written to the file.
+ *
+ * @author gazbert
+ */
+class RecordingTransport implements ExchangeHttpTransport {
+
+  private final ExchangeHttpTransport delegate;
+  private final Path recordingFile;
+  private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+  private BufferedWriter writer;
+
+  /**
+   * Creates the recording transport.
+   *
+   * @param delegate the transport used to send the requests.
+   * @param recordingFile the file to append the recording to. It is created if it does not exist.
+   */
+  RecordingTransport(ExchangeHttpTransport delegate, Path recordingFile) {
+    this.delegate = delegate;
+    this.recordingFile = recordingFile;
+  }
+
+  @Override
+  public ExchangeHttpResponse send(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException {
+    final ExchangeHttpResponse response =
+        delegate.send(uri, httpMethod, postData, requestHeaders);
+
+    final RecordedExchange recorded = new RecordedExchange();
+    recorded.key = RecordedExchange.requestKey(httpMethod, uri);
+    recorded.method = httpMethod;
+    recorded.uri = uri.toString();
+    recorded.requestHeaders = redactHeaders(requestHeaders);
+    recorded.requestBody = RecordedExchange.redactFormBody(postData);
+    recorded.statusCode = response.getStatusCode();
+    recorded.responseHeaders = response.getHeaders();
+    recorded.responseBody = response.getPayload();
+    append(gson.toJson(recorded));
+
+    return response;
+  }
+
+  private synchronized void append(String line) throws IOException {
+    if (writer == null) {
+      writer =
+          Files.newBufferedWriter(
+              recordingFile,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND);
+    }
+    writer.write(line);
+    writer.newLine();
+    writer.flush();
+  }
+
+  private static Map<String, String> redactHeaders(Map<String, String> requestHeaders) {
+    final Map<String, String> redacted = new LinkedHashMap<>();
+    if (requestHeaders == null) {
+      return redacted;
+    }
+    for (final Map.Entry<String, String> header : requestHeaders.entrySet()) {
+      redacted.put(
+          header.getKey(),
+          RecordedExchange.isSensitiveHeader(header.getKey())
+              ? RecordedExchange.REDACTED
+              : header.getValue());
+    }
+    return redacted;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Transport that serves responses from a file recorded by the {@link RecordingTransport}. Nothing
+ * is sent to the exchange, so strategies can be load tested deterministically and offline.
+ *
+ * <p>The responses recorded for each request method, path and query are served in the order they
+ * were recorded, starting again from the first one when they run out. An optional fixed latency
+ * can be added to each response to simulate the network.
+ *
+ * @author gazbert
+ */
+class ReplayTransport implements ExchangeHttpTransport {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final Map<String, List<RecordedExchange>> recordings;
+  private final Map<String, AtomicInteger> nextResponseIndexes = new HashMap<>();
+  private final long latencyInMillis;
+
+  /**
+   * Creates the replay transport.
+   *
+   * @param recordingFile the recording to replay.
+   * @param latencyInMillis the latency to add to each response. 0 means no latency.
+   * @throws IOException if the recording could not be read.
+   */
+  ReplayTransport(Path recordingFile, long latencyInMillis) throws IOException {
+    this.recordings = load(recordingFile);
+    this.latencyInMillis = latencyInMillis;
+    for (final String key : recordings.keySet()) {
+      nextResponseIndexes.put(key, new AtomicInteger());
+    }
+    LOG.info(
+        () ->
+            "Loaded recorded responses for " + recordings.size() + " requests from "
+                + recordingFile);
+  }
+
+  @Override
+  public ExchangeHttpResponse send(
+      URI uri, String httpMethod, String postData, Map<String, String> requestHeaders)
+      throws IOException, InterruptedException {
+    final String key = RecordedExchange.requestKey(httpMethod, uri);
+    final List<RecordedExchange> responses = recordings.get(key);
+    if (responses == null) {
+      throw new IOException("No recorded response for request: " + key);
+    }
+
+    final int index =
+        Math.floorMod(nextResponseIndexes.get(key).getAndIncrement(), responses.size());
+    final RecordedExchange recorded = responses.get(index);
+
+    if (latencyInMillis > 0) {
+      TimeUnit.MILLISECONDS.sleep(latencyInMillis);
+    }
+
+    return new ExchangeHttpResponse(
+        recorded.statusCode,
+        "",
+        recorded.responseBody != null
+            ? recorded.responseBody.getBytes(StandardCharsets.UTF_8)
+            : new byte[0],
+        recorded.responseHeaders != null ? recorded.responseHeaders : Collections.emptyMap());
+  }
+
+  private static Map<String, List<RecordedExchange>> load(Path recordingFile) throws IOException {
+    final Gson gson = new Gson();
+    final Map<String, List<RecordedExchange>> loaded = new HashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(recordingFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        final RecordedExchange recorded = gson.fromJson(line, RecordedExchange.class);
+        loaded.computeIfAbsent(recorded.key, k -> new ArrayList<>()).add(recorded);
+      }
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import java.security.DigestException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs authenticated exchange requests with an HMAC.
+ *
+ * <p>A {@link Mac} is not thread-safe and is expensive to create, so each thread gets its own,
+ * created once and initialised with the secret. Messages are UTF-8 encoded, hashed and signed in
+ * per-thread buffers that are reused across requests, and the signature is hex or Base64 encoded
+ * with lookup tables, so the only allocation per request is the returned String.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author gazbert
+ */
+final class RequestSigner {
+
+  /** How a signature is encoded. */
+  enum Encoding {
+    HEX_LOWER_CASE,
+    HEX_UPPER_CASE,
+    BASE64
+  }
+
+  private static final char[] HEX_LOWER_CASE = "0123456789abcdef".toCharArray();
+  private static final char[] HEX_UPPER_CASE = "0123456789ABCDEF".toCharArray();
+  private static final char[] BASE64 =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+  private static final String SHA_256 = "SHA-256";
+  private static final int SHA_256_LENGTH = 32;
+  private static final int MAX_MAC_LENGTH = 64;
+
+  private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+  private final String algorithm;
+  private final SecretKeySpec secretKey;
+  private final ThreadLocal<Mac> macs;
+
+  /**
+   * Creates a new signer.
+   *
+   * @param algorithm the HMAC algorithm, e.g. HmacSHA256.
+   * @param secret the secret key.
+   * @throws NoSuchAlgorithmException if the algorithm is not available.
+   * @throws InvalidKeyException if the secret cannot be used as a key for the algorithm.
+   */
+  RequestSigner(String algorithm, byte[] secret)
+      throws NoSuchAlgorithmException, InvalidKeyException {
+    this.algorithm = algorithm;
+    this.secretKey = new SecretKeySpec(secret, algorithm);
+    createMac(); // fail fast if the algorithm or key are no good
+    this.macs = ThreadLocal.withInitial(this::createMacForThread);
+  }
+
+  /**
+   * Signs a message.
+   *
+   * @param message the message; it is UTF-8 encoded before signing.
+   * @param encoding how to encode the signature.
+   * @return the encoded signature.
+   */
+  String sign(CharSequence message, Encoding encoding) {
+    final Buffers buffers = BUFFERS.get();
+    final Mac mac = macs.get();
+    final int length = buffers.encodeUtf8(message);
+    mac.update(buffers.bytes, 0, length);
+    return encode(buffers, doFinal(mac, buffers), encoding);
+  }
+
+  /**
+   * Signs a prefix followed by the SHA-256 hash of a message: HMAC(prefix + SHA-256(message)).
+   * Kraken and itBit sign requests this way.
+   *
+   * @param prefix the prefix, e.g. the request path; it is UTF-8 encoded before signing.
+   * @param message the message to hash; it is UTF-8 encoded before hashing.
+   * @param encoding how to encode the signature.
+   * @return the encoded signature.
+   */
+  String signWithHashedMessage(CharSequence prefix, CharSequence message, Encoding encoding) {
+    final Buffers buffers = BUFFERS.get();
+    final Mac mac = macs.get();
+
+    int length = buffers.encodeUtf8(message);
+    buffers.sha256.update(buffers.bytes, 0, length);
+    try {
+      buffers.sha256.digest(buffers.messageHash, 0, SHA_256_LENGTH);
+    } catch (DigestException e) {
+      throw new IllegalStateException("Failed to hash message", e);
+    }
+
+    length = buffers.encodeUtf8(prefix);
+    mac.update(buffers.bytes, 0, length);
+    mac.update(buffers.messageHash);
+    return encode(buffers, doFinal(mac, buffers), encoding);
+  }
+
+  /**
+   * Base64 encodes a message, e.g. a request payload.
+   *
+   * @param message the message; it is UTF-8 encoded before Base64 encoding.
+   * @return the Base64 encoded message.
+   */
+  static String base64(CharSequence message) {
+    final Buffers buffers = BUFFERS.get();
+    final int length = buffers.encodeUtf8(message);
+    return encode(buffers, length, Encoding.BASE64);
+  }
+
+  private Mac createMac() throws NoSuchAlgorithmException, InvalidKeyException {
+    final Mac mac = Mac.getInstance(algorithm);
+    mac.init(secretKey);
+    return mac;
+  }
+
+  private Mac createMacForThread() {
+    try {
+      return createMac();
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      // the constructor has already created one with the same algorithm and key
+      throw new IllegalStateException("Failed to create " + algorithm + " MAC", e);
+    }
+  }
+
+  /* Puts the MAC in the buffers' bytes and returns its length. */
+  private static int doFinal(Mac mac, Buffers buffers) {
+    try {
+      final int length = mac.getMacLength();
+      mac.doFinal(buffers.bytes, 0);
+      return length;
+    } catch (ShortBufferException e) {
+      throw new IllegalStateException("MAC is longer than " + MAX_MAC_LENGTH + " bytes", e);
+    }
+  }
+
+  /* Encodes the first length bytes in the buffers. */
+  private static String encode(Buffers buffers, int length, Encoding encoding) {
+    switch (encoding) {
+      case HEX_LOWER_CASE:
+        return encodeHex(buffers, length, HEX_LOWER_CASE);
+      case HEX_UPPER_CASE:
+        return encodeHex(buffers, length, HEX_UPPER_CASE);
+      default:
+        return encodeBase64(buffers, length);
+    }
+  }
+
+  private static String encodeHex(Buffers buffers, int length, char[] digits) {
+    final char[] chars = buffers.chars(length * 2);
+    final byte[] bytes = buffers.bytes;
+    for (int i = 0, j = 0; i < length; i++) {
+      chars[j++] = digits[(bytes[i] >> 4) & 0xf];
+      chars[j++] = digits[bytes[i] & 0xf];
+    }
+    return new String(chars, 0, length * 2);
+  }
+
+  private static String encodeBase64(Buffers buffers, int length) {
+    final int encodedLength = (length + 2) / 3 * 4;
+    final char[] chars = buffers.chars(encodedLength);
+    final byte[] bytes = buffers.bytes;
+    int i = 0;
+    int j = 0;
+    for (; i + 2 < length; i += 3) {
+      final int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | bytes[i + 2] & 0xff;
+      chars[j++] = BASE64[bits >>> 18];
+      chars[j++] = BASE64[(bits >>> 12) & 0x3f];
+      chars[j++] = BASE64[(bits >>> 6) & 0x3f];
+      chars[j++] = BASE64[bits & 0x3f];
+    }
+    final int remaining = length - i;
+    if (remaining > 0) {
+      final int bits = (bytes[i] & 0xff) << 16 | (remaining == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+      chars[j++] = BASE64[bits >>> 18];
+      chars[j++] = BASE64[(bits >>> 12) & 0x3f];
+      chars[j++] = remaining == 2 ? BASE64[(bits >>> 6) & 0x3f] : '=';
+      chars[j++] = '=';
+    }
+    return new String(chars, 0, encodedLength);
+  }
+
+  /** Per-thread buffers, grown as needed and reused across requests. */
+  private static final class Buffers {
+
+    private final MessageDigest sha256;
+    private final byte[] messageHash = new byte[SHA_256_LENGTH];
+    private byte[] bytes = new byte[1024];
+    private char[] chars = new char[256];
+
+    Buffers() {
+      try {
+        sha256 = MessageDigest.getInstance(SHA_256);
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("Failed to create " + SHA_256 + " digest", e);
+      }
+    }
+
+    char[] chars(int length) {
+      if (chars.length < length) {
+        chars = new char[Math.max(length, chars.length * 2)];
+      }
+      return chars;
+    }
+
+    /*
+     * UTF-8 encodes into the bytes buffer and returns the length. Like String.getBytes, unpaired
+     * surrogates are replaced with '?'.
+     */
+    int encodeUtf8(CharSequence text) {
+      final int maxLength = Math.max(text.length() * 3, MAX_MAC_LENGTH);
+      if (bytes.length < maxLength) {
+        bytes = new byte[Math.max(maxLength, bytes.length * 2)];
+      }
+      int length = 0;
+      for (int i = 0; i < text.length(); i++) {
+        final char c = text.charAt(i);
+        if (c < 0x80) {
+          bytes[length++] = (byte) c;
+        } else if (c < 0x800) {
+          bytes[length++] = (byte) (0xc0 | c >> 6);
+          bytes[length++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isSurrogate(c)) {
+          if (Character.isHighSurrogate(c)
+              && i + 1 < text.length()
+              && Character.isLowSurrogate(text.charAt(i + 1))) {
+            final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+            bytes[length++] = (byte) (0xf0 | codePoint >> 18);
+            bytes[length++] = (byte) (0x80 | (codePoint >> 12) & 0x3f);
+            bytes[length++] = (byte) (0x80 | (codePoint >> 6) & 0x3f);
+            bytes[length++] = (byte) (0x80 | codePoint & 0x3f);
+          } else {
+            bytes[length++] = '?';
+          }
+        } else {
+          bytes[length++] = (byte) (0xe0 | c >> 12);
+          bytes[length++] = (byte) (0x80 | (c >> 6) & 0x3f);
+          bytes[length++] = (byte) (0x80 | c & 0x3f);
+        }
+      }
+      return length;
+    }
+  }
+}
@@ -37,10 +37,12 @@ import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -117,6 +119,14 @@ public class TryModeExchangeAdapter extends AbstractExchangeAdapter implements E
     return delegateExchangeAdapter.getMarketOrders(marketId);
   }
 
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws ExchangeNetworkException, TradingApiException {
+    checkOpenOrderExecution(marketId);
+    LOG.info(() -> "Delegate 'getMarketOrders' to the configured delegation exchange adapter.");
+    return delegateExchangeAdapter.getMarketOrders(marketId, depth);
+  }
+
   @Override
   public List<OpenOrder> getYourOpenOrders(String marketId)
       throws ExchangeNetworkException, TradingApiException {
@@ -207,6 +217,16 @@ public class TryModeExchangeAdapter extends AbstractExchangeAdapter implements E
     return delegateExchangeAdapter.getTicker(marketId);
   }
 
+  @Override
+  public Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    for (final String marketId : marketIds) {
+      checkOpenOrderExecution(marketId);
+    }
+    LOG.info(() -> "Delegate 'getTickers' to the configured delegation exchange adapter.");
+    return delegateExchangeAdapter.getTickers(marketIds);
+  }
+
   private void setOtherConfig(ExchangeConfig exchangeConfig) {
     LOG.info(() -> "Load try-mode adapter config...");
     final OtherConfig otherConfig = getOtherConfig(exchangeConfig);
@@ -0,0 +1,481 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A MarketOrderBook implementation that stores prices and quantities as fixed-point longs.
+ *
+ * <p>Each side of the book is a pair of parallel long arrays of prices and quantities, scaled by
+ * 10^priceScale and 10^quantityScale. A book is parsed straight from the exchange's decimal
+ * strings, without creating a BigDecimal or MarketOrder per level, and best bid/ask, depth at a
+ * price and VWAP queries run on the long arrays.
+ *
+ * <p>The {@link #getSellOrders()} and {@link #getBuyOrders()} lists are read-only views over the
+ * arrays: a level's {@link MarketOrder} is only created when it's first read, then kept, so
+ * strategies that only look at the top of the book only pay for the top of the book.
+ *
+ * <p>Instances are immutable once built. Racing first reads of a level from different threads may
+ * each create an equal MarketOrder, which is harmless.
+ *
+ * @author gazbert
+ */
+public final class FixedPointMarketOrderBook implements MarketOrderBook {
+
+  private static final int MAX_SCALE = 18;
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= MAX_SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final String marketId;
+  private final int priceScale;
+  private final int quantityScale;
+  private final long[] askPrices;
+  private final long[] askQuantities;
+  private final int askCount;
+  private final long[] bidPrices;
+  private final long[] bidQuantities;
+  private final int bidCount;
+
+  private final MarketOrder[] sellOrders;
+  private final MarketOrder[] buyOrders;
+
+  private FixedPointMarketOrderBook(Builder builder) {
+    marketId = builder.marketId;
+    priceScale = builder.priceScale;
+    quantityScale = builder.quantityScale;
+    askPrices = builder.askPrices;
+    askQuantities = builder.askQuantities;
+    askCount = builder.askCount;
+    bidPrices = builder.bidPrices;
+    bidQuantities = builder.bidQuantities;
+    bidCount = builder.bidCount;
+    sellOrders = new MarketOrder[askCount];
+    buyOrders = new MarketOrder[bidCount];
+  }
+
+  /**
+   * Creates a builder for a new order book.
+   *
+   * @param marketId the market ID.
+   * @param pricePrecision the number of decimal places in prices, e.g. from the pair's
+   *     PairPrecisionConfig. It is widened if the exchange sends more; if unknown, use 0.
+   * @param quantityPrecision the number of decimal places in quantities. It is widened if the
+   *     exchange sends more; if unknown, use 0.
+   * @return the builder.
+   */
+  public static Builder builder(String marketId, int pricePrecision, int quantityPrecision) {
+    return new Builder(marketId, pricePrecision, quantityPrecision);
+  }
+
+  @Override
+  public String getMarketId() {
+    return marketId;
+  }
+
+  @Override
+  public List<MarketOrder> getSellOrders() {
+    return new Levels(OrderType.SELL, askPrices, askQuantities, sellOrders);
+  }
+
+  @Override
+  public List<MarketOrder> getBuyOrders() {
+    return new Levels(OrderType.BUY, bidPrices, bidQuantities, buyOrders);
+  }
+
+  /**
+   * Returns the number of decimal places in prices.
+   *
+   * @return the price scale.
+   */
+  public int getPriceScale() {
+    return priceScale;
+  }
+
+  /**
+   * Returns the number of decimal places in quantities.
+   *
+   * @return the quantity scale.
+   */
+  public int getQuantityScale() {
+    return quantityScale;
+  }
+
+  /**
+   * Returns the lowest ASK price.
+   *
+   * @return the lowest ASK price, null if there are no SELL orders.
+   */
+  public BigDecimal getBestAsk() {
+    return askCount == 0 ? null : BigDecimal.valueOf(askPrices[0], priceScale);
+  }
+
+  /**
+   * Returns the highest BID price.
+   *
+   * @return the highest BID price, null if there are no BUY orders.
+   */
+  public BigDecimal getBestBid() {
+    return bidCount == 0 ? null : BigDecimal.valueOf(bidPrices[0], priceScale);
+  }
+
+  /**
+   * Returns the quantity on one side of the book at a price.
+   *
+   * @param type {@link OrderType#SELL} for the ASK side, {@link OrderType#BUY} for the BID side.
+   * @param price the price.
+   * @return the quantity at the price, zero if there is no order at the price.
+   */
+  public BigDecimal getQuantityAtPrice(OrderType type, BigDecimal price) {
+    final long scaledPrice;
+    try {
+      scaledPrice = price.setScale(priceScale).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      return BigDecimal.ZERO; // more decimal places than any price in the book, or too big
+    }
+
+    int index;
+    if (type == OrderType.SELL) {
+      index = Arrays.binarySearch(askPrices, 0, askCount, scaledPrice);
+      return index < 0 ? BigDecimal.ZERO : BigDecimal.valueOf(askQuantities[index], quantityScale);
+    }
+    // bids are in descending order, so search the negated price
+    int low = 0;
+    int high = bidCount - 1;
+    while (low <= high) {
+      index = (low + high) >>> 1;
+      if (bidPrices[index] > scaledPrice) {
+        low = index + 1;
+      } else if (bidPrices[index] < scaledPrice) {
+        high = index - 1;
+      } else {
+        return BigDecimal.valueOf(bidQuantities[index], quantityScale);
+      }
+    }
+    return BigDecimal.ZERO;
+  }
+
+  /**
+   * Returns the volume weighted average price of filling a quantity from one side of the book,
+   * i.e. the average price paid for buying the quantity from the ASK side, or received for selling
+   * it to the BID side.
+   *
+   * @param type {@link OrderType#SELL} to walk the ASK side, {@link OrderType#BUY} to walk the BID
+   *     side.
+   * @param quantity the quantity to fill. It is rounded up to the book's quantity scale.
+   * @return the volume weighted average price, null if the side does not have the quantity.
+   */
+  public BigDecimal getVolumeWeightedAveragePrice(OrderType type, BigDecimal quantity) {
+    final long[] prices = type == OrderType.SELL ? askPrices : bidPrices;
+    final long[] quantities = type == OrderType.SELL ? askQuantities : bidQuantities;
+    final int count = type == OrderType.SELL ? askCount : bidCount;
+
+    final long target;
+    try {
+      target = quantity.setScale(quantityScale, RoundingMode.UP).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      return null; // more than the book could ever hold
+    }
+    if (target <= 0) {
+      return null;
+    }
+
+    // sum price x quantity in 128 bits; each product can be up to 126 bits
+    long notionalHigh = 0;
+    long notionalLow = 0;
+    long remaining = target;
+    for (int i = 0; i < count && remaining > 0; i++) {
+      final long fill = Math.min(quantities[i], remaining);
+      final long productLow = prices[i] * fill;
+      final long sumLow = notionalLow + productLow;
+      notionalHigh +=
+          Math.multiplyHigh(prices[i], fill)
+              + (Long.compareUnsigned(sumLow, notionalLow) < 0 ? 1 : 0);
+      notionalLow = sumLow;
+      remaining -= fill;
+    }
+    if (remaining > 0) {
+      return null;
+    }
+
+    final BigDecimal notional;
+    if (notionalHigh == 0 && notionalLow >= 0) {
+      notional = BigDecimal.valueOf(notionalLow, priceScale + quantityScale);
+    } else {
+      final BigInteger unscaledNotional =
+          BigInteger.valueOf(notionalHigh)
+              .shiftLeft(Long.SIZE)
+              .add(new BigInteger(Long.toUnsignedString(notionalLow)));
+      notional = new BigDecimal(unscaledNotional, priceScale + quantityScale);
+    }
+    return notional
+        .divide(
+            BigDecimal.valueOf(target, quantityScale),
+            priceScale + quantityScale,
+            RoundingMode.HALF_EVEN);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("marketId", marketId)
+        .add("bestAsk", getBestAsk())
+        .add("bestBid", getBestBid())
+        .add("sellOrders", askCount)
+        .add("buyOrders", bidCount)
+        .toString();
+  }
+
+  /** Builds an order book from levels sent by the exchange, best price first. */
+  public static final class Builder {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String marketId;
+    private int priceScale;
+    private int quantityScale;
+    private long[] askPrices = new long[INITIAL_CAPACITY];
+    private long[] askQuantities = new long[INITIAL_CAPACITY];
+    private int askCount;
+    private long[] bidPrices = new long[INITIAL_CAPACITY];
+    private long[] bidQuantities = new long[INITIAL_CAPACITY];
+    private int bidCount;
+    private boolean built;
+
+    private Builder(String marketId, int pricePrecision, int quantityPrecision) {
+      if (pricePrecision < 0 || pricePrecision > MAX_SCALE) {
+        throw new IllegalArgumentException("Invalid price precision: " + pricePrecision);
+      }
+      if (quantityPrecision < 0 || quantityPrecision > MAX_SCALE) {
+        throw new IllegalArgumentException("Invalid quantity precision: " + quantityPrecision);
+      }
+      this.marketId = marketId;
+      this.priceScale = pricePrecision;
+      this.quantityScale = quantityPrecision;
+    }
+
+    /**
+     * Adds a SELL order level. Levels must be added in ascending price order.
+     *
+     * @param price the price as a plain decimal string, e.g. "664.53600".
+     * @param quantity the quantity as a plain decimal string.
+     * @return this builder.
+     * @throws NumberFormatException if the price or quantity is not a plain, non-negative decimal
+     *     that fits in a long at the book's scale.
+     * @throws IllegalArgumentException if the price is not higher than the previous ASK.
+     */
+    public Builder addAsk(CharSequence price, CharSequence quantity) {
+      final long scaledPrice = parsePrice(price);
+      final long scaledQuantity = parseQuantity(quantity);
+      if (askCount > 0 && scaledPrice <= askPrices[askCount - 1]) {
+        throw new IllegalArgumentException("ASK prices must be in ascending order: " + price);
+      }
+      if (askCount == askPrices.length) {
+        askPrices = Arrays.copyOf(askPrices, askCount * 2);
+        askQuantities = Arrays.copyOf(askQuantities, askCount * 2);
+      }
+      askPrices[askCount] = scaledPrice;
+      askQuantities[askCount++] = scaledQuantity;
+      return this;
+    }
+
+    /**
+     * Adds a BUY order level. Levels must be added in descending price order.
+     *
+     * @param price the price as a plain decimal string, e.g. "662.55000".
+     * @param quantity the quantity as a plain decimal string.
+     * @return this builder.
+     * @throws NumberFormatException if the price or quantity is not a plain, non-negative decimal
+     *     that fits in a long at the book's scale.
+     * @throws IllegalArgumentException if the price is not lower than the previous BID.
+     */
+    public Builder addBid(CharSequence price, CharSequence quantity) {
+      final long scaledPrice = parsePrice(price);
+      final long scaledQuantity = parseQuantity(quantity);
+      if (bidCount > 0 && scaledPrice >= bidPrices[bidCount - 1]) {
+        throw new IllegalArgumentException("BID prices must be in descending order: " + price);
+      }
+      if (bidCount == bidPrices.length) {
+        bidPrices = Arrays.copyOf(bidPrices, bidCount * 2);
+        bidQuantities = Arrays.copyOf(bidQuantities, bidCount * 2);
+      }
+      bidPrices[bidCount] = scaledPrice;
+      bidQuantities[bidCount++] = scaledQuantity;
+      return this;
+    }
+
+    /**
+     * Builds the order book. The builder cannot be used afterwards.
+     *
+     * @return the order book.
+     */
+    public FixedPointMarketOrderBook build() {
+      if (built) {
+        throw new IllegalStateException("Order book has already been built");
+      }
+      built = true;
+      return new FixedPointMarketOrderBook(this);
+    }
+
+    private long parsePrice(CharSequence price) {
+      final int scale = fractionDigits(price);
+      if (scale > priceScale) {
+        rescale(askPrices, askCount, scale - priceScale);
+        rescale(bidPrices, bidCount, scale - priceScale);
+        priceScale = scale;
+      }
+      return parse(price, priceScale);
+    }
+
+    private long parseQuantity(CharSequence quantity) {
+      final int scale = fractionDigits(quantity);
+      if (scale > quantityScale) {
+        rescale(askQuantities, askCount, scale - quantityScale);
+        rescale(bidQuantities, bidCount, scale - quantityScale);
+        quantityScale = scale;
+      }
+      return parse(quantity, quantityScale);
+    }
+
+    private static void rescale(long[] values, int count, int extraDigits) {
+      for (int i = 0; i < count; i++) {
+        values[i] = multiply(values[i], extraDigits);
+      }
+    }
+  }
+
+  /* The number of decimal places needed to hold the value, ignoring trailing zeros. */
+  private static int fractionDigits(CharSequence value) {
+    int point = -1;
+    int lastNonZero = -1;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '.') {
+        point = i;
+      } else if (point >= 0 && c != '0') {
+        lastNonZero = i;
+      }
+    }
+    final int digits = point < 0 || lastNonZero < 0 ? 0 : lastNonZero - point;
+    if (digits > MAX_SCALE) {
+      throw new NumberFormatException("Too many decimal places: " + value);
+    }
+    return digits;
+  }
+
+  private static long parse(CharSequence value, int scale) {
+    if (value.length() == 0) {
+      throw new NumberFormatException("Empty decimal");
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else if (c >= '0' && c <= '9') {
+        if (fractionDigits >= 0) {
+          if (fractionDigits == scale) {
+            continue; // a trailing zero; fractionDigits() has checked there's nothing else
+          }
+          fractionDigits++;
+        }
+        unscaled = addDigit(unscaled, c - '0', value);
+        digits++;
+      } else {
+        throw new NumberFormatException("Not a plain, non-negative decimal: " + value);
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException("Not a plain, non-negative decimal: " + value);
+    }
+    return multiply(unscaled, scale - Math.max(fractionDigits, 0));
+  }
+
+  private static long addDigit(long unscaled, int digit, CharSequence value) {
+    try {
+      return Math.addExact(Math.multiplyExact(unscaled, 10), digit);
+    } catch (ArithmeticException e) {
+      throw new NumberFormatException("Decimal does not fit in a long: " + value);
+    }
+  }
+
+  private static long multiply(long value, int powerOfTen) {
+    try {
+      return Math.multiplyExact(value, POWERS_OF_TEN[powerOfTen]);
+    } catch (ArithmeticException | ArrayIndexOutOfBoundsException e) {
+      throw new NumberFormatException("Decimal does not fit in a long: " + value);
+    }
+  }
+
+  /** A read-only list view over one side of the book; orders are created on first read. */
+  private final class Levels extends AbstractList<MarketOrder> implements RandomAccess {
+
+    private final OrderType type;
+    private final long[] prices;
+    private final long[] quantities;
+    private final MarketOrder[] orders;
+
+    Levels(OrderType type, long[] prices, long[] quantities, MarketOrder[] orders) {
+      this.type = type;
+      this.prices = prices;
+      this.quantities = quantities;
+      this.orders = orders;
+    }
+
+    @Override
+    public MarketOrder get(int index) {
+      MarketOrder order = orders[index];
+      if (order == null) {
+        final BigDecimal price = BigDecimal.valueOf(prices[index], priceScale);
+        final BigDecimal quantity = BigDecimal.valueOf(quantities[index], quantityScale);
+        order = new MarketOrderImpl(type, price, quantity, price.multiply(quantity));
+        orders[index] = order;
+      }
+      return order;
+    }
+
+    @Override
+    public int size() {
+      return orders.length;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Balance Cache behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestBalanceCache {
+
+  private static final long TIME_TO_LIVE_IN_MILLIS = 5000;
+  private static final String MARKET_ID = "btcusd";
+
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicInteger fetchCount = new AtomicInteger();
+  private final BalanceCache balanceCache = new BalanceCache(TIME_TO_LIVE_IN_MILLIS, clock::get);
+
+  @Test
+  void testBalancesAreCachedUntilTimeToLiveHasPassed() throws Exception {
+    final BalanceInfo balanceInfo = balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TIME_TO_LIVE_IN_MILLIS - 1));
+    assertThat(balanceCache.getBalanceInfo(false, this::fetchBalanceInfo)).isSameAs(balanceInfo);
+    assertThat(fetchCount.get()).isEqualTo(1);
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertThat(balanceCache.getBalanceInfo(false, this::fetchBalanceInfo))
+        .isNotSameAs(balanceInfo);
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testForceRefreshAlwaysFetchesAndUpdatesCache() throws Exception {
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+    final BalanceInfo refreshedBalanceInfo =
+        balanceCache.getBalanceInfo(true, this::fetchBalanceInfo);
+
+    assertThat(fetchCount.get()).isEqualTo(2);
+    assertThat(balanceCache.getBalanceInfo(false, this::fetchBalanceInfo))
+        .isSameAs(refreshedBalanceInfo);
+  }
+
+  @Test
+  void testInvalidateEmptiesCache() throws Exception {
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+    balanceCache.invalidate();
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testFetchStartedBeforeInvalidateIsNotCached() throws Exception {
+    balanceCache.getBalanceInfo(
+        false,
+        () -> {
+          balanceCache.invalidate(); // e.g. an order was created while the fetch was in flight
+          return fetchBalanceInfo();
+        });
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testFailedFetchIsNotCached() throws Exception {
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            balanceCache.getBalanceInfo(
+                false,
+                () -> {
+                  throw new ExchangeNetworkException("Timeout");
+                }));
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    assertThat(fetchCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testDisappearingOpenOrderEmptiesCache() throws Exception {
+    final OpenOrder order1 = createOpenOrder("order-1");
+    final OpenOrder order2 = createOpenOrder("order-2");
+    balanceCache.checkOpenOrders(MARKET_ID, List.of(order1));
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    // A new order does not change the balances already fetched.
+    balanceCache.checkOpenOrders(MARKET_ID, List.of(order1, order2));
+    balanceCache.checkOpenOrders("ethusd", List.of());
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+    assertThat(fetchCount.get()).isEqualTo(1);
+
+    // order-1 was filled.
+    balanceCache.checkOpenOrders(MARKET_ID, List.of(order2));
+    balanceCache.getBalanceInfo(false, this::fetchBalanceInfo);
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testZeroTimeToLiveDisablesCache() throws Exception {
+    final BalanceCache disabled = new BalanceCache(0, clock::get);
+    disabled.getBalanceInfo(false, this::fetchBalanceInfo);
+    disabled.getBalanceInfo(false, this::fetchBalanceInfo);
+
+    assertThat(fetchCount.get()).isEqualTo(2);
+  }
+
+  private BalanceInfo fetchBalanceInfo() {
+    fetchCount.incrementAndGet();
+    return new BalanceInfoImpl(Map.of("USD", new BigDecimal("100")), Map.of());
+  }
+
+  private static OpenOrder createOpenOrder(String id) {
+    return new OpenOrderImpl(
+        id,
+        new Date(),
+        MARKET_ID,
+        OrderType.BUY,
+        new BigDecimal("100"),
+        BigDecimal.ONE,
+        BigDecimal.ONE,
+        new BigDecimal("100"));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Base URI transport sends requests to the configured base URI.
+ *
+ * @author gazbert
+ */
+class TestBaseUriTransport {
+
+  @Test
+  void testRequestsAreSentToBaseUri() throws Exception {
+    final List<URI> sentUris = new ArrayList<>();
+    final ExchangeHttpTransport exchange =
+        (uri, httpMethod, postData, requestHeaders) -> {
+          sentUris.add(uri);
+          return new ExchangeHttpResponse(200, "OK", "{}");
+        };
+
+    final BaseUriTransport transport =
+        new BaseUriTransport(exchange, URI.create("http://localhost:8090/kraken/"));
+    transport.send(
+        URI.create("https://api.kraken.com/0/public/Depth?pair=XBTUSD"), "GET", null, Map.of());
+    transport.send(URI.create("https://api.kraken.com/0/private/Balance"), "POST", "", Map.of());
+
+    assertThat(sentUris)
+        .containsExactly(
+            URI.create("http://localhost:8090/kraken/0/public/Depth?pair=XBTUSD"),
+            URI.create("http://localhost:8090/kraken/0/private/Balance"));
+  }
+
+  @Test
+  void testBaseUriWithoutPath() {
+    final BaseUriTransport transport =
+        new BaseUriTransport(null, URI.create("http://localhost:8090"));
+    assertThat(transport.rebase(URI.create("https://api.pro.coinbase.com/products/BTC-USD/book")))
+        .isEqualTo(URI.create("http://localhost:8090/products/BTC-USD/book"));
+  }
+}
@@ -28,6 +28,7 @@ import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -40,6 +41,7 @@ import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderResult;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
@@ -51,6 +53,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -62,6 +65,7 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 /**
  * Tests the behaviour of the Bitfinex Exchange Adapter.
@@ -149,10 +153,21 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
     expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    expect(exchangeConfig.getOtherConfig()).andReturn(null);
     // optional config not needed for this adapter
   }
 
@@ -351,6 +366,74 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCancelOrdersSendsOneRequest() throws Exception {
+    final Map<String, Object> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("order_ids", List.of(Long.parseLong(ORDER_ID_TO_CANCEL), 42L)))
+        .andStubReturn(null);
+
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_CANCEL + "/multi"),
+            eq(requestParamMap))
+        .andReturn(
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                200, "OK", "{\"result\":\"Orders cancelled\"}"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final List<OrderResult> results =
+        exchangeAdapter.cancelOrders(List.of(ORDER_ID_TO_CANCEL, "42"), MARKET_ID);
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals(ORDER_ID_TO_CANCEL, results.get(0).getOrderId());
+    assertTrue(results.get(1).isSuccessful());
+    assertEquals("42", results.get(1).getOrderId());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCancelOrdersReportsFailedRequestForEachOrder() throws Exception {
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_CANCEL + "/multi"),
+            anyObject(Map.class))
+        .andThrow(new ExchangeNetworkException("Connection reset"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final List<OrderResult> results =
+        exchangeAdapter.cancelOrders(List.of(ORDER_ID_TO_CANCEL, "42"), MARKET_ID);
+    assertEquals(2, results.size());
+    assertFalse(results.get(0).isSuccessful());
+    assertFalse(results.get(1).isSuccessful());
+    assertTrue(results.get(1).getFailure() instanceof ExchangeNetworkException);
+
+    final List<OrderResult> invalidIdResults =
+        exchangeAdapter.cancelOrders(List.of("not-a-number"), MARKET_ID);
+    assertTrue(invalidIdResults.get(0).getFailure() instanceof TradingApiException);
+    assertTrue(exchangeAdapter.cancelOrders(List.of(), MARKET_ID).isEmpty());
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testCancelOrderHandlesExchangeNetworkException() throws Exception {
     final BitfinexExchangeAdapter exchangeAdapter =
@@ -403,6 +486,64 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
   //  Get Market Orders tests
   // --------------------------------------------------------------------------
 
+  @Test
+  public void testGettingMarketDataFromWebSocketFeed() throws Exception {
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    try (WebSocketStandIn standIn = new WebSocketStandIn()) {
+      final BitfinexWebSocketFeed webSocketFeed =
+          new BitfinexWebSocketFeed(
+              standIn.getUri(), 25, Duration.ofMillis(50), Duration.ofSeconds(10));
+      Whitebox.setInternalState(exchangeAdapter, "webSocketFeed", webSocketFeed);
+      try {
+        webSocketFeed.subscribe("tBTCUSD");
+        standIn.awaitConnection();
+        standIn.send(
+            "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":1,"
+                + "\"symbol\":\"tBTCUSD\"}");
+        standIn.send(
+            "{\"event\":\"subscribed\",\"channel\":\"ticker\",\"chanId\":2,"
+                + "\"symbol\":\"tBTCUSD\"}");
+        standIn.send(
+            "{\"event\":\"subscribed\",\"channel\":\"trades\",\"chanId\":3,"
+                + "\"symbol\":\"tBTCUSD\"}");
+        standIn.send("[1,[[7254.7,3,3.3],[7254.9,1,-0.5]]]");
+        standIn.send("[2,[7254.6,10.1,7254.9,12.2,-42.5,-0.0058,7254.7,1532.6,7391.5,7210.2]]");
+        standIn.send("[3,[[401597395,1574694475039,0.005,7244.9]]]");
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while ((webSocketFeed.getOrderBook("tBTCUSD", MARKET_ID) == null
+                || webSocketFeed.getTicker("tBTCUSD") == null
+                || webSocketFeed.getLastTradePrice("tBTCUSD") == null)
+            && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+
+        // served from the local copies - no REST calls are expected
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID);
+        assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+        assertEquals(
+            0,
+            new BigDecimal("7254.7").compareTo(marketOrderBook.getBuyOrders().get(0).getPrice()));
+        assertEquals(
+            0,
+            new BigDecimal("0.5").compareTo(marketOrderBook.getSellOrders().get(0).getQuantity()));
+        assertEquals(
+            0, new BigDecimal("7244.9").compareTo(exchangeAdapter.getLatestMarketPrice(MARKET_ID)));
+        final Ticker ticker = exchangeAdapter.getTicker(MARKET_ID);
+        assertEquals(0, new BigDecimal("7254.7").compareTo(ticker.getLast()));
+        assertEquals(0, new BigDecimal("7297.2").compareTo(ticker.getOpen()));
+      } finally {
+        webSocketFeed.close();
+      }
+    }
+    PowerMock.verifyAll();
+  }
+
   @Test
   public void testGettingMarketOrdersSuccessfully() throws Exception {
     final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
@@ -448,6 +589,33 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingMarketOrdersWithDepthSendsLimitParams() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            BOOK + "/" + MARKET_ID + "?limit_bids=1&limit_asks=1")
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 1);
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+    assertEquals(
+        0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("239.43")));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final BitfinexExchangeAdapter exchangeAdapter =
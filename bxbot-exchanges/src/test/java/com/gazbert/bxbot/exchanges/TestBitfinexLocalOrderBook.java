@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Bitfinex local order book is maintained and checksummed as expected.
+ *
+ * @author gazbert
+ */
+class TestBitfinexLocalOrderBook {
+
+  @Test
+  void testLevelsAreAddedUpdatedAndRemoved() {
+    final BitfinexLocalOrderBook orderBook = new BitfinexLocalOrderBook();
+    orderBook.apply("7254.7", "3", "3.3");
+    orderBook.apply("7254.5", "1", "1.0");
+    orderBook.apply("7254.9", "1", "-0.5");
+    orderBook.apply("7255.2", "2", "-1.25");
+
+    orderBook.apply("7254.7", "0", "1"); // remove bid
+    orderBook.apply("7254.9", "0", "-1"); // remove ask
+    orderBook.apply("7254.5", "2", "2.0"); // update bid
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook("btcusd");
+    assertThat(marketOrderBook.getMarketId()).isEqualTo("btcusd");
+    assertThat(marketOrderBook.getBuyOrders()).hasSize(1);
+    assertThat(marketOrderBook.getBuyOrders().get(0).getPrice()).isEqualByComparingTo("7254.5");
+    assertThat(marketOrderBook.getBuyOrders().get(0).getQuantity()).isEqualByComparingTo("2");
+    assertThat(marketOrderBook.getSellOrders()).hasSize(1);
+    assertThat(marketOrderBook.getSellOrders().get(0).getPrice()).isEqualByComparingTo("7255.2");
+    assertThat(marketOrderBook.getSellOrders().get(0).getQuantity()).isEqualByComparingTo("1.25");
+    assertThat(marketOrderBook.getSellOrders().get(0).getTotal()).isEqualByComparingTo("9069");
+  }
+
+  @Test
+  void testChecksumInterleavesBidsAndAsks() {
+    final BitfinexLocalOrderBook orderBook = new BitfinexLocalOrderBook();
+    orderBook.apply("6000", "1", "-0.5");
+    orderBook.apply("5999", "2", "0.25");
+    orderBook.apply("5998", "1", "1.5");
+    orderBook.apply("6001", "1", "-2");
+
+    assertThat(orderBook.checksum())
+        .isEqualTo(crc32("5999:0.25:6000:-0.5:5998:1.5:6001:-2"));
+    assertThat(new BitfinexLocalOrderBook().checksum()).isEqualTo(crc32(""));
+  }
+
+  @Test
+  void testChecksumUsesTopTwentyFiveLevels() {
+    final BitfinexLocalOrderBook orderBook = new BitfinexLocalOrderBook();
+    final StringBuilder expectedInput = new StringBuilder();
+    for (int i = 1; i <= 30; i++) {
+      orderBook.apply(Integer.toString(100 - i), "1", "1");
+      if (i <= 25) {
+        expectedInput.append(i == 1 ? "" : ":").append(100 - i).append(":1");
+      }
+    }
+
+    assertThat(orderBook.checksum()).isEqualTo(crc32(expectedInput.toString()));
+  }
+
+  private static int crc32(String checksumInput) {
+    final CRC32 crc32 = new CRC32();
+    crc32.update(checksumInput.getBytes(StandardCharsets.US_ASCII));
+    return (int) crc32.getValue();
+  }
+}
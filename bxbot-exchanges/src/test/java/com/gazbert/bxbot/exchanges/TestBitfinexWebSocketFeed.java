@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.Ticker;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Bitfinex WebSocket feed against a local WebSocket stand-in.
+ *
+ * @author gazbert
+ */
+class TestBitfinexWebSocketFeed {
+
+  private static final String SYMBOL = "tBTCUSD";
+  private static final String MARKET_ID = "btcusd";
+  private static final long AWAIT_TIMEOUT_IN_MILLIS = 10_000;
+
+  private static final String BOOK_SNAPSHOT = "[1,[[7254.7,3,3.3],[7254.9,1,-0.5]]]";
+
+  private WebSocketStandIn standIn;
+  private BitfinexWebSocketFeed feed;
+
+  @BeforeEach
+  void setupForEachTest() throws Exception {
+    standIn = new WebSocketStandIn();
+    feed =
+        new BitfinexWebSocketFeed(
+            standIn.getUri(), 25, Duration.ofMillis(50), Duration.ofSeconds(10));
+  }
+
+  @AfterEach
+  void cleanupAfterEachTest() throws Exception {
+    feed.close();
+    standIn.close();
+  }
+
+  @Test
+  void testChecksumsAreEnabledAndChannelsSubscribed() throws Exception {
+    connectFeed();
+    assertThat(feed.getOrderBook(SYMBOL, MARKET_ID)).isNull();
+    assertThat(feed.getTicker(SYMBOL)).isNull();
+    assertThat(feed.getLastTradePrice(SYMBOL)).isNull();
+  }
+
+  @Test
+  void testOrderBookIsBuiltFromSnapshotAndUpdates() throws Exception {
+    connectFeed();
+    standIn.send("[1,[]]");
+    assertThat(await(() -> feed.getOrderBook(SYMBOL, MARKET_ID)).getBuyOrders()).isEmpty();
+    standIn.send(BOOK_SNAPSHOT);
+    standIn.send("[1,\"hb\"]");
+    standIn.send("[1,[7254.8,1,0.75]]");
+    standIn.send("[1,[7254.7,0,1]]");
+
+    final BitfinexLocalOrderBook expectedBook = new BitfinexLocalOrderBook();
+    expectedBook.apply("7254.8", "1", "0.75");
+    expectedBook.apply("7254.9", "1", "-0.5");
+    standIn.send("[1,\"cs\"," + expectedBook.checksum() + "]");
+    standIn.send("[99,[1,2,3]]"); // unknown channel
+
+    final MarketOrderBook orderBook =
+        await(
+            () -> {
+              final MarketOrderBook book = feed.getOrderBook(SYMBOL, MARKET_ID);
+              return book != null
+                      && book.getBuyOrders().size() == 1
+                      && book.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("7254.8"))
+                          == 0
+                  ? book
+                  : null;
+            });
+    assertThat(orderBook.getMarketId()).isEqualTo(MARKET_ID);
+    assertThat(orderBook.getSellOrders().get(0).getQuantity()).isEqualByComparingTo("0.5");
+  }
+
+  @Test
+  void testBookIsResubscribedOnChecksumMismatch() throws Exception {
+    connectFeed();
+    standIn.send(BOOK_SNAPSHOT);
+    await(() -> feed.getOrderBook(SYMBOL, MARKET_ID));
+
+    standIn.send("[1,\"cs\",12345]");
+
+    assertThat(standIn.awaitMessage()).isEqualTo("{\"event\":\"unsubscribe\",\"chanId\":1}");
+    assertThat(standIn.awaitMessage()).contains("\"channel\":\"book\"", SYMBOL);
+    assertThat(feed.getOrderBook(SYMBOL, MARKET_ID)).isNull();
+
+    standIn.send("{\"event\":\"unsubscribed\",\"status\":\"OK\",\"chanId\":1}");
+    standIn.send(BOOK_SNAPSHOT); // old channel, so ignored
+    standIn.send(
+        "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":4,\"symbol\":\"tBTCUSD\"}");
+    standIn.send("[4,[[7254.7,3,3.3]]]");
+    assertThat(await(() -> feed.getOrderBook(SYMBOL, MARKET_ID)).getBuyOrders()).hasSize(1);
+  }
+
+  @Test
+  void testTickerAndTradesAreServed() throws Exception {
+    connectFeed();
+    standIn.send("{\"event\":\"info\",\"code\":20061,\"msg\":\"Resync from the Trading Engine\"}");
+    standIn.send("{\"event\":\"error\",\"msg\":\"symbol: invalid\",\"code\":10300}");
+    standIn.send("[2,\"hb\"]");
+    standIn.send("[2,[7254.6,10.1,7254.9,12.2,-42.5,-0.0058,7254.7,1532.6,7391.5,7210.2]]");
+    standIn.send(
+        "[3,[[401597395,1574694475039,0.005,7244.9],[401597394,1574694478808,0.1,7245.3]]]");
+
+    final Ticker ticker = await(() -> feed.getTicker(SYMBOL));
+    assertThat(ticker.getLast()).isEqualByComparingTo("7254.7");
+    assertThat(ticker.getBid()).isEqualByComparingTo("7254.6");
+    assertThat(ticker.getAsk()).isEqualByComparingTo("7254.9");
+    assertThat(ticker.getLow()).isEqualByComparingTo("7210.2");
+    assertThat(ticker.getHigh()).isEqualByComparingTo("7391.5");
+    assertThat(ticker.getOpen()).isEqualByComparingTo("7297.2");
+    assertThat(ticker.getVolume()).isEqualByComparingTo("1532.6");
+    assertThat(ticker.getVwap()).isNull();
+    assertThat(await(() -> feed.getLastTradePrice(SYMBOL))).isEqualByComparingTo("7245.3");
+
+    standIn.send("[3,\"tu\",[401597396,1574694479000,0.2,7250.0]]");
+    standIn.send("[3,\"te\",[401597396,1574694479000,0.2,7250.0]]");
+    await(
+        () ->
+            feed.getLastTradePrice(SYMBOL).compareTo(new BigDecimal("7250")) == 0 ? true : null);
+  }
+
+  @Test
+  void testFeedReconnectsAndResubscribesAfterDisconnect() throws Exception {
+    connectFeed();
+    standIn.send(BOOK_SNAPSHOT);
+    await(() -> feed.getOrderBook(SYMBOL, MARKET_ID));
+
+    standIn.disconnect();
+    standIn.awaitConnection();
+    assertThat(feed.getOrderBook(SYMBOL, MARKET_ID)).isNull();
+    assertThat(standIn.awaitMessage()).isEqualTo("{\"event\":\"conf\",\"flags\":131072}");
+    assertThat(standIn.awaitMessage()).contains("\"channel\":\"book\"", SYMBOL);
+
+    standIn.send(BOOK_SNAPSHOT); // channel ids are per connection, so ignored until subscribed
+    standIn.send(
+        "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":1,\"symbol\":\"tBTCUSD\"}");
+    standIn.send(BOOK_SNAPSHOT);
+    assertThat(await(() -> feed.getOrderBook(SYMBOL, MARKET_ID)).getSellOrders()).hasSize(1);
+  }
+
+  private void connectFeed() throws Exception {
+    feed.subscribe(SYMBOL);
+    feed.subscribe(SYMBOL); // already subscribed, so ignored
+    standIn.awaitConnection();
+    assertThat(standIn.awaitMessage()).isEqualTo("{\"event\":\"conf\",\"flags\":131072}");
+    assertThat(standIn.awaitMessage())
+        .isEqualTo(
+            "{\"event\":\"subscribe\",\"channel\":\"book\",\"symbol\":\"tBTCUSD\","
+                + "\"prec\":\"P0\",\"freq\":\"F0\",\"len\":\"25\"}");
+    assertThat(standIn.awaitMessage())
+        .isEqualTo("{\"event\":\"subscribe\",\"channel\":\"ticker\",\"symbol\":\"tBTCUSD\"}");
+    assertThat(standIn.awaitMessage())
+        .isEqualTo("{\"event\":\"subscribe\",\"channel\":\"trades\",\"symbol\":\"tBTCUSD\"}");
+    standIn.send(
+        "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":1,\"symbol\":\"tBTCUSD\"}");
+    standIn.send(
+        "{\"event\":\"subscribed\",\"channel\":\"ticker\",\"chanId\":2,\"symbol\":\"tBTCUSD\"}");
+    standIn.send(
+        "{\"event\":\"subscribed\",\"channel\":\"trades\",\"chanId\":3,\"symbol\":\"tBTCUSD\"}");
+  }
+
+  private static <T> T await(Supplier<T> condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_IN_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      final T result = condition.get();
+      if (result != null) {
+        return result;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("Timed out waiting for feed");
+  }
+}
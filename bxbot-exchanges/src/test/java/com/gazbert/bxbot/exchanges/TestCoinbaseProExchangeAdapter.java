@@ -29,9 +29,11 @@ import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
@@ -43,6 +45,7 @@ import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderResult;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
@@ -54,6 +57,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
@@ -67,6 +71,7 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 /**
  * Tests the behaviour of the COINBASE PRO Exchange Adapter.
@@ -157,11 +162,22 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
 
     otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
     expect(otherConfig.getItem("time-server-bias")).andReturn("82");
+    expect(otherConfig.getItem("user-channel-feed")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -226,6 +242,123 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCreateOrderWithClientOrderIdIsLookedUpAfterNetworkError() throws Exception {
+    final String clientOrderId = "c2cc8d37-8c2a-4a26-9d3b-0b5ef3c5b0a4";
+    final String orderId = "5a7b2c2e-1d5f-4d8e-9a3c-3b1e5f0d7c21";
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200,
+            "OK",
+            "{\"id\":\""
+                + orderId
+                + "\",\"client_oid\":\""
+                + clientOrderId
+                + "\",\"product_id\":\"BTC-GBP\"}");
+    final Map<String, String> requestParamMap = new HashMap<>();
+
+    // Partial mock so we do not send stuff down the wire
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("POST"),
+            eq(NEW_ORDER),
+            eq(requestParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("GET"),
+            eq("orders/client:" + clientOrderId),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+    assertEquals(clientOrderId, requestParamMap.get("client_oid"));
+    assertEquals(
+        orderId,
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCreateOrderWithClientOrderIdIsPlacedAgainIfNotFoundAfterNetworkError()
+      throws Exception {
+    final String clientOrderId = "c2cc8d37-8c2a-4a26-9d3b-0b5ef3c5b0a4";
+    final byte[] encoded = Files.readAllBytes(Paths.get(NEW_BUY_ORDER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final AbstractExchangeAdapter.ExchangeHttpResponse notFoundResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            404, "Not Found", "{\"message\":\"NotFound\"}");
+    final Map<String, String> requestParamMap = new HashMap<>();
+
+    // Partial mock so we do not send stuff down the wire
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap)
+        .times(2);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("POST"),
+            eq(NEW_ORDER),
+            eq(requestParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("GET"),
+            eq("orders/client:" + clientOrderId),
+            eq(null))
+        .andReturn(notFoundResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("POST"),
+            eq(NEW_ORDER),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+    assertEquals(
+        "193d2ad9-e671-4d66-9211-7f75f6380231",
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -354,6 +487,91 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCancelOrdersReportsEachOrder() throws Exception {
+    final String otherOrderId = "7f1c2a6e-0b1d-4c55-9a36-4d1f8e2b3c90";
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("DELETE"),
+            eq(CANCEL_ORDER),
+            eq(null))
+        .andReturn(new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", "[null]"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("DELETE"),
+            eq("orders/" + otherOrderId),
+            eq(null))
+        .andThrow(new ExchangeNetworkException("Connection reset"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final List<OrderResult> results =
+        exchangeAdapter.cancelOrders(List.of(ORDER_ID_TO_CANCEL, otherOrderId), MARKET_ID);
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals(ORDER_ID_TO_CANCEL, results.get(0).getOrderId());
+    assertFalse(results.get(1).isSuccessful());
+    assertEquals(otherOrderId, results.get(1).getOrderId());
+    assertTrue(results.get(1).getFailure() instanceof ExchangeNetworkException);
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCancelAllOrdersIsSuccessful() throws Exception {
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("DELETE"),
+            eq("orders?product_id=" + MARKET_ID),
+            eq(null))
+        .andReturn(
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                200, "OK", "[\"" + ORDER_ID_TO_CANCEL + "\"]"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final List<OrderResult> results = exchangeAdapter.cancelAllOrders(MARKET_ID);
+    assertEquals(1, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals(ORDER_ID_TO_CANCEL, results.get(0).getOrderId());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testCancelAllOrdersHandlesErrorResponse() throws Exception {
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("DELETE"),
+            eq("orders?product_id=" + MARKET_ID),
+            eq(null))
+        .andReturn(new AbstractExchangeAdapter.ExchangeHttpResponse(400, "Bad Request", "{}"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.cancelAllOrders(MARKET_ID);
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testCancelOrderHandlesExchangeNetworkException() throws Exception {
     final CoinbaseProExchangeAdapter exchangeAdapter =
@@ -495,6 +713,71 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingYourOpenOrdersFromUserChannelFeed() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDERS_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+    // only called once, to seed the feed
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("GET"),
+            eq(ORDERS),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    try (WebSocketStandIn standIn = new WebSocketStandIn()) {
+      final CoinbaseProUserFeed userFeed =
+          new CoinbaseProUserFeed(
+              standIn.getUri(),
+              KEY,
+              new RequestSigner("HmacSHA256", SECRET.getBytes(StandardCharsets.UTF_8)),
+              PASSPHRASE,
+              0,
+              Duration.ofMillis(50),
+              Duration.ofSeconds(10));
+      Whitebox.setInternalState(exchangeAdapter, "userFeed", userFeed);
+      try {
+        userFeed.subscribe(MARKET_ID);
+        standIn.awaitConnection();
+        standIn.awaitMessage();
+        standIn.send(
+            "{\"type\":\"subscriptions\",\"channels\":"
+                + "[{\"name\":\"user\",\"product_ids\":[\"BTC-GBP\"]}]}");
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (userFeed.getSyncEpoch(MARKET_ID) < 0 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+
+        assertEquals(2, exchangeAdapter.getYourOpenOrders(MARKET_ID).size());
+
+        standIn.send(
+            "{\"type\":\"done\",\"order_id\":\"cdad7602-f290-41e5-a64d-42a1a20fd02\","
+                + "\"product_id\":\"BTC-GBP\",\"reason\":\"filled\",\"side\":\"sell\"}");
+        List<OpenOrder> openOrders = exchangeAdapter.getYourOpenOrders(MARKET_ID);
+        while (openOrders.size() != 1 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+          openOrders = exchangeAdapter.getYourOpenOrders(MARKET_ID);
+        }
+        assertEquals(1, openOrders.size());
+        assertEquals("09cac657-df6c-40ef-97b9-4e64b181dec1", openOrders.get(0).getId());
+      } finally {
+        userFeed.close();
+      }
+    }
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Get Market Orders tests
   // --------------------------------------------------------------------------
@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Coinbase Pro user channel feed against a local WebSocket stand-in.
+ *
+ * @author gazbert
+ */
+class TestCoinbaseProUserFeed {
+
+  private static final String PRODUCT_ID = "BTC-USD";
+  private static final String KEY = "key123";
+  private static final String PASSPHRASE = "lePassPhrase";
+  private static final byte[] SECRET = "notGonnaTellYa".getBytes(StandardCharsets.UTF_8);
+  private static final long AWAIT_TIMEOUT_IN_MILLIS = 10_000;
+
+  private static final String SUBSCRIPTIONS =
+      "{\"type\":\"subscriptions\",\"channels\":["
+          + "{\"name\":\"user\",\"product_ids\":[\"BTC-USD\"]},"
+          + "{\"name\":\"heartbeat\",\"product_ids\":[\"BTC-USD\"]}]}";
+
+  private WebSocketStandIn standIn;
+  private CoinbaseProUserFeed feed;
+
+  @BeforeEach
+  void setupForEachTest() throws Exception {
+    standIn = new WebSocketStandIn();
+    feed =
+        new CoinbaseProUserFeed(
+            standIn.getUri(),
+            KEY,
+            new RequestSigner("HmacSHA256", SECRET),
+            PASSPHRASE,
+            0,
+            Duration.ofMillis(50),
+            Duration.ofSeconds(10));
+  }
+
+  @AfterEach
+  void cleanupAfterEachTest() throws Exception {
+    feed.close();
+    standIn.close();
+  }
+
+  @Test
+  void testSubscriptionIsSigned() throws Exception {
+    feed.subscribe(PRODUCT_ID);
+    feed.subscribe(PRODUCT_ID); // already subscribed, so ignored
+    standIn.awaitConnection();
+
+    final JsonObject subscribe = JsonParser.parseString(standIn.awaitMessage()).getAsJsonObject();
+    assertThat(subscribe.get("type").getAsString()).isEqualTo("subscribe");
+    assertThat(subscribe.get("product_ids").toString()).isEqualTo("[\"BTC-USD\"]");
+    assertThat(subscribe.get("channels").toString()).isEqualTo("[\"user\",\"heartbeat\"]");
+    assertThat(subscribe.get("key").getAsString()).isEqualTo(KEY);
+    assertThat(subscribe.get("passphrase").getAsString()).isEqualTo(PASSPHRASE);
+    final String timestamp = subscribe.get("timestamp").getAsString();
+    assertThat(subscribe.get("signature").getAsString())
+        .isEqualTo(sign(timestamp + "GET/users/self/verify"));
+
+    feed.subscribe("ETH-USD");
+    assertThat(standIn.awaitMessage()).contains("\"product_ids\":[\"ETH-USD\"]");
+  }
+
+  @Test
+  void testOpenOrdersAreSeededAndKeptUpToDate() throws Exception {
+    connectFeed();
+    assertThat(feed.getOpenOrders(PRODUCT_ID)).isNull();
+    final long syncEpoch = feed.getSyncEpoch(PRODUCT_ID);
+    feed.seedOpenOrders(PRODUCT_ID, List.of(openOrder("order-1", "0.5")), syncEpoch);
+    assertThat(feed.getOpenOrders(PRODUCT_ID))
+        .extracting(OpenOrder::getId)
+        .containsExactly("order-1");
+
+    standIn.send(
+        "{\"type\":\"received\",\"order_id\":\"order-2\",\"product_id\":\"BTC-USD\","
+            + "\"side\":\"buy\",\"price\":\"100.00\",\"size\":\"1.0\","
+            + "\"time\":\"2030-01-01T00:00:00.000Z\",\"order_type\":\"limit\"}");
+    standIn.send(
+        "{\"type\":\"received\",\"order_id\":\"order-3\",\"product_id\":\"BTC-USD\","
+            + "\"side\":\"buy\",\"funds\":\"10.00\",\"time\":\"2030-01-01T00:00:00.000Z\","
+            + "\"order_type\":\"market\"}");
+    standIn.send(
+        "{\"type\":\"match\",\"maker_order_id\":\"order-1\",\"taker_order_id\":\"other\","
+            + "\"product_id\":\"BTC-USD\",\"size\":\"0.2\",\"price\":\"200.00\"}");
+    standIn.send("{\"type\":\"heartbeat\",\"product_id\":\"BTC-USD\",\"sequence\":1}");
+    standIn.send(
+        "{\"type\":\"open\",\"order_id\":\"order-2\",\"product_id\":\"BTC-USD\","
+            + "\"side\":\"buy\",\"price\":\"100.00\",\"remaining_size\":\"0.9\","
+            + "\"time\":\"2030-01-01T00:00:00.000Z\"}");
+
+    final List<OpenOrder> openOrders =
+        await(
+            () -> {
+              final List<OpenOrder> orders = feed.getOpenOrders(PRODUCT_ID);
+              return orders.size() == 2
+                      && orders.get(1).getQuantity().compareTo(new BigDecimal("0.9")) == 0
+                  ? orders
+                  : null;
+            });
+    assertThat(openOrders.get(0).getId()).isEqualTo("order-1");
+    assertThat(openOrders.get(0).getQuantity()).isEqualByComparingTo("0.3");
+    assertThat(openOrders.get(0).getOriginalQuantity()).isEqualByComparingTo("0.5");
+    assertThat(openOrders.get(1).getId()).isEqualTo("order-2");
+    assertThat(openOrders.get(1).getType()).isEqualTo(OrderType.BUY);
+    assertThat(openOrders.get(1).getOriginalQuantity()).isEqualByComparingTo("1.0");
+
+    standIn.send(
+        "{\"type\":\"change\",\"order_id\":\"order-2\",\"product_id\":\"BTC-USD\","
+            + "\"new_size\":\"0.4\",\"old_size\":\"0.9\",\"price\":\"100.00\",\"side\":\"buy\"}");
+    standIn.send(
+        "{\"type\":\"done\",\"order_id\":\"order-1\",\"product_id\":\"BTC-USD\","
+            + "\"reason\":\"filled\",\"remaining_size\":\"0\",\"side\":\"sell\"}");
+
+    final OpenOrder changedOrder =
+        await(
+            () -> {
+              final List<OpenOrder> orders = feed.getOpenOrders(PRODUCT_ID);
+              return orders.size() == 1 ? orders.get(0) : null;
+            });
+    assertThat(changedOrder.getId()).isEqualTo("order-2");
+    assertThat(changedOrder.getQuantity()).isEqualByComparingTo("0.4");
+  }
+
+  @Test
+  void testDoneOrdersAreNotBroughtBack() throws Exception {
+    connectFeed();
+    final long syncEpoch = feed.getSyncEpoch(PRODUCT_ID);
+    standIn.send(
+        "{\"type\":\"done\",\"order_id\":\"order-1\",\"product_id\":\"BTC-USD\","
+            + "\"reason\":\"canceled\",\"side\":\"sell\"}");
+    standIn.send("{\"type\":\"error\",\"message\":\"something went wrong\"}");
+    standIn.send("{\"type\":\"heartbeat\",\"product_id\":\"BTC-USD\",\"sequence\":2}");
+    // the seed was fetched before the done message arrived
+    Thread.sleep(200);
+    feed.seedOpenOrders(
+        PRODUCT_ID, List.of(openOrder("order-1", "0.5"), openOrder("order-2", "0.5")), syncEpoch);
+
+    assertThat(feed.getOpenOrders(PRODUCT_ID))
+        .extracting(OpenOrder::getId)
+        .containsExactly("order-2");
+
+    feed.orderCreated(openOrder("order-1", "0.5"));
+    feed.orderCreated(openOrder("order-3", "0.5"));
+    feed.orderCancelled("order-2");
+    assertThat(feed.getOpenOrders(PRODUCT_ID))
+        .extracting(OpenOrder::getId)
+        .containsExactly("order-3");
+  }
+
+  @Test
+  void testStateIsDiscardedAndResyncedAfterDisconnect() throws Exception {
+    connectFeed();
+    final long oldSyncEpoch = feed.getSyncEpoch(PRODUCT_ID);
+    feed.seedOpenOrders(PRODUCT_ID, List.of(openOrder("order-1", "0.5")), oldSyncEpoch);
+    assertThat(feed.getOpenOrders(PRODUCT_ID)).hasSize(1);
+
+    standIn.disconnect();
+    standIn.awaitConnection();
+    assertThat(standIn.awaitMessage()).contains("\"product_ids\":[\"BTC-USD\"]");
+    assertThat(feed.getOpenOrders(PRODUCT_ID)).isNull();
+
+    // a seed fetched on the old connection must not be used
+    standIn.send(SUBSCRIPTIONS);
+    final long newSyncEpoch = await(() -> positiveOrNull(feed.getSyncEpoch(PRODUCT_ID)));
+    assertThat(newSyncEpoch).isGreaterThan(oldSyncEpoch);
+    feed.seedOpenOrders(PRODUCT_ID, List.of(openOrder("order-1", "0.5")), oldSyncEpoch);
+    assertThat(feed.getOpenOrders(PRODUCT_ID)).isNull();
+
+    feed.seedOpenOrders(PRODUCT_ID, List.of(openOrder("order-2", "0.5")), newSyncEpoch);
+    assertThat(feed.getOpenOrders(PRODUCT_ID))
+        .extracting(OpenOrder::getId)
+        .containsExactly("order-2");
+    assertThat(feed.getOpenOrders("ETH-USD")).isNull();
+  }
+
+  private void connectFeed() throws Exception {
+    assertThat(feed.getSyncEpoch(PRODUCT_ID)).isEqualTo(-1);
+    feed.subscribe(PRODUCT_ID);
+    standIn.awaitConnection();
+    assertThat(standIn.awaitMessage()).contains("\"type\":\"subscribe\"");
+    standIn.send(SUBSCRIPTIONS);
+    await(() -> positiveOrNull(feed.getSyncEpoch(PRODUCT_ID)));
+  }
+
+  private static OpenOrder openOrder(String id, String quantity) {
+    final BigDecimal price = new BigDecimal("200.00");
+    final BigDecimal size = new BigDecimal(quantity);
+    return new OpenOrderImpl(
+        id,
+        Date.from(Instant.parse("2020-01-01T00:00:00.000Z")),
+        PRODUCT_ID,
+        OrderType.SELL,
+        price,
+        size,
+        size,
+        price.multiply(size));
+  }
+
+  private static Long positiveOrNull(long value) {
+    return value >= 0 ? value : null;
+  }
+
+  private static String sign(String message) throws Exception {
+    final Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+    final byte[] signature = mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(signature);
+  }
+
+  private static <T> T await(Supplier<T> condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_IN_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      final T result = condition.get();
+      if (result != null) {
+        return result;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("Timed out waiting for feed");
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchanges.ExchangeCircuitBreaker.State;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Exchange Circuit Breaker behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestExchangeCircuitBreaker {
+
+  private static final long OPEN_TIMEOUT_IN_SECS = 30;
+
+  private final AtomicLong clock = new AtomicLong();
+  private final ExchangeCircuitBreaker circuitBreaker =
+      new ExchangeCircuitBreaker(3, OPEN_TIMEOUT_IN_SECS, clock::get);
+
+  @Test
+  void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    circuitBreaker.acquirePermission();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+    circuitBreaker.recordFailure();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThrows(ExchangeNetworkException.class, circuitBreaker::acquirePermission);
+  }
+
+  @Test
+  void testSuccessResetsFailureCount() {
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordSuccess();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void testSuccessfulProbeClosesCircuit() throws Exception {
+    openCircuit();
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_TIMEOUT_IN_SECS));
+
+    circuitBreaker.acquirePermission();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    // Only 1 probe request at a time.
+    assertThrows(ExchangeNetworkException.class, circuitBreaker::acquirePermission);
+
+    circuitBreaker.recordSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    circuitBreaker.acquirePermission();
+  }
+
+  @Test
+  void testFailedProbeReopensCircuit() throws Exception {
+    openCircuit();
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_TIMEOUT_IN_SECS));
+    circuitBreaker.acquirePermission();
+
+    circuitBreaker.recordFailure();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThrows(ExchangeNetworkException.class, circuitBreaker::acquirePermission);
+  }
+
+  @Test
+  void testZeroThresholdDisablesCircuitBreaker() throws Exception {
+    final ExchangeCircuitBreaker disabled = new ExchangeCircuitBreaker(0, 30, clock::get);
+    for (int i = 0; i < 100; i++) {
+      disabled.recordFailure();
+    }
+    disabled.acquirePermission();
+    assertThat(disabled.getState()).isEqualTo(State.CLOSED);
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.recordFailure();
+    }
+  }
+}
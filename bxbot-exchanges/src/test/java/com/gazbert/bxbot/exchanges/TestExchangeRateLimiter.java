@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.EndpointClass;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Exchange Rate Limiter behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestExchangeRateLimiter {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long SECS = TimeUnit.SECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong();
+  private final List<Long> sleeps = new ArrayList<>();
+  private SimpleMeterRegistry meterRegistry;
+  private ExchangeRateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    rateLimiter =
+        new ExchangeRateLimiter(
+            "TestAdapter",
+            Map.of(EndpointClass.PUBLIC, 2.0, EndpointClass.TRADING, 0.5),
+            clock::get,
+            sleeps::add,
+            meterRegistry);
+  }
+
+  @Test
+  void testRequestsQueueAtConfiguredRate() throws Exception {
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+
+    assertThat(sleeps).containsExactly(500 * MILLIS, 1000 * MILLIS);
+  }
+
+  @Test
+  void testEndpointClassesAreLimitedSeparately() throws Exception {
+    rateLimiter.acquire(EndpointClass.TRADING);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.TRADING);
+
+    assertThat(sleeps).containsExactly(2 * SECS);
+  }
+
+  @Test
+  void testUnconfiguredEndpointClassIsNotLimited() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      rateLimiter.acquire(EndpointClass.PRIVATE);
+    }
+
+    assertThat(sleeps).isEmpty();
+    assertThat(rateLimiter.getRate(EndpointClass.PRIVATE)).isNull();
+  }
+
+  @Test
+  void testIdleBucketAllowsBurst() throws Exception {
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    clock.addAndGet(10 * SECS);
+
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+
+    assertThat(sleeps).isEmpty();
+  }
+
+  @Test
+  void testThrottlingHonoursRetryAfterAndHalvesRate() throws Exception {
+    rateLimiter.onThrottled(EndpointClass.PUBLIC, 3 * SECS);
+    assertThat(rateLimiter.getRate(EndpointClass.PUBLIC)).isEqualTo(1.0);
+
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+
+    assertThat(sleeps).containsExactly(3 * SECS, 4 * SECS);
+  }
+
+  @Test
+  void testThrottlingUnconfiguredEndpointClassHonoursRetryAfter() throws Exception {
+    rateLimiter.onThrottled(EndpointClass.PRIVATE, 5 * SECS);
+
+    rateLimiter.acquire(EndpointClass.PRIVATE);
+    rateLimiter.acquire(EndpointClass.PRIVATE);
+
+    assertThat(sleeps).containsExactly(5 * SECS, 5 * SECS);
+  }
+
+  @Test
+  void testRateDoesNotDropBelowFloor() {
+    for (int i = 0; i < 10; i++) {
+      rateLimiter.onThrottled(EndpointClass.PUBLIC, 0);
+    }
+    assertThat(rateLimiter.getRate(EndpointClass.PUBLIC)).isEqualTo(0.25);
+  }
+
+  @Test
+  void testRateRecoversToConfiguredRateAfterSuccessfulRequests() {
+    rateLimiter.onThrottled(EndpointClass.PUBLIC, 0);
+    assertThat(rateLimiter.getRate(EndpointClass.PUBLIC)).isEqualTo(1.0);
+
+    for (int i = 0; i < 20; i++) {
+      rateLimiter.onSuccess(EndpointClass.PUBLIC);
+    }
+    assertThat(rateLimiter.getRate(EndpointClass.PUBLIC)).isEqualTo(2.0);
+  }
+
+  @Test
+  void testQueueWaitIsRecorded() throws Exception {
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+    rateLimiter.acquire(EndpointClass.PUBLIC);
+
+    final Timer queueWait =
+        meterRegistry
+            .get(ExchangeRateLimiter.QUEUE_WAIT_METRIC)
+            .tag("adapter", "TestAdapter")
+            .tag("endpoint", "public")
+            .timer();
+    assertThat(queueWait.count()).isEqualTo(2);
+    assertThat(queueWait.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(500);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Exchange Request Metrics are recorded as expected.
+ *
+ * @author gazbert
+ */
+class TestExchangeRequestMetrics {
+
+  private static final String ADAPTER = "KrakenExchangeAdapter";
+  private static final String API_METHOD = "/0/public/Depth";
+
+  private SimpleMeterRegistry meterRegistry;
+  private ExchangeRequestMetrics requestMetrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    requestMetrics = new ExchangeRequestMetrics(ADAPTER, meterRegistry);
+  }
+
+  @Test
+  void testResponseLatencyIsRecordedByStatusClass() {
+    requestMetrics.recordResponse(API_METHOD, "GET", 200, TimeUnit.MILLISECONDS.toNanos(120), 0);
+    requestMetrics.recordResponse(API_METHOD, "GET", 204, TimeUnit.MILLISECONDS.toNanos(80), 0);
+    requestMetrics.recordResponse(API_METHOD, "GET", 503, TimeUnit.MILLISECONDS.toNanos(30), 0);
+
+    final Timer okTimer = requestTimer("2xx");
+    assertThat(okTimer.count()).isEqualTo(2);
+    assertThat(okTimer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(200);
+    assertThat(okTimer.takeSnapshot().percentileValues()).hasSize(3);
+    assertThat(requestTimer("5xx").count()).isEqualTo(1);
+  }
+
+  @Test
+  void testBytesReceivedAreCounted() {
+    requestMetrics.recordResponse(API_METHOD, "GET", 200, 1, 1000);
+    requestMetrics.recordResponse(API_METHOD, "GET", 200, 1, 500);
+
+    assertThat(
+            meterRegistry
+                .get(ExchangeRequestMetrics.RESPONSE_BYTES_METRIC)
+                .tag("adapter", ADAPTER)
+                .tag("api", API_METHOD)
+                .counter()
+                .count())
+        .isEqualTo(1500);
+  }
+
+  @Test
+  void testErrorsAreCountedByExceptionType() {
+    requestMetrics.recordError(API_METHOD, "GET", 1, new SocketTimeoutException("timed out"));
+
+    assertThat(
+            meterRegistry
+                .get(ExchangeRequestMetrics.ERRORS_METRIC)
+                .tag("adapter", ADAPTER)
+                .tag("api", API_METHOD)
+                .tag("exception", "SocketTimeoutException")
+                .counter()
+                .count())
+        .isEqualTo(1);
+    assertThat(requestTimer("error").count()).isEqualTo(1);
+  }
+
+  private Timer requestTimer(String status) {
+    return meterRegistry
+        .get(ExchangeRequestMetrics.REQUEST_METRIC)
+        .tag("adapter", ADAPTER)
+        .tag("api", API_METHOD)
+        .tag("method", "GET")
+        .tag("status", status)
+        .timer();
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Exchange Retry Policy behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestExchangeRetryPolicy {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void testBackoffDoublesForEachRetry() {
+    final ExchangeRetryPolicy retryPolicy = new ExchangeRetryPolicy(3, 100, 10000, () -> 1.0);
+
+    assertThat(retryPolicy.getMaxRetries()).isEqualTo(3);
+    assertThat(retryPolicy.getBackoffInNanos(1)).isEqualTo(100 * MILLIS);
+    assertThat(retryPolicy.getBackoffInNanos(2)).isEqualTo(200 * MILLIS);
+    assertThat(retryPolicy.getBackoffInNanos(3)).isEqualTo(400 * MILLIS);
+  }
+
+  @Test
+  void testBackoffIsCappedAtMaxBackoff() {
+    final ExchangeRetryPolicy retryPolicy = new ExchangeRetryPolicy(100, 100, 1000, () -> 1.0);
+
+    assertThat(retryPolicy.getBackoffInNanos(5)).isEqualTo(1000 * MILLIS);
+    assertThat(retryPolicy.getBackoffInNanos(100)).isEqualTo(1000 * MILLIS);
+  }
+
+  @Test
+  void testHalfOfBackoffIsJitter() {
+    final ExchangeRetryPolicy noJitter = new ExchangeRetryPolicy(3, 100, 10000, () -> 0.0);
+    assertThat(noJitter.getBackoffInNanos(2)).isEqualTo(100 * MILLIS);
+
+    final ExchangeRetryPolicy someJitter = new ExchangeRetryPolicy(3, 100, 10000, () -> 0.5);
+    assertThat(someJitter.getBackoffInNanos(2)).isEqualTo(150 * MILLIS);
+  }
+}
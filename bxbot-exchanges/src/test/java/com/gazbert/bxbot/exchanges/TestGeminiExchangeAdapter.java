@@ -31,6 +31,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
@@ -145,10 +146,21 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
 
     final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
+    expect(otherConfig.getItem("balance-cache-ttl")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -303,6 +315,125 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCreateOrderWithClientOrderIdIsLookedUpAfterNetworkError() throws Exception {
+    final String clientOrderId = "client-1";
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", "[{\"order_id\":\"196693745\",\"client_order_id\":\"client-1\"}]");
+    final Map<String, String> createOrderParamMap = new HashMap<>();
+    final Map<String, String> findOrderParamMap = new HashMap<>();
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(createOrderParamMap)
+        .andReturn(findOrderParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_NEW),
+            eq(createOrderParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("order/status"),
+            eq(findOrderParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                BTC_USD_MARKET_ID,
+                OrderType.BUY,
+                BUY_ORDER_QUANTITY,
+                BUY_ORDER_PRICE,
+                clientOrderId));
+    assertEquals(clientOrderId, createOrderParamMap.get("client_order_id"));
+    assertEquals(
+        "196693745",
+        exchangeAdapter.createOrder(
+            BTC_USD_MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+    assertEquals(clientOrderId, findOrderParamMap.get("client_order_id"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCreateOrderWithClientOrderIdIsPlacedAgainIfNotFoundAfterNetworkError()
+      throws Exception {
+    final String clientOrderId = "client-1";
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_NEW_BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final AbstractExchangeAdapter.ExchangeHttpResponse notFoundResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            404,
+            "Not Found",
+            "{\"result\":\"error\",\"reason\":\"OrderNotFound\","
+                + "\"message\":\"Order client-1 not found\"}");
+    final Map<String, String> createOrderParamMap = new HashMap<>();
+    final Map<String, String> findOrderParamMap = new HashMap<>();
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(createOrderParamMap)
+        .andReturn(findOrderParamMap)
+        .andReturn(createOrderParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_NEW),
+            eq(createOrderParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("order/status"),
+            eq(findOrderParamMap))
+        .andReturn(notFoundResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_NEW),
+            eq(createOrderParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                BTC_USD_MARKET_ID,
+                OrderType.BUY,
+                BUY_ORDER_QUANTITY,
+                BUY_ORDER_PRICE,
+                clientOrderId));
+    assertEquals(
+        "196693745",
+        exchangeAdapter.createOrder(
+            BTC_USD_MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, clientOrderId));
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -0,0 +1,481 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the HttpClient transport and the Exchange Adapter's mapping of its responses, using a
+ * local stub exchange.
+ *
+ * @author gazbert
+ */
+class TestHttpClientTransport {
+
+  private static final String API_KEY_HEADER = "API-Key";
+  private static final String API_KEY = "key-123";
+  private static final String POST_DATA = "nonce=1&pair=XBTUSD";
+  private static final String ORDER_BOOK_JSON =
+      "{\n  \"bids\": [[\"9000.12\", \"0.5\"]],\n  \"asks\": [[\"9001.00\", \"1.25\"]]\n}";
+
+  private HttpServer stubExchange;
+  private String baseUrl;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger flakyRequestCount = new AtomicInteger();
+  private final AtomicInteger throttledRequestCount = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    stubExchange = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    stubExchange.createContext(
+        "/echo",
+        exchange -> {
+          final String body =
+              exchange.getRequestMethod()
+                  + " "
+                  + exchange.getRequestHeaders().getFirst(API_KEY_HEADER)
+                  + " "
+                  + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+          respond(exchange, 200, body);
+        });
+    stubExchange.createContext("/book", exchange -> respond(exchange, 200, ORDER_BOOK_JSON));
+    stubExchange.createContext("/maintenance", exchange -> respond(exchange, 503, "busy"));
+    stubExchange.createContext("/bad-request", exchange -> respond(exchange, 400, "bad nonce"));
+    stubExchange.createContext(
+        "/flaky",
+        exchange -> {
+          if (flakyRequestCount.incrementAndGet() <= 2) {
+            respond(exchange, 503, "busy");
+          } else {
+            respond(exchange, 200, "ok");
+          }
+        });
+    stubExchange.createContext(
+        "/throttled",
+        exchange -> {
+          throttledRequestCount.incrementAndGet();
+          exchange.getResponseHeaders().add("Retry-After", "2");
+          respond(exchange, 429, "slow down");
+        });
+    stubExchange.createContext(
+        "/throttled-once",
+        exchange -> {
+          if (throttledRequestCount.incrementAndGet() == 1) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            respond(exchange, 429, "slow down");
+          } else {
+            respond(exchange, 200, "ok");
+          }
+        });
+    stubExchange.start();
+    baseUrl = "http://localhost:" + stubExchange.getAddress().getPort();
+  }
+
+  @AfterEach
+  void tearDown() {
+    stubExchange.stop(0);
+  }
+
+  @Test
+  void testGetRequestReturnsStatusAndBody() throws Exception {
+    final HttpClientTransport transport = new HttpClientTransport(5, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(URI.create(baseUrl + "/echo"), "GET", null, Map.of(API_KEY_HEADER, API_KEY));
+
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.getPayload()).isEqualTo("GET key-123 ");
+  }
+
+  @Test
+  void testPostRequestSendsBody() throws Exception {
+    final HttpClientTransport transport = new HttpClientTransport(5, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(
+            URI.create(baseUrl + "/echo"), "POST", POST_DATA, Map.of(API_KEY_HEADER, API_KEY));
+
+    assertThat(response.getPayload()).isEqualTo("POST key-123 " + POST_DATA);
+  }
+
+  @Test
+  void testConnectionIsReusedBetweenRequests() throws Exception {
+    final HttpClientTransport transport = new HttpClientTransport(5, null, null);
+
+    for (int i = 0; i < 5; i++) {
+      transport.send(URI.create(baseUrl + "/echo"), "GET", null, null);
+    }
+
+    assertThat(clientPorts).hasSize(1);
+  }
+
+  @Test
+  void testResponseBodyCanBeParsedWithoutDecodingPayload() throws Exception {
+    final HttpClientTransport transport = new HttpClientTransport(5, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(URI.create(baseUrl + "/book"), "GET", null, null);
+
+    final JsonObject orderBook =
+        new Gson().fromJson(response.getPayloadReader(), JsonObject.class);
+    assertThat(orderBook.getAsJsonArray("bids").get(0).getAsJsonArray().get(0).getAsString())
+        .isEqualTo("9000.12");
+    assertThat(orderBook.getAsJsonArray("asks")).hasSize(1);
+
+    // Newlines in the body are kept.
+    assertThat(response.getPayload()).isEqualTo(ORDER_BOOK_JSON);
+  }
+
+  @Test
+  void testErrorStatusIsReturnedNotThrown() throws Exception {
+    final HttpClientTransport transport = new HttpClientTransport(5, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(URI.create(baseUrl + "/maintenance"), "GET", null, null);
+
+    assertThat(response.getStatusCode()).isEqualTo(503);
+    assertThat(response.getPayload()).isEqualTo("busy");
+  }
+
+  @Test
+  void testAdapterReturnsSuccessfulResponse() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+
+    final ExchangeHttpResponse response =
+        adapter.sendNetworkRequest(
+            new URL(baseUrl + "/echo"), "POST", POST_DATA, Map.of(API_KEY_HEADER, API_KEY));
+
+    assertThat(response.getPayload()).isEqualTo("POST key-123 " + POST_DATA);
+  }
+
+  @Test
+  void testAdapterMapsNonFatalErrorCodeToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/maintenance"), "GET", null, null));
+  }
+
+  @Test
+  void testAdapterMapsOtherErrorCodeToTradingApiException() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+
+    final TradingApiException exception =
+        assertThrows(
+            TradingApiException.class,
+            () ->
+                adapter.sendNetworkRequest(new URL(baseUrl + "/bad-request"), "GET", null, null));
+    assertThat(exception.getMessage()).contains("bad nonce");
+  }
+
+  @Test
+  void testAdapterMapsNotFoundToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/unknown"), "GET", null, null));
+  }
+
+  @Test
+  void testAdapterReturnsNotFoundWhenExpected() throws Exception {
+    final AbstractExchangeAdapter adapter =
+        createAdapter(
+            new AbstractExchangeAdapter() {
+              @Override
+              boolean isNotFoundExpected(URL url, String httpMethod) {
+                return true;
+              }
+            });
+
+    final ExchangeHttpResponse response =
+        adapter.sendNetworkRequest(new URL(baseUrl + "/unknown"), "GET", null, null);
+
+    assertThat(response.getStatusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void testAdapterBacksOffForRetryAfterWhenThrottled() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    final List<Long> sleeps = new ArrayList<>();
+    adapter.setRateLimiter(
+        new ExchangeRateLimiter(
+            "test", Map.of(), () -> 0L, sleeps::add, new SimpleMeterRegistry()));
+
+    final ExchangeNetworkException exception =
+        assertThrows(
+            ExchangeNetworkException.class,
+            () -> adapter.sendNetworkRequest(new URL(baseUrl + "/throttled"), "GET", null, null));
+    assertThat(exception.getMessage()).contains("429");
+    assertThat(sleeps).isEmpty();
+
+    adapter.sendNetworkRequest(new URL(baseUrl + "/echo"), "GET", null, null);
+    assertThat(sleeps).containsExactly(TimeUnit.SECONDS.toNanos(2));
+  }
+
+  @Test
+  void testAdapterRetriesThrottledGetAfterRetryAfter() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setRetryPolicy(new ExchangeRetryPolicy(2, 1, 2000));
+
+    final long startTime = System.nanoTime();
+    final ExchangeHttpResponse response =
+        adapter.sendNetworkRequest(new URL(baseUrl + "/throttled-once"), "GET", null, null);
+
+    assertThat(response.getPayload()).isEqualTo("ok");
+    assertThat(throttledRequestCount.get()).isEqualTo(2);
+    assertThat(System.nanoTime() - startTime).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  void testAdapterGivesUpWhenRetryAfterIsLongerThanMaxBackoff() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setRetryPolicy(new ExchangeRetryPolicy(2, 1, 1000));
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/throttled"), "GET", null, null));
+    assertThat(throttledRequestCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testAdapterRetriesPublicGetAfterNetworkError() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setRetryPolicy(new ExchangeRetryPolicy(2, 1, 1));
+
+    final ExchangeHttpResponse response =
+        adapter.sendNetworkRequest(new URL(baseUrl + "/flaky"), "GET", null, null);
+
+    assertThat(response.getPayload()).isEqualTo("ok");
+    assertThat(flakyRequestCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  void testAdapterGivesUpWhenRetriesAreExhausted() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setRetryPolicy(new ExchangeRetryPolicy(1, 1, 1));
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/flaky"), "GET", null, null));
+    assertThat(flakyRequestCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testAdapterDoesNotRetryPost() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setRetryPolicy(new ExchangeRetryPolicy(2, 1, 1));
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/flaky"), "POST", POST_DATA, null));
+    assertThat(flakyRequestCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testAdapterCircuitBreakerFailsFastAndRecovers() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    final AtomicLong clock = new AtomicLong();
+    adapter.setCircuitBreaker(new ExchangeCircuitBreaker(2, 30, clock::get));
+    final URL flakyUrl = new URL(baseUrl + "/flaky");
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(
+          ExchangeNetworkException.class,
+          () -> adapter.sendNetworkRequest(flakyUrl, "GET", null, null));
+    }
+    // The third request failed fast without reaching the Exchange.
+    assertThat(flakyRequestCount.get()).isEqualTo(2);
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    final ExchangeHttpResponse response = adapter.sendNetworkRequest(flakyUrl, "GET", null, null);
+    assertThat(response.getPayload()).isEqualTo("ok");
+    assertThat(flakyRequestCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  void testAdapterRecordsRequestMetrics() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    adapter.setRequestMetrics(new ExchangeRequestMetrics("test", meterRegistry));
+
+    adapter.sendNetworkRequest(new URL(baseUrl + "/book"), "GET", null, null);
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/maintenance"), "GET", null, null));
+
+    assertThat(
+            meterRegistry
+                .get(ExchangeRequestMetrics.REQUEST_METRIC)
+                .tags("api", "/book", "status", "2xx")
+                .timer()
+                .count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get(ExchangeRequestMetrics.RESPONSE_BYTES_METRIC)
+                .tag("api", "/book")
+                .counter()
+                .count())
+        .isEqualTo(ORDER_BOOK_JSON.length());
+    assertThat(
+            meterRegistry
+                .get(ExchangeRequestMetrics.REQUEST_METRIC)
+                .tags("api", "/maintenance", "status", "5xx")
+                .timer()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testApiMethodNameHasIdsRemoved() {
+    final AbstractExchangeAdapter adapter = new AbstractExchangeAdapter() {};
+
+    assertThat(adapter.getApiMethodName(URI.create("https://api.kraken.com/0/public/Depth")))
+        .isEqualTo("/0/public/Depth");
+    assertThat(
+            adapter.getApiMethodName(
+                URI.create(
+                    "https://api.pro.coinbase.com/orders/d0c5340b-6d6c-49d9-b567-48c4bfca13d2")))
+        .isEqualTo("/orders/{id}");
+    assertThat(adapter.getApiMethodName(URI.create("https://example.com/order/123456/status")))
+        .isEqualTo("/order/{id}/status");
+  }
+
+  @Test
+  void testAdapterMapsConnectionRefusedToExchangeNetworkException() throws Exception {
+    // The HttpClient's ConnectException has no message, so this must not rely on the config.
+    final AbstractExchangeAdapter adapter =
+        createAdapter(new AbstractExchangeAdapter() {}, List.of());
+    stubExchange.stop(0);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/echo"), "GET", null, null));
+  }
+
+  @Test
+  void testAdapterMapsNonFatalErrorMessageToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setHttpTransport(
+        (uri, httpMethod, postData, requestHeaders) -> {
+          throw new IOException(new IOException("Connection refused"));
+        });
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/echo"), "GET", null, null));
+  }
+
+  @Test
+  void testAdapterMapsUnexpectedIoErrorToTradingApiException() throws Exception {
+    final AbstractExchangeAdapter adapter = createAdapter();
+    adapter.setHttpTransport(
+        (uri, httpMethod, postData, requestHeaders) -> {
+          throw new IOException("Unexpected end of stream");
+        });
+
+    assertThrows(
+        TradingApiException.class,
+        () -> adapter.sendNetworkRequest(new URL(baseUrl + "/echo"), "GET", null, null));
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(statusCode, bytes.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(bytes);
+    }
+  }
+
+  private static AbstractExchangeAdapter createAdapter() {
+    return createAdapter(new AbstractExchangeAdapter() {});
+  }
+
+  private static AbstractExchangeAdapter createAdapter(AbstractExchangeAdapter adapter) {
+    return createAdapter(adapter, List.of("Connection refused"));
+  }
+
+  private static AbstractExchangeAdapter createAdapter(
+      AbstractExchangeAdapter adapter, List<String> nonFatalErrorMessages) {
+    final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+    expect(networkConfig.getConnectionTimeout()).andReturn(5);
+    expect(networkConfig.getNonFatalErrorCodes()).andReturn(List.of(502, 503, 504));
+    expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    replay(networkConfig, exchangeConfig);
+
+    adapter.setNetworkConfig(exchangeConfig);
+    return adapter;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the In Flight Orders registry behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestInFlightOrders {
+
+  private static final String CLIENT_ORDER_ID = "client-1";
+  private static final String ORDER_ID = "order-1";
+
+  private final InFlightOrders inFlightOrders = new InFlightOrders();
+  private final List<String> lookups = new ArrayList<>();
+  private int createCount;
+
+  @Test
+  void testOrderWithoutClientOrderIdIsJustPlaced() throws Exception {
+    assertThat(inFlightOrders.createOrder(null, this::notFound, this::created)).isEqualTo(ORDER_ID);
+    assertThat(createCount).isEqualTo(1);
+    assertThat(lookups).isEmpty();
+  }
+
+  @Test
+  void testSuccessfulOrderIsNotLookedUpWhenPlacedAgain() throws Exception {
+    inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::created);
+    inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::created);
+    assertThat(createCount).isEqualTo(2);
+    assertThat(lookups).isEmpty();
+  }
+
+  @Test
+  void testTimedOutOrderFoundOnExchangeIsNotPlacedAgain() throws Exception {
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::timedOut));
+
+    assertThat(inFlightOrders.createOrder(CLIENT_ORDER_ID, this::found, this::created))
+        .isEqualTo("found-order");
+    assertThat(createCount).isZero();
+    assertThat(lookups).containsExactly(CLIENT_ORDER_ID);
+
+    // resolved, so the next order with this id is placed without a lookup
+    inFlightOrders.createOrder(CLIENT_ORDER_ID, this::found, this::created);
+    assertThat(createCount).isEqualTo(1);
+    assertThat(lookups).hasSize(1);
+  }
+
+  @Test
+  void testTimedOutOrderNotFoundOnExchangeIsPlacedAgain() throws Exception {
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::timedOut));
+
+    assertThat(inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::created))
+        .isEqualTo(ORDER_ID);
+    assertThat(createCount).isEqualTo(1);
+    assertThat(lookups).containsExactly(CLIENT_ORDER_ID);
+  }
+
+  @Test
+  void testOrderStaysUnresolvedIfLookupFailsWithNetworkError() throws Exception {
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::timedOut));
+    assertThrows(
+        ExchangeNetworkException.class,
+        () -> inFlightOrders.createOrder(CLIENT_ORDER_ID, this::lookupTimedOut, this::created));
+
+    assertThat(inFlightOrders.createOrder(CLIENT_ORDER_ID, this::found, this::created))
+        .isEqualTo("found-order");
+    assertThat(createCount).isZero();
+  }
+
+  @Test
+  void testRejectedOrderIsForgotten() throws Exception {
+    assertThrows(
+        TradingApiException.class,
+        () -> inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::rejected));
+
+    inFlightOrders.createOrder(CLIENT_ORDER_ID, this::notFound, this::created);
+    assertThat(lookups).isEmpty();
+  }
+
+  @Test
+  void testOrderAlreadyInFlightIsNotPlacedAgain() throws Exception {
+    final List<String> nestedOrderIds = new ArrayList<>();
+    final ExchangeNetworkException exception =
+        assertThrows(
+            ExchangeNetworkException.class,
+            () ->
+                inFlightOrders.createOrder(
+                    CLIENT_ORDER_ID,
+                    this::notFound,
+                    () -> {
+                      nestedOrderIds.add(
+                          inFlightOrders.createOrder(
+                              CLIENT_ORDER_ID, this::notFound, this::created));
+                      return ORDER_ID;
+                    }));
+
+    assertThat(exception.getMessage()).contains("already being placed");
+    assertThat(nestedOrderIds).isEmpty();
+    assertThat(createCount).isZero();
+  }
+
+  private String created() {
+    createCount++;
+    return ORDER_ID;
+  }
+
+  private String timedOut() throws ExchangeNetworkException {
+    throw new ExchangeNetworkException("Read timed out");
+  }
+
+  private String rejected() throws TradingApiException {
+    throw new TradingApiException("Insufficient funds");
+  }
+
+  private String notFound(String clientOrderId) {
+    lookups.add(clientOrderId);
+    return null;
+  }
+
+  private String found(String clientOrderId) {
+    lookups.add(clientOrderId);
+    return "found-order";
+  }
+
+  private String lookupTimedOut(String clientOrderId) throws ExchangeNetworkException {
+    lookups.add(clientOrderId);
+    throw new ExchangeNetworkException("Read timed out");
+  }
+}
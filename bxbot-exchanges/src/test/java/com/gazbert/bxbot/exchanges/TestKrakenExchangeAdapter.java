@@ -31,8 +31,10 @@ import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
@@ -41,6 +43,7 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.exchanges.trading.api.impl.FixedPointMarketOrderBook;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
@@ -56,6 +59,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -67,6 +72,7 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 /**
  * Tests the behaviour of the Kraken Exchange Adapter.
@@ -95,6 +101,8 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
   private static final String BALANCE_ERROR_JSON_RESPONSE =
       "./src/test/exchange-data/kraken/Balance-error.json";
   private static final String TICKER_JSON_RESPONSE = "./src/test/exchange-data/kraken/Ticker.json";
+  private static final String TICKER_MULTI_JSON_RESPONSE =
+      "./src/test/exchange-data/kraken/Ticker-multi.json";
   private static final String TICKER_ERROR_JSON_RESPONSE =
       "./src/test/exchange-data/kraken/Ticker-error.json";
   private static final String OPEN_ORDERS_JSON_RESPONSE =
@@ -158,6 +166,7 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
   private ExchangeConfig exchangeConfig;
   private AuthenticationConfig authenticationConfig;
   private NetworkConfig networkConfig;
+  private OtherConfig otherConfig;
 
   /**
    * Create some exchange config - the TradingEngine would normally do this.
@@ -172,11 +181,19 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
-
-    OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
-    expect(otherConfig.getItem("buy-fee")).andReturn("0.1");
-    expect(otherConfig.getItem("sell-fee")).andReturn("0.2");
-    expect(otherConfig.getItem("keep-alive-during-maintenance")).andReturn("false");
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
+
+    otherConfig = PowerMock.createMock(OtherConfig.class);
+    expectOtherConfig(null, null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -224,6 +241,9 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
 
     final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID);
 
+    // pair precision is known, so the book is parsed straight into fixed-point arrays
+    assertTrue(marketOrderBook instanceof FixedPointMarketOrderBook);
+
     // assert some key stuff; we're not testing GSON here.
     // assertTrue(marketOrderBook.getMarketId().equals(MARKET_ID));
 
@@ -250,6 +270,108 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingMarketOrdersWithDepthSendsCountParam() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(DEPTH_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+    expect(requestParamMap.put("count", "10")).andReturn(null);
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(DEPTH),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 10);
+    assertEquals(
+        0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("662.55")));
+    assertEquals(
+        0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("664.536")));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGettingMarketOrdersWithInvalidDepthIsRejected() throws Exception {
+    PowerMock.replayAll();
+    final KrakenExchangeAdapter exchangeAdapter = new KrakenExchangeAdapter();
+    exchangeAdapter.getMarketOrders(MARKET_ID, 0);
+  }
+
+  @Test
+  public void testGettingMarketOrdersAndTickerFromWebSocketFeed() throws Exception {
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    mockAssetPairsPublicRequest(exchangeAdapter);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    try (WebSocketStandIn standIn = new WebSocketStandIn()) {
+      final KrakenWebSocketFeed webSocketFeed =
+          new KrakenWebSocketFeed(
+              standIn.getUri(), 10, Duration.ofMillis(50), Duration.ofSeconds(10));
+      Whitebox.setInternalState(exchangeAdapter, "webSocketFeed", webSocketFeed);
+      try {
+        webSocketFeed.subscribe("XBT/USD");
+        standIn.awaitConnection();
+        standIn.send(
+            "[0,{\"as\":[[\"664.53600\",\"0.888\",\"1534614248.123678\"]],"
+                + "\"bs\":[[\"662.55000\",\"5.851\",\"1534614248.765567\"]]},"
+                + "\"book-10\",\"XBT/USD\"]");
+        standIn.send(
+            "[1,{\"a\":[\"664.53600\",1,\"1.000\"],\"b\":[\"662.55000\",1,\"1.000\"],"
+                + "\"c\":[\"663.00000\",\"0.1\"],\"v\":[\"10.0\",\"20.0\"],"
+                + "\"p\":[\"663.1\",\"663.2\"],\"t\":[1,2],\"l\":[\"660.0\",\"659.0\"],"
+                + "\"h\":[\"665.0\",\"666.0\"],\"o\":[\"661.0\",\"662.0\"]},"
+                + "\"ticker\",\"XBT/USD\"]");
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while ((webSocketFeed.getOrderBook("XBT/USD", MARKET_ID) == null
+                || webSocketFeed.getTicker("XBT/USD") == null)
+            && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+
+        // served from the local copies - no REST Depth or Ticker calls are expected
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID);
+        assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+        assertEquals(
+            0,
+            new BigDecimal("662.55").compareTo(marketOrderBook.getBuyOrders().get(0).getPrice()));
+        assertEquals(
+            0,
+            new BigDecimal("664.536").compareTo(marketOrderBook.getSellOrders().get(0).getPrice()));
+
+        final Ticker ticker = exchangeAdapter.getTicker(MARKET_ID);
+        assertEquals(0, new BigDecimal("663").compareTo(ticker.getLast()));
+        assertEquals(0, new BigDecimal("666").compareTo(ticker.getHigh()));
+      } finally {
+        webSocketFeed.close();
+      }
+    }
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   @SuppressWarnings("unchecked")
   public void testGettingMarketOrdersHandlesErrorResponse() throws Exception {
@@ -380,6 +502,67 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingYourOpenOrdersForSeveralMarketsUsesOneRequest() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(OPEN_ORDERS_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final byte[] cancelEncoded = Files.readAllBytes(Paths.get(CANCEL_ORDER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse cancelResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(cancelEncoded, StandardCharsets.UTF_8));
+
+    PowerMock.reset(otherConfig);
+    expectOtherConfig("60000", null);
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(OPEN_ORDERS),
+            eq(null))
+        .andReturn(exchangeResponse);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(new HashMap<>());
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(CANCEL_ORDER),
+            anyObject(Map.class))
+        .andReturn(cancelResponse);
+    // Cancelling the order empties the index, so the open orders are fetched again.
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(OPEN_ORDERS),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertEquals(2, exchangeAdapter.getYourOpenOrders(MARKET_ID).size());
+    final List<OpenOrder> eurOpenOrders = exchangeAdapter.getYourOpenOrders("XBTEUR");
+    assertEquals(1, eurOpenOrders.size());
+    assertEquals("XBTEUR", eurOpenOrders.get(0).getMarketId());
+    // The caller's market id is returned, whatever its case.
+    final List<OpenOrder> lowerCaseEurOpenOrders = exchangeAdapter.getYourOpenOrders("xbteur");
+    assertEquals(1, lowerCaseEurOpenOrders.size());
+    assertEquals("xbteur", lowerCaseEurOpenOrders.get(0).getMarketId());
+    assertTrue(exchangeAdapter.getYourOpenOrders("LTCUSD").isEmpty());
+
+    assertTrue(exchangeAdapter.cancelOrder(ORDER_ID_TO_CANCEL, MARKET_ID));
+    assertEquals(2, exchangeAdapter.getYourOpenOrders(MARKET_ID).size());
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   public void testGettingYourOpenOrdersExchangeErrorResponse() throws Exception {
     final byte[] encoded = Files.readAllBytes(Paths.get(OPEN_ORDERS_ERROR_JSON_RESPONSE));
@@ -500,6 +683,210 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCreateOrderWithClientOrderIdIsLookedUpAfterNetworkError() throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse openOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", "{\"error\":[],\"result\":{\"open\":{}}}");
+    final AbstractExchangeAdapter.ExchangeHttpResponse closedOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200,
+            "OK",
+            "{\"error\":[],\"result\":{\"closed\":{\"OLD2Z4-L4C9H-MKH5BX\":"
+                + "{\"userref\":\"42\",\"status\":\"closed\"}},\"count\":1}}");
+    final Map<String, String> addOrderParamMap = new HashMap<>();
+    final Map<String, String> openOrdersParamMap = new HashMap<>();
+    final Map<String, String> closedOrdersParamMap = new HashMap<>();
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(addOrderParamMap)
+        .andReturn(openOrdersParamMap)
+        .andReturn(closedOrdersParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ADD_ORDER),
+            eq(addOrderParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(OPEN_ORDERS),
+            eq(openOrdersParamMap))
+        .andReturn(openOrdersResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("ClosedOrders"),
+            eq(closedOrdersParamMap))
+        .andReturn(closedOrdersResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+    assertEquals("42", addOrderParamMap.get("userref"));
+    assertEquals(
+        "OLD2Z4-L4C9H-MKH5BX",
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+    assertEquals("42", openOrdersParamMap.get("userref"));
+    assertEquals("42", closedOrdersParamMap.get("userref"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCreateOrderWithClientOrderIdFailsIfUserrefMatchesSeveralOrders()
+      throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse openOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200,
+            "OK",
+            "{\"error\":[],\"result\":{\"open\":{\"OGTT3Y-C6I3P-XRI6HX\":"
+                + "{\"userref\":\"42\",\"status\":\"open\"}}}}");
+    final AbstractExchangeAdapter.ExchangeHttpResponse closedOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200,
+            "OK",
+            "{\"error\":[],\"result\":{\"closed\":{\"OLD2Z4-L4C9H-MKH5BX\":"
+                + "{\"userref\":\"42\",\"status\":\"closed\"}},\"count\":1}}");
+    final Map<String, String> addOrderParamMap = new HashMap<>();
+    final Map<String, String> openOrdersParamMap = new HashMap<>();
+    final Map<String, String> closedOrdersParamMap = new HashMap<>();
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(addOrderParamMap)
+        .andReturn(openOrdersParamMap)
+        .andReturn(closedOrdersParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ADD_ORDER),
+            eq(addOrderParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(OPEN_ORDERS),
+            eq(openOrdersParamMap))
+        .andReturn(openOrdersResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("ClosedOrders"),
+            eq(closedOrdersParamMap))
+        .andReturn(closedOrdersResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+    assertThrows(
+        TradingApiException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testCreateOrderWithClientOrderIdIsPlacedAgainIfNotFoundAfterNetworkError()
+      throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ADD_ORDER_BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse addOrderResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final AbstractExchangeAdapter.ExchangeHttpResponse openOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", "{\"error\":[],\"result\":{\"open\":{}}}");
+    final AbstractExchangeAdapter.ExchangeHttpResponse closedOrdersResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", "{\"error\":[],\"result\":{\"closed\":{},\"count\":0}}");
+    final Map<String, String> addOrderParamMap = new HashMap<>();
+    final Map<String, String> openOrdersParamMap = new HashMap<>();
+    final Map<String, String> closedOrdersParamMap = new HashMap<>();
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(addOrderParamMap)
+        .andReturn(openOrdersParamMap)
+        .andReturn(closedOrdersParamMap)
+        .andReturn(addOrderParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ADD_ORDER),
+            eq(addOrderParamMap))
+        .andThrow(new ExchangeNetworkException("Read timed out"));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(OPEN_ORDERS),
+            eq(openOrdersParamMap))
+        .andReturn(openOrdersResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("ClosedOrders"),
+            eq(closedOrdersParamMap))
+        .andReturn(closedOrdersResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ADD_ORDER),
+            eq(addOrderParamMap))
+        .andReturn(addOrderResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertThrows(
+        ExchangeNetworkException.class,
+        () ->
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+    assertEquals(
+        "OLD2Z4-L4C9H-MKH5BX",
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "42"));
+    assertEquals("42", closedOrdersParamMap.get("userref"));
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -771,6 +1158,64 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingBalanceInfoIsCachedUntilForcedOrOrderCancelled() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final byte[] cancelEncoded = Files.readAllBytes(Paths.get(CANCEL_ORDER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse cancelResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(cancelEncoded, StandardCharsets.UTF_8));
+
+    PowerMock.reset(otherConfig);
+    expectOtherConfig(null, "60000");
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse)
+        .times(2);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(new HashMap<>());
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(CANCEL_ORDER),
+            anyObject(Map.class))
+        .andReturn(cancelResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BalanceInfo balanceInfo = exchangeAdapter.getBalanceInfo();
+    assertSame(balanceInfo, exchangeAdapter.getBalanceInfo());
+
+    final BalanceInfo refreshedBalanceInfo = exchangeAdapter.getBalanceInfo(true);
+    assertNotSame(balanceInfo, refreshedBalanceInfo);
+    assertSame(refreshedBalanceInfo, exchangeAdapter.getBalanceInfo());
+
+    assertTrue(exchangeAdapter.cancelOrder(ORDER_ID_TO_CANCEL, MARKET_ID));
+    assertNotSame(refreshedBalanceInfo, exchangeAdapter.getBalanceInfo());
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   public void testGettingBalanceInfoHandlesExchangeErrorResponse() throws Exception {
     final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_ERROR_JSON_RESPONSE));
@@ -999,6 +1444,72 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingTickersForSeveralMarketsInOneRequest() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_MULTI_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("pair", "ETHUSD," + MARKET_ID)).andReturn(null);
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(TICKER),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    // Kraken keys the result by its own pair names, e.g. XXBTZUSD, not the market ids asked for
+    final Map<String, Ticker> tickers =
+        exchangeAdapter.getTickers(Arrays.asList("ETHUSD", MARKET_ID));
+    assertEquals(Arrays.asList("ETHUSD", MARKET_ID), new ArrayList<>(tickers.keySet()));
+    assertEquals(0, tickers.get("ETHUSD").getLast().compareTo(new BigDecimal("205.49000")));
+    assertEquals(0, tickers.get(MARKET_ID).getLast().compareTo(new BigDecimal("657.99900")));
+    assertEquals(0, tickers.get(MARKET_ID).getBid().compareTo(new BigDecimal("655.20100")));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testGettingTickersHandlesExchangeErrorResponse() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_ERROR_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(TICKER),
+            anyObject(Map.class))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getTickers(Arrays.asList("ETHUSD", MARKET_ID));
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   public void testGettingTickerHandlesExchangeErrorResponse() throws Exception {
     final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_ERROR_JSON_RESPONSE));
@@ -1521,4 +2032,13 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     return new ExchangeHttpResponse(200, "OK",
         new String(assetsMsg, StandardCharsets.UTF_8));
   }
+
+  private void expectOtherConfig(String openOrdersCacheTtl, String balanceCacheTtl) {
+    expect(otherConfig.getItem("buy-fee")).andReturn("0.1");
+    expect(otherConfig.getItem("sell-fee")).andReturn("0.2");
+    expect(otherConfig.getItem("keep-alive-during-maintenance")).andReturn("false");
+    expect(otherConfig.getItem("websocket-order-book")).andReturn(null);
+    expect(otherConfig.getItem("open-orders-cache-ttl")).andReturn(openOrdersCacheTtl);
+    expect(otherConfig.getItem("balance-cache-ttl")).andReturn(balanceCacheTtl);
+  }
 }
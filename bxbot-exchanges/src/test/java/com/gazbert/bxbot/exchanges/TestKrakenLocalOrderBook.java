@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Kraken local order book is maintained and checksummed as expected.
+ *
+ * @author gazbert
+ */
+class TestKrakenLocalOrderBook {
+
+  private static final String TIMESTAMP = "1534614248.123678";
+
+  @Test
+  void testSnapshotAndUpdatesAreApplied() {
+    final KrakenLocalOrderBook orderBook = new KrakenLocalOrderBook(10);
+    orderBook.applySnapshot(
+        List.of(level("5541.30000", "2.50700000"), level("5541.80000", "0.33000000")),
+        List.of(level("5541.20000", "1.52900000"), level("5539.90000", "0.30000000")));
+
+    orderBook.updateAsks(
+        List.of(level("5541.30000", "0.00000000"), level("5542.00000", "1.00000000")));
+    orderBook.updateBids(List.of(level("5541.20000", "2.00000000")));
+
+    assertThat(orderBook.getBestAsk()).isEqualByComparingTo("5541.8");
+    assertThat(orderBook.getBestBid()).isEqualByComparingTo("5541.2");
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook("XBTUSD");
+    assertThat(marketOrderBook.getMarketId()).isEqualTo("XBTUSD");
+    assertThat(marketOrderBook.getSellOrders())
+        .extracting(MarketOrder::getPrice)
+        .usingElementComparator(Comparable::compareTo)
+        .containsExactly(new java.math.BigDecimal("5541.8"), new java.math.BigDecimal("5542"));
+    final MarketOrder bestBid = marketOrderBook.getBuyOrders().get(0);
+    assertThat(bestBid.getType()).isEqualTo(OrderType.BUY);
+    assertThat(bestBid.getQuantity()).isEqualByComparingTo("2");
+    assertThat(bestBid.getTotal()).isEqualByComparingTo("11082.4");
+    assertThat(marketOrderBook.getBuyOrders()).hasSize(2);
+  }
+
+  @Test
+  void testBookIsTruncatedToDepth() {
+    final KrakenLocalOrderBook orderBook = new KrakenLocalOrderBook(2);
+    orderBook.applySnapshot(
+        List.of(level("101", "1"), level("102", "1")), List.of(level("99", "1"), level("98", "1")));
+
+    orderBook.updateAsks(List.of(level("100.5", "1")));
+    orderBook.updateBids(List.of(level("97", "1")));
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook("XBTUSD");
+    assertThat(marketOrderBook.getSellOrders())
+        .extracting(order -> order.getPrice().toPlainString())
+        .containsExactly("100.5", "101");
+    assertThat(marketOrderBook.getBuyOrders())
+        .extracting(order -> order.getPrice().toPlainString())
+        .containsExactly("99", "98");
+  }
+
+  @Test
+  void testChecksumUsesTopTenLevelsWithoutDecimalPointsOrLeadingZeros() {
+    final KrakenLocalOrderBook orderBook = new KrakenLocalOrderBook(25);
+    orderBook.applySnapshot(
+        List.of(level("0.05010", "0.00000500"), level("0.05005", "0.00000500")),
+        List.of(level("0.05000", "0.00000500"), level("0.04995", "1.50000000")));
+
+    assertThat(orderBook.checksum()).isEqualTo(crc32("50055005010500" + "50005004995150000000"));
+    assertThat(new KrakenLocalOrderBook(10).checksum()).isEqualTo(crc32(""));
+  }
+
+  @Test
+  void testChecksumIgnoresLevelsBelowTopTen() {
+    final KrakenLocalOrderBook orderBook = new KrakenLocalOrderBook(25);
+    final StringBuilder expectedInput = new StringBuilder();
+    for (int i = 1; i <= 12; i++) {
+      orderBook.updateAsks(List.of(level(i + ".0", "1.0")));
+      if (i <= 10) {
+        expectedInput.append(i).append("010");
+      }
+    }
+
+    assertThat(orderBook.checksum()).isEqualTo(crc32(expectedInput.toString()));
+  }
+
+  private static List<String> level(String price, String volume) {
+    return List.of(price, volume, TIMESTAMP);
+  }
+
+  private static long crc32(String checksumInput) {
+    final CRC32 crc32 = new CRC32();
+    crc32.update(checksumInput.getBytes(StandardCharsets.US_ASCII));
+    return crc32.getValue();
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.Ticker;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Kraken WebSocket feed against a local WebSocket stand-in.
+ *
+ * @author gazbert
+ */
+class TestKrakenWebSocketFeed {
+
+  private static final String PAIR = "XBT/USD";
+  private static final String MARKET_ID = "XBTUSD";
+  private static final long AWAIT_TIMEOUT_IN_MILLIS = 10_000;
+
+  private static final String BOOK_SNAPSHOT =
+      "[0,{\"as\":[[\"5541.30000\",\"2.50700000\",\"1534614248.123678\"],"
+          + "[\"5541.80000\",\"0.33000000\",\"1534614098.345543\"]],"
+          + "\"bs\":[[\"5541.20000\",\"1.52900000\",\"1534614248.765567\"],"
+          + "[\"5539.90000\",\"0.30000000\",\"1534614241.769870\"]]},\"book-10\",\"XBT/USD\"]";
+
+  private WebSocketStandIn standIn;
+  private KrakenWebSocketFeed feed;
+
+  @BeforeEach
+  void setupForEachTest() throws Exception {
+    standIn = new WebSocketStandIn();
+  }
+
+  @AfterEach
+  void cleanupAfterEachTest() throws Exception {
+    if (feed != null) {
+      feed.close();
+    }
+    standIn.close();
+  }
+
+  @Test
+  void testSubscribesToBookAndTickerChannels() throws Exception {
+    connectFeed(Duration.ofSeconds(10));
+    assertThat(feed.getOrderBook(PAIR, MARKET_ID)).isNull();
+
+    feed.subscribe("ETH/USD");
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", "ETH/USD", "\"book\"");
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", "ETH/USD", "\"ticker\"");
+  }
+
+  @Test
+  void testOrderBookIsBuiltFromSnapshotAndUpdates() throws Exception {
+    connectFeed(Duration.ofSeconds(10));
+    standIn.send(BOOK_SNAPSHOT);
+    awaitOrderBook();
+
+    final KrakenLocalOrderBook expectedBook = new KrakenLocalOrderBook(10);
+    expectedBook.applySnapshot(
+        List.of(List.of("5541.80000", "0.33000000"), List.of("5542.00000", "1.00000000")),
+        List.of(List.of("5541.20000", "1.52900000"), List.of("5539.90000", "0.30000000")));
+    standIn.send(
+        "[0,{\"a\":[[\"5541.30000\",\"0.00000000\",\"1534614335.345903\"],"
+            + "[\"5542.00000\",\"1.00000000\",\"1534614335.345903\"]],"
+            + "\"c\":\""
+            + expectedBook.checksum()
+            + "\"},\"book-10\",\"XBT/USD\"]");
+
+    final MarketOrderBook orderBook =
+        await(
+            () -> {
+              final MarketOrderBook book = feed.getOrderBook(PAIR, MARKET_ID);
+              return book != null && book.getSellOrders().size() == 2
+                      && book.getSellOrders().get(1).getPrice().intValue() == 5542
+                  ? book
+                  : null;
+            });
+    assertThat(orderBook.getMarketId()).isEqualTo(MARKET_ID);
+    assertThat(orderBook.getSellOrders().get(0).getPrice()).isEqualByComparingTo("5541.8");
+    assertThat(orderBook.getBuyOrders().get(0).getPrice()).isEqualByComparingTo("5541.2");
+  }
+
+  @Test
+  void testBookIsResubscribedOnChecksumMismatch() throws Exception {
+    connectFeed(Duration.ofSeconds(10));
+    standIn.send(BOOK_SNAPSHOT);
+    awaitOrderBook();
+
+    standIn.send(
+        "[0,{\"b\":[[\"5541.10000\",\"1.00000000\",\"1534614335.345903\"]],\"c\":\"1\"},"
+            + "\"book-10\",\"XBT/USD\"]");
+
+    assertThat(standIn.awaitMessage()).contains("\"unsubscribe\"", PAIR, "\"book\"");
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", PAIR, "\"book\"");
+    assertThat(feed.getOrderBook(PAIR, MARKET_ID)).isNull();
+
+    standIn.send(BOOK_SNAPSHOT);
+    assertThat(awaitOrderBook().getBuyOrders()).hasSize(2);
+  }
+
+  @Test
+  void testFeedReconnectsAndResubscribesAfterDisconnect() throws Exception {
+    connectFeed(Duration.ofSeconds(10));
+    standIn.send(BOOK_SNAPSHOT);
+    awaitOrderBook();
+
+    standIn.disconnect();
+    standIn.awaitConnection();
+    assertThat(feed.getOrderBook(PAIR, MARKET_ID)).isNull();
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", PAIR, "\"book\"");
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", PAIR, "\"ticker\"");
+
+    standIn.send(BOOK_SNAPSHOT);
+    assertThat(awaitOrderBook().getSellOrders()).hasSize(2);
+  }
+
+  @Test
+  void testTickerIsServedFromTickerChannel() throws Exception {
+    connectFeed(Duration.ofSeconds(10));
+    standIn.send("{\"event\":\"heartbeat\"}");
+    standIn.send("{\"event\":\"subscriptionStatus\",\"errorMessage\":\"Currency pair not found\"}");
+    standIn.send("[0,\"not a channel message\"]");
+    standIn.send(
+        "[1,{\"a\":[\"5525.40000\",1,\"1.000\"],\"b\":[\"5525.10000\",1,\"1.000\"],"
+            + "\"c\":[\"5525.10000\",\"0.00398963\"],\"v\":[\"2634.11501494\",\"3591.17907851\"],"
+            + "\"p\":[\"5631.44067\",\"5653.78939\"],\"t\":[11493,16267],"
+            + "\"l\":[\"5505.00000\",\"5505.00000\"],\"h\":[\"5783.00000\",\"5783.00000\"],"
+            + "\"o\":[\"5760.70000\",\"5763.40000\"]},\"ticker\",\"XBT/USD\"]");
+
+    final Ticker ticker = await(() -> feed.getTicker(PAIR));
+    assertThat(ticker.getLast()).isEqualByComparingTo("5525.1");
+    assertThat(ticker.getBid()).isEqualByComparingTo("5525.1");
+    assertThat(ticker.getAsk()).isEqualByComparingTo("5525.4");
+    assertThat(ticker.getLow()).isEqualByComparingTo("5505");
+    assertThat(ticker.getHigh()).isEqualByComparingTo("5783");
+    assertThat(ticker.getOpen()).isEqualByComparingTo("5760.7");
+    assertThat(ticker.getVolume()).isEqualByComparingTo("3591.17907851");
+    assertThat(ticker.getVwap()).isEqualByComparingTo("5653.78939");
+    assertThat(ticker.getTimestamp()).isNull();
+  }
+
+  @Test
+  void testStaleFeedIsNotServedAndIsReconnected() throws Exception {
+    connectFeed(Duration.ofMillis(500));
+    standIn.send(BOOK_SNAPSHOT);
+    awaitOrderBook();
+
+    // stand-in goes quiet, so the watchdog drops the connection and reconnects
+    standIn.awaitConnection();
+    assertThat(standIn.awaitMessage()).contains("\"subscribe\"", PAIR, "\"book\"");
+    assertThat(feed.getOrderBook(PAIR, MARKET_ID)).isNull();
+  }
+
+  private void connectFeed(Duration staleTimeout) throws Exception {
+    feed = new KrakenWebSocketFeed(standIn.getUri(), 10, Duration.ofMillis(50), staleTimeout);
+    feed.subscribe(PAIR);
+    feed.subscribe(PAIR); // already subscribed, so ignored
+    standIn.awaitConnection();
+    assertThat(standIn.awaitMessage())
+        .isEqualTo(
+            "{\"event\":\"subscribe\",\"pair\":[\"XBT/USD\"],"
+                + "\"subscription\":{\"name\":\"book\",\"depth\":10}}");
+    assertThat(standIn.awaitMessage())
+        .isEqualTo(
+            "{\"event\":\"subscribe\",\"pair\":[\"XBT/USD\"],"
+                + "\"subscription\":{\"name\":\"ticker\"}}");
+  }
+
+  private MarketOrderBook awaitOrderBook() throws InterruptedException {
+    return await(() -> feed.getOrderBook(PAIR, MARKET_ID));
+  }
+
+  private static <T> T await(Supplier<T> condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_IN_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      final T result = condition.get();
+      if (result != null) {
+        return result;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("Timed out waiting for feed");
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the nonce provider hands out increasing nonces, across threads and restarts.
+ *
+ * @author gazbert
+ */
+class TestNonceProvider {
+
+  private static final String NONCE_DIRECTORY_SYSTEM_PROPERTY = "bxbot.exchange.nonce.dir";
+
+  @TempDir Path tempDir;
+
+  @Test
+  void testNoncesIncreaseFromSeed() {
+    final NonceProvider nonceProvider = new NonceProvider(tempDir.resolve("test.nonce"), 100);
+
+    assertThat(nonceProvider.next()).isEqualTo(100);
+    assertThat(nonceProvider.next()).isEqualTo(101);
+    assertThat(nonceProvider.next()).isEqualTo(102);
+  }
+
+  @Test
+  void testRestartCarriesOnAfterPersistedHighWaterMark() throws Exception {
+    final Path file = tempDir.resolve("test.nonce");
+    final NonceProvider nonceProvider = new NonceProvider(file, 1);
+    long lastNonce = 0;
+    for (int i = 0; i < 2500; i++) {
+      lastNonce = nonceProvider.next();
+    }
+    assertThat(Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim()))
+        .isGreaterThanOrEqualTo(lastNonce);
+
+    final NonceProvider restartedNonceProvider = new NonceProvider(file, 1);
+    assertThat(restartedNonceProvider.next()).isGreaterThan(lastNonce);
+  }
+
+  @Test
+  void testSeedPastHighWaterMarkIsUsed() {
+    final Path file = tempDir.resolve("test.nonce");
+    new NonceProvider(file, 1).next();
+
+    assertThat(new NonceProvider(file, 1_000_000).next()).isEqualTo(1_000_000);
+  }
+
+  @Test
+  void testAdvanceToNeverGoesBackwards() {
+    final NonceProvider nonceProvider = new NonceProvider(tempDir.resolve("test.nonce"), 100);
+    nonceProvider.next();
+
+    nonceProvider.advanceTo(50);
+    assertThat(nonceProvider.next()).isEqualTo(101);
+
+    nonceProvider.advanceTo(500);
+    assertThat(nonceProvider.next()).isEqualTo(500);
+  }
+
+  @Test
+  void testCorruptHighWaterMarkIsIgnored() throws Exception {
+    final Path file = tempDir.resolve("test.nonce");
+    Files.writeString(file, "not-a-nonce");
+
+    final NonceProvider nonceProvider = new NonceProvider(file, 10);
+    assertThat(nonceProvider.next()).isEqualTo(10);
+    assertThat(Files.readString(file, StandardCharsets.US_ASCII).trim())
+        .isEqualTo(String.valueOf(10 + NonceProvider.RESERVATION_SIZE));
+  }
+
+  @Test
+  void testNoncesAreUniqueAcrossThreads() throws Exception {
+    final NonceProvider nonceProvider = new NonceProvider(tempDir.resolve("test.nonce"), 1);
+    final Set<Long> nonces = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<?>> results = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 1000; i++) {
+                    nonces.add(nonceProvider.next());
+                  }
+                }));
+      }
+      for (final Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(nonces).hasSize(8000);
+    assertThat(nonceProvider.next()).isEqualTo(8001);
+  }
+
+  @Test
+  void testProvidersArePartitionedByExchangeAndApiKey() {
+    final String nonceDirectory = System.getProperty(NONCE_DIRECTORY_SYSTEM_PROPERTY);
+    System.setProperty(NONCE_DIRECTORY_SYSTEM_PROPERTY, tempDir.toString());
+    try {
+      final NonceProvider nonceProvider = NonceProvider.forApiKey("Kraken", "key-1", 1);
+
+      assertThat(NonceProvider.forApiKey("Kraken", "key-1", 1)).isSameAs(nonceProvider);
+      assertThat(NonceProvider.forApiKey("Kraken", "key-2", 1)).isNotSameAs(nonceProvider);
+      assertThat(NonceProvider.forApiKey("Bitstamp", "key-1", 1)).isNotSameAs(nonceProvider);
+
+      nonceProvider.next();
+      assertThat(tempDir.toFile().list())
+          .singleElement()
+          .asString()
+          .startsWith("kraken-")
+          .endsWith(".nonce")
+          .doesNotContain("key-1");
+    } finally {
+      if (nonceDirectory == null) {
+        System.clearProperty(NONCE_DIRECTORY_SYSTEM_PROPERTY);
+      } else {
+        System.setProperty(NONCE_DIRECTORY_SYSTEM_PROPERTY, nonceDirectory);
+      }
+    }
+  }
+}
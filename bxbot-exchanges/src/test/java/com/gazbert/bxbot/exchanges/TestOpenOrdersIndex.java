@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Open Orders Index behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestOpenOrdersIndex {
+
+  private static final long TIME_TO_LIVE_IN_MILLIS = 2000;
+
+  private static final OpenOrder BTC_ORDER = createOpenOrder("btc-order-1", "XBTUSD");
+  private static final OpenOrder ETH_ORDER = createOpenOrder("eth-order-1", "ETHUSD");
+
+  private final AtomicLong clock = new AtomicLong();
+  private final OpenOrdersIndex openOrdersIndex =
+      new OpenOrdersIndex(TIME_TO_LIVE_IN_MILLIS, clock::get);
+
+  @Test
+  void testEmptyIndexReturnsNull() {
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).isNull();
+  }
+
+  @Test
+  void testOpenOrdersAreServedPerMarket() {
+    openOrdersIndex.refresh(
+        openOrdersIndex.getGeneration(),
+        Map.of("XBTUSD", List.of(BTC_ORDER), "ETHUSD", List.of(ETH_ORDER)));
+
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).containsExactly(BTC_ORDER);
+    assertThat(openOrdersIndex.getOpenOrders("ethusd")).containsExactly(ETH_ORDER);
+    assertThat(openOrdersIndex.getOpenOrders("LTCUSD")).isEmpty();
+  }
+
+  @Test
+  void testIndexIsImmutable() {
+    final List<OpenOrder> orders = new ArrayList<>(List.of(BTC_ORDER));
+    openOrdersIndex.refresh(openOrdersIndex.getGeneration(), Map.of("XBTUSD", orders));
+    orders.clear();
+
+    final List<OpenOrder> indexedOrders = openOrdersIndex.getOpenOrders("XBTUSD");
+    assertThat(indexedOrders).containsExactly(BTC_ORDER);
+    assertThrows(UnsupportedOperationException.class, indexedOrders::clear);
+  }
+
+  @Test
+  void testIndexExpiresAfterTimeToLive() {
+    openOrdersIndex.refresh(openOrdersIndex.getGeneration(), Map.of("XBTUSD", List.of(BTC_ORDER)));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TIME_TO_LIVE_IN_MILLIS - 1));
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).containsExactly(BTC_ORDER);
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).isNull();
+  }
+
+  @Test
+  void testInvalidateEmptiesIndex() {
+    openOrdersIndex.refresh(openOrdersIndex.getGeneration(), Map.of("XBTUSD", List.of(BTC_ORDER)));
+    openOrdersIndex.invalidate();
+
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).isNull();
+  }
+
+  @Test
+  void testRefreshStartedBeforeInvalidateIsIgnored() {
+    final long generation = openOrdersIndex.getGeneration();
+    openOrdersIndex.invalidate(); // e.g. an order was created while the fetch was in flight
+
+    openOrdersIndex.refresh(generation, Map.of("XBTUSD", List.of(BTC_ORDER)));
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).isNull();
+
+    openOrdersIndex.refresh(openOrdersIndex.getGeneration(), Map.of("XBTUSD", List.of()));
+    assertThat(openOrdersIndex.getOpenOrders("XBTUSD")).isEmpty();
+  }
+
+  @Test
+  void testZeroTimeToLiveDisablesIndex() {
+    final OpenOrdersIndex disabled = new OpenOrdersIndex(0, clock::get);
+    disabled.refresh(disabled.getGeneration(), Map.of("XBTUSD", List.of(BTC_ORDER)));
+
+    assertThat(disabled.getOpenOrders("XBTUSD")).isNull();
+  }
+
+  private static OpenOrder createOpenOrder(String id, String marketId) {
+    return new OpenOrderImpl(
+        id,
+        new Date(),
+        marketId,
+        OrderType.BUY,
+        new BigDecimal("100"),
+        new BigDecimal("1"),
+        new BigDecimal("1"),
+        new BigDecimal("100"));
+  }
+}
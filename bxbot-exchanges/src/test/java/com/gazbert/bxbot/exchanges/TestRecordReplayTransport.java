@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the Recording and Replay transports behave as expected.
+ *
+ * @author gazbert
+ */
+class TestRecordReplayTransport {
+
+  private static final URI DEPTH_URI =
+      URI.create("https://api.kraken.com/0/public/Depth?pair=XBTUSD");
+  private static final URI BALANCE_URI = URI.create("https://api.kraken.com/0/private/Balance");
+
+  @TempDir Path tempDir;
+
+  private Path recordingFile;
+  private AtomicInteger requestCount;
+  private ExchangeHttpTransport exchange;
+
+  @BeforeEach
+  void setUp() {
+    recordingFile = tempDir.resolve("recording.jsonl");
+    requestCount = new AtomicInteger();
+    exchange =
+        (uri, httpMethod, postData, requestHeaders) ->
+            new ExchangeHttpResponse(
+                200,
+                "OK",
+                ("{\"result\":" + requestCount.incrementAndGet() + "}")
+                    .getBytes(StandardCharsets.UTF_8),
+                Map.of("Content-Type", List.of("application/json")));
+  }
+
+  @Test
+  void testRecordingRedactsCredentialsAndSignatures() throws Exception {
+    final Map<String, String> requestHeaders = new LinkedHashMap<>();
+    requestHeaders.put("API-Key", "my-api-key");
+    requestHeaders.put("API-Sign", "my-signature");
+    requestHeaders.put("X-BFX-APIKEY", "my-bitfinex-key");
+    requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
+
+    final RecordingTransport recordingTransport = new RecordingTransport(exchange, recordingFile);
+    final ExchangeHttpResponse response =
+        recordingTransport.send(
+            BALANCE_URI, "POST", "nonce=1&key=my-key&signature=my-sig", requestHeaders);
+    assertThat(response.getPayload()).isEqualTo("{\"result\":1}");
+
+    final String recording = Files.readString(recordingFile);
+    assertThat(recording)
+        .doesNotContain("my-api-key", "my-signature", "my-bitfinex-key", "my-key", "my-sig")
+        .contains("POST /0/private/Balance")
+        .contains("nonce=1&key=REDACTED&signature=REDACTED")
+        .contains("application/x-www-form-urlencoded");
+  }
+
+  @Test
+  void testRequestWithoutHeadersIsRecorded() throws Exception {
+    final RecordingTransport recordingTransport = new RecordingTransport(exchange, recordingFile);
+    recordingTransport.send(DEPTH_URI, "GET", null, null);
+
+    final ReplayTransport replayTransport = new ReplayTransport(recordingFile, 0);
+    assertThat(replayTransport.send(DEPTH_URI, "GET", null, null).getPayload())
+        .isEqualTo("{\"result\":1}");
+  }
+
+  @Test
+  void testReplayServesRecordedResponsesInOrder() throws Exception {
+    final RecordingTransport recordingTransport = new RecordingTransport(exchange, recordingFile);
+    recordingTransport.send(DEPTH_URI, "GET", null, Map.of());
+    recordingTransport.send(DEPTH_URI, "GET", null, Map.of());
+    recordingTransport.send(BALANCE_URI, "POST", "nonce=1", Map.of());
+
+    final ReplayTransport replayTransport = new ReplayTransport(recordingFile, 0);
+    assertThat(replayTransport.send(DEPTH_URI, "GET", null, Map.of()).getPayload())
+        .isEqualTo("{\"result\":1}");
+    assertThat(replayTransport.send(DEPTH_URI, "GET", null, Map.of()).getPayload())
+        .isEqualTo("{\"result\":2}");
+    assertThat(replayTransport.send(DEPTH_URI, "GET", null, Map.of()).getPayload())
+        .isEqualTo("{\"result\":1}");
+
+    final ExchangeHttpResponse balance =
+        replayTransport.send(BALANCE_URI, "POST", "nonce=2", Map.of());
+    assertThat(balance.getStatusCode()).isEqualTo(200);
+    assertThat(balance.getPayload()).isEqualTo("{\"result\":3}");
+    assertThat(balance.getFirstHeader("content-type")).isEqualTo("application/json");
+    assertThat(requestCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  void testReplayAddsSimulatedLatency() throws Exception {
+    new RecordingTransport(exchange, recordingFile).send(DEPTH_URI, "GET", null, Map.of());
+
+    final ReplayTransport replayTransport = new ReplayTransport(recordingFile, 50);
+    final long start = System.nanoTime();
+    replayTransport.send(DEPTH_URI, "GET", null, Map.of());
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  void testReplayFailsForRequestThatWasNotRecorded() throws Exception {
+    new RecordingTransport(exchange, recordingFile).send(DEPTH_URI, "GET", null, Map.of());
+
+    final ReplayTransport replayTransport = new ReplayTransport(recordingFile, 0);
+    assertThatThrownBy(() -> replayTransport.send(BALANCE_URI, "POST", null, Map.of()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("POST /0/private/Balance");
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the request signer produces the same signatures as the JDK.
+ *
+ * @author gazbert
+ */
+class TestRequestSigner {
+
+  private static final byte[] SECRET = "your-api-secret".getBytes(StandardCharsets.UTF_8);
+  private static final String[] ALGORITHMS = {"HmacSHA256", "HmacSHA384", "HmacSHA512"};
+  private static final String[] MESSAGES = {
+    "",
+    "a",
+    "ab",
+    "abc",
+    "1572282245023{\"request\":\"/v1/order/new\",\"symbol\":\"btcusd\"}",
+    "price=£1,000 for 10µ€ of 日本",
+    "emoji 🚀 and unpaired "
+        + Character.MIN_HIGH_SURROGATE
+        + " and "
+        + Character.MIN_LOW_SURROGATE
+        + " surrogates"
+        + Character.MAX_HIGH_SURROGATE,
+  };
+
+  @Test
+  void testSignaturesMatchTheJdk() throws Exception {
+    for (final String algorithm : ALGORITHMS) {
+      final RequestSigner signer = new RequestSigner(algorithm, SECRET);
+      for (final String message : MESSAGES) {
+        final byte[] expected = hmac(algorithm, message.getBytes(StandardCharsets.UTF_8));
+        assertThat(signer.sign(message, Encoding.HEX_LOWER_CASE)).isEqualTo(hex(expected));
+        assertThat(signer.sign(message, Encoding.HEX_UPPER_CASE))
+            .isEqualTo(hex(expected).toUpperCase(Locale.ROOT));
+        assertThat(signer.sign(message, Encoding.BASE64))
+            .isEqualTo(Base64.getEncoder().encodeToString(expected));
+      }
+    }
+  }
+
+  @Test
+  void testSignaturesWithHashedMessageMatchTheJdk() throws Exception {
+    final String path = "/0/private/AddOrder";
+    for (final String algorithm : ALGORITHMS) {
+      final RequestSigner signer = new RequestSigner(algorithm, SECRET);
+      for (final String message : MESSAGES) {
+        final byte[] messageHash =
+            MessageDigest.getInstance("SHA-256").digest(message.getBytes(StandardCharsets.UTF_8));
+        final byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        final byte[] toSign = new byte[pathBytes.length + messageHash.length];
+        System.arraycopy(pathBytes, 0, toSign, 0, pathBytes.length);
+        System.arraycopy(messageHash, 0, toSign, pathBytes.length, messageHash.length);
+
+        assertThat(signer.signWithHashedMessage(path, message, Encoding.BASE64))
+            .isEqualTo(Base64.getEncoder().encodeToString(hmac(algorithm, toSign)));
+      }
+    }
+  }
+
+  @Test
+  void testBase64MatchesTheJdk() {
+    for (final String message : MESSAGES) {
+      assertThat(RequestSigner.base64(message))
+          .isEqualTo(
+              Base64.getEncoder().encodeToString(message.getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Test
+  void testBuffersGrowForLargeMessages() throws Exception {
+    final RequestSigner signer = new RequestSigner("HmacSHA256", SECRET);
+    final String large = "€".repeat(5000);
+    final byte[] expected = hmac("HmacSHA256", large.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(signer.sign(large, Encoding.HEX_LOWER_CASE)).isEqualTo(hex(expected));
+    assertThat(RequestSigner.base64(large))
+        .isEqualTo(Base64.getEncoder().encodeToString(large.getBytes(StandardCharsets.UTF_8)));
+    assertThat(signer.sign("small", Encoding.BASE64))
+        .isEqualTo(
+            Base64.getEncoder()
+                .encodeToString(
+                    hmac("HmacSHA256", "small".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  void testSigningIsThreadSafe() throws Exception {
+    final RequestSigner signer = new RequestSigner("HmacSHA512", SECRET);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Boolean>> results = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        final int threadId = thread;
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 500; i++) {
+                    final String message = "nonce=" + threadId + "-" + i;
+                    final String expected =
+                        Base64.getEncoder()
+                            .encodeToString(
+                                hmac("HmacSHA512", message.getBytes(StandardCharsets.UTF_8)));
+                    if (!expected.equals(signer.sign(message, Encoding.BASE64))) {
+                      return false;
+                    }
+                  }
+                  return true;
+                }));
+      }
+      for (final Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testUnknownAlgorithmIsRejected() {
+    assertThatThrownBy(() -> new RequestSigner("HmacMD42", SECRET))
+        .isInstanceOf(NoSuchAlgorithmException.class);
+  }
+
+  @Test
+  void testEmptySecretIsRejected() {
+    assertThatThrownBy(() -> new RequestSigner("HmacSHA256", new byte[0]))
+        .isInstanceOfAny(IllegalArgumentException.class, InvalidKeyException.class);
+  }
+
+  private static byte[] hmac(String algorithm, byte[] message) throws Exception {
+    final Mac mac = Mac.getInstance(algorithm);
+    mac.init(new SecretKeySpec(SECRET, algorithm));
+    return mac.doFinal(message);
+  }
+
+  private static String hex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder();
+    for (final byte b : bytes) {
+      hex.append(String.format("%02x", b & 0xff));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gazbert.bxbot.exchanges.RequestSigner.Encoding;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmarks the request signing of an authenticated request against the signing the adapters did
+ * before they shared the {@link RequestSigner}: a single Mac, {@link DatatypeConverter} Base64 and
+ * String.format hex encoding.
+ *
+ * <p>The signing is Gemini's: the JSON payload is Base64 encoded and the Base64 String is signed
+ * with HmacSHA384 and hex encoded. The throughput and the bytes allocated per signing are logged
+ * at INFO level for 3 rounds of 1M signings, on a single thread, and the last round checks that
+ * the {@link RequestSigner} allocates less per signing. Allocation is measured with the JVM's
+ * {@link com.sun.management.ThreadMXBean}.
+ *
+ * <p>The benchmark does not run as part of the build. Run it without the JaCoCo agent, which skews
+ * both numbers:
+ *
+ * <pre>
+ * mvn -pl bxbot-exchanges -am test -Dtest=TestRequestSignerBenchmark \
+ *     -Dsurefire.failIfNoSpecifiedTests=false -Djacoco.skip=true -Dbxbot.benchmark=true
+ * </pre>
+ *
+ * @author gazbert
+ */
+@EnabledIfSystemProperty(named = "bxbot.benchmark", matches = "true")
+class TestRequestSignerBenchmark {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String ALGORITHM = "HmacSHA384";
+  private static final byte[] SECRET = "secretsecretsecret".getBytes(StandardCharsets.UTF_8);
+  private static final String PAYLOAD =
+      "{\"request\":\"/v1/order/new\",\"nonce\":\"1572282245023\",\"symbol\":\"btcusd\","
+          + "\"amount\":\"0.01\",\"price\":\"9000.00\",\"side\":\"buy\","
+          + "\"type\":\"exchange limit\"}";
+
+  private static final int ROUNDS = 3;
+  private static final int SIGNINGS_PER_ROUND = 1_000_000;
+
+  private final com.sun.management.ThreadMXBean threadMxBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Test
+  void benchmarkSigning() throws Exception {
+    final Mac mac = Mac.getInstance(ALGORITHM);
+    mac.init(new SecretKeySpec(SECRET, ALGORITHM));
+    final RequestSigner requestSigner = new RequestSigner(ALGORITHM, SECRET);
+
+    assertEquals(
+        signWithSharedMac(mac),
+        requestSigner.sign(RequestSigner.base64(PAYLOAD), Encoding.HEX_LOWER_CASE));
+
+    long sharedMacBytesPerOp = 0;
+    long requestSignerBytesPerOp = 0;
+    long sink = 0;
+    for (int round = 1; round <= ROUNDS; round++) {
+      long startTime = System.nanoTime();
+      long startBytes = allocatedBytes();
+      for (int i = 0; i < SIGNINGS_PER_ROUND; i++) {
+        sink += signWithSharedMac(mac).length();
+      }
+      sharedMacBytesPerOp = report(round, "shared Mac", startTime, startBytes);
+
+      startTime = System.nanoTime();
+      startBytes = allocatedBytes();
+      for (int i = 0; i < SIGNINGS_PER_ROUND; i++) {
+        final String base64Payload = RequestSigner.base64(PAYLOAD);
+        sink += requestSigner.sign(base64Payload, Encoding.HEX_LOWER_CASE).length();
+      }
+      requestSignerBytesPerOp = report(round, "RequestSigner", startTime, startBytes);
+    }
+
+    assertEquals(2L * ROUNDS * SIGNINGS_PER_ROUND * 96, sink);
+    assertTrue(requestSignerBytesPerOp < sharedMacBytesPerOp);
+  }
+
+  private static String signWithSharedMac(Mac mac) {
+    final String base64Payload =
+        DatatypeConverter.printBase64Binary(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+    mac.reset();
+    mac.update(base64Payload.getBytes(StandardCharsets.UTF_8));
+    return toHex(mac.doFinal()).toLowerCase();
+  }
+
+  private static String toHex(byte[] byteArrayToConvert) {
+    final StringBuilder hexString = new StringBuilder();
+    for (final byte aByte : byteArrayToConvert) {
+      hexString.append(String.format("%02x", aByte & 0xff));
+    }
+    return hexString.toString();
+  }
+
+  private long allocatedBytes() {
+    return threadMxBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private long report(int round, String name, long startTime, long startBytes) {
+    final long elapsedNanos = System.nanoTime() - startTime;
+    final long bytesPerOp = (allocatedBytes() - startBytes) / SIGNINGS_PER_ROUND;
+    LOG.info(
+        () ->
+            String.format(
+                "Round %d %-13s %,10.0f ops/s %,8d B/op",
+                round, name, SIGNINGS_PER_ROUND / (elapsedNanos / 1e9), bytesPerOp));
+    return bytesPerOp;
+  }
+}
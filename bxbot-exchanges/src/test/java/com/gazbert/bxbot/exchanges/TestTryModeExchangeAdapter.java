@@ -184,6 +184,16 @@ public class TestTryModeExchangeAdapter extends AbstractExchangeAdapter {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getPublicRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getPrivateRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getTradingRequestsPerSecond()).andReturn(null);
+    expect(networkConfig.getMaxRetries()).andReturn(null);
+    expect(networkConfig.getRetryBackoff()).andReturn(null);
+    expect(networkConfig.getMaxRetryBackoff()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerFailureThreshold()).andReturn(null);
+    expect(networkConfig.getCircuitBreakerOpenTimeout()).andReturn(null);
 
     OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("simulatedBaseCurrency")).andReturn(BASE_CURRENCY).atLeastOnce();
@@ -202,6 +212,7 @@ public class TestTryModeExchangeAdapter extends AbstractExchangeAdapter {
     expect(otherConfig.getItem("simulatedBuyFee")).andReturn(SIMULATED_BUY_FEE).atLeastOnce();
 
     expect(otherConfig.getItem("delegateAdapter")).andReturn(DELEGATE_ADAPTER).atLeastOnce();
+    expect(otherConfig.getItem("balance-cache-ttl")).andStubReturn(null);
 
     authenticationConfig = PowerMock.createMock(AuthenticationConfig.class);
     expect(authenticationConfig.getItem("client-id")).andReturn(CLIENT_ID);
@@ -460,6 +471,9 @@ public class TestTryModeExchangeAdapter extends AbstractExchangeAdapter {
   @Test(expected = TradingApiException.class)
   public void testCancelOrderWhenOrderIdDoesNotMatch() throws Exception {
 
+    final Ticker tickerResponse =
+        new TickerImpl(LAST, BID, ASK, LOW, HIGH, OPEN, VOLUME, VWAP, TIMESTAMP);
+
     final OpenOrderImpl openOrder =
         new OpenOrderImpl(
             OPEN_ORDER_ID,
@@ -473,7 +487,10 @@ public class TestTryModeExchangeAdapter extends AbstractExchangeAdapter {
 
     final BitstampExchangeAdapter delegateExchangeAdapter =
         PowerMock.createPartialMockAndInvokeDefaultConstructor(
-            BitstampExchangeAdapter.class, MOCKED_GET_MARKET_ORDERS);
+            BitstampExchangeAdapter.class, MOCKED_GET_TICKER_METHOD);
+
+    PowerMock.expectPrivate(delegateExchangeAdapter, MOCKED_GET_TICKER_METHOD, eq(MARKET_ID))
+        .andReturn(tickerResponse);
 
     final TryModeExchangeAdapter tryModeExchangeAdapter =
         PowerMock.createPartialMockAndInvokeDefaultConstructor(
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal local WebSocket server that stands in for an exchange's WebSocket API in tests.
+ *
+ * <p>It accepts one connection at a time, queues the text messages the client sends, and lets the
+ * test push text messages to the client or drop the connection.
+ *
+ * @author gazbert
+ */
+class WebSocketStandIn implements AutoCloseable {
+
+  private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final int OPCODE_TEXT = 0x1;
+  private static final int OPCODE_CLOSE = 0x8;
+  private static final int OPCODE_PING = 0x9;
+  private static final int OPCODE_PONG = 0xA;
+  private static final long TIMEOUT_IN_SECS = 10;
+
+  private final ServerSocket serverSocket;
+  private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+  private final BlockingQueue<Socket> connections = new LinkedBlockingQueue<>();
+  private volatile Socket connection;
+
+  WebSocketStandIn() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    final Thread acceptThread = new Thread(this::acceptConnections, "websocket-stand-in");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+  }
+
+  URI getUri() {
+    return URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort());
+  }
+
+  /** Waits for the client to connect. */
+  void awaitConnection() throws InterruptedException {
+    final Socket socket = connections.poll(TIMEOUT_IN_SECS, TimeUnit.SECONDS);
+    if (socket == null) {
+      throw new AssertionError("Client did not connect");
+    }
+  }
+
+  /**
+   * Waits for the next text message from the client.
+   *
+   * @return the message.
+   */
+  String awaitMessage() throws InterruptedException {
+    final String message = receivedMessages.poll(TIMEOUT_IN_SECS, TimeUnit.SECONDS);
+    if (message == null) {
+      throw new AssertionError("Client did not send a message");
+    }
+    return message;
+  }
+
+  /**
+   * Sends a text message to the client.
+   *
+   * @param message the message.
+   */
+  void send(String message) throws IOException {
+    final Socket socket = connection;
+    if (socket == null) {
+      throw new IOException("No client connected");
+    }
+    writeFrame(socket, OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Drops the client connection without a close handshake. */
+  void disconnect() throws IOException {
+    final Socket socket = connection;
+    if (socket != null) {
+      connection = null;
+      socket.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    disconnect();
+    serverSocket.close();
+  }
+
+  private void acceptConnections() {
+    while (!serverSocket.isClosed()) {
+      try {
+        final Socket socket = serverSocket.accept();
+        handshake(socket);
+        connection = socket;
+        connections.add(socket);
+        readFrames(socket);
+      } catch (IOException e) {
+        // connection dropped, or server closed
+      }
+    }
+  }
+
+  private static void handshake(Socket socket) throws IOException {
+    final InputStream in = socket.getInputStream();
+    final StringBuilder request = new StringBuilder();
+    while (!request.toString().endsWith("\r\n\r\n")) {
+      final int b = in.read();
+      if (b == -1) {
+        throw new IOException("Connection closed during handshake");
+      }
+      request.append((char) b);
+    }
+
+    String key = null;
+    for (final String header : request.toString().split("\r\n")) {
+      if (header.toLowerCase(Locale.ROOT).startsWith("sec-websocket-key:")) {
+        key = header.substring(header.indexOf(':') + 1).trim();
+      }
+    }
+    final String accept;
+    try {
+      final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      accept =
+          Base64.getEncoder()
+              .encodeToString(
+                  sha1.digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII)));
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    final String response =
+        "HTTP/1.1 101 Switching Protocols\r\n"
+            + "Upgrade: websocket\r\n"
+            + "Connection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: "
+            + accept
+            + "\r\n\r\n";
+    final OutputStream out = socket.getOutputStream();
+    out.write(response.getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  private void readFrames(Socket socket) throws IOException {
+    final DataInputStream in = new DataInputStream(socket.getInputStream());
+    final ByteArrayOutputStream message = new ByteArrayOutputStream();
+    while (true) {
+      final int first = in.readUnsignedByte();
+      final boolean fin = (first & 0x80) != 0;
+      final int opcode = first & 0x0F;
+      final int second = in.readUnsignedByte();
+      long length = second & 0x7F;
+      if (length == 126) {
+        length = in.readUnsignedShort();
+      } else if (length == 127) {
+        length = in.readLong();
+      }
+      final byte[] mask = new byte[4];
+      if ((second & 0x80) != 0) {
+        in.readFully(mask);
+      }
+      final byte[] payload = new byte[(int) length];
+      in.readFully(payload);
+      for (int i = 0; i < payload.length; i++) {
+        payload[i] ^= mask[i % 4];
+      }
+
+      if (opcode == OPCODE_CLOSE) {
+        writeFrame(socket, OPCODE_CLOSE, payload);
+        socket.close();
+        return;
+      } else if (opcode == OPCODE_PING) {
+        writeFrame(socket, OPCODE_PONG, payload);
+      } else if (opcode != OPCODE_PONG) {
+        message.write(payload);
+        if (fin) {
+          receivedMessages.add(message.toString(StandardCharsets.UTF_8));
+          message.reset();
+        }
+      }
+    }
+  }
+
+  private static void writeFrame(Socket socket, int opcode, byte[] payload) throws IOException {
+    final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    frame.write(0x80 | opcode);
+    if (payload.length < 126) {
+      frame.write(payload.length);
+    } else if (payload.length < 65536) {
+      frame.write(126);
+      frame.write(payload.length >> 8);
+      frame.write(payload.length & 0xFF);
+    } else {
+      frame.write(127);
+      for (int i = 7; i >= 0; i--) {
+        frame.write((int) ((long) payload.length >> (8 * i)) & 0xFF);
+      }
+    }
+    frame.write(payload);
+    synchronized (socket) {
+      final OutputStream out = socket.getOutputStream();
+      out.write(frame.toByteArray());
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the fixed-point Market Order Book impl behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestFixedPointMarketOrderBook {
+
+  private static final String MARKET_ID = "XBTUSD";
+
+  @Test
+  void testMarketOrderViewsMatchLevels() {
+    final FixedPointMarketOrderBook orderBook = createOrderBook();
+
+    assertEquals(MARKET_ID, orderBook.getMarketId());
+    assertEquals(3, orderBook.getSellOrders().size());
+    assertEquals(2, orderBook.getBuyOrders().size());
+
+    final MarketOrder bestAsk = orderBook.getSellOrders().get(0);
+    assertEquals(OrderType.SELL, bestAsk.getType());
+    assertEquals(0, new BigDecimal("664.536").compareTo(bestAsk.getPrice()));
+    assertEquals(0, new BigDecimal("0.888").compareTo(bestAsk.getQuantity()));
+    assertEquals(0, new BigDecimal("590.107968").compareTo(bestAsk.getTotal()));
+    assertSame(bestAsk, orderBook.getSellOrders().get(0));
+
+    final MarketOrder secondBid = orderBook.getBuyOrders().get(1);
+    assertEquals(OrderType.BUY, secondBid.getType());
+    assertEquals(0, new BigDecimal("662.5").compareTo(secondBid.getPrice()));
+    assertEquals(0, new BigDecimal("2").compareTo(secondBid.getQuantity()));
+  }
+
+  @Test
+  void testBestBidAndAsk() {
+    final FixedPointMarketOrderBook orderBook = createOrderBook();
+    assertEquals(new BigDecimal("664.536"), orderBook.getBestAsk());
+    assertEquals(new BigDecimal("662.550"), orderBook.getBestBid());
+
+    final FixedPointMarketOrderBook emptyOrderBook =
+        FixedPointMarketOrderBook.builder(MARKET_ID, 1, 8).build();
+    assertNull(emptyOrderBook.getBestAsk());
+    assertNull(emptyOrderBook.getBestBid());
+    assertEquals(0, emptyOrderBook.getSellOrders().size());
+  }
+
+  @Test
+  void testScaleIsWidenedWhenExchangeSendsMoreDecimalPlaces() {
+    final FixedPointMarketOrderBook orderBook =
+        FixedPointMarketOrderBook.builder(MARKET_ID, 1, 0)
+            .addAsk("100.5", "1")
+            .addAsk("100.55000", "2.25")
+            .addBid("99.0", "3")
+            .build();
+
+    assertEquals(2, orderBook.getPriceScale());
+    assertEquals(2, orderBook.getQuantityScale());
+    assertEquals(new BigDecimal("100.50"), orderBook.getBestAsk());
+    assertEquals(new BigDecimal("3.00"), orderBook.getBuyOrders().get(0).getQuantity());
+  }
+
+  @Test
+  void testQuantityAtPrice() {
+    final FixedPointMarketOrderBook orderBook = createOrderBook();
+
+    assertEquals(
+        0,
+        new BigDecimal("30")
+            .compareTo(orderBook.getQuantityAtPrice(OrderType.SELL, new BigDecimal("664.537"))));
+    assertEquals(
+        0,
+        new BigDecimal("2")
+            .compareTo(orderBook.getQuantityAtPrice(OrderType.BUY, new BigDecimal("662.5"))));
+    assertEquals(
+        0,
+        BigDecimal.ZERO.compareTo(
+            orderBook.getQuantityAtPrice(OrderType.SELL, new BigDecimal("664.5365"))));
+    assertEquals(
+        0,
+        BigDecimal.ZERO.compareTo(
+            orderBook.getQuantityAtPrice(OrderType.BUY, new BigDecimal("664.536"))));
+  }
+
+  @Test
+  void testVolumeWeightedAveragePrice() {
+    final FixedPointMarketOrderBook orderBook = createOrderBook();
+
+    // 0.888 @ 664.536 + 1.112 @ 664.537
+    final BigDecimal expected =
+        new BigDecimal("664.536")
+            .multiply(new BigDecimal("0.888"))
+            .add(new BigDecimal("664.537").multiply(new BigDecimal("1.112")))
+            .divide(new BigDecimal("2"));
+    assertEquals(
+        0,
+        expected.compareTo(
+            orderBook.getVolumeWeightedAveragePrice(OrderType.SELL, new BigDecimal("2"))));
+    assertEquals(
+        0,
+        new BigDecimal("662.55")
+            .compareTo(
+                orderBook.getVolumeWeightedAveragePrice(OrderType.BUY, new BigDecimal("0.5"))));
+    assertNull(orderBook.getVolumeWeightedAveragePrice(OrderType.BUY, new BigDecimal("10")));
+    assertNull(orderBook.getVolumeWeightedAveragePrice(OrderType.BUY, BigDecimal.ZERO));
+  }
+
+  @Test
+  void testVolumeWeightedAveragePriceDoesNotOverflow() {
+    final FixedPointMarketOrderBook orderBook =
+        FixedPointMarketOrderBook.builder(MARKET_ID, 8, 8)
+            .addAsk("90000000.00000001", "90000000.00000001")
+            .addAsk("90000000.00000003", "90000000.00000001")
+            .build();
+
+    assertEquals(
+        0,
+        new BigDecimal("90000000.00000002")
+            .compareTo(
+                orderBook.getVolumeWeightedAveragePrice(
+                    OrderType.SELL, new BigDecimal("180000000.00000002"))));
+  }
+
+  @Test
+  void testInvalidLevelsAreRejected() {
+    final FixedPointMarketOrderBook.Builder builder =
+        FixedPointMarketOrderBook.builder(MARKET_ID, 2, 2).addAsk("10", "1").addBid("9", "1");
+
+    assertThrows(NumberFormatException.class, () -> builder.addAsk("-11", "1"));
+    assertThrows(NumberFormatException.class, () -> builder.addAsk("1.1e2", "1"));
+    assertThrows(NumberFormatException.class, () -> builder.addAsk("", "1"));
+    assertThrows(NumberFormatException.class, () -> builder.addAsk("11", "."));
+    assertThrows(NumberFormatException.class, () -> builder.addAsk("99999999999999999999", "1"));
+    assertThrows(IllegalArgumentException.class, () -> builder.addAsk("10", "1"));
+    assertThrows(IllegalArgumentException.class, () -> builder.addBid("9.5", "1"));
+    assertThrows(
+        IllegalArgumentException.class, () -> FixedPointMarketOrderBook.builder(MARKET_ID, -1, 8));
+
+    builder.build();
+    assertThrows(IllegalStateException.class, builder::build);
+  }
+
+  @Test
+  void testBuilderGrowsPastInitialCapacity() {
+    final FixedPointMarketOrderBook.Builder builder =
+        FixedPointMarketOrderBook.builder(MARKET_ID, 2, 8);
+    for (int i = 0; i < 500; i++) {
+      builder.addAsk(String.valueOf(1000 + i), "0.1");
+      builder.addBid(String.valueOf(999 - i), "0.2");
+    }
+    final FixedPointMarketOrderBook orderBook = builder.build();
+
+    assertEquals(500, orderBook.getSellOrders().size());
+    assertEquals(500, orderBook.getBuyOrders().size());
+    assertEquals(
+        0, new BigDecimal("1499").compareTo(orderBook.getSellOrders().get(499).getPrice()));
+    assertEquals(
+        0,
+        new BigDecimal("0.2")
+            .compareTo(orderBook.getQuantityAtPrice(OrderType.BUY, new BigDecimal("500"))));
+  }
+
+  private static FixedPointMarketOrderBook createOrderBook() {
+    return FixedPointMarketOrderBook.builder(MARKET_ID, 1, 8)
+        .addAsk("664.53600", "0.888")
+        .addAsk("664.53700", "30.000")
+        .addAsk("664.77000", "0.500")
+        .addBid("662.55000", "5.851")
+        .addBid("662.5", "2")
+        .build();
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Benchmarks parsing a Kraken Depth response into a {@link FixedPointMarketOrderBook} against the
+ * Gson/BigDecimal parsing into a {@link MarketOrderBookImpl}, and the VWAP and best ask queries on
+ * the two books.
+ *
+ * <p>Both parsers mirror the Kraken adapter's: the fixed-point one streams the response through a
+ * JsonReader into the builder, the other one binds it to lists of BigDecimals with Gson. The input
+ * is the Kraken Depth test fixture, 100 asks and 100 bids. The time and the bytes allocated per
+ * operation are logged at INFO level for 2 rounds, after a warm up of the same size, and the last
+ * round checks that the fixed-point parse and VWAP allocate less. Allocation is measured with the
+ * JVM's {@link com.sun.management.ThreadMXBean}.
+ *
+ * <p>The benchmark does not run as part of the build. Run it without the JaCoCo agent, which skews
+ * both numbers:
+ *
+ * <pre>
+ * mvn -pl bxbot-exchanges -am test -Dtest=TestFixedPointMarketOrderBookBenchmark \
+ *     -Dsurefire.failIfNoSpecifiedTests=false -Djacoco.skip=true -Dbxbot.benchmark=true
+ * </pre>
+ *
+ * @author gazbert
+ */
+@EnabledIfSystemProperty(named = "bxbot.benchmark", matches = "true")
+class TestFixedPointMarketOrderBookBenchmark {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String DEPTH_JSON_RESPONSE = "./src/test/exchange-data/kraken/Depth.json";
+  private static final String MARKET_ID = "XBTUSD";
+  private static final int PRICE_PRECISION = 5;
+  private static final int QUANTITY_PRECISION = 8;
+  private static final BigDecimal VWAP_QUANTITY = new BigDecimal("50");
+
+  private static final int ROUNDS = 2;
+  private static final int PARSES = 20_000;
+  private static final int VWAPS = 200_000;
+  private static final int BEST_ASKS = 1_000_000;
+
+  private final com.sun.management.ThreadMXBean threadMxBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final Gson gson = new Gson();
+
+  @Test
+  void benchmarkOrderBook() throws Exception {
+    final byte[] depth = Files.readAllBytes(Paths.get(DEPTH_JSON_RESPONSE));
+    final MarketOrderBook bigDecimalOrderBook = parseToBigDecimals(depth);
+    final FixedPointMarketOrderBook fixedPointOrderBook = parseToFixedPoint(depth);
+    assertEquals(
+        0,
+        getBigDecimalVwap(bigDecimalOrderBook)
+            .compareTo(
+                fixedPointOrderBook.getVolumeWeightedAveragePrice(OrderType.SELL, VWAP_QUANTITY)));
+
+    long bigDecimalParseBytesPerOp = 0;
+    long fixedPointParseBytesPerOp = 0;
+    long bigDecimalVwapBytesPerOp = 0;
+    long fixedPointVwapBytesPerOp = 0;
+    for (int round = 1; round <= ROUNDS; round++) {
+      bigDecimalParseBytesPerOp =
+          time(round, "parse BigDecimal", PARSES, () -> parseToBigDecimals(depth));
+      fixedPointParseBytesPerOp =
+          time(round, "parse fixed-point", PARSES, () -> parseToFixedPoint(depth));
+      bigDecimalVwapBytesPerOp =
+          time(round, "VWAP BigDecimal", VWAPS, () -> getBigDecimalVwap(bigDecimalOrderBook));
+      fixedPointVwapBytesPerOp =
+          time(
+              round,
+              "VWAP fixed-point",
+              VWAPS,
+              () ->
+                  fixedPointOrderBook.getVolumeWeightedAveragePrice(
+                      OrderType.SELL, VWAP_QUANTITY));
+      time(
+          round,
+          "best ask BigDecimal",
+          BEST_ASKS,
+          () -> bigDecimalOrderBook.getSellOrders().get(0).getPrice());
+      time(round, "best ask fixed-point", BEST_ASKS, fixedPointOrderBook::getBestAsk);
+    }
+
+    assertTrue(fixedPointParseBytesPerOp < bigDecimalParseBytesPerOp);
+    assertTrue(fixedPointVwapBytesPerOp < bigDecimalVwapBytesPerOp);
+  }
+
+  private MarketOrderBook parseToBigDecimals(byte[] depth) {
+    final DepthResponse response =
+        gson.fromJson(
+            new InputStreamReader(new ByteArrayInputStream(depth), StandardCharsets.UTF_8),
+            DepthResponse.class);
+    final DepthResult result = response.result.values().iterator().next();
+
+    final List<MarketOrder> buyOrders = new ArrayList<>();
+    for (final List<BigDecimal> bid : result.bids) {
+      buyOrders.add(
+          new MarketOrderImpl(
+              OrderType.BUY, bid.get(0), bid.get(1), bid.get(0).multiply(bid.get(1))));
+    }
+    final List<MarketOrder> sellOrders = new ArrayList<>();
+    for (final List<BigDecimal> ask : result.asks) {
+      sellOrders.add(
+          new MarketOrderImpl(
+              OrderType.SELL, ask.get(0), ask.get(1), ask.get(0).multiply(ask.get(1))));
+    }
+    return new MarketOrderBookImpl(MARKET_ID, sellOrders, buyOrders);
+  }
+
+  private static FixedPointMarketOrderBook parseToFixedPoint(byte[] depth) throws IOException {
+    final FixedPointMarketOrderBook.Builder orderBook =
+        FixedPointMarketOrderBook.builder(MARKET_ID, PRICE_PRECISION, QUANTITY_PRECISION);
+    try (JsonReader reader =
+        new JsonReader(
+            new InputStreamReader(new ByteArrayInputStream(depth), StandardCharsets.UTF_8))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!"result".equals(reader.nextName())) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginObject();
+        reader.nextName(); // 1 pair per request
+        reader.beginObject();
+        while (reader.hasNext()) {
+          final boolean asks = "asks".equals(reader.nextName());
+          reader.beginArray();
+          while (reader.hasNext()) {
+            reader.beginArray();
+            final String price = reader.nextString();
+            final String quantity = reader.nextString();
+            while (reader.hasNext()) {
+              reader.skipValue();
+            }
+            reader.endArray();
+            if (asks) {
+              orderBook.addAsk(price, quantity);
+            } else {
+              orderBook.addBid(price, quantity);
+            }
+          }
+          reader.endArray();
+        }
+        reader.endObject();
+        reader.endObject();
+      }
+    }
+    return orderBook.build();
+  }
+
+  private static BigDecimal getBigDecimalVwap(MarketOrderBook orderBook) {
+    BigDecimal remaining = VWAP_QUANTITY;
+    BigDecimal notional = BigDecimal.ZERO;
+    for (final MarketOrder sellOrder : orderBook.getSellOrders()) {
+      final BigDecimal filled = sellOrder.getQuantity().min(remaining);
+      notional = notional.add(filled.multiply(sellOrder.getPrice()));
+      remaining = remaining.subtract(filled);
+      if (remaining.signum() == 0) {
+        return notional.divide(VWAP_QUANTITY, 13, RoundingMode.HALF_EVEN);
+      }
+    }
+    return null;
+  }
+
+  private long time(int round, String name, int operations, Callable<Object> operation)
+      throws Exception {
+    for (int i = 0; i < operations; i++) {
+      operation.call();
+    }
+    final long startTime = System.nanoTime();
+    final long startBytes = allocatedBytes();
+    for (int i = 0; i < operations; i++) {
+      operation.call();
+    }
+    final long elapsedNanos = System.nanoTime() - startTime;
+    final long bytesPerOp = (allocatedBytes() - startBytes) / operations;
+    LOG.info(
+        () ->
+            String.format(
+                "Round %d %-20s %8.2f us/op %,8d B/op",
+                round, name, elapsedNanos / 1e3 / operations, bytesPerOp));
+    return bytesPerOp;
+  }
+
+  private long allocatedBytes() {
+    return threadMxBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /** GSON class for a Depth response, as bound by the Kraken adapter. */
+  private static class DepthResponse {
+    List<String> error;
+    Map<String, DepthResult> result;
+  }
+
+  /** GSON class for the order book of a pair. */
+  private static class DepthResult {
+    List<List<BigDecimal>> bids;
+    List<List<BigDecimal>> asks;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static com.gazbert.bxbot.rest.api.v1.EndpointLocations.RUNTIME_ENDPOINT_BASE_URI;
+
+import com.gazbert.bxbot.rest.api.v1.RestController;
+import com.gazbert.bxbot.services.runtime.ExchangeMetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.security.Principal;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint.MetricResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Controller for directing Exchange metrics requests.
+ *
+ * <p>The metrics are the Exchange Adapter request latencies, bytes received and errors, in the
+ * same format as the Spring Actuator metrics endpoint.
+ *
+ * @author gazbert
+ * @since 1.7
+ */
+@org.springframework.web.bind.annotation.RestController
+@RequestMapping(RUNTIME_ENDPOINT_BASE_URI)
+@Tag(name = "Exchange Metrics")
+public class ExchangeMetricsController extends RestController {
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final String EXCHANGE_METRICS_RESOURCE_PATH = "/exchange/metrics";
+
+  private final ExchangeMetricsService exchangeMetricsService;
+
+  @Autowired
+  public ExchangeMetricsController(ExchangeMetricsService exchangeMetricsService) {
+    this.exchangeMetricsService = exchangeMetricsService;
+  }
+
+  /**
+   * Returns the names of the Exchange metrics.
+   *
+   * @param principal the authenticated user making the request.
+   * @return the metric names.
+   */
+  @PreAuthorize("hasRole('USER')")
+  @GetMapping(value = EXCHANGE_METRICS_RESOURCE_PATH)
+  @Operation(summary = "Fetches the names of the Exchange metrics")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(schema = @Schema(implementation = List.class)))
+      })
+  public List<String> getExchangeMetricNames(@Parameter(hidden = true) Principal principal) {
+
+    LOG.info(
+        () ->
+            "GET "
+                + EXCHANGE_METRICS_RESOURCE_PATH
+                + " - getExchangeMetricNames() - caller: "
+                + principal.getName());
+
+    final List<String> metricNames = exchangeMetricsService.getExchangeMetricNames();
+    LOG.info(() -> "Response: " + metricNames);
+    return metricNames;
+  }
+
+  /**
+   * Returns an Exchange metric.
+   *
+   * @param principal the authenticated user making the request.
+   * @param metricName the metric name, e.g. bxbot.exchange.request
+   * @param tag optional tags to drill down the metric by, in name:value format.
+   * @return the metric.
+   */
+  @PreAuthorize("hasRole('USER')")
+  @GetMapping(value = EXCHANGE_METRICS_RESOURCE_PATH + "/{metricName}")
+  @Operation(summary = "Fetches an Exchange metric")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(schema = @Schema(implementation = MetricResponse.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad Request",
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Not Found",
+            content = @Content(schema = @Schema(implementation = String.class)))
+      })
+  public ResponseEntity<MetricResponse> getExchangeMetric(
+      @Parameter(hidden = true) Principal principal,
+      @PathVariable String metricName,
+      @RequestParam(required = false) List<String> tag) {
+
+    LOG.info(
+        () ->
+            "GET "
+                + EXCHANGE_METRICS_RESOURCE_PATH
+                + "/"
+                + metricName
+                + " - getExchangeMetric() - caller: "
+                + principal.getName());
+
+    final MetricResponse metric;
+    try {
+      metric = exchangeMetricsService.getExchangeMetric(metricName, tag);
+    } catch (IllegalArgumentException e) {
+      LOG.warn(() -> "Invalid metric tag: " + tag);
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return metric == null
+        ? new ResponseEntity<>(HttpStatus.NOT_FOUND)
+        : new ResponseEntity<>(metric, null, HttpStatus.OK);
+  }
+}
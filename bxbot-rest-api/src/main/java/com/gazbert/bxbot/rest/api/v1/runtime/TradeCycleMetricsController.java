@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static com.gazbert.bxbot.rest.api.v1.EndpointLocations.RUNTIME_ENDPOINT_BASE_URI;
+
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.rest.api.v1.RestController;
+import com.gazbert.bxbot.services.config.EngineConfigService;
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.security.Principal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+/**
+ * Controller for directing Trade Cycle metrics requests.
+ *
+ * @author gazbert
+ * @since 1.7
+ */
+@org.springframework.web.bind.annotation.RestController
+@RequestMapping(RUNTIME_ENDPOINT_BASE_URI)
+@Tag(name = "Trade Cycle Metrics")
+public class TradeCycleMetricsController extends RestController {
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final String TRADE_CYCLE_METRICS_RESOURCE_PATH = "/tradecycles";
+
+  private final TradeCycleMetricsService tradeCycleMetricsService;
+  private final EngineConfigService engineConfigService;
+
+  @Autowired
+  public TradeCycleMetricsController(
+      TradeCycleMetricsService tradeCycleMetricsService, EngineConfigService engineConfigService) {
+    this.tradeCycleMetricsService = tradeCycleMetricsService;
+    this.engineConfigService = engineConfigService;
+  }
+
+  /**
+   * Returns the trade cycle timing metrics for the bot.
+   *
+   * @param principal the authenticated user making the request.
+   * @return the trade cycle metrics.
+   */
+  @PreAuthorize("hasRole('USER')")
+  @GetMapping(value = TRADE_CYCLE_METRICS_RESOURCE_PATH)
+  @Operation(summary = "Fetches the trade cycle timing metrics")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(schema = @Schema(implementation = TradeCycleMetrics.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad Request",
+            content = @Content(schema = @Schema(implementation = String.class)))
+      })
+  public TradeCycleMetrics getTradeCycleMetrics(@Parameter(hidden = true) Principal principal) {
+
+    LOG.info(
+        () ->
+            "GET "
+                + TRADE_CYCLE_METRICS_RESOURCE_PATH
+                + " - getTradeCycleMetrics() - caller: "
+                + principal.getName());
+
+    final EngineConfig engineConfig = engineConfigService.getEngineConfig();
+    final TradeCycleMetrics tradeCycleMetrics = tradeCycleMetricsService.getTradeCycleMetrics();
+    tradeCycleMetrics.setBotId(engineConfig.getBotId());
+    tradeCycleMetrics.setTradeCycleInterval(engineConfig.getTradeCycleInterval());
+    tradeCycleMetrics.setTradeCycleSchedule(
+        engineConfig.getTradeCycleSchedule() == null
+            ? "FIXED_DELAY"
+            : engineConfig.getTradeCycleSchedule());
+
+    LOG.info(() -> "Response: " + tradeCycleMetrics);
+    return tradeCycleMetrics;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.gazbert.bxbot.core.engine.TradingEngine;
+import com.gazbert.bxbot.core.mail.EmailAlerter;
+import com.gazbert.bxbot.services.runtime.ExchangeMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.actuate.logging.LogFileWebEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint.MetricResponse;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.context.restart.RestartEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests the Exchange Metrics controller behaviour.
+ *
+ * @author gazbert
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class TestExchangeMetricsController extends AbstractRuntimeControllerTest {
+
+  private static final String EXCHANGE_METRICS_ENDPOINT_URI =
+      RUNTIME_ENDPOINT_BASE_URI + "/exchange/metrics";
+
+  private static final String REQUEST_METRIC = "bxbot.exchange.request";
+  private static final String API_TAG = "api:/0/public/Depth";
+
+  @MockBean private ExchangeMetricsService exchangeMetricsService;
+
+  // Need these even though not used in the test directly because Spring loads it on startup...
+  @MockBean private TradingEngine tradingEngine;
+  @MockBean private EmailAlerter emailAlerter;
+  @MockBean private RestartEndpoint restartEndpoint;
+  @MockBean private LogFileWebEndpoint logFileWebEndpoint;
+  @MockBean private AuthenticationManager authenticationManager;
+
+  @BeforeEach
+  void setupBeforeEachTest() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(ctx).addFilter(springSecurityFilterChain).build();
+  }
+
+  @Test
+  void testGetExchangeMetricNamesWithValidToken() throws Exception {
+    given(exchangeMetricsService.getExchangeMetricNames()).willReturn(List.of(REQUEST_METRIC));
+
+    mockMvc
+        .perform(
+            get(EXCHANGE_METRICS_ENDPOINT_URI)
+                .header("Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0]").value(REQUEST_METRIC));
+
+    verify(exchangeMetricsService, times(1)).getExchangeMetricNames();
+  }
+
+  @Test
+  void testGetExchangeMetricWithValidToken() throws Exception {
+    given(exchangeMetricsService.getExchangeMetric(REQUEST_METRIC, List.of(API_TAG)))
+        .willReturn(someRequestMetric());
+
+    mockMvc
+        .perform(
+            get(EXCHANGE_METRICS_ENDPOINT_URI + "/" + REQUEST_METRIC)
+                .param("tag", API_TAG)
+                .header("Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value(REQUEST_METRIC))
+        .andExpect(jsonPath("$.measurements[0].statistic").value("COUNT"))
+        .andExpect(jsonPath("$.measurements[0].value").value(1.0));
+
+    verify(exchangeMetricsService, times(1)).getExchangeMetric(REQUEST_METRIC, List.of(API_TAG));
+  }
+
+  @Test
+  void testGetExchangeMetricWhenNotFound() throws Exception {
+    mockMvc
+        .perform(
+            get(EXCHANGE_METRICS_ENDPOINT_URI + "/bxbot.exchange.unknown")
+                .header("Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testGetExchangeMetricWithInvalidTag() throws Exception {
+    given(exchangeMetricsService.getExchangeMetric(REQUEST_METRIC, List.of("no-value")))
+        .willThrow(new IllegalArgumentException("Tag must be in the form key:value"));
+
+    mockMvc
+        .perform(
+            get(EXCHANGE_METRICS_ENDPOINT_URI + "/" + REQUEST_METRIC)
+                .param("tag", "no-value")
+                .header("Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testGetExchangeMetricNamesWhenUnauthorizedWithMissingToken() throws Exception {
+    mockMvc
+        .perform(get(EXCHANGE_METRICS_ENDPOINT_URI).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnauthorized());
+  }
+
+  // --------------------------------------------------------------------------
+  // Private utils
+  // --------------------------------------------------------------------------
+
+  private static MetricResponse someRequestMetric() {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    meterRegistry.timer(REQUEST_METRIC, "api", "/0/public/Depth").record(Duration.ofMillis(100));
+    return new MetricsEndpoint(meterRegistry).metric(REQUEST_METRIC, null);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.gazbert.bxbot.core.engine.TradingEngine;
+import com.gazbert.bxbot.core.mail.EmailAlerter;
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.services.config.EngineConfigService;
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
+import java.math.BigDecimal;
+import java.util.Date;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.actuate.logging.LogFileWebEndpoint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.context.restart.RestartEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests the Trade Cycle Metrics controller behaviour.
+ *
+ * @author gazbert
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class TestTradeCycleMetricsController extends AbstractRuntimeControllerTest {
+
+  private static final String TRADE_CYCLES_ENDPOINT_URI =
+      RUNTIME_ENDPOINT_BASE_URI + "/tradecycles";
+
+  private static final String BOT_ID = "avro-707_1";
+  private static final String BOT_NAME = "Avro 707";
+  private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
+  private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.9232320");
+  private static final int ENGINE_TRADE_CYCLE_INTERVAL = 60;
+  private static final String ENGINE_TRADE_CYCLE_SCHEDULE = "FIXED_RATE";
+
+  private static final long CYCLE_COUNT = 12L;
+  private static final long SKIPPED_CYCLE_COUNT = 1L;
+  private static final long LAST_CYCLE_LAG = 25L;
+  private static final long MAX_CYCLE_LAG = 1200L;
+
+  @MockBean private TradeCycleMetricsService tradeCycleMetricsService;
+  @MockBean private EngineConfigService engineConfigService;
+
+  // Need these even though not used in the test directly because Spring loads it on startup...
+  @MockBean private TradingEngine tradingEngine;
+  @MockBean private EmailAlerter emailAlerter;
+  @MockBean private RestartEndpoint restartEndpoint;
+  @MockBean private LogFileWebEndpoint logFileWebEndpoint;
+  @MockBean private AuthenticationManager authenticationManager;
+
+  @BeforeEach
+  void setupBeforeEachTest() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(ctx).addFilter(springSecurityFilterChain).build();
+  }
+
+  @Test
+  void testGetTradeCycleMetricsWithValidToken() throws Exception {
+    given(tradeCycleMetricsService.getTradeCycleMetrics()).willReturn(someTradeCycleMetrics());
+    given(engineConfigService.getEngineConfig()).willReturn(someEngineConfig());
+
+    mockMvc
+        .perform(
+            get(TRADE_CYCLES_ENDPOINT_URI)
+                .header("Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.botId").value(BOT_ID))
+        .andExpect(jsonPath("$.tradeCycleSchedule").value(ENGINE_TRADE_CYCLE_SCHEDULE))
+        .andExpect(jsonPath("$.tradeCycleInterval").value(ENGINE_TRADE_CYCLE_INTERVAL))
+        .andExpect(jsonPath("$.cycleCount").value(CYCLE_COUNT))
+        .andExpect(jsonPath("$.skippedCycleCount").value(SKIPPED_CYCLE_COUNT))
+        .andExpect(jsonPath("$.lastCycleLag").value(LAST_CYCLE_LAG))
+        .andExpect(jsonPath("$.maxCycleLag").value(MAX_CYCLE_LAG))
+        .andExpect(jsonPath("$.lastCycleStart").isNotEmpty());
+
+    verify(tradeCycleMetricsService, times(1)).getTradeCycleMetrics();
+    verify(engineConfigService, times(1)).getEngineConfig();
+  }
+
+  @Test
+  void testGetTradeCycleMetricsWhenUnauthorizedWithMissingToken() throws Exception {
+    mockMvc
+        .perform(get(TRADE_CYCLES_ENDPOINT_URI).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnauthorized());
+  }
+
+  // --------------------------------------------------------------------------
+  // Private utils
+  // --------------------------------------------------------------------------
+
+  private static TradeCycleMetrics someTradeCycleMetrics() {
+    final TradeCycleMetrics metrics = new TradeCycleMetrics();
+    metrics.setCycleCount(CYCLE_COUNT);
+    metrics.setSkippedCycleCount(SKIPPED_CYCLE_COUNT);
+    metrics.setLastCycleLag(LAST_CYCLE_LAG);
+    metrics.setMaxCycleLag(MAX_CYCLE_LAG);
+    metrics.setLastCycleStart(new Date());
+    return metrics;
+  }
+
+  private static EngineConfig someEngineConfig() {
+    final EngineConfig engineConfig = new EngineConfig();
+    engineConfig.setBotId(BOT_ID);
+    engineConfig.setBotName(BOT_NAME);
+    engineConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
+    engineConfig.setEmergencyStopBalance(ENGINE_EMERGENCY_STOP_BALANCE);
+    engineConfig.setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL);
+    engineConfig.setTradeCycleSchedule(ENGINE_TRADE_CYCLE_SCHEDULE);
+    return engineConfig;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime;
+
+import java.util.List;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint.MetricResponse;
+
+/**
+ * The Exchange metrics service. It provides the latency, bytes received and error metrics that
+ * the Exchange Adapters record for their requests to the exchange.
+ *
+ * @author gazbert
+ */
+public interface ExchangeMetricsService {
+
+  /**
+   * Returns the names of the Exchange metrics that have been recorded.
+   *
+   * @return the metric names.
+   */
+  List<String> getExchangeMetricNames();
+
+  /**
+   * Returns an Exchange metric.
+   *
+   * @param metricName the metric name.
+   * @param tags optional tags to drill down the metric by, in name:value format, e.g.
+   *     api:/0/public/Depth
+   * @return the metric, or null if it has not been recorded.
+   * @throws IllegalArgumentException if a tag is not in name:value format.
+   */
+  MetricResponse getExchangeMetric(String metricName, List<String> tags);
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime;
+
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+
+/**
+ * The Trade Cycle metrics service.
+ *
+ * <p>The Trading Engine records the timing of each trade cycle here so it can be exposed on the
+ * runtime REST API.
+ *
+ * @author gazbert
+ */
+public interface TradeCycleMetricsService {
+
+  /**
+   * Records the start of a trade cycle.
+   *
+   * @param lagInMillis how late the trade cycle started compared to when it was scheduled to.
+   * @param skippedCycles the number of scheduled trade cycles that were skipped because the
+   *     previous cycle overran.
+   */
+  void recordCycleStart(long lagInMillis, long skippedCycles);
+
+  /**
+   * Records the completion of a trade cycle.
+   *
+   * @param durationInMillis how long the trade cycle took to execute.
+   */
+  void recordCycleEnd(long durationInMillis);
+
+  /**
+   * Records how many Exchange Adapter calls in the trade cycle were served from the trade cycle
+   * cache, and how many went to the exchange.
+   *
+   * @param cacheHits the number of calls served from the cache.
+   * @param cacheMisses the number of calls that went to the exchange.
+   */
+  void recordCycleCacheUsage(long cacheHits, long cacheMisses);
+
+  /**
+   * Returns the trade cycle metrics recorded since the Trading Engine started.
+   *
+   * @return the trade cycle metrics.
+   */
+  TradeCycleMetrics getTradeCycleMetrics();
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import com.gazbert.bxbot.services.runtime.ExchangeMetricsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint.MetricResponse;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the Exchange metrics service.
+ *
+ * <p>The actuator endpoints are not exposed directly, so this service reads the bot's meter
+ * registry through its own instance of the actuator metrics endpoint.
+ *
+ * @author gazbert
+ */
+@Service("exchangeMetricsService")
+public class ExchangeMetricsServiceImpl implements ExchangeMetricsService {
+
+  private static final String EXCHANGE_METRIC_PREFIX = "bxbot.exchange.";
+
+  private final MetricsEndpoint metricsEndpoint;
+
+  @Autowired
+  public ExchangeMetricsServiceImpl(MeterRegistry meterRegistry) {
+    this.metricsEndpoint = new MetricsEndpoint(meterRegistry);
+  }
+
+  @Override
+  public List<String> getExchangeMetricNames() {
+    return metricsEndpoint.listNames().getNames().stream()
+        .filter(name -> name.startsWith(EXCHANGE_METRIC_PREFIX))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public MetricResponse getExchangeMetric(String metricName, List<String> tags) {
+    if (!metricName.startsWith(EXCHANGE_METRIC_PREFIX)) {
+      return null;
+    }
+    try {
+      return metricsEndpoint.metric(metricName, tags);
+    } catch (InvalidEndpointRequestException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+import com.gazbert.bxbot.services.runtime.TradeCycleMetricsService;
+import java.util.Date;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory implementation of the Trade Cycle metrics service.
+ *
+ * <p>It is written to by the Trading Engine thread and read by the REST API threads, so all
+ * access is synchronized.
+ *
+ * @author gazbert
+ */
+@Service("tradeCycleMetricsService")
+public class TradeCycleMetricsServiceImpl implements TradeCycleMetricsService {
+
+  private long cycleCount;
+  private long skippedCycleCount;
+  private long lastCycleLag;
+  private long totalCycleLag;
+  private long maxCycleLag;
+  private long lastCycleDuration;
+  private Date lastCycleStart;
+  private long lastCycleCacheHits;
+  private long lastCycleCacheMisses;
+  private long cacheHitCount;
+  private long cacheMissCount;
+
+  @Override
+  public synchronized void recordCycleStart(long lagInMillis, long skippedCycles) {
+    cycleCount++;
+    skippedCycleCount += skippedCycles;
+    lastCycleLag = lagInMillis;
+    totalCycleLag += lagInMillis;
+    maxCycleLag = Math.max(maxCycleLag, lagInMillis);
+    lastCycleStart = new Date();
+  }
+
+  @Override
+  public synchronized void recordCycleEnd(long durationInMillis) {
+    lastCycleDuration = durationInMillis;
+  }
+
+  @Override
+  public synchronized void recordCycleCacheUsage(long cacheHits, long cacheMisses) {
+    lastCycleCacheHits = cacheHits;
+    lastCycleCacheMisses = cacheMisses;
+    cacheHitCount += cacheHits;
+    cacheMissCount += cacheMisses;
+  }
+
+  @Override
+  public synchronized TradeCycleMetrics getTradeCycleMetrics() {
+    final TradeCycleMetrics metrics = new TradeCycleMetrics();
+    metrics.setCycleCount(cycleCount);
+    metrics.setSkippedCycleCount(skippedCycleCount);
+    metrics.setLastCycleLag(lastCycleLag);
+    metrics.setMeanCycleLag(cycleCount == 0 ? 0 : totalCycleLag / cycleCount);
+    metrics.setMaxCycleLag(maxCycleLag);
+    metrics.setLastCycleDuration(lastCycleDuration);
+    metrics.setLastCycleStart(lastCycleStart);
+    metrics.setLastCycleCacheHits(lastCycleCacheHits);
+    metrics.setLastCycleCacheMisses(lastCycleCacheMisses);
+    metrics.setCacheHitCount(cacheHitCount);
+    metrics.setCacheMissCount(cacheMissCount);
+    return metrics;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint.MetricResponse;
+
+/**
+ * Tests Exchange metrics service behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestExchangeMetricsService {
+
+  private static final String REQUEST_METRIC = "bxbot.exchange.request";
+
+  private ExchangeMetricsServiceImpl exchangeMetricsService;
+
+  @BeforeEach
+  void setUp() {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    meterRegistry.timer(REQUEST_METRIC, "api", "/0/public/Depth").record(Duration.ofMillis(100));
+    meterRegistry
+        .timer(REQUEST_METRIC, "api", "/0/private/AddOrder")
+        .record(Duration.ofMillis(300));
+    meterRegistry.counter("jvm.threads.live").increment();
+    exchangeMetricsService = new ExchangeMetricsServiceImpl(meterRegistry);
+  }
+
+  @Test
+  void whenGetExchangeMetricNamesCalledThenExpectOnlyExchangeMetrics() {
+    assertThat(exchangeMetricsService.getExchangeMetricNames()).containsExactly(REQUEST_METRIC);
+  }
+
+  @Test
+  void whenGetExchangeMetricCalledWithTagThenExpectMetricForTag() {
+    final MetricResponse metric =
+        exchangeMetricsService.getExchangeMetric(REQUEST_METRIC, List.of("api:/0/public/Depth"));
+
+    assertThat(metric.getName()).isEqualTo(REQUEST_METRIC);
+    assertThat(metric.getMeasurements())
+        .anySatisfy(
+            sample -> {
+              assertThat(sample.getStatistic().name()).isEqualTo("COUNT");
+              assertThat(sample.getValue()).isEqualTo(1.0);
+            });
+  }
+
+  @Test
+  void whenGetExchangeMetricCalledForNonExchangeMetricThenExpectNull() {
+    assertThat(exchangeMetricsService.getExchangeMetric("jvm.threads.live", null)).isNull();
+    assertThat(exchangeMetricsService.getExchangeMetric("bxbot.exchange.unknown", null)).isNull();
+  }
+
+  @Test
+  void whenGetExchangeMetricCalledWithBadTagThenExpectIllegalArgumentException() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> exchangeMetricsService.getExchangeMetric(REQUEST_METRIC, List.of("no-value")));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.gazbert.bxbot.domain.bot.TradeCycleMetrics;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests Trade Cycle metrics service behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestTradeCycleMetricsService {
+
+  @Test
+  void whenNoCyclesRecordedThenExpectEmptyMetrics() {
+    final TradeCycleMetricsServiceImpl metricsService = new TradeCycleMetricsServiceImpl();
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+
+    assertThat(metrics.getCycleCount()).isZero();
+    assertThat(metrics.getSkippedCycleCount()).isZero();
+    assertThat(metrics.getMeanCycleLag()).isZero();
+    assertThat(metrics.getLastCycleStart()).isNull();
+  }
+
+  @Test
+  void whenCyclesRecordedThenExpectLagToBeAggregated() {
+    final TradeCycleMetricsServiceImpl metricsService = new TradeCycleMetricsServiceImpl();
+    metricsService.recordCycleStart(10, 0);
+    metricsService.recordCycleEnd(2500);
+    metricsService.recordCycleStart(50, 2);
+    metricsService.recordCycleEnd(1500);
+    metricsService.recordCycleStart(0, 0);
+
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+
+    assertThat(metrics.getCycleCount()).isEqualTo(3);
+    assertThat(metrics.getSkippedCycleCount()).isEqualTo(2);
+    assertThat(metrics.getLastCycleLag()).isZero();
+    assertThat(metrics.getMeanCycleLag()).isEqualTo(20);
+    assertThat(metrics.getMaxCycleLag()).isEqualTo(50);
+    assertThat(metrics.getLastCycleDuration()).isEqualTo(1500);
+    assertThat(metrics.getLastCycleStart()).isNotNull();
+  }
+
+  @Test
+  void whenCacheUsageRecordedThenExpectLastCycleAndTotalCounts() {
+    final TradeCycleMetricsServiceImpl metricsService = new TradeCycleMetricsServiceImpl();
+    metricsService.recordCycleCacheUsage(3, 4);
+    metricsService.recordCycleCacheUsage(5, 1);
+
+    final TradeCycleMetrics metrics = metricsService.getTradeCycleMetrics();
+
+    assertThat(metrics.getLastCycleCacheHits()).isEqualTo(5);
+    assertThat(metrics.getLastCycleCacheMisses()).isEqualTo(1);
+    assertThat(metrics.getCacheHitCount()).isEqualTo(8);
+    assertThat(metrics.getCacheMissCount()).isEqualTo(5);
+  }
+}
@@ -191,8 +191,8 @@ public class ExampleScalpingStrategy implements TradingStrategy {
     LOG.info(() -> market.getName() + " Checking order status...");
 
     try {
-      // Grab the latest order book for the market.
-      final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+      // Grab the top of the latest order book for the market - we only need the best bid and ask.
+      final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId(), 1);
 
       final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
       if (buyOrders.isEmpty()) {
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of BX-bot's {@link TradingApi}.
+ *
+ * <p>Each call returns straight away with a {@link CompletableFuture} that is completed when the
+ * exchange responds. This lets a Trading Strategy fan out the reads it needs in a trade cycle, e.g.
+ * the order book, its open orders and the ticker, and wait for them together:
+ *
+ * <pre>
+ * final CompletableFuture&lt;MarketOrderBook&gt; book = api.getMarketOrdersAsync(id);
+ * final CompletableFuture&lt;List&lt;OpenOrder&gt;&gt; orders = api.getYourOpenOrdersAsync(id);
+ * CompletableFuture.allOf(book, orders).join();
+ * </pre>
+ *
+ * <p>If the call fails, the future is completed exceptionally with the same {@link
+ * ExchangeNetworkException} or {@link TradingApiException} the blocking call would have thrown.
+ *
+ * @author gazbert
+ * @since 1.3
+ */
+public interface AsyncTradingApi {
+
+  /**
+   * Fetches latest market orders for a given market.
+   *
+   * @param marketId the id of the market.
+   * @return the market order book.
+   * @see TradingApi#getMarketOrders(String)
+   */
+  CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId);
+
+  /**
+   * Fetches your current open orders, i.e. the orders placed by the bot.
+   *
+   * @param marketId the id of the market.
+   * @return your current open orders.
+   * @see TradingApi#getYourOpenOrders(String)
+   */
+  CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId);
+
+  /**
+   * Places an order on the exchange.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @return the id of the order.
+   * @see TradingApi#createOrder(String, OrderType, BigDecimal, BigDecimal)
+   */
+  CompletableFuture<String> createOrderAsync(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price);
+
+  /**
+   * Cancels your existing order on the exchange.
+   *
+   * @param orderId your order Id.
+   * @param marketId the id of the market the order was placed on, e.g. btc_usd
+   * @return true if order cancelled ok, false otherwise.
+   * @see TradingApi#cancelOrder(String, String)
+   */
+  CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId);
+
+  /**
+   * Fetches the latest price for a given market.
+   *
+   * @param marketId the id of the market.
+   * @return the latest market price.
+   * @see TradingApi#getLatestMarketPrice(String)
+   */
+  CompletableFuture<BigDecimal> getLatestMarketPriceAsync(String marketId);
+
+  /**
+   * Fetches the balance of your wallets on the exchange.
+   *
+   * @return your wallet balance info.
+   * @see TradingApi#getBalanceInfo()
+   */
+  CompletableFuture<BalanceInfo> getBalanceInfoAsync();
+
+  /**
+   * Returns the exchange Ticker a given market id.
+   *
+   * @param marketId the id of the market.
+   * @return the exchange Ticker for a given market.
+   * @see TradingApi#getTicker(String)
+   */
+  CompletableFuture<Ticker> getTickerAsync(String marketId);
+}
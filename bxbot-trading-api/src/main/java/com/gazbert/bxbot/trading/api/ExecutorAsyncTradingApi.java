@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Default {@link AsyncTradingApi} implementation that runs the blocking {@link TradingApi} calls
+ * on a bounded executor.
+ *
+ * <p>The number of calls in flight at the same time is limited by the size of the executor, so a
+ * Trading Strategy cannot flood the exchange. The wrapped Trading API will be called from several
+ * threads at once, so it must be thread-safe.
+ *
+ * <p>Concurrent authenticated calls are not safe on exchanges that sign requests with an
+ * increasing nonce, e.g. Kraken, Bitstamp, Bitfinex, Gemini and itBit: the exchange rejects a
+ * request whose nonce arrives after a higher one. Only make public market data calls concurrently
+ * on these exchanges, or use a single threaded executor.
+ *
+ * <p>The executor is owned by the caller, who must shut it down when it is no longer needed.
+ *
+ * @author gazbert
+ * @since 1.3
+ */
+public class ExecutorAsyncTradingApi implements AsyncTradingApi {
+
+  private final TradingApi tradingApi;
+  private final Executor executor;
+
+  /**
+   * Creates the async Trading API.
+   *
+   * @param tradingApi the blocking Trading API to call.
+   * @param executor the executor to make the calls on. It should be bounded. It is not shut down
+   *     by this class.
+   */
+  public ExecutorAsyncTradingApi(TradingApi tradingApi, Executor executor) {
+    this.tradingApi = tradingApi;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId) {
+    return submit(() -> tradingApi.getMarketOrders(marketId));
+  }
+
+  @Override
+  public CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId) {
+    return submit(() -> tradingApi.getYourOpenOrders(marketId));
+  }
+
+  @Override
+  public CompletableFuture<String> createOrderAsync(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+    return submit(() -> tradingApi.createOrder(marketId, orderType, quantity, price));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId) {
+    return submit(() -> tradingApi.cancelOrder(orderId, marketId));
+  }
+
+  @Override
+  public CompletableFuture<BigDecimal> getLatestMarketPriceAsync(String marketId) {
+    return submit(() -> tradingApi.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public CompletableFuture<BalanceInfo> getBalanceInfoAsync() {
+    return submit(tradingApi::getBalanceInfo);
+  }
+
+  @Override
+  public CompletableFuture<Ticker> getTickerAsync(String marketId) {
+    return submit(() -> tradingApi.getTicker(marketId));
+  }
+
+  private <T> CompletableFuture<T> submit(TradingApiCall<T> call) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              result.complete(call.call());
+            } catch (Exception | Error e) {
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  @FunctionalInterface
+  private interface TradingApiCall<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+}
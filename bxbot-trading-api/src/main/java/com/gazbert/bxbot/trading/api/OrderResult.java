@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+/**
+ * The outcome of one order in a batch call.
+ *
+ * <p>Batch calls do not stop at the first failed order. Each order gets its own result, so a
+ * Trading Strategy can see which orders went through and which did not.
+ *
+ * @author gazbert
+ * @see TradingApi#createOrders(java.util.List)
+ * @see TradingApi#cancelOrders(java.util.List, String)
+ * @since 1.3
+ */
+public final class OrderResult {
+
+  private final String orderId;
+  private final boolean successful;
+  private final Exception failure;
+
+  private OrderResult(String orderId, boolean successful, Exception failure) {
+    this.orderId = orderId;
+    this.successful = successful;
+    this.failure = failure;
+  }
+
+  /**
+   * Creates the result for an order that was placed or cancelled.
+   *
+   * @param orderId the id of the order.
+   * @return the result.
+   */
+  public static OrderResult success(String orderId) {
+    return new OrderResult(orderId, true, null);
+  }
+
+  /**
+   * Creates the result for an order that was not placed or cancelled.
+   *
+   * @param orderId the id of the order, or null if the order was never placed.
+   * @param failure why the call failed, or null if the exchange just refused it.
+   * @return the result.
+   */
+  public static OrderResult failure(String orderId, Exception failure) {
+    return new OrderResult(orderId, false, failure);
+  }
+
+  /**
+   * Returns the id of the order. This is null if the order could not be placed.
+   *
+   * @return the id of the order.
+   */
+  public String getOrderId() {
+    return orderId;
+  }
+
+  /**
+   * Returns true if the order was placed or cancelled.
+   *
+   * @return true if the call for this order succeeded, false otherwise.
+   */
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  /**
+   * Returns why the call for this order failed. This is usually an {@link
+   * ExchangeNetworkException} or a {@link TradingApiException}. It is null if the call succeeded,
+   * or if the exchange refused it without an error.
+   *
+   * @return the failure, or null.
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return "OrderResult{orderId="
+        + orderId
+        + ", successful="
+        + successful
+        + ", failure="
+        + failure
+        + '}';
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+/**
+ * Defines the states an order goes through after it is created.
+ *
+ * @author gazbert
+ * @see TrackedOrder
+ * @since 1.3
+ */
+public enum OrderState {
+
+  /** The order is open on the exchange and nothing has been filled yet. */
+  NEW,
+
+  /** The order is still open on the exchange, but some of it has been filled. */
+  PARTIAL,
+
+  /** The order has gone from the exchange without being cancelled through the Trading API. */
+  FILLED,
+
+  /** The order was cancelled through the Trading API. */
+  CANCELLED;
+
+  /**
+   * Returns true if the order can't change state any more.
+   *
+   * @return true if the order is filled or cancelled, false otherwise.
+   */
+  public boolean isFinished() {
+    return this == FILLED || this == CANCELLED;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+
+/**
+ * A snapshot of an order created through the Trading API, as last seen by the Trading Engine.
+ *
+ * <p>The Trading Engine records every order created through the Trading API it passes to the
+ * Trading Strategies, and keeps its state up to date from the exchange's open orders.
+ *
+ * @author gazbert
+ * @see TradingApi#getTrackedOrder(String)
+ * @since 1.3
+ */
+public final class TrackedOrder {
+
+  private final String orderId;
+  private final String marketId;
+  private final OrderType orderType;
+  private final BigDecimal price;
+  private final BigDecimal originalQuantity;
+  private final BigDecimal remainingQuantity;
+  private final OrderState state;
+
+  /**
+   * Creates the snapshot of an order.
+   *
+   * @param orderId the id of the order.
+   * @param marketId the id of the market the order is on.
+   * @param orderType the order type, i.e. BUY or SELL.
+   * @param price the price per unit.
+   * @param originalQuantity the amount of base currency ordered.
+   * @param remainingQuantity the amount of base currency not filled yet.
+   * @param state the state of the order.
+   */
+  public TrackedOrder(
+      String orderId,
+      String marketId,
+      OrderType orderType,
+      BigDecimal price,
+      BigDecimal originalQuantity,
+      BigDecimal remainingQuantity,
+      OrderState state) {
+    this.orderId = orderId;
+    this.marketId = marketId;
+    this.orderType = orderType;
+    this.price = price;
+    this.originalQuantity = originalQuantity;
+    this.remainingQuantity = remainingQuantity;
+    this.state = state;
+  }
+
+  /**
+   * Returns a copy of this order with a new state and remaining quantity.
+   *
+   * @param newState the new state.
+   * @param newRemainingQuantity the amount of base currency not filled yet.
+   * @return the updated order.
+   */
+  public TrackedOrder withState(OrderState newState, BigDecimal newRemainingQuantity) {
+    return new TrackedOrder(
+        orderId, marketId, orderType, price, originalQuantity, newRemainingQuantity, newState);
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public String getMarketId() {
+    return marketId;
+  }
+
+  public OrderType getOrderType() {
+    return orderType;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public BigDecimal getOriginalQuantity() {
+    return originalQuantity;
+  }
+
+  /**
+   * Returns the amount of base currency not filled yet. This is zero once the order is filled.
+   *
+   * @return the remaining quantity.
+   */
+  public BigDecimal getRemainingQuantity() {
+    return remainingQuantity;
+  }
+
+  public OrderState getState() {
+    return state;
+  }
+
+  @Override
+  public String toString() {
+    return "TrackedOrder{orderId="
+        + orderId
+        + ", marketId="
+        + marketId
+        + ", orderType="
+        + orderType
+        + ", price="
+        + price
+        + ", originalQuantity="
+        + originalQuantity
+        + ", remainingQuantity="
+        + remainingQuantity
+        + ", state="
+        + state
+        + '}';
+  }
+}
@@ -24,7 +24,11 @@
 package com.gazbert.bxbot.trading.api;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * BX-bot's Trading API.
@@ -80,6 +84,56 @@ public interface TradingApi {
   MarketOrderBook getMarketOrders(String marketId)
       throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Fetches the top of the <em>market</em> order book for a given market: at most {@code depth}
+   * SELL orders and {@code depth} BUY orders, best price first.
+   *
+   * <p>Strategies that only look at the best bid and ask should use this with a small depth.
+   * Exchange Adapters that can ask the exchange for fewer levels override it, so less is sent over
+   * the wire and parsed. The default implementation fetches the full order book and truncates it.
+   *
+   * @param marketId the id of the market.
+   * @param depth the maximum number of orders to return on each side of the book. Must be at
+   *     least 1.
+   * @return the market order book.
+   * @throws IllegalArgumentException if the depth is less than 1.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default MarketOrderBook getMarketOrders(String marketId, int depth)
+      throws ExchangeNetworkException, TradingApiException {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Order book depth must be at least 1: " + depth);
+    }
+
+    final MarketOrderBook orderBook = getMarketOrders(marketId);
+    final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+    final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+    return new MarketOrderBook() {
+      @Override
+      public String getMarketId() {
+        return orderBook.getMarketId();
+      }
+
+      @Override
+      public List<MarketOrder> getSellOrders() {
+        return sellOrders.subList(0, Math.min(depth, sellOrders.size()));
+      }
+
+      @Override
+      public List<MarketOrder> getBuyOrders() {
+        return buyOrders.subList(0, Math.min(depth, buyOrders.size()));
+      }
+    };
+  }
+
   /**
    * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
    *
@@ -119,6 +173,43 @@ public interface TradingApi {
   String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Places an order on the exchange, tagged with an id of your choosing.
+   *
+   * <p>The client order id makes the call safe to retry. If a call fails with an {@link
+   * ExchangeNetworkException}, e.g. because it timed out, the exchange may still have accepted the
+   * order. Calling this again with the same client order id looks the order up on the exchange
+   * first, and returns its id instead of placing it a second time.
+   *
+   * <p>Exchange Adapters that can tag orders with a client order id override this. The default
+   * implementation ignores the client order id and calls {@link #createOrder(String, OrderType,
+   * BigDecimal, BigDecimal)}, so a retry may place the order twice.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @param clientOrderId a unique id for the order, e.g. a random UUID. Use the same id to retry.
+   * @return the id of the order.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     The order may or may not have been placed; retry with the same client order id to find
+   *     out.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return createOrder(marketId, orderType, quantity, price);
+  }
+
   /**
    * Cancels your existing order on the exchange.
    *
@@ -138,6 +229,115 @@ public interface TradingApi {
   boolean cancelOrder(String orderId, String marketId)
       throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Places a batch of orders on the exchange.
+   *
+   * <p>A failed order does not stop the rest of the batch. The result for each order is returned in
+   * the same order as the requests; check {@link OrderResult#isSuccessful()} to see which orders
+   * were placed.
+   *
+   * <p>Exchange Adapters that can place several orders in one request, or send the requests in
+   * parallel, override this. The default implementation calls {@link #createOrder(String,
+   * OrderType, BigDecimal, BigDecimal)} for each order in turn.
+   *
+   * @param orderRequests the orders to place.
+   * @return the result for each order.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default List<OrderResult> createOrders(List<OrderRequest> orderRequests)
+      throws ExchangeNetworkException, TradingApiException {
+    final List<OrderResult> results = new ArrayList<>(orderRequests.size());
+    for (final OrderRequest orderRequest : orderRequests) {
+      try {
+        results.add(
+            OrderResult.success(
+                createOrder(
+                    orderRequest.getMarketId(),
+                    orderRequest.getOrderType(),
+                    orderRequest.getQuantity(),
+                    orderRequest.getPrice())));
+      } catch (ExchangeNetworkException | TradingApiException e) {
+        results.add(OrderResult.failure(null, e));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Cancels a batch of your existing orders on the exchange.
+   *
+   * <p>A failed cancel does not stop the rest of the batch. The result for each order is returned
+   * in the same order as the order ids.
+   *
+   * <p>Exchange Adapters that can cancel several orders in one request, or send the requests in
+   * parallel, override this. The default implementation calls {@link #cancelOrder(String, String)}
+   * for each order in turn.
+   *
+   * @param orderIds your order Ids.
+   * @param marketId the id of the market the orders were placed on, e.g. btc_usd
+   * @return the result for each order.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default List<OrderResult> cancelOrders(List<String> orderIds, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    final List<OrderResult> results = new ArrayList<>(orderIds.size());
+    for (final String orderId : orderIds) {
+      try {
+        results.add(
+            cancelOrder(orderId, marketId)
+                ? OrderResult.success(orderId)
+                : OrderResult.failure(orderId, null));
+      } catch (ExchangeNetworkException | TradingApiException e) {
+        results.add(OrderResult.failure(orderId, e));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Cancels all of your open orders for a given market, e.g. for an emergency unwind.
+   *
+   * <p>Orders on other markets are not cancelled. The default implementation fetches {@link
+   * #getYourOpenOrders(String)} and passes their ids to {@link #cancelOrders(List, String)}.
+   *
+   * @param marketId the id of the market.
+   * @return the result for each order that was open.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default List<OrderResult> cancelAllOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    final List<OpenOrder> openOrders = getYourOpenOrders(marketId);
+    final List<String> orderIds = new ArrayList<>(openOrders.size());
+    for (final OpenOrder openOrder : openOrders) {
+      orderIds.add(openOrder.getId());
+    }
+    return cancelOrders(orderIds, marketId);
+  }
+
   /**
    * Fetches the latest price for a given market. This is usually in BTC for altcoin markets and USD
    * for BTC/USD markets - see the Exchange Adapter documentation.
@@ -173,6 +373,30 @@ public interface TradingApi {
    */
   BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Fetches the balance of your wallets on the exchange.
+   *
+   * <p>Exchange Adapters may cache the balances for a short time. Pass forceRefresh true when a
+   * cached balance is not good enough, e.g. for the Emergency Stop check. The default
+   * implementation calls {@link #getBalanceInfo()}.
+   *
+   * @param forceRefresh true to always fetch the balances from the exchange.
+   * @return your wallet balance info.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default BalanceInfo getBalanceInfo(boolean forceRefresh)
+      throws ExchangeNetworkException, TradingApiException {
+    return getBalanceInfo();
+  }
+
   /**
    * Returns the exchange BUY order fee for a given market id. The returned value is the % of the
    * BUY order that the exchange uses to calculate its fee as a {@link BigDecimal}. If the fee is
@@ -314,4 +538,63 @@ public interface TradingApi {
       }
     };
   }
+
+  /**
+   * Returns the exchange Tickers for several markets.
+   *
+   * <p>Exchange Adapters that can fetch the tickers for several markets in one request, or send
+   * the requests in parallel, override this. The default implementation calls {@link
+   * #getTicker(String)} for each market in turn.
+   *
+   * @param marketIds the ids of the markets.
+   * @return the exchange Ticker for each market, keyed by market id, in the order the market ids
+   *     were given.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.3
+   */
+  default Map<String, Ticker> getTickers(Collection<String> marketIds)
+      throws TradingApiException, ExchangeNetworkException {
+    final Map<String, Ticker> tickers = new LinkedHashMap<>();
+    for (final String marketId : marketIds) {
+      tickers.put(marketId, getTicker(marketId));
+    }
+    return tickers;
+  }
+
+  /**
+   * Returns the last known state of an order created through this Trading API.
+   *
+   * <p>The Trading Engine tracks the orders created by the Trading Strategies and reconciles them
+   * with the exchange's open orders once per trade cycle, so this is a lookup and does not call
+   * the exchange. The default implementation does not track orders and returns null.
+   *
+   * @param orderId the id of the order.
+   * @return the order, or null if it is not tracked.
+   * @since 1.3
+   */
+  default TrackedOrder getTrackedOrder(String orderId) {
+    return null;
+  }
+
+  /**
+   * Registers a listener for the state changes of the orders created through this Trading API,
+   * e.g. to be told when an order is filled.
+   *
+   * <p>The default implementation does not track orders; it ignores the listener and returns
+   * false.
+   *
+   * @param listener the listener.
+   * @return true if the listener was registered, false if this Trading API does not track orders.
+   * @since 1.3
+   */
+  default boolean addOrderListener(OrderListener listener) {
+    return false;
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the executor backed Async Trading API behaves as expected.
+ *
+ * @author gazbert
+ */
+class TestExecutorAsyncTradingApi {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final BigDecimal PRICE = new BigDecimal("9000.12");
+  private static final BigDecimal QUANTITY = new BigDecimal("0.01");
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void testCallsAreDelegatedToTradingApi() throws Exception {
+    final StubTradingApi tradingApi = new StubTradingApi(new CountDownLatch(0));
+    final AsyncTradingApi asyncApi = new ExecutorAsyncTradingApi(tradingApi, executor);
+
+    assertEquals(PRICE, asyncApi.getLatestMarketPriceAsync(MARKET_ID).get(5, TimeUnit.SECONDS));
+    assertEquals(
+        "order-1",
+        asyncApi
+            .createOrderAsync(MARKET_ID, OrderType.BUY, QUANTITY, PRICE)
+            .get(5, TimeUnit.SECONDS));
+    assertTrue(asyncApi.cancelOrderAsync("order-1", MARKET_ID).get(5, TimeUnit.SECONDS));
+    assertTrue(asyncApi.getYourOpenOrdersAsync(MARKET_ID).get(5, TimeUnit.SECONDS).isEmpty());
+  }
+
+  @Test
+  void testReadsAreMadeConcurrently() throws Exception {
+    // Each call blocks until both calls have started, so they can only complete if run together.
+    final CountDownLatch bothCallsStarted = new CountDownLatch(2);
+    final StubTradingApi tradingApi = new StubTradingApi(bothCallsStarted);
+    final AsyncTradingApi asyncApi = new ExecutorAsyncTradingApi(tradingApi, executor);
+
+    final CompletableFuture<MarketOrderBook> orderBook = asyncApi.getMarketOrdersAsync(MARKET_ID);
+    final CompletableFuture<BigDecimal> price = asyncApi.getLatestMarketPriceAsync(MARKET_ID);
+    CompletableFuture.allOf(orderBook, price).get(5, TimeUnit.SECONDS);
+
+    assertEquals(PRICE, price.get());
+  }
+
+  @Test
+  void testFailedCallCompletesExceptionallyWithSameException() {
+    final StubTradingApi tradingApi = new StubTradingApi(new CountDownLatch(0));
+    final AsyncTradingApi asyncApi = new ExecutorAsyncTradingApi(tradingApi, executor);
+
+    final CompletableFuture<BalanceInfo> balanceInfo = asyncApi.getBalanceInfoAsync();
+
+    final ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> balanceInfo.get(5, TimeUnit.SECONDS));
+    assertSame(tradingApi.networkException, exception.getCause());
+    assertTrue(balanceInfo.isCompletedExceptionally());
+  }
+
+  @Test
+  void testRejectedCallCompletesExceptionally() {
+    final StubTradingApi tradingApi = new StubTradingApi(new CountDownLatch(0));
+    final AsyncTradingApi asyncApi =
+        new ExecutorAsyncTradingApi(
+            tradingApi,
+            runnable -> {
+              throw new RejectedExecutionException("full");
+            });
+
+    final CompletableFuture<Ticker> ticker = asyncApi.getTickerAsync(MARKET_ID);
+
+    assertTrue(ticker.isCompletedExceptionally());
+    assertFalse(ticker.isCancelled());
+  }
+
+  /** Test class. */
+  static class StubTradingApi implements TradingApi {
+
+    private final CountDownLatch callsStarted;
+    private final ExchangeNetworkException networkException =
+        new ExchangeNetworkException("Connection reset");
+
+    StubTradingApi(CountDownLatch callsStarted) {
+      this.callsStarted = callsStarted;
+    }
+
+    @Override
+    public String getImplName() {
+      return "stub";
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException {
+      awaitOtherCalls();
+      return null;
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) {
+      return List.of();
+    }
+
+    @Override
+    public String createOrder(
+        String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+      return "order-1";
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) {
+      return true;
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws TradingApiException {
+      awaitOtherCalls();
+      return PRICE;
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException {
+      throw networkException;
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+      return null;
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+      return null;
+    }
+
+    private void awaitOtherCalls() throws TradingApiException {
+      callsStarted.countDown();
+      try {
+        if (!callsStarted.await(5, TimeUnit.SECONDS)) {
+          throw new TradingApiException("Calls were not made concurrently");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new TradingApiException("Interrupted", e);
+      }
+    }
+  }
+}
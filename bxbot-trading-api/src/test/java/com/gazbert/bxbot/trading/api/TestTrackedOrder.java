@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2022 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TrackedOrder and OrderState behave as expected.
+ *
+ * @author gazbert
+ */
+class TestTrackedOrder {
+
+  private static final BigDecimal PRICE = new BigDecimal("250.12");
+  private static final BigDecimal QUANTITY = new BigDecimal("0.5");
+
+  @Test
+  void testWithStateKeepsOrderDetails() {
+    final TrackedOrder order =
+        new TrackedOrder(
+            "order-1", "btcusd", OrderType.BUY, PRICE, QUANTITY, QUANTITY, OrderState.NEW);
+
+    final TrackedOrder partialOrder = order.withState(OrderState.PARTIAL, new BigDecimal("0.2"));
+    assertEquals("order-1", partialOrder.getOrderId());
+    assertEquals("btcusd", partialOrder.getMarketId());
+    assertSame(OrderType.BUY, partialOrder.getOrderType());
+    assertEquals(PRICE, partialOrder.getPrice());
+    assertEquals(QUANTITY, partialOrder.getOriginalQuantity());
+    assertEquals(new BigDecimal("0.2"), partialOrder.getRemainingQuantity());
+    assertSame(OrderState.PARTIAL, partialOrder.getState());
+
+    assertSame(OrderState.NEW, order.getState());
+    assertEquals(QUANTITY, order.getRemainingQuantity());
+  }
+
+  @Test
+  void testToStringIncludesState() {
+    final TrackedOrder order =
+        new TrackedOrder(
+            "order-1",
+            "btcusd",
+            OrderType.SELL,
+            PRICE,
+            QUANTITY,
+            BigDecimal.ZERO,
+            OrderState.FILLED);
+    assertTrue(order.toString().contains("orderId=order-1"));
+    assertTrue(order.toString().contains("state=FILLED"));
+  }
+
+  @Test
+  void testOnlyFilledAndCancelledOrdersAreFinished() {
+    assertFalse(OrderState.NEW.isFinished());
+    assertFalse(OrderState.PARTIAL.isFinished());
+    assertTrue(OrderState.FILLED.isFinished());
+    assertTrue(OrderState.CANCELLED.isFinished());
+  }
+}
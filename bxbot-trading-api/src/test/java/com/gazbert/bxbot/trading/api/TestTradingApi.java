@@ -24,11 +24,16 @@
 package com.gazbert.bxbot.trading.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -61,6 +66,37 @@ class TestTradingApi {
     assertNull(ticker.getTimestamp());
   }
 
+  @Test
+  void testGetTickersFetchesEachMarket() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    final Map<String, Ticker> tickers = myApi.getTickers(List.of("market-2", "market-1"));
+    assertEquals(List.of("market-2", "market-1"), List.copyOf(tickers.keySet()));
+    assertNotNull(tickers.get("market-1"));
+    assertNull(tickers.get("market-2").getLast());
+  }
+
+  @Test
+  void testGetBalanceInfoWithForceRefreshFetchesBalance() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    assertNull(myApi.getBalanceInfo(true));
+  }
+
+  @Test
+  void testCreateOrderWithClientOrderIdIgnoresIdByDefault() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    assertEquals(
+        "order-1",
+        myApi.createOrder(
+            "market-123", OrderType.BUY, BigDecimal.ONE, BigDecimal.ONE, "client-1"));
+  }
+
+  @Test
+  void testOrdersAreNotTrackedByDefault() {
+    final MyApiImpl myApi = new MyApiImpl();
+    assertNull(myApi.getTrackedOrder("order-1"));
+    assertFalse(myApi.addOrderListener(order -> {}));
+  }
+
   @Test
   public void testGetMinOrder() throws Exception {
     final MyApiImpl myApi = new MyApiImpl();
@@ -68,9 +104,173 @@ class TestTradingApi {
     assertNull(minimumOrderVolume);
   }
 
+  @Test
+  void testGetMarketOrdersWithDepthTruncatesFullOrderBook() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    myApi.marketOrderBook =
+        createMarketOrderBook(
+            List.of(createMarketOrder("101"), createMarketOrder("102"), createMarketOrder("103")),
+            List.of(createMarketOrder("99")));
+
+    final MarketOrderBook orderBook = myApi.getMarketOrders("market-123", 2);
+    assertEquals("market-123", orderBook.getMarketId());
+    assertEquals(2, orderBook.getSellOrders().size());
+    assertEquals(new BigDecimal("101"), orderBook.getSellOrders().get(0).getPrice());
+    assertEquals(new BigDecimal("102"), orderBook.getSellOrders().get(1).getPrice());
+    assertEquals(1, orderBook.getBuyOrders().size());
+
+    assertThrows(IllegalArgumentException.class, () -> myApi.getMarketOrders("market-123", 0));
+  }
+
+  @Test
+  void testCreateOrdersReportsEachOrder() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    final List<OrderResult> results =
+        myApi.createOrders(
+            List.of(
+                new OrderRequest("market-123", OrderType.BUY, BigDecimal.ONE, new BigDecimal("10")),
+                new OrderRequest("market-123", OrderType.BUY, BigDecimal.ONE, BigDecimal.ZERO),
+                new OrderRequest(
+                    "market-123", OrderType.SELL, BigDecimal.ONE, new BigDecimal("11"))));
+
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals("order-10", results.get(0).getOrderId());
+    assertNull(results.get(0).getFailure());
+
+    assertFalse(results.get(1).isSuccessful());
+    assertNull(results.get(1).getOrderId());
+    assertTrue(results.get(1).getFailure() instanceof TradingApiException);
+
+    assertTrue(results.get(2).isSuccessful());
+    assertEquals("order-11", results.get(2).getOrderId());
+    assertTrue(results.get(2).toString().contains("orderId=order-11"));
+  }
+
+  @Test
+  void testOrderRequestToString() {
+    final OrderRequest orderRequest =
+        new OrderRequest("market-123", OrderType.SELL, BigDecimal.ONE, new BigDecimal("11"));
+    assertEquals(
+        "OrderRequest{marketId=market-123, orderType=SELL, quantity=1, price=11}",
+        orderRequest.toString());
+  }
+
+  @Test
+  void testCancelAllOrdersCancelsEachOpenOrder() throws Exception {
+    final MyApiImpl myApi = new MyApiImpl();
+    myApi.openOrders =
+        List.of(createOpenOrder("cancelled"), createOpenOrder("refused"), createOpenOrder("lost"));
+
+    final List<OrderResult> results = myApi.cancelAllOrders("market-123");
+
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals("cancelled", results.get(0).getOrderId());
+
+    assertFalse(results.get(1).isSuccessful());
+    assertEquals("refused", results.get(1).getOrderId());
+    assertNull(results.get(1).getFailure());
+
+    assertFalse(results.get(2).isSuccessful());
+    assertEquals("lost", results.get(2).getOrderId());
+    assertTrue(results.get(2).getFailure() instanceof ExchangeNetworkException);
+  }
+
+  private static MarketOrderBook createMarketOrderBook(
+      List<MarketOrder> sellOrders, List<MarketOrder> buyOrders) {
+    return new MarketOrderBook() {
+      @Override
+      public String getMarketId() {
+        return "market-123";
+      }
+
+      @Override
+      public List<MarketOrder> getSellOrders() {
+        return sellOrders;
+      }
+
+      @Override
+      public List<MarketOrder> getBuyOrders() {
+        return buyOrders;
+      }
+    };
+  }
+
+  private static MarketOrder createMarketOrder(String price) {
+    return new MarketOrder() {
+      @Override
+      public OrderType getType() {
+        return null;
+      }
+
+      @Override
+      public BigDecimal getPrice() {
+        return new BigDecimal(price);
+      }
+
+      @Override
+      public BigDecimal getQuantity() {
+        return BigDecimal.ONE;
+      }
+
+      @Override
+      public BigDecimal getTotal() {
+        return getPrice();
+      }
+    };
+  }
+
+  private static OpenOrder createOpenOrder(String id) {
+    return new OpenOrder() {
+      @Override
+      public String getId() {
+        return id;
+      }
+
+      @Override
+      public Date getCreationDate() {
+        return null;
+      }
+
+      @Override
+      public String getMarketId() {
+        return "market-123";
+      }
+
+      @Override
+      public OrderType getType() {
+        return OrderType.BUY;
+      }
+
+      @Override
+      public BigDecimal getPrice() {
+        return BigDecimal.ONE;
+      }
+
+      @Override
+      public BigDecimal getQuantity() {
+        return BigDecimal.ONE;
+      }
+
+      @Override
+      public BigDecimal getOriginalQuantity() {
+        return BigDecimal.ONE;
+      }
+
+      @Override
+      public BigDecimal getTotal() {
+        return BigDecimal.ONE;
+      }
+    };
+  }
+
   /** Test class. */
   class MyApiImpl implements TradingApi {
 
+    private MarketOrderBook marketOrderBook;
+    private List<OpenOrder> openOrders;
+
     @Override
     public String getImplName() {
       return null;
@@ -78,23 +278,31 @@ class TestTradingApi {
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) {
-      return null;
+      return marketOrderBook;
     }
 
     @Override
     public List<OpenOrder> getYourOpenOrders(String marketId) {
-      return null;
+      return openOrders;
     }
 
     @Override
     public String createOrder(
-        String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
-      return null;
+        String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+        throws TradingApiException {
+      if (price.signum() == 0) {
+        throw new TradingApiException("Invalid price");
+      }
+      return "order-" + price;
     }
 
     @Override
-    public boolean cancelOrder(String orderId, String marketId) {
-      return false;
+    public boolean cancelOrder(String orderId, String marketId)
+        throws ExchangeNetworkException {
+      if ("lost".equals(orderId)) {
+        throw new ExchangeNetworkException("Connection reset");
+      }
+      return "cancelled".equals(orderId);
     }
 
     @Override
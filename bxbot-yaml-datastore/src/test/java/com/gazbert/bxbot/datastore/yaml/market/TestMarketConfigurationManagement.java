@@ -26,6 +26,7 @@ package com.gazbert.bxbot.datastore.yaml.market;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -80,6 +81,7 @@ class TestMarketConfigurationManagement {
     assertEquals("USD", marketsType.getMarkets().get(0).getCounterCurrency());
     assertTrue(marketsType.getMarkets().get(0).isEnabled());
     assertEquals("scalping-strategy", marketsType.getMarkets().get(0).getTradingStrategyId());
+    assertEquals(Integer.valueOf(2), marketsType.getMarkets().get(0).getTradeCycleInterval());
 
     assertEquals("ltc_usd", marketsType.getMarkets().get(1).getId());
     assertEquals("LTC/BTC", marketsType.getMarkets().get(1).getName());
@@ -87,6 +89,7 @@ class TestMarketConfigurationManagement {
     assertEquals("BTC", marketsType.getMarkets().get(1).getCounterCurrency());
     assertFalse(marketsType.getMarkets().get(1).isEnabled());
     assertEquals("scalping-strategy", marketsType.getMarkets().get(1).getTradingStrategyId());
+    assertNull(marketsType.getMarkets().get(1).getTradeCycleInterval());
   }
 
   @Test